@@ -0,0 +1,93 @@
+package com.mikhail.tarasevich.eventmanager.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the single auto-configured pool with a primary and replica pools when replica URLs are configured.
+ * Replicas share the credentials of spring.datasource. The primary pool takes its settings from
+ * spring.datasource.hikari, as the auto-configured pool would. Replica pools take them from
+ * spring.datasource.hikari too, overridden by spring.datasource.replica.hikari.
+ */
+@Configuration
+@ConditionalOnExpression("!'${datasource_replica_urls:}'.isBlank()")
+public class DataSourceConfig {
+
+    private static final String HIKARI_PREFIX = "spring.datasource.hikari";
+
+    private static final String REPLICA_HIKARI_PREFIX = "spring.datasource.replica.hikari";
+
+    @Bean
+    @ConfigurationProperties(HIKARI_PREFIX)
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+
+        return primary;
+    }
+
+    @Bean
+    public ReadWriteRoutingDataSource routingDataSource(DataSourceProperties properties,
+                                                        HikariDataSource primaryDataSource,
+                                                        Environment environment,
+                                                        @Value("${datasource_replica_urls}") List<String> replicaUrls,
+                                                        @Value("${datasource_read_your_writes_seconds:5}") long readYourWritesSeconds,
+                                                        @Value("${datasource_replica_ejection_seconds:30}") long ejectionSeconds) {
+
+        Binder binder = Binder.get(environment);
+        List<DataSource> replicas = new ArrayList<>();
+
+        for (String url : replicaUrls) {
+            HikariDataSource replica = properties.initializeDataSourceBuilder().type(HikariDataSource.class)
+                    .url(url.trim())
+                    .build();
+
+            binder.bind(HIKARI_PREFIX, Bindable.ofInstance(replica));
+            binder.bind(REPLICA_HIKARI_PREFIX, Bindable.ofInstance(replica));
+
+            replica.setPoolName("replica-" + replicas.size());
+            replica.setReadOnly(true);
+            // an unreachable replica must not fail the startup, it is ejected on the first failed connection instead
+            replica.setInitializationFailTimeout(-1);
+            replicas.add(replica);
+        }
+
+        return new ReadWriteRoutingDataSource(primaryDataSource, replicas, Duration.ofSeconds(readYourWritesSeconds),
+                Duration.ofSeconds(ejectionSeconds), Clock.systemUTC());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    // a connection is routed when a transaction takes it. An EntityManager that outlives a transaction would hold
+    // on to it, and a write after a read-only lookup would go to the replica, so it is released at every commit
+    @Bean
+    public HibernatePropertiesCustomizer connectionPerTransactionCustomizer() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+}
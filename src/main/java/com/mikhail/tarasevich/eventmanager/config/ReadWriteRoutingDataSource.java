@@ -0,0 +1,213 @@
+package com.mikhail.tarasevich.eventmanager.config;
+
+import com.mikhail.tarasevich.eventmanager.security.UserSecurityDetails;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Sends connections of read-only transactions to the replicas in round robin and everything else to the primary.
+ * Must be wrapped into a {@link LazyConnectionDataSourceProxy}, so the connection is taken after the transaction
+ * has been marked read-only.
+ * <p>
+ * A user who committed a read-write transaction reads from the primary during the read-your-writes window, so
+ * replication lag never hides their own changes. Only the writing user is covered: other users may read a replica
+ * that is behind for as long as replication lags, so a read-only transaction must be fine with slightly old data.
+ * Reads a write depends on, such as permission checks, belong in read-write transactions, which use the primary.
+ * A replica that fails to hand out a connection is ejected for the ejection period and its reads go to the other
+ * replicas, or to the primary when none is left.
+ */
+public class ReadWriteRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    // above this size expired entries are dropped from the last write times
+    private static final int LAST_WRITES_PRUNE_SIZE = 10000;
+
+    private final DataSource primary;
+
+    private final List<Replica> replicas = new ArrayList<>();
+
+    private final Duration readYourWritesWindow;
+
+    private final Duration ejectionPeriod;
+
+    private final Clock clock;
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    private final Map<Integer, Instant> lastWrites = new ConcurrentHashMap<>();
+
+    private final Object writeTrackingKey = new Object();
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<? extends DataSource> replicas,
+                                      Duration readYourWritesWindow, Duration ejectionPeriod, Clock clock) {
+        this.primary = primary;
+        replicas.forEach(replica -> this.replicas.add(new Replica(replica)));
+        this.readYourWritesWindow = readYourWritesWindow;
+        this.ejectionPeriod = ejectionPeriod;
+        this.clock = clock;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    // the pools themselves, package-private for the checks of their configuration
+    DataSource getPrimary() {
+        return primary;
+    }
+
+    List<DataSource> getReplicas() {
+        return replicas.stream().map(replica -> replica.dataSource).collect(Collectors.toList());
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        if (primary instanceof Closeable) {
+            ((Closeable) primary).close();
+        }
+
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof Closeable) {
+                ((Closeable) replica.dataSource).close();
+            }
+        }
+    }
+
+    private Connection route(ConnectionSource source) throws SQLException {
+
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return source.connect(primary);
+        }
+
+        Integer userId = currentUserId();
+
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            trackWrite(userId);
+            return source.connect(primary);
+        }
+
+        if (userId != null && wroteRecently(userId)) {
+            return source.connect(primary);
+        }
+
+        return replicaConnection(source);
+    }
+
+    private Connection replicaConnection(ConnectionSource source) throws SQLException {
+
+        Instant now = clock.instant();
+
+        for (int attempt = 0; attempt < replicas.size(); attempt++) {
+            Replica replica = replicas.get(Math.floorMod(nextReplica.getAndIncrement(), replicas.size()));
+
+            if (now.isBefore(replica.ejectedUntil)) {
+                continue;
+            }
+
+            try {
+                return source.connect(replica.dataSource);
+            } catch (SQLException e) {
+                replica.ejectedUntil = now.plus(ejectionPeriod);
+            }
+        }
+
+        return source.connect(primary);
+    }
+
+    private void trackWrite(Integer userId) {
+
+        if (userId == null || !TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(writeTrackingKey)) {
+            return;
+        }
+
+        TransactionSynchronizationManager.bindResource(writeTrackingKey, userId);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+            @Override
+            public void afterCommit() {
+                recordWrite(userId);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(writeTrackingKey);
+            }
+
+        });
+    }
+
+    private void recordWrite(int userId) {
+
+        Instant now = clock.instant();
+
+        if (lastWrites.size() > LAST_WRITES_PRUNE_SIZE) {
+            lastWrites.values().removeIf(time -> time.plus(readYourWritesWindow).isBefore(now));
+        }
+
+        lastWrites.put(userId, now);
+    }
+
+    private boolean wroteRecently(int userId) {
+
+        Instant lastWrite = lastWrites.get(userId);
+
+        return lastWrite != null && clock.instant().isBefore(lastWrite.plus(readYourWritesWindow));
+    }
+
+    private static Integer currentUserId() {
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (authentication != null && authentication.getPrincipal() instanceof UserSecurityDetails) {
+            return ((UserSecurityDetails) authentication.getPrincipal()).getId();
+        }
+
+        return null;
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+
+        Connection connect(DataSource dataSource) throws SQLException;
+
+    }
+
+    private static class Replica {
+
+        private final DataSource dataSource;
+
+        private volatile Instant ejectedUntil = Instant.MIN;
+
+        private Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+    }
+
+}
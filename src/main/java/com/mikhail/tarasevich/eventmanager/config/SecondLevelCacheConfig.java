@@ -0,0 +1,86 @@
+package com.mikhail.tarasevich.eventmanager.config;
+
+import org.ehcache.config.CacheConfiguration;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Local Ehcache regions of the Hibernate second-level and query caches, handed to Hibernate through JCache.
+ * Every region is declared here with its size limit, Hibernate refuses to start when an entity is mapped to a
+ * missing region. Hits, misses and evictions of each region are published as JCache statistics MXBeans.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    public static final String ROLES_REGION = "roles";
+
+    public static final String PRIVILEGES_REGION = "privileges";
+
+    public static final String USERS_REGION = "users";
+
+    public static final String EVENTS_REGION = "events";
+
+    // roles, privileges and update timestamps of the tables are a handful of entries that never expire
+    private static final long REFERENCE_REGION_SIZE = 100;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager(@Value("${second_level_cache_max_size:10000}") long maxSize,
+                                                @Value("${second_level_cache_ttl_minutes:10}") long ttlMinutes,
+                                                @Value("${query_cache_max_size:1000}") long queryCacheMaxSize) {
+
+        Duration ttl = Duration.ofMinutes(ttlMinutes);
+        Map<String, CacheConfiguration<Object, Object>> regions = Map.of(
+                ROLES_REGION, region(REFERENCE_REGION_SIZE, null),
+                PRIVILEGES_REGION, region(REFERENCE_REGION_SIZE, null),
+                USERS_REGION, region(maxSize, ttl),
+                EVENTS_REGION, region(maxSize, ttl),
+                RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, region(queryCacheMaxSize, ttl),
+                RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, region(REFERENCE_REGION_SIZE, null));
+
+        ConfigurationBuilder configuration = ConfigurationBuilder.newConfigurationBuilder();
+
+        for (Map.Entry<String, CacheConfiguration<Object, Object>> region : regions.entrySet()) {
+            configuration = configuration.withCache(region.getKey(), region.getValue());
+        }
+
+        EhcacheCachingProvider provider =
+                (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        // the provider shares a manager per URI, a unique one keeps the entries of two application contexts apart
+        CacheManager cacheManager = provider.getCacheManager(
+                URI.create("urn:second-level-cache:" + UUID.randomUUID()), configuration.build());
+
+        regions.keySet().forEach(region -> cacheManager.enableStatistics(region, true));
+
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+    }
+
+    private static CacheConfiguration<Object, Object> region(long maxEntries, Duration ttl) {
+
+        CacheConfigurationBuilder<Object, Object> region = CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntries));
+
+        return ttl == null ? region.build() : region.withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(ttl)).build();
+    }
+
+}
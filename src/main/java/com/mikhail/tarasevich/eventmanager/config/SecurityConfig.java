@@ -5,6 +5,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
@@ -54,6 +55,8 @@ public class SecurityConfig {
                 .authorizeRequests()
                 .antMatchers(AUTH_WHITELIST).permitAll()
                 .antMatchers("/api/v1/auth/registration/**", "/api/v1/auth/login").permitAll()
+                .antMatchers(HttpMethod.GET, "/api/v1/event/catalog").permitAll()
+                .antMatchers(HttpMethod.GET, "/api/v1/event/{id:\\d+}").permitAll()
                 .anyRequest().authenticated()
                 .and()
                 .exceptionHandling()
@@ -5,6 +5,7 @@ import com.mikhail.tarasevich.eventmanager.dto.LoginResponse;
 import com.mikhail.tarasevich.eventmanager.dto.UserRequest;
 import com.mikhail.tarasevich.eventmanager.dto.UserResponse;
 import com.mikhail.tarasevich.eventmanager.security.JWTUtil;
+import com.mikhail.tarasevich.eventmanager.security.UserSecurityDetails;
 import com.mikhail.tarasevich.eventmanager.service.UserService;
 import com.mikhail.tarasevich.eventmanager.service.exception.AuthenticationDataException;
 import com.mikhail.tarasevich.eventmanager.service.exception.UserNotValidDataException;
@@ -16,6 +17,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -32,12 +35,15 @@ public class AuthController {
     private final JWTUtil jwtUtil;
     private final UserService userService;
     private final AuthenticationManager authenticationManager;
+    private final UserDetailsService userDetailsService;
 
     @Autowired
-    public AuthController(JWTUtil jwtUtil, UserService userService, AuthenticationManager authenticationManager) {
+    public AuthController(JWTUtil jwtUtil, UserService userService, AuthenticationManager authenticationManager,
+                          UserDetailsService userDetailsService) {
         this.jwtUtil = jwtUtil;
         this.userService = userService;
         this.authenticationManager = authenticationManager;
+        this.userDetailsService = userDetailsService;
     }
 
     @PostMapping("/registration/manager")
@@ -50,7 +56,8 @@ public class AuthController {
 
         UserResponse userResponse = userService.createManager(userRequest);
 
-        String token = jwtUtil.generateToken(userResponse.getEmail());
+        String token = jwtUtil.generateToken(
+                (UserSecurityDetails) userDetailsService.loadUserByUsername(userResponse.getEmail()));
 
         return LoginResponse.builder().withToken(token).build();
     }
@@ -65,7 +72,8 @@ public class AuthController {
 
         UserResponse userResponse = userService.createParticipant(userRequest);
 
-        String token = jwtUtil.generateToken(userResponse.getEmail());
+        String token = jwtUtil.generateToken(
+                (UserSecurityDetails) userDetailsService.loadUserByUsername(userResponse.getEmail()));
 
         return LoginResponse.builder().withToken(token).build();
     }
@@ -81,13 +89,15 @@ public class AuthController {
         UsernamePasswordAuthenticationToken authInputToken =
                 new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword());
 
+        Authentication authentication;
+
         try {
-            authenticationManager.authenticate(authInputToken);
+            authentication = authenticationManager.authenticate(authInputToken);
         } catch (BadCredentialsException e) {
             throw new AuthenticationDataException("Incorrect credentials. Try login again.");
         }
 
-        String token = jwtUtil.generateToken(request.getEmail());
+        String token = jwtUtil.generateToken((UserSecurityDetails) authentication.getPrincipal());
 
         return LoginResponse.builder().withToken(token).build();
     }
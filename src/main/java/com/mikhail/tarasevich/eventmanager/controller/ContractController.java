@@ -1,11 +1,17 @@
 package com.mikhail.tarasevich.eventmanager.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mikhail.tarasevich.eventmanager.dto.ContractResponse;
+import com.mikhail.tarasevich.eventmanager.dto.PageResponse;
+import com.mikhail.tarasevich.eventmanager.security.UserSecurityDetails;
 import com.mikhail.tarasevich.eventmanager.service.ContractService;
+import com.mikhail.tarasevich.eventmanager.util.StreamingExport;
 import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -14,11 +20,12 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import springfox.documentation.annotations.ApiIgnore;
 
 import java.security.Principal;
-import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/contract")
@@ -27,44 +34,60 @@ public class ContractController {
 
     private final ContractService contractService;
 
+    private final ObjectMapper objectMapper;
+
     @Autowired
-    public ContractController(ContractService contractService) {
+    public ContractController(ContractService contractService, ObjectMapper objectMapper) {
         this.contractService = contractService;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping("/pending")
     @PreAuthorize("hasAuthority('PRIVILEGE_APP_ADMIN')")
-    List<ContractResponse> showPendingContracts() {
+    PageResponse<ContractResponse> showPendingContracts(@ApiParam(value = "ID последней записи предыдущей страницы", example = "0") @RequestParam(value = "after", defaultValue = "0") int after,
+                                                    @ApiParam(value = "Количество записей на странице, не больше 500", example = "50") @RequestParam(value = "limit", defaultValue = "50") int limit) {
 
-        return contractService.findPendingContracts();
+        return contractService.findPendingContracts(after, limit);
     }
 
     @GetMapping("/rejected")
     @PreAuthorize("hasAuthority('PRIVILEGE_APP_ADMIN')")
-    List<ContractResponse> showRejectedContracts() {
+    PageResponse<ContractResponse> showRejectedContracts(@ApiParam(value = "ID последней записи предыдущей страницы", example = "0") @RequestParam(value = "after", defaultValue = "0") int after,
+                                                    @ApiParam(value = "Количество записей на странице, не больше 500", example = "50") @RequestParam(value = "limit", defaultValue = "50") int limit) {
 
-        return contractService.findRejectedContracts();
+        return contractService.findRejectedContracts(after, limit);
     }
 
     @GetMapping("/accepted")
     @PreAuthorize("hasAuthority('PRIVILEGE_APP_ADMIN')")
-    List<ContractResponse> showAcceptedContracts() {
+    PageResponse<ContractResponse> showAcceptedContracts(@ApiParam(value = "ID последней записи предыдущей страницы", example = "0") @RequestParam(value = "after", defaultValue = "0") int after,
+                                                    @ApiParam(value = "Количество записей на странице, не больше 500", example = "50") @RequestParam(value = "limit", defaultValue = "50") int limit) {
+
+        return contractService.findAcceptedContracts(after, limit);
+    }
+
+    @GetMapping("/accepted/export")
+    @PreAuthorize("hasAuthority('PRIVILEGE_APP_ADMIN')")
+    @ApiOperation(value = "Выгрузить все принятые контракты одним JSON массивом", notes = "Доступно только для администратора приложения")
+    ResponseEntity<StreamingResponseBody> exportAcceptedContracts() {
 
-        return contractService.findAcceptedContracts();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> StreamingExport.writeJsonArray(out, objectMapper, contractService::exportAcceptedContracts));
     }
 
     @PostMapping("/")
     @PreAuthorize("hasAuthority('PRIVILEGE_EVENT_CREATOR')")
     ContractResponse createNewContract(@ApiIgnore Principal user) {
 
-        return contractService.createContract(user.getName());
+        return contractService.createContract(UserSecurityDetails.from(user).getId());
     }
 
     @GetMapping("/manager/valid")
     @PreAuthorize("hasAuthority('PRIVILEGE_EVENT_CREATOR')")
     ResponseEntity<String> hasMangerAcceptedContract(@ApiIgnore Principal user) {
 
-        if (contractService.hasUserAcceptedContract(user.getName())) {
+        if (contractService.hasUserAcceptedContract(UserSecurityDetails.from(user).getId())) {
             return ResponseEntity.status(HttpStatus.OK).body("Manger with email = " + user.getName() + " has accepted contract");
         } else {
             return ResponseEntity.status(HttpStatus.OK).body("Manger with email = " + user.getName() + " has no accepted contract");
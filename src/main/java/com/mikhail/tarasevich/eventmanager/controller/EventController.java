@@ -1,27 +1,45 @@
 package com.mikhail.tarasevich.eventmanager.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mikhail.tarasevich.eventmanager.dto.EventCatalogRequest;
+import com.mikhail.tarasevich.eventmanager.dto.EventImportResponse;
 import com.mikhail.tarasevich.eventmanager.dto.EventRequest;
 import com.mikhail.tarasevich.eventmanager.dto.EventResponse;
+import com.mikhail.tarasevich.eventmanager.dto.PageResponse;
+import com.mikhail.tarasevich.eventmanager.dto.PublicEventResponse;
+import com.mikhail.tarasevich.eventmanager.security.UserSecurityDetails;
 import com.mikhail.tarasevich.eventmanager.service.EventService;
+import com.mikhail.tarasevich.eventmanager.service.IdempotencyService;
 import com.mikhail.tarasevich.eventmanager.service.exception.EventNotValidDataException;
 import com.mikhail.tarasevich.eventmanager.util.BindingResultValidator;
+import com.mikhail.tarasevich.eventmanager.util.EventCatalogSort;
+import com.mikhail.tarasevich.eventmanager.util.EventImportReader;
 import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import springfox.documentation.annotations.ApiIgnore;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
 import java.util.List;
 
@@ -32,27 +50,96 @@ public class EventController {
 
     private final EventService eventService;
 
+    private final IdempotencyService idempotencyService;
+
+    private final ObjectMapper objectMapper;
+
     @Autowired
-    public EventController(EventService eventService) {
+    public EventController(EventService eventService, IdempotencyService idempotencyService, ObjectMapper objectMapper) {
         this.eventService = eventService;
+        this.idempotencyService = idempotencyService;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping("/")
     @PreAuthorize("hasAuthority('PRIVILEGE_EVENT_CREATOR')")
-    List<EventResponse> showAllMangerEvents(@ApiIgnore Principal user) {
+    PageResponse<EventResponse> showAllMangerEvents(@ApiIgnore Principal user,
+                                                    @ApiParam(value = "ID последней записи предыдущей страницы", example = "0") @RequestParam(value = "after", defaultValue = "0") int after,
+                                                    @ApiParam(value = "Количество записей на странице, не больше 500", example = "50") @RequestParam(value = "limit", defaultValue = "50") int limit) {
+
+        return eventService.findAllMangerEvents(UserSecurityDetails.from(user).getId(), after, limit);
+    }
+
+    @GetMapping("/search")
+    @PreAuthorize("hasAuthority('PRIVILEGE_PARTICIPANT')")
+    @ApiOperation(value = "Найти события по словам из названия и описания",
+            notes = "Находятся события, в которых есть все слова запроса. Сначала идут лучшие совпадения")
+    PageResponse<EventResponse> searchEvents(@ApiParam(value = "Слова для поиска, не больше 10", example = "концерт джаз", required = true) @RequestParam("query") String query,
+                                             @ApiParam(value = "Количество уже полученных результатов, nextCursor предыдущей страницы", example = "0") @RequestParam(value = "after", defaultValue = "0") int after,
+                                             @ApiParam(value = "Количество записей на странице, не больше 500", example = "50") @RequestParam(value = "limit", defaultValue = "50") int limit) {
+
+        return eventService.searchEvents(query, after, limit);
+    }
+
+    @GetMapping("/catalog")
+    @ApiOperation(value = "Каталог событий с отбором по цене, организатору и началу названия",
+            notes = "Доступен без аутентификации, организаторы указаны только по ID. Для следующей страницы передаются nextCursor и, при сортировке по цене, цена последнего события")
+    PageResponse<PublicEventResponse> showCatalog(@ApiParam(value = "Минимальная цена", example = "100") @RequestParam(value = "minPrice", required = false) Integer minPrice,
+                                                  @ApiParam(value = "Максимальная цена", example = "500") @RequestParam(value = "maxPrice", required = false) Integer maxPrice,
+                                                  @ApiParam(value = "ID организатора", example = "2") @RequestParam(value = "ownerId", required = false) Integer ownerId,
+                                                  @ApiParam(value = "Начало названия, с учётом регистра", example = "Con") @RequestParam(value = "namePrefix", required = false) String namePrefix,
+                                                  @ApiParam(value = "Порядок: NEWEST, PRICE_ASC или PRICE_DESC", example = "PRICE_ASC") @RequestParam(value = "sort", defaultValue = "NEWEST") EventCatalogSort sort,
+                                                  @ApiParam(value = "ID последней записи предыдущей страницы", example = "7") @RequestParam(value = "after", required = false) Integer after,
+                                                  @ApiParam(value = "Цена последней записи предыдущей страницы, нужна при сортировке по цене", example = "150") @RequestParam(value = "afterPrice", required = false) Integer afterPrice,
+                                                  @ApiParam(value = "Количество записей на странице, не больше 500", example = "50") @RequestParam(value = "limit", defaultValue = "50") int limit) {
+
+        return eventService.findCatalogEvents(EventCatalogRequest.builder()
+                .withMinPrice(minPrice)
+                .withMaxPrice(maxPrice)
+                .withOwnerId(ownerId)
+                .withNamePrefix(namePrefix)
+                .withSort(sort)
+                .withAfter(after)
+                .withAfterPrice(afterPrice)
+                .withLimit(limit)
+                .build());
+    }
+
+    @GetMapping("/{id:\\d+}")
+    @ApiOperation(value = "Показать событие",
+            notes = "Доступно без аутентификации, организатор указан только по ID. Ответ берётся из кэша и может отставать от БД")
+    PublicEventResponse showEvent(@ApiParam(value = "ID события", example = "1") @PathVariable("id") int id) {
 
-        return eventService.findAllMangerEvents(user.getName());
+        return eventService.findEventById(id);
     }
 
     @PostMapping("/")
     @PreAuthorize("hasAuthority('PRIVILEGE_EVENT_CREATOR')")
     EventResponse createNewEvent(@ApiIgnore Principal user,
+                                 @ApiParam(value = "Ключ идемпотентности. Повторный запрос с тем же ключом возвращает сохранённый ответ") @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
                                  @ApiParam(value = "Данные о новом событии", required = true) @RequestBody @Valid EventRequest request,
                                  BindingResult bindingResult) {
 
         BindingResultValidator.checkErrorsInBindingResult(bindingResult, EventNotValidDataException.class);
 
-        return eventService.createNewEvent(user.getName(), request);
+        int managerId = UserSecurityDetails.from(user).getId();
+
+        return idempotencyService.execute(managerId, idempotencyKey, "POST /api/v1/event/", request, EventResponse.class,
+                () -> eventService.createNewEvent(managerId, request));
+    }
+
+    @PostMapping(value = "/import", consumes = {EventImportReader.CSV_VALUE, EventImportReader.NDJSON_VALUE})
+    @PreAuthorize("hasAuthority('PRIVILEGE_EVENT_CREATOR')")
+    @ApiOperation(value = "Импортировать события из CSV (колонки name, description, price) или NDJSON",
+            notes = "Строки с ошибками пропускаются. В ответе перечисляются первые 100 из них, остальные только подсчитываются")
+    EventImportResponse importEvents(@ApiIgnore Principal user,
+                                     @ApiIgnore @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                     @ApiIgnore InputStream body) throws IOException {
+
+        try (EventImportReader rows = new EventImportReader(new InputStreamReader(body,
+                contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8), contentType, objectMapper)) {
+            return eventService.importEvents(UserSecurityDetails.from(user).getId(), rows);
+        }
     }
 
     @DeleteMapping("/manager")
@@ -60,7 +147,7 @@ public class EventController {
     ResponseEntity<String> deleteEvent(@ApiIgnore Principal user,
                                        @ApiParam(value = "ID события, которое будет удалено. Можно удалить только событие, которое относится к аутентифицированному пользователю", example = "1", required = true) @RequestParam("id") int id) {
 
-        eventService.deleteEventById(user.getName(), id);
+        eventService.deleteEventById(UserSecurityDetails.from(user).getId(), id);
 
         return ResponseEntity.status(HttpStatus.OK).body("Event with id = " + id + " has been deleted");
     }
@@ -74,4 +161,13 @@ public class EventController {
         return ResponseEntity.status(HttpStatus.OK).body("Event with id = " + id + " has been deleted by Admin");
     }
 
+    @DeleteMapping("/admin/batch")
+    @PreAuthorize("hasAuthority('PRIVILEGE_APP_ADMIN')")
+    ResponseEntity<String> deleteEventsByAdmin(@ApiParam(value = "ID событий через запятую, не больше 500. Метод доступен только Администратору", example = "1,4,5", required = true) @RequestParam("ids") List<Integer> ids) {
+
+        eventService.deleteEventsByIdsForAdmin(ids);
+
+        return ResponseEntity.status(HttpStatus.OK).body("Events with ids = " + ids + " have been deleted by Admin");
+    }
+
 }
@@ -6,7 +6,11 @@ import com.mikhail.tarasevich.eventmanager.service.exception.ContractNotFoundExc
 import com.mikhail.tarasevich.eventmanager.service.exception.DataBaseException;
 import com.mikhail.tarasevich.eventmanager.service.exception.EventNotFoundException;
 import com.mikhail.tarasevich.eventmanager.service.exception.EventNotValidDataException;
+import com.mikhail.tarasevich.eventmanager.service.exception.EventSoldOutException;
+import com.mikhail.tarasevich.eventmanager.service.exception.IdempotencyKeyConflictException;
+import com.mikhail.tarasevich.eventmanager.service.exception.IdempotencyKeyLimitException;
 import com.mikhail.tarasevich.eventmanager.service.exception.IncorrectRequestDataException;
+import com.mikhail.tarasevich.eventmanager.service.exception.StatusConflictException;
 import com.mikhail.tarasevich.eventmanager.service.exception.UserEventParticipationNotFoundException;
 import com.mikhail.tarasevich.eventmanager.service.exception.UserNotFoundException;
 import com.mikhail.tarasevich.eventmanager.service.exception.UserNotValidDataException;
@@ -84,6 +88,46 @@ public class GlobalExceptionHandler {
                 HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> statusConflictException(StatusConflictException exception) {
+
+        return new ResponseEntity<>(ErrorResponse.builder()
+                .withMessage(exception.getMessage())
+                .withTimestamp(LocalDateTime.now())
+                .build(),
+                HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> eventSoldOutException(EventSoldOutException exception) {
+
+        return new ResponseEntity<>(ErrorResponse.builder()
+                .withMessage(exception.getMessage())
+                .withTimestamp(LocalDateTime.now())
+                .build(),
+                HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> idempotencyKeyConflictException(IdempotencyKeyConflictException exception) {
+
+        return new ResponseEntity<>(ErrorResponse.builder()
+                .withMessage(exception.getMessage())
+                .withTimestamp(LocalDateTime.now())
+                .build(),
+                HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> idempotencyKeyLimitException(IdempotencyKeyLimitException exception) {
+
+        return new ResponseEntity<>(ErrorResponse.builder()
+                .withMessage(exception.getMessage())
+                .withTimestamp(LocalDateTime.now())
+                .build(),
+                HttpStatus.TOO_MANY_REQUESTS);
+    }
+
     @ExceptionHandler
     public ResponseEntity<ErrorResponse> authenticationDataException(AuthenticationDataException exception) {
 
@@ -1,19 +1,27 @@
 package com.mikhail.tarasevich.eventmanager.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mikhail.tarasevich.eventmanager.dto.PageResponse;
 import com.mikhail.tarasevich.eventmanager.dto.UserResponse;
+import com.mikhail.tarasevich.eventmanager.security.RolePrivilegeRegistry;
+import com.mikhail.tarasevich.eventmanager.security.UserSecurityDetails;
 import com.mikhail.tarasevich.eventmanager.service.UserService;
+import com.mikhail.tarasevich.eventmanager.util.StreamingExport;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import springfox.documentation.annotations.ApiIgnore;
 
 import java.security.Principal;
@@ -26,40 +34,60 @@ public class UserController {
 
     private final UserService userService;
 
+    private final RolePrivilegeRegistry rolePrivilegeRegistry;
+
+    private final ObjectMapper objectMapper;
+
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, RolePrivilegeRegistry rolePrivilegeRegistry,
+                          ObjectMapper objectMapper) {
         this.userService = userService;
+        this.rolePrivilegeRegistry = rolePrivilegeRegistry;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping("/")
     @ApiOperation(value = "Показать персональные данные аутентифицированного пользователя")
     UserResponse showUser(@ApiIgnore Principal user) {
 
-        return userService.findUserByEmail(user.getName());
+        return userService.findUserById(UserSecurityDetails.from(user).getId());
     }
 
     @GetMapping("/admins")
     @PreAuthorize("hasAuthority('PRIVILEGE_APP_ADMIN')")
     @ApiOperation(value = "Показать всех администраторов приложеиния", notes = "Доступно только для администратора приложения")
-    List<UserResponse> showAllAdmins() {
+    PageResponse<UserResponse> showAllAdmins(@ApiParam(value = "ID последней записи предыдущей страницы", example = "0") @RequestParam(value = "after", defaultValue = "0") int after,
+                                          @ApiParam(value = "Количество записей на странице, не больше 500", example = "50") @RequestParam(value = "limit", defaultValue = "50") int limit) {
 
-        return userService.findAdmins();
+        return userService.findAdmins(after, limit);
     }
 
     @GetMapping("/managers")
     @PreAuthorize("hasAuthority('PRIVILEGE_APP_ADMIN')")
     @ApiOperation(value = "Показать всех менджеров мероприятий", notes = "Доступно только для администратора приложения")
-    List<UserResponse> showAllManagers() {
+    PageResponse<UserResponse> showAllManagers(@ApiParam(value = "ID последней записи предыдущей страницы", example = "0") @RequestParam(value = "after", defaultValue = "0") int after,
+                                          @ApiParam(value = "Количество записей на странице, не больше 500", example = "50") @RequestParam(value = "limit", defaultValue = "50") int limit) {
 
-        return userService.findManagers();
+        return userService.findManagers(after, limit);
     }
 
     @GetMapping("/participants")
     @PreAuthorize("hasAuthority('PRIVILEGE_APP_ADMIN')")
     @ApiOperation(value = "Показать всех потенциальных участников мероприятий", notes = "Доступно только для администратора приложения")
-    List<UserResponse> showAllParticipants() {
+    PageResponse<UserResponse> showAllParticipants(@ApiParam(value = "ID последней записи предыдущей страницы", example = "0") @RequestParam(value = "after", defaultValue = "0") int after,
+                                          @ApiParam(value = "Количество записей на странице, не больше 500", example = "50") @RequestParam(value = "limit", defaultValue = "50") int limit) {
+
+        return userService.findParticipants(after, limit);
+    }
 
-        return userService.findParticipants();
+    @GetMapping("/participants/export")
+    @PreAuthorize("hasAuthority('PRIVILEGE_APP_ADMIN')")
+    @ApiOperation(value = "Выгрузить всех потенциальных участников мероприятий одним JSON массивом", notes = "Доступно только для администратора приложения")
+    ResponseEntity<StreamingResponseBody> exportAllParticipants() {
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> StreamingExport.writeJsonArray(out, objectMapper, userService::exportParticipants));
     }
 
     @DeleteMapping("/")
@@ -72,4 +100,24 @@ public class UserController {
         return ResponseEntity.status(HttpStatus.OK).body("User with id = " + id + " has been deleted");
     }
 
+    @DeleteMapping("/batch")
+    @PreAuthorize("hasAuthority('PRIVILEGE_APP_ADMIN')")
+    @ApiOperation(value = "Удалить нескольких пользователей из базы данных одним запросом", notes = "Доступно только для администратора приложения")
+    ResponseEntity<String> deleteUsers(@ApiParam(value = "ID пользователей через запятую, не больше 500", example = "7,8,9", required = true) @RequestParam("ids") List<Integer> ids) {
+
+        userService.deleteUsersByIds(ids);
+
+        return ResponseEntity.status(HttpStatus.OK).body("Users with ids = " + ids + " have been deleted");
+    }
+
+    @PostMapping("/roles/refresh")
+    @PreAuthorize("hasAuthority('PRIVILEGE_APP_ADMIN')")
+    @ApiOperation(value = "Перечитать роли и привилегии из базы данных", notes = "Доступно только для администратора приложения")
+    ResponseEntity<String> refreshRolePrivileges() {
+
+        rolePrivilegeRegistry.refresh();
+
+        return ResponseEntity.status(HttpStatus.OK).body("Roles and privileges have been reloaded");
+    }
+
 }
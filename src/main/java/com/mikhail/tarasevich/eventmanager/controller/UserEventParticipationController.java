@@ -1,7 +1,12 @@
 package com.mikhail.tarasevich.eventmanager.controller;
 
+import com.mikhail.tarasevich.eventmanager.dto.PageResponse;
 import com.mikhail.tarasevich.eventmanager.dto.UserEventParticipationRequest;
 import com.mikhail.tarasevich.eventmanager.dto.UserEventParticipationResponse;
+import com.mikhail.tarasevich.eventmanager.dto.UserEventParticipationStatusRequest;
+import com.mikhail.tarasevich.eventmanager.dto.UserEventParticipationStatusResponse;
+import com.mikhail.tarasevich.eventmanager.security.UserSecurityDetails;
+import com.mikhail.tarasevich.eventmanager.service.IdempotencyService;
 import com.mikhail.tarasevich.eventmanager.service.UserEventParticipationService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiParam;
@@ -15,6 +20,7 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -22,7 +28,6 @@ import springfox.documentation.annotations.ApiIgnore;
 
 import javax.validation.Valid;
 import java.security.Principal;
-import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/event/participation")
@@ -31,48 +36,67 @@ public class UserEventParticipationController {
 
     private final UserEventParticipationService uepService;
 
+    private final IdempotencyService idempotencyService;
+
     @Autowired
-    public UserEventParticipationController(UserEventParticipationService uepService) {
+    public UserEventParticipationController(UserEventParticipationService uepService,
+                                            IdempotencyService idempotencyService) {
         this.uepService = uepService;
+        this.idempotencyService = idempotencyService;
     }
 
     @GetMapping("/pending")
     @PreAuthorize("hasAuthority('PRIVILEGE_EVENT_CREATOR')")
-    List<UserEventParticipationResponse> showAllPendingUserEventParticipationsForManager(@ApiIgnore Principal user,
-                                                                               @ApiParam(value = "ID события", example = "1", required = true) @RequestParam("eventId") int eventId) {
+    PageResponse<UserEventParticipationResponse> showAllPendingUserEventParticipationsForManager(@ApiIgnore Principal user,
+                                                                                                 @ApiParam(value = "ID события", example = "1", required = true) @RequestParam("eventId") int eventId,
+                                                                                                 @ApiParam(value = "ID последней записи предыдущей страницы", example = "0") @RequestParam(value = "after", defaultValue = "0") int after,
+                                                                                                 @ApiParam(value = "Количество записей на странице, не больше 500", example = "50") @RequestParam(value = "limit", defaultValue = "50") int limit) {
 
-        return uepService.findPendingUserEventParticipationsByEventId(user.getName(), eventId);
+        return uepService.findPendingUserEventParticipationsByEventId(UserSecurityDetails.from(user).getId(), eventId,
+                after, limit);
     }
 
     @GetMapping("/rejected")
     @PreAuthorize("hasAuthority('PRIVILEGE_EVENT_CREATOR')")
-    List<UserEventParticipationResponse> showAllRejectedUserEventParticipationsForManager(@ApiIgnore Principal user,
-                                                                                @ApiParam(value = "ID события", example = "1", required = true) @RequestParam("eventId") int eventId) {
+    PageResponse<UserEventParticipationResponse> showAllRejectedUserEventParticipationsForManager(@ApiIgnore Principal user,
+                                                                                                  @ApiParam(value = "ID события", example = "1", required = true) @RequestParam("eventId") int eventId,
+                                                                                                  @ApiParam(value = "ID последней записи предыдущей страницы", example = "0") @RequestParam(value = "after", defaultValue = "0") int after,
+                                                                                                  @ApiParam(value = "Количество записей на странице, не больше 500", example = "50") @RequestParam(value = "limit", defaultValue = "50") int limit) {
 
-        return uepService.findRejectedUserEventParticipationsByEventId(user.getName(), eventId);
+        return uepService.findRejectedUserEventParticipationsByEventId(UserSecurityDetails.from(user).getId(), eventId,
+                after, limit);
     }
 
     @GetMapping("/accepted")
     @PreAuthorize("hasAuthority('PRIVILEGE_EVENT_CREATOR')")
-    List<UserEventParticipationResponse> showAllAcceptedUserEventParticipationsForManager(@ApiIgnore Principal user,
-                                                                                @ApiParam(value = "ID события", example = "1", required = true) @RequestParam("eventId") int eventId) {
+    PageResponse<UserEventParticipationResponse> showAllAcceptedUserEventParticipationsForManager(@ApiIgnore Principal user,
+                                                                                                  @ApiParam(value = "ID события", example = "1", required = true) @RequestParam("eventId") int eventId,
+                                                                                                  @ApiParam(value = "ID последней записи предыдущей страницы", example = "0") @RequestParam(value = "after", defaultValue = "0") int after,
+                                                                                                  @ApiParam(value = "Количество записей на странице, не больше 500", example = "50") @RequestParam(value = "limit", defaultValue = "50") int limit) {
 
-        return uepService.findAcceptedUserEventParticipationsByEventId(user.getName(), eventId);
+        return uepService.findAcceptedUserEventParticipationsByEventId(UserSecurityDetails.from(user).getId(), eventId,
+                after, limit);
     }
 
     @GetMapping("/")
     @PreAuthorize("hasAuthority('PRIVILEGE_PARTICIPANT')")
-    List<UserEventParticipationResponse> showAllUserEventParticipationsForParticipant(@ApiIgnore Principal user) {
+    PageResponse<UserEventParticipationResponse> showAllUserEventParticipationsForParticipant(@ApiIgnore Principal user,
+                                                                                              @ApiParam(value = "ID последней записи предыдущей страницы", example = "0") @RequestParam(value = "after", defaultValue = "0") int after,
+                                                                                              @ApiParam(value = "Количество записей на странице, не больше 500", example = "50") @RequestParam(value = "limit", defaultValue = "50") int limit) {
 
-        return uepService.findAllUserEventParticipationsByUserEmail(user.getName());
+        return uepService.findAllUserEventParticipationsByUserId(UserSecurityDetails.from(user).getId(), after, limit);
     }
 
     @PostMapping("/")
     @PreAuthorize("hasAuthority('PRIVILEGE_PARTICIPANT')")
     UserEventParticipationResponse createNewUserEventParticipation(@ApiIgnore Principal user,
+                                                                   @ApiParam(value = "Ключ идемпотентности. Повторный запрос с тем же ключом возвращает сохранённый ответ") @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
                                                                    @ApiParam(value = "Данные о заявке на участии в мероприятии", required = true) @RequestBody @Valid UserEventParticipationRequest request) {
 
-        return uepService.createUserEventParticipation(user.getName(), request);
+        int userId = UserSecurityDetails.from(user).getId();
+
+        return idempotencyService.execute(userId, idempotencyKey, "POST /api/v1/event/participation/", request,
+                UserEventParticipationResponse.class, () -> uepService.createUserEventParticipation(userId, request));
     }
 
     @PatchMapping("/accept/{id}")
@@ -80,7 +104,7 @@ public class UserEventParticipationController {
     ResponseEntity<String> acceptParticipationRequest(@ApiIgnore Principal user,
                                                       @ApiParam(value = "ID заявки на участие в базе данных", example = "1", required = true) @PathVariable("id") int id) {
 
-        uepService.setUserEventParticipationsStatusAccepted(user.getName(), id);
+        uepService.setUserEventParticipationsStatusAccepted(UserSecurityDetails.from(user).getId(), id);
 
         return ResponseEntity.status(HttpStatus.OK).body("Participation Request with id = " + id + " has been accepted");
     }
@@ -90,17 +114,25 @@ public class UserEventParticipationController {
     ResponseEntity<String> rejectParticipationRequest(@ApiIgnore Principal user,
                                                       @ApiParam(value = "ID заявки на участие в базе данных", example = "1", required = true) @PathVariable("id") int id) {
 
-        uepService.setUserEventParticipationsStatusRejected(user.getName(), id);
+        uepService.setUserEventParticipationsStatusRejected(UserSecurityDetails.from(user).getId(), id);
 
         return ResponseEntity.status(HttpStatus.OK).body("Participation Request with id = " + id + " has been rejected");
     }
 
+    @PatchMapping("/status")
+    @PreAuthorize("hasAuthority('PRIVILEGE_EVENT_CREATOR')")
+    UserEventParticipationStatusResponse changeParticipationRequestsStatus(@ApiIgnore Principal user,
+                                                                           @ApiParam(value = "Список ID заявок или ID мероприятия, все ожидающие заявки которого будут обработаны, и новый статус", required = true) @RequestBody @Valid UserEventParticipationStatusRequest request) {
+
+        return uepService.setUserEventParticipationsStatus(UserSecurityDetails.from(user).getId(), request);
+    }
+
     @DeleteMapping("/participant")
     @PreAuthorize("hasAuthority('PRIVILEGE_PARTICIPANT')")
     ResponseEntity<String> deleteUserEventParticipation(@ApiIgnore Principal user,
                                        @ApiParam(value = "ID заявки на участие, которая будет удалена. Можно удалить только заявку, которое относится к аутентифицированному пользователю", example = "1", required = true) @RequestParam("id") int id) {
 
-        uepService.deleteUserEventParticipationsById(user.getName(), id);
+        uepService.deleteUserEventParticipationsById(UserSecurityDetails.from(user).getId(), id);
 
         return ResponseEntity.status(HttpStatus.OK).body("Participation request with id = " + id + " has been deleted");
     }
@@ -0,0 +1,32 @@
+package com.mikhail.tarasevich.eventmanager.dto;
+
+import com.mikhail.tarasevich.eventmanager.util.EventCatalogSort;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder(setterPrefix = "with")
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class EventCatalogRequest {
+
+    private Integer minPrice;
+
+    private Integer maxPrice;
+
+    private Integer ownerId;
+
+    private String namePrefix;
+
+    private EventCatalogSort sort;
+
+    // id and price of the last event of the previous page, null for the first page
+    private Integer after;
+
+    private Integer afterPrice;
+
+    private int limit;
+
+}
@@ -0,0 +1,18 @@
+package com.mikhail.tarasevich.eventmanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder(setterPrefix = "with")
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class EventImportError {
+
+    private int line;
+
+    private String message;
+
+}
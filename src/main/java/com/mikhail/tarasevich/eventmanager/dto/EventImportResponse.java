@@ -0,0 +1,24 @@
+package com.mikhail.tarasevich.eventmanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Builder(setterPrefix = "with")
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class EventImportResponse {
+
+    private int imported;
+
+    // the first rows that were skipped, ordered by line of the upload
+    private List<EventImportError> errors;
+
+    // skipped rows beyond the listed ones
+    private int omittedErrors;
+
+}
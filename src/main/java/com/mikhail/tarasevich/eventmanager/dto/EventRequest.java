@@ -32,4 +32,8 @@ public class EventRequest {
     @ApiModelProperty(value = "Цена посещения события", example = "100")
     private int price;
 
+    @Min(value = 1, message = "Event's capacity should be positive")
+    @ApiModelProperty(value = "Максимальное число принятых участников, без ограничения если не указано", example = "100")
+    private Integer capacity;
+
 }
@@ -21,4 +21,6 @@ public class EventResponse {
 
     private int price;
 
+    private Integer capacity;
+
 }
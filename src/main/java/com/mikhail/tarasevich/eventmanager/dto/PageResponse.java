@@ -0,0 +1,22 @@
+package com.mikhail.tarasevich.eventmanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Builder(setterPrefix = "with")
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class PageResponse<T> {
+
+    private List<T> content;
+
+    // id of the last returned item (position in the ranking for search results), to be passed as "after"
+    // for the next page; null on the last page
+    private Integer nextCursor;
+
+}
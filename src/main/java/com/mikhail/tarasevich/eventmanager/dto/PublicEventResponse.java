@@ -0,0 +1,26 @@
+package com.mikhail.tarasevich.eventmanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder(setterPrefix = "with")
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class PublicEventResponse {
+
+    private int id;
+
+    private int ownerId;
+
+    private String name;
+
+    private String description;
+
+    private int price;
+
+    private Integer capacity;
+
+}
@@ -0,0 +1,29 @@
+package com.mikhail.tarasevich.eventmanager.dto;
+
+import com.mikhail.tarasevich.eventmanager.util.Status;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+@Builder(setterPrefix = "with")
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class UserEventParticipationStatusRequest {
+
+    @ApiModelProperty(value = "ID заявок на участие, не больше 500. Не указывается вместе с eventId", example = "[1, 6, 7]")
+    private List<Integer> ids;
+
+    @ApiModelProperty(value = "ID мероприятия, все ожидающие заявки которого будут обработаны. Не указывается вместе с ids", example = "2")
+    private Integer eventId;
+
+    @NotNull(message = "Status should not be empty")
+    @ApiModelProperty(value = "Новый статус заявок: ACCEPTED или REJECTED", example = "ACCEPTED")
+    private Status status;
+
+}
@@ -0,0 +1,23 @@
+package com.mikhail.tarasevich.eventmanager.dto;
+
+import com.mikhail.tarasevich.eventmanager.util.Status;
+import com.mikhail.tarasevich.eventmanager.util.StatusChangeOutcome;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Builder(setterPrefix = "with")
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class UserEventParticipationStatusResponse {
+
+    private Status status;
+
+    // outcome of every processed participation request id, in request order
+    private Map<Integer, StatusChangeOutcome> outcomes;
+
+}
@@ -15,6 +15,7 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 
 @Builder(setterPrefix = "with")
@@ -26,7 +27,8 @@ import javax.persistence.Table;
 public class Contract {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "contracts_seq")
+    @SequenceGenerator(name = "contracts_seq", sequenceName = "contracts_seq", allocationSize = 50)
     @Column(name = "id")
     private int id;
 
@@ -1,10 +1,14 @@
 package com.mikhail.tarasevich.eventmanager.entity;
 
+import com.mikhail.tarasevich.eventmanager.config.SecondLevelCacheConfig;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
@@ -12,6 +16,7 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 
 @Builder(setterPrefix = "with")
@@ -19,11 +24,14 @@ import javax.persistence.Table;
 @NoArgsConstructor
 @Data
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.EVENTS_REGION)
 @Table(name = "events")
 public class Event {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "events_seq")
+    @SequenceGenerator(name = "events_seq", sequenceName = "events_seq", allocationSize = 50)
     @Column(name = "id")
     private int id;
 
@@ -40,4 +48,8 @@ public class Event {
     @Column(name = "price")
     private int price;
 
+    // null when the number of participants isn't limited
+    @Column(name = "capacity")
+    private Integer capacity;
+
 }
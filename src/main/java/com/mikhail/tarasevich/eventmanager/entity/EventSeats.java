@@ -0,0 +1,53 @@
+package com.mikhail.tarasevich.eventmanager.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+
+@Builder(setterPrefix = "with")
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Entity
+@Table(name = "event_seats")
+public class EventSeats implements Persistable<Integer> {
+
+    @Id
+    @Column(name = "event_id")
+    private int eventId;
+
+    @Column(name = "accepted")
+    private int accepted;
+
+    // the id is assigned from the event, so Spring Data can't tell a new row by it and would merge instead of insert
+    @Transient
+    @Builder.Default
+    private boolean stored = false;
+
+    @Override
+    public Integer getId() {
+        return eventId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !stored;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markStored() {
+        stored = true;
+    }
+
+}
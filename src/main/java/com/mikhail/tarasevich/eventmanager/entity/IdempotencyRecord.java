@@ -0,0 +1,71 @@
+package com.mikhail.tarasevich.eventmanager.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+import java.time.LocalDateTime;
+
+@Builder(setterPrefix = "with")
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Entity
+@Table(name = "idempotency_keys")
+@IdClass(IdempotencyRecordId.class)
+public class IdempotencyRecord implements Persistable<IdempotencyRecordId> {
+
+    @Id
+    @Column(name = "user_id")
+    private int userId;
+
+    @Id
+    @Column(name = "idempotency_key")
+    private String idempotencyKey;
+
+    @Column(name = "request_hash")
+    private String requestHash;
+
+    // JSON of the response, null while the request is processed
+    @Column(name = "response")
+    private String response;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    // when the request processing the key claimed it, set again when another request takes an abandoned claim over
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
+    // the id is sent by the client, a key taken by a concurrent request has to fail the insert instead of merging
+    @Transient
+    @Builder.Default
+    private boolean stored = false;
+
+    @Override
+    public IdempotencyRecordId getId() {
+        return new IdempotencyRecordId(userId, idempotencyKey);
+    }
+
+    @Override
+    public boolean isNew() {
+        return !stored;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markStored() {
+        stored = true;
+    }
+
+}
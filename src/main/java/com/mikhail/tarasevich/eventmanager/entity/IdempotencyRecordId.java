@@ -0,0 +1,18 @@
+package com.mikhail.tarasevich.eventmanager.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class IdempotencyRecordId implements Serializable {
+
+    private int userId;
+
+    private String idempotencyKey;
+
+}
@@ -1,10 +1,15 @@
 package com.mikhail.tarasevich.eventmanager.entity;
 
+import com.mikhail.tarasevich.eventmanager.config.SecondLevelCacheConfig;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
@@ -17,6 +22,9 @@ import javax.persistence.Table;
 @NoArgsConstructor
 @Data
 @Entity
+@Immutable
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = SecondLevelCacheConfig.PRIVILEGES_REGION)
 @Table(name = "privileges")
 public class Privilege {
 
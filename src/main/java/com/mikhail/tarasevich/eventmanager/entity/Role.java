@@ -1,12 +1,17 @@
 package com.mikhail.tarasevich.eventmanager.entity;
 
+import com.mikhail.tarasevich.eventmanager.config.SecondLevelCacheConfig;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
@@ -24,6 +29,9 @@ import java.util.List;
 @NoArgsConstructor
 @Data
 @Entity
+@Immutable
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = SecondLevelCacheConfig.ROLES_REGION)
 @Table(name = "roles")
 public class Role {
 
@@ -37,7 +45,7 @@ public class Role {
 
     @ToString.Exclude
     @EqualsAndHashCode.Exclude
-    @ManyToMany (fetch = FetchType.EAGER)
+    @ManyToMany (fetch = FetchType.LAZY)
     @JoinTable(name = "role_privileges",
             joinColumns = @JoinColumn(name = "role_id"),
             inverseJoinColumns = @JoinColumn(name = "privilege_id"))
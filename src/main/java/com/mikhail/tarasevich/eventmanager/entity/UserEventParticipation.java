@@ -15,7 +15,9 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import java.time.LocalDateTime;
 
 @Builder(setterPrefix = "with")
 @AllArgsConstructor
@@ -26,7 +28,8 @@ import javax.persistence.Table;
 public class UserEventParticipation {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_event_participations_seq")
+    @SequenceGenerator(name = "user_event_participations_seq", sequenceName = "user_event_participations_seq", allocationSize = 50)
     @Column(name = "id")
     private int id;
 
@@ -51,4 +54,8 @@ public class UserEventParticipation {
     @Column(name = "covid_passport_number")
     private int covidPassportNumber;
 
+    // set when the request joins the waitlist of a full event, the waitlist is served in this order
+    @Column(name = "waitlisted_at")
+    private LocalDateTime waitlistedAt;
+
 }
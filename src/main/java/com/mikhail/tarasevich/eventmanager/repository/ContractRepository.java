@@ -1,13 +1,26 @@
 package com.mikhail.tarasevich.eventmanager.repository;
 
 import com.mikhail.tarasevich.eventmanager.entity.Contract;
+import com.mikhail.tarasevich.eventmanager.repository.projection.ContractView;
 import com.mikhail.tarasevich.eventmanager.util.Status;
+import com.mikhail.tarasevich.eventmanager.util.StreamingExport;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 @Transactional
@@ -17,8 +30,25 @@ public interface ContractRepository extends JpaRepository<Contract, Integer> {
 
     List<Contract> findContractByUserIdAndStatusOrderById(int userId, Status status);
 
-    List<Contract> findContractByStatusOrderById(Status status);
+    boolean existsByUserIdAndStatus(int userId, Status status);
+
+    @Query("SELECT c.id AS id, u.id AS userId, u.email AS userEmail, c.status AS status " +
+            "FROM Contract c JOIN c.user u WHERE c.status = :status AND c.id > :after ORDER BY c.id")
+    List<ContractView> findContractViewsByStatusAndIdGreaterThan(@Param("status") Status status, @Param("after") int after,
+                                                                 Pageable pageable);
+
+    @Query("SELECT c FROM Contract c JOIN FETCH c.user u LEFT JOIN FETCH u.role WHERE c.status = :status ORDER BY c.id")
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = StreamingExport.FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Contract> streamContractsByStatusOrderById(@Param("status") Status status);
+
+    @Modifying
+    @Query("UPDATE Contract c SET c.status = :status WHERE c.id = :id AND c.status = :expectedStatus")
+    int updateStatusByIdAndStatus(@Param("id") int id, @Param("expectedStatus") Status expectedStatus,
+                                  @Param("status") Status status);
 
-    void deleteContractsByUserId(int userId);
+    @Modifying
+    @Query("DELETE FROM Contract c WHERE c.user.id IN :userIds")
+    int deleteContractsByUserIdIn(@Param("userIds") Collection<Integer> userIds);
 
 }
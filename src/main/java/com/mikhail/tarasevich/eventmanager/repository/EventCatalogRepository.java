@@ -0,0 +1,15 @@
+package com.mikhail.tarasevich.eventmanager.repository;
+
+import com.mikhail.tarasevich.eventmanager.entity.Event;
+import com.mikhail.tarasevich.eventmanager.repository.projection.EventCatalogView;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface EventCatalogRepository {
+
+    // one page of the matching events without the count query JpaSpecificationExecutor runs for every page
+    List<EventCatalogView> findEventViews(Specification<Event> specification, Sort sort, int limit);
+
+}
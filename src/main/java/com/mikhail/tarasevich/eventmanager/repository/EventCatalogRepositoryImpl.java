@@ -0,0 +1,77 @@
+package com.mikhail.tarasevich.eventmanager.repository;
+
+import com.mikhail.tarasevich.eventmanager.entity.Event;
+import com.mikhail.tarasevich.eventmanager.repository.projection.EventCatalogView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.TupleElement;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+class EventCatalogRepositoryImpl implements EventCatalogRepository {
+
+    private final EntityManager entityManager;
+
+    private final ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+
+    @Autowired
+    EventCatalogRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<EventCatalogView> findEventViews(Specification<Event> specification, Sort sort, int limit) {
+
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<Event> event = query.from(Event.class);
+        Predicate predicate = specification.toPredicate(event, query, builder);
+
+        query.multiselect(
+                event.get("id").alias("id"),
+                event.get("user").get("id").alias("ownerId"),
+                event.get("name").alias("name"),
+                event.get("description").alias("description"),
+                event.get("price").alias("price"),
+                event.get("capacity").alias("capacity"));
+
+        // a specification without any filter gives no predicate
+        if (predicate != null) {
+            query.where(predicate);
+        }
+
+        query.orderBy(toOrders(sort, event, builder));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList().stream()
+                .map(this::toView)
+                .collect(Collectors.toList());
+    }
+
+    private EventCatalogView toView(Tuple tuple) {
+
+        Map<String, Object> values = new HashMap<>();
+
+        for (TupleElement<?> element : tuple.getElements()) {
+            values.put(element.getAlias(), tuple.get(element));
+        }
+
+        return projectionFactory.createProjection(EventCatalogView.class, values);
+    }
+
+}
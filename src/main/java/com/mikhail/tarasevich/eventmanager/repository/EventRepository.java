@@ -1,18 +1,49 @@
 package com.mikhail.tarasevich.eventmanager.repository;
 
 import com.mikhail.tarasevich.eventmanager.entity.Event;
+import com.mikhail.tarasevich.eventmanager.repository.projection.EventSearchView;
+import com.mikhail.tarasevich.eventmanager.repository.projection.EventView;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 @Transactional
-public interface EventRepository extends JpaRepository<Event, Integer> {
+public interface EventRepository extends JpaRepository<Event, Integer>, EventCatalogRepository {
 
-    List<Event> findEventsByUserIdOrderById(int id);
+    @Query("SELECT e.id AS id, u.id AS userId, u.email AS userEmail, e.name AS name, e.description AS description, " +
+            "e.price AS price, e.capacity AS capacity FROM Event e JOIN e.user u WHERE e.user.id = :userId AND e.id > :after ORDER BY e.id")
+    List<EventView> findEventViewsByUserIdAndIdGreaterThan(@Param("userId") int userId, @Param("after") int after,
+                                                           Pageable pageable);
 
-    void deleteEventsByUserId(int userId);
+    @Query("SELECT e.id AS id, u.id AS userId, u.email AS userEmail, e.name AS name, e.description AS description, " +
+            "e.price AS price, e.capacity AS capacity FROM Event e JOIN e.user u WHERE e.id IN :ids")
+    List<EventView> findEventViewsByIdIn(@Param("ids") Collection<Integer> ids);
+
+    @Query("SELECT e.id AS id, e.name AS name, e.description AS description FROM Event e WHERE e.id > :after ORDER BY e.id")
+    List<EventSearchView> findEventSearchViewsByIdGreaterThan(@Param("after") int after, Pageable pageable);
+
+    boolean existsByIdAndUserId(int id, int userId);
+
+    @Query("SELECT e.name FROM Event e WHERE e.name IN :names")
+    List<String> findNamesByNameIn(@Param("names") Collection<String> names);
+
+    @Query("SELECT e.id FROM Event e WHERE e.user.id IN :userIds")
+    List<Integer> findIdsByUserIdIn(@Param("userIds") Collection<Integer> userIds);
+
+    @Modifying
+    @Query("DELETE FROM Event e WHERE e.user.id IN :userIds")
+    int deleteEventsByUserIdIn(@Param("userIds") Collection<Integer> userIds);
+
+    @Modifying
+    @Query("DELETE FROM Event e WHERE e.id IN :ids")
+    int deleteEventsByIdIn(@Param("ids") Collection<Integer> ids);
 
 }
@@ -0,0 +1,36 @@
+package com.mikhail.tarasevich.eventmanager.repository;
+
+import com.mikhail.tarasevich.eventmanager.entity.EventSeats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+@Repository
+@Transactional
+public interface EventSeatsRepository extends JpaRepository<EventSeats, Integer> {
+
+    @Query("SELECT s.accepted FROM EventSeats s WHERE s.eventId = :eventId")
+    Optional<Integer> findAcceptedByEventId(@Param("eventId") int eventId);
+
+    // the counter row stays locked until the transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM EventSeats s WHERE s.eventId = :eventId")
+    Optional<EventSeats> findLockedByEventId(@Param("eventId") int eventId);
+
+    @Modifying
+    @Query("UPDATE EventSeats s SET s.accepted = s.accepted + :count " +
+            "WHERE s.eventId = :eventId AND s.accepted + :count <= :capacity")
+    int reserveSeats(@Param("eventId") int eventId, @Param("count") int count, @Param("capacity") int capacity);
+
+    @Modifying
+    @Query("UPDATE EventSeats s SET s.accepted = s.accepted - :count WHERE s.eventId = :eventId")
+    int releaseSeats(@Param("eventId") int eventId, @Param("count") int count);
+
+}
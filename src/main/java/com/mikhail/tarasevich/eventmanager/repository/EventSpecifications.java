@@ -0,0 +1,57 @@
+package com.mikhail.tarasevich.eventmanager.repository;
+
+import com.mikhail.tarasevich.eventmanager.entity.Event;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Catalog filters and page cursors. Each cursor condition starts with a plain range on the sort key, so the
+ * database can seek the (sort key, id) index to the cursor instead of filtering the rows before it.
+ */
+public final class EventSpecifications {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private EventSpecifications() {
+    }
+
+    public static Specification<Event> priceAtLeast(int price) {
+        return (root, query, builder) -> builder.greaterThanOrEqualTo(root.get("price"), price);
+    }
+
+    public static Specification<Event> priceAtMost(int price) {
+        return (root, query, builder) -> builder.lessThanOrEqualTo(root.get("price"), price);
+    }
+
+    public static Specification<Event> ownedBy(int userId) {
+        return (root, query, builder) -> builder.equal(root.get("user").get("id"), userId);
+    }
+
+    // a pattern without a leading wildcard, so it is answered from the index on the name
+    public static Specification<Event> nameStartsWith(String prefix) {
+
+        String pattern = prefix.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+
+        return (root, query, builder) -> builder.like(root.get("name"), pattern, LIKE_ESCAPE);
+    }
+
+    // rows after (price, id) in the order "price, id"
+    public static Specification<Event> afterByPriceAsc(int price, int id) {
+        return (root, query, builder) -> builder.and(
+                builder.greaterThanOrEqualTo(root.get("price"), price),
+                builder.or(builder.greaterThan(root.get("price"), price), builder.greaterThan(root.get("id"), id)));
+    }
+
+    // rows after (price, id) in the order "price DESC, id DESC"
+    public static Specification<Event> afterByPriceDesc(int price, int id) {
+        return (root, query, builder) -> builder.and(
+                builder.lessThanOrEqualTo(root.get("price"), price),
+                builder.or(builder.lessThan(root.get("price"), price), builder.lessThan(root.get("id"), id)));
+    }
+
+    public static Specification<Event> idLessThan(int id) {
+        return (root, query, builder) -> builder.lessThan(root.get("id"), id);
+    }
+
+}
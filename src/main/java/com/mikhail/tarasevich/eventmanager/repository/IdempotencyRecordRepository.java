@@ -0,0 +1,57 @@
+package com.mikhail.tarasevich.eventmanager.repository;
+
+import com.mikhail.tarasevich.eventmanager.entity.IdempotencyRecord;
+import com.mikhail.tarasevich.eventmanager.entity.IdempotencyRecordId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+// every method runs in a transaction of its own on the primary, a key is claimed before the request is processed
+@Repository
+@Transactional
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, IdempotencyRecordId> {
+
+    @Query("SELECT r FROM IdempotencyRecord r WHERE r.userId = :userId AND r.idempotencyKey = :idempotencyKey")
+    Optional<IdempotencyRecord> findByUserIdAndIdempotencyKey(@Param("userId") int userId,
+                                                              @Param("idempotencyKey") String idempotencyKey);
+
+    @Query("SELECT COUNT(r) FROM IdempotencyRecord r WHERE r.userId = :userId")
+    long countByUserId(@Param("userId") int userId);
+
+    // the claim is compared by its time, so a request whose claim has been taken over changes nothing
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.response = :response " +
+            "WHERE r.userId = :userId AND r.idempotencyKey = :idempotencyKey AND r.claimedAt = :claimedAt")
+    int updateResponse(@Param("userId") int userId, @Param("idempotencyKey") String idempotencyKey,
+                       @Param("claimedAt") LocalDateTime claimedAt, @Param("response") String response);
+
+    // of concurrent requests taking over the same abandoned claim only one updates it
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.claimedAt = :claimedAt " +
+            "WHERE r.userId = :userId AND r.idempotencyKey = :idempotencyKey AND r.response IS NULL " +
+            "AND r.claimedAt = :abandonedClaimedAt")
+    int takeOverClaim(@Param("userId") int userId, @Param("idempotencyKey") String idempotencyKey,
+                      @Param("abandonedClaimedAt") LocalDateTime abandonedClaimedAt,
+                      @Param("claimedAt") LocalDateTime claimedAt);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.userId = :userId AND r.idempotencyKey = :idempotencyKey")
+    int deleteByUserIdAndIdempotencyKey(@Param("userId") int userId, @Param("idempotencyKey") String idempotencyKey);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r " +
+            "WHERE r.userId = :userId AND r.idempotencyKey = :idempotencyKey AND r.claimedAt = :claimedAt")
+    int deleteClaim(@Param("userId") int userId, @Param("idempotencyKey") String idempotencyKey,
+                    @Param("claimedAt") LocalDateTime claimedAt);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.userId = :userId AND r.createdAt < :createdBefore")
+    int deleteByUserIdAndCreatedAtBefore(@Param("userId") int userId, @Param("createdBefore") LocalDateTime createdBefore);
+
+}
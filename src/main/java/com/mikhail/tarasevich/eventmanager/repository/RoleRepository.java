@@ -2,15 +2,25 @@ package com.mikhail.tarasevich.eventmanager.repository;
 
 import com.mikhail.tarasevich.eventmanager.entity.Role;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
 @Repository
 @Transactional
 public interface RoleRepository extends JpaRepository<Role, Integer> {
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<Role> findRoleByName(String name);
 
+    @Query("SELECT DISTINCT r FROM Role r LEFT JOIN FETCH r.privileges ORDER BY r.id")
+    List<Role> findAllWithPrivileges();
+
 }
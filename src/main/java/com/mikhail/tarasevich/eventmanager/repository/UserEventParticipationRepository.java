@@ -1,7 +1,11 @@
 package com.mikhail.tarasevich.eventmanager.repository;
 
 import com.mikhail.tarasevich.eventmanager.entity.UserEventParticipation;
+import com.mikhail.tarasevich.eventmanager.repository.projection.EventParticipantsView;
+import com.mikhail.tarasevich.eventmanager.repository.projection.UserEventParticipationStatusView;
+import com.mikhail.tarasevich.eventmanager.repository.projection.UserEventParticipationView;
 import com.mikhail.tarasevich.eventmanager.util.Status;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -9,22 +13,68 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 @Transactional
 public interface UserEventParticipationRepository extends JpaRepository<UserEventParticipation, Integer> {
 
-    List<UserEventParticipation> findUserEventParticipationsByEventIdAndStatusOrderById(int eventId, Status status);
+    String SELECT_VIEW = "SELECT uep.id AS id, u.id AS userId, u.email AS userEmail, e.id AS eventId, " +
+            "m.id AS eventUserId, m.email AS eventUserEmail, e.name AS eventName, e.description AS eventDescription, " +
+            "uep.status AS status, uep.fio AS fio, uep.age AS age, uep.covidPassportNumber AS covidPassportNumber " +
+            "FROM UserEventParticipation uep LEFT JOIN uep.user u JOIN uep.event e JOIN e.user m ";
 
-    List<UserEventParticipation> findUserEventParticipationsByUserIdOrderById(int userId);
+    @Query(SELECT_VIEW + "WHERE uep.event.id = :eventId AND uep.status = :status AND uep.id > :after ORDER BY uep.id")
+    List<UserEventParticipationView> findUserEventParticipationViewsByEventIdAndStatusAndIdGreaterThan(
+            @Param("eventId") int eventId, @Param("status") Status status, @Param("after") int after, Pageable pageable);
 
-    void deleteUserEventParticipationsByUserId (int userId);
+    @Query(SELECT_VIEW + "WHERE uep.user.id = :userId AND uep.id > :after ORDER BY uep.id")
+    List<UserEventParticipationView> findUserEventParticipationViewsByUserIdAndIdGreaterThan(
+            @Param("userId") int userId, @Param("after") int after, Pageable pageable);
 
-    void deleteUserEventParticipationsByEventId (int eventId);
+    @Modifying
+    @Query("UPDATE UserEventParticipation uep SET uep.status = :status WHERE uep.id = :id AND uep.status = :expectedStatus " +
+            "AND uep.event.id IN (SELECT e.id FROM Event e WHERE e.user.id = :managerId)")
+    int updateStatusByIdAndStatusAndEventUserId(@Param("id") int id, @Param("expectedStatus") Status expectedStatus,
+                                                @Param("managerId") int managerId, @Param("status") Status status);
+
+    @Query("SELECT uep.id FROM UserEventParticipation uep WHERE uep.event.id = :eventId AND uep.status = :status ORDER BY uep.id")
+    List<Integer> findIdsByEventIdAndStatus(@Param("eventId") int eventId, @Param("status") Status status, Pageable pageable);
+
+    @Query("SELECT uep.id FROM UserEventParticipation uep WHERE uep.event.id = :eventId AND uep.status = :status " +
+            "ORDER BY uep.waitlistedAt, uep.id")
+    List<Integer> findIdsByEventIdAndStatusOrderByWaitlistedAt(@Param("eventId") int eventId, @Param("status") Status status,
+                                                               Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE UserEventParticipation uep SET uep.status = :status WHERE uep.id = :id AND uep.status = :expectedStatus")
+    int updateStatusByIdAndStatus(@Param("id") int id, @Param("expectedStatus") Status expectedStatus,
+                                  @Param("status") Status status);
+
+    @Query("SELECT uep.id AS id, uep.status AS status, e.user.id AS eventUserId, e.id AS eventId, e.capacity AS eventCapacity " +
+            "FROM UserEventParticipation uep JOIN uep.event e WHERE uep.id IN :ids")
+    List<UserEventParticipationStatusView> findUserEventParticipationStatusViewsByIdIn(@Param("ids") Collection<Integer> ids);
+
+    @Modifying
+    @Query("UPDATE UserEventParticipation uep SET uep.status = :status WHERE uep.id IN :ids AND uep.status = :expectedStatus " +
+            "AND uep.event.id IN (SELECT e.id FROM Event e WHERE e.user.id = :managerId)")
+    int updateStatusByIdInAndStatusAndEventUserId(@Param("ids") Collection<Integer> ids,
+                                                  @Param("expectedStatus") Status expectedStatus,
+                                                  @Param("managerId") int managerId, @Param("status") Status status);
+
+    @Query("SELECT e.id AS eventId, COUNT(uep) AS participants FROM UserEventParticipation uep JOIN uep.event e " +
+            "WHERE uep.user.id IN :userIds AND uep.status = :status AND e.capacity IS NOT NULL GROUP BY e.id ORDER BY e.id")
+    List<EventParticipantsView> countParticipantsOfLimitedEventsByUserIdInAndStatus(
+            @Param("userIds") Collection<Integer> userIds, @Param("status") Status status);
+
+    @Modifying
+    @Query("DELETE FROM UserEventParticipation uep WHERE uep.user.id IN :userIds " +
+            "OR uep.event.id IN (SELECT e.id FROM Event e WHERE e.user.id IN :userIds)")
+    int deleteUserEventParticipationsByUserIdInOrEventUserIdIn(@Param("userIds") Collection<Integer> userIds);
 
     @Modifying
-    @Query(value = "DELETE FROM user_event_participations WHERE event_id IN (SELECT id FROM events WHERE events.user_id = :userId)", nativeQuery = true)
-    void deleteUserEventParticipationsByEventUserId(@Param("userId") int userId);
+    @Query("DELETE FROM UserEventParticipation uep WHERE uep.event.id IN :eventIds")
+    int deleteUserEventParticipationsByEventIdIn(@Param("eventIds") Collection<Integer> eventIds);
 
 }
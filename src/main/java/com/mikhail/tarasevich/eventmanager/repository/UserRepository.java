@@ -1,22 +1,52 @@
 package com.mikhail.tarasevich.eventmanager.repository;
 
 import com.mikhail.tarasevich.eventmanager.entity.User;
+import com.mikhail.tarasevich.eventmanager.repository.projection.UserView;
+import com.mikhail.tarasevich.eventmanager.util.StreamingExport;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 @Transactional
 public interface UserRepository extends JpaRepository <User, Integer> {
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<User> findUserByEmail (String email);
 
-    @Query(value = "SELECT * FROM users u JOIN roles r ON u.role_id = r.id WHERE r.name = :role", nativeQuery = true)
-    List<User> findUsersByRoleOrderById(@Param("role")String role);
+    @Query("SELECT u.id AS id, u.email AS email FROM User u WHERE u.id = :id")
+    Optional<UserView> findUserViewById(@Param("id") int id);
+
+    @Query("SELECT u.id AS id, u.email AS email FROM User u WHERE u.id > :after ORDER BY u.id")
+    List<UserView> findUserViewsByIdGreaterThan(@Param("after") int after, Pageable pageable);
+
+    @Query("SELECT u.id AS id, u.email AS email FROM User u WHERE u.role.id = :roleId AND u.id > :after ORDER BY u.id")
+    List<UserView> findUserViewsByRoleIdAndIdGreaterThan(@Param("roleId") int roleId, @Param("after") int after,
+                                                         Pageable pageable);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = StreamingExport.FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = "true")})
+    @EntityGraph(attributePaths = "role")
+    Stream<User> streamUsersByRoleIdOrderById(int roleId);
+
+    @Modifying
+    @Query("DELETE FROM User u WHERE u.id IN :ids")
+    int deleteUsersByIdIn(@Param("ids") Collection<Integer> ids);
 
 }
@@ -0,0 +1,15 @@
+package com.mikhail.tarasevich.eventmanager.repository.projection;
+
+import com.mikhail.tarasevich.eventmanager.util.Status;
+
+public interface ContractView {
+
+    int getId();
+
+    int getUserId();
+
+    String getUserEmail();
+
+    Status getStatus();
+
+}
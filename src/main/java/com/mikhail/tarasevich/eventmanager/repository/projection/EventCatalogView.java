@@ -0,0 +1,17 @@
+package com.mikhail.tarasevich.eventmanager.repository.projection;
+
+public interface EventCatalogView {
+
+    int getId();
+
+    int getOwnerId();
+
+    String getName();
+
+    String getDescription();
+
+    int getPrice();
+
+    Integer getCapacity();
+
+}
@@ -0,0 +1,9 @@
+package com.mikhail.tarasevich.eventmanager.repository.projection;
+
+public interface EventParticipantsView {
+
+    int getEventId();
+
+    long getParticipants();
+
+}
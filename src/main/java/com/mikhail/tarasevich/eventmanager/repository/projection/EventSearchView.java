@@ -0,0 +1,11 @@
+package com.mikhail.tarasevich.eventmanager.repository.projection;
+
+public interface EventSearchView {
+
+    int getId();
+
+    String getName();
+
+    String getDescription();
+
+}
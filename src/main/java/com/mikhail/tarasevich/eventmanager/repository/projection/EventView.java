@@ -0,0 +1,19 @@
+package com.mikhail.tarasevich.eventmanager.repository.projection;
+
+public interface EventView {
+
+    int getId();
+
+    int getUserId();
+
+    String getUserEmail();
+
+    String getName();
+
+    String getDescription();
+
+    int getPrice();
+
+    Integer getCapacity();
+
+}
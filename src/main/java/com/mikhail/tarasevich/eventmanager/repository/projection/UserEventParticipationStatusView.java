@@ -0,0 +1,17 @@
+package com.mikhail.tarasevich.eventmanager.repository.projection;
+
+import com.mikhail.tarasevich.eventmanager.util.Status;
+
+public interface UserEventParticipationStatusView {
+
+    int getId();
+
+    Status getStatus();
+
+    int getEventUserId();
+
+    int getEventId();
+
+    Integer getEventCapacity();
+
+}
@@ -0,0 +1,32 @@
+package com.mikhail.tarasevich.eventmanager.repository.projection;
+
+import com.mikhail.tarasevich.eventmanager.util.Status;
+
+public interface UserEventParticipationView {
+
+    int getId();
+
+    // participation may outlive its user, so the user columns come from an outer join
+    Integer getUserId();
+
+    String getUserEmail();
+
+    int getEventId();
+
+    int getEventUserId();
+
+    String getEventUserEmail();
+
+    String getEventName();
+
+    String getEventDescription();
+
+    Status getStatus();
+
+    String getFio();
+
+    int getAge();
+
+    int getCovidPassportNumber();
+
+}
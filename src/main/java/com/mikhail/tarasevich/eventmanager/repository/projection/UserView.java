@@ -0,0 +1,9 @@
+package com.mikhail.tarasevich.eventmanager.repository.projection;
+
+public interface UserView {
+
+    int getId();
+
+    String getEmail();
+
+}
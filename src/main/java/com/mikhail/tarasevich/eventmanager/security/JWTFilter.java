@@ -5,8 +5,6 @@ import com.mikhail.tarasevich.eventmanager.service.exception.AuthenticationDataE
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -20,13 +18,16 @@ import java.io.IOException;
 public class JWTFilter extends OncePerRequestFilter {
 
     private final JWTUtil jwtUtil;
-    private final UserDetailsService userDetailsService;
+    private final TokenRevocationRegistry revocationRegistry;
+    private final RolePrivilegeRegistry rolePrivilegeRegistry;
 
 
     @Autowired
-    public JWTFilter(JWTUtil jwtUtil, UserDetailsService userDetailsService) {
+    public JWTFilter(JWTUtil jwtUtil, TokenRevocationRegistry revocationRegistry,
+                     RolePrivilegeRegistry rolePrivilegeRegistry) {
         this.jwtUtil = jwtUtil;
-        this.userDetailsService = userDetailsService;
+        this.revocationRegistry = revocationRegistry;
+        this.rolePrivilegeRegistry = rolePrivilegeRegistry;
     }
 
     @Override
@@ -42,12 +43,17 @@ public class JWTFilter extends OncePerRequestFilter {
                 throw new AuthenticationDataException("Invalid JWT token in barer header");
             } else {
                 try {
-                    String email = jwtUtil.validateTokenAndRetrieveClaims(jwt);
+                    TokenClaims claims = jwtUtil.validateTokenAndRetrieveClaims(jwt);
 
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+                    if (revocationRegistry.isRevoked(claims)) {
+                        throw new AuthenticationDataException("JWT token has been revoked. Login again.");
+                    }
+
+                    UserSecurityDetails userDetails = new UserSecurityDetails(claims.getUserId(), claims.getEmail(),
+                            claims.getRole(), rolePrivilegeRegistry.getAuthorities(claims.getRole()));
 
                     UsernamePasswordAuthenticationToken authToken =
-                            new UsernamePasswordAuthenticationToken(userDetails, userDetails.getPassword(), userDetails.getAuthorities());
+                            new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
 
                     if (SecurityContextHolder.getContext().getAuthentication() == null) {
                         SecurityContextHolder.getContext().setAuthentication(authToken);
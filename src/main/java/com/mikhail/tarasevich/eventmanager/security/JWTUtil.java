@@ -5,6 +5,7 @@ import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -14,32 +15,71 @@ import java.util.Date;
 @Component
 public class JWTUtil {
 
-    @Value("${jwt_secret}")
-    private String secret;
+    private static final String SUBJECT = "User details";
+    private static final String ISSUER = "event-manager-app";
 
-    public String generateToken (String email) {
+    private static final String CLAIM_ID = "id";
+    private static final String CLAIM_EMAIL = "email";
+    private static final String CLAIM_ROLE = "role";
+    private static final String CLAIM_PRIVILEGES = "privileges";
 
-        Date expirationDate = Date.from(ZonedDateTime.now().plusMinutes(60).toInstant());
+    private final long lifetimeMinutes;
+
+    private final Algorithm algorithm;
+
+    private final JWTVerifier verifier;
+
+    private final VerifiedTokenCache tokenCache;
+
+    @Autowired
+    public JWTUtil(@Value("${jwt_secret}") String secret,
+                   @Value("${jwt_lifetime_minutes:60}") long lifetimeMinutes,
+                   VerifiedTokenCache tokenCache) {
+        this.lifetimeMinutes = lifetimeMinutes;
+        this.algorithm = Algorithm.HMAC256(secret);
+        this.verifier = JWT.require(algorithm)
+                .withSubject(SUBJECT)
+                .withIssuer(ISSUER)
+                .withClaimPresence(CLAIM_ID)
+                .withClaimPresence(CLAIM_ROLE)
+                .withClaimPresence(CLAIM_PRIVILEGES)
+                .build();
+        this.tokenCache = tokenCache;
+    }
+
+    public String generateToken (UserSecurityDetails user) {
+
+        Date expirationDate = Date.from(ZonedDateTime.now().plusMinutes(lifetimeMinutes).toInstant());
 
         return JWT.create()
-                .withSubject("User details")
-                .withClaim("email", email)
+                .withSubject(SUBJECT)
+                .withClaim(CLAIM_ID, user.getId())
+                .withClaim(CLAIM_EMAIL, user.getUsername())
+                .withClaim(CLAIM_ROLE, user.getRole())
+                .withClaim(CLAIM_PRIVILEGES, user.getPrivileges())
                 .withIssuedAt(new Date())
-                .withIssuer("event-manager-app")
+                .withIssuer(ISSUER)
                 .withExpiresAt(expirationDate)
-                .sign(Algorithm.HMAC256(secret));
+                .sign(algorithm);
     }
 
-    public String validateTokenAndRetrieveClaims (String token) throws JWTVerificationException {
+    public TokenClaims validateTokenAndRetrieveClaims (String token) throws JWTVerificationException {
 
-        JWTVerifier verifier = JWT.require(Algorithm.HMAC256(secret))
-                .withSubject("User details")
-                .withIssuer("event-manager-app")
-                .build();
+        return tokenCache.get(token, this::verify);
+    }
+
+    private TokenClaims verify(String token) {
 
         DecodedJWT jwt = verifier.verify(token);
 
-        return jwt.getClaim("email").asString();
+        return TokenClaims.builder()
+                .withUserId(jwt.getClaim(CLAIM_ID).asInt())
+                .withEmail(jwt.getClaim(CLAIM_EMAIL).asString())
+                .withRole(jwt.getClaim(CLAIM_ROLE).asString())
+                .withPrivileges(jwt.getClaim(CLAIM_PRIVILEGES).asList(String.class))
+                .withIssuedAt(jwt.getIssuedAtAsInstant())
+                .withExpiresAt(jwt.getExpiresAtAsInstant())
+                .build();
     }
 
 }
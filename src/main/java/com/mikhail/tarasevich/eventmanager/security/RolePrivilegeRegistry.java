@@ -0,0 +1,93 @@
+package com.mikhail.tarasevich.eventmanager.security;
+
+import com.mikhail.tarasevich.eventmanager.entity.Privilege;
+import com.mikhail.tarasevich.eventmanager.entity.Role;
+import com.mikhail.tarasevich.eventmanager.repository.PrivilegeRepository;
+import com.mikhail.tarasevich.eventmanager.repository.RoleRepository;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable in-memory copy of the roles -> privileges mapping. There are only a handful of roles, so they are read
+ * once at startup and every authentication reuses the same authority lists. Call {@link #refresh()} after the
+ * roles or privileges tables change.
+ */
+@Component
+public class RolePrivilegeRegistry {
+
+    private final RoleRepository roleRepository;
+
+    private final PrivilegeRepository privilegeRepository;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private volatile Map<String, RoleEntry> roles = Collections.emptyMap();
+
+    @Autowired
+    public RolePrivilegeRegistry(RoleRepository roleRepository, PrivilegeRepository privilegeRepository,
+                                 EntityManagerFactory entityManagerFactory) {
+        this.roleRepository = roleRepository;
+        this.privilegeRepository = privilegeRepository;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @PostConstruct
+    public void refresh() {
+
+        // roles and privileges are immutable to Hibernate and cached read-only, changes made in the tables outside
+        // the application reach the cache only by eviction
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        cache.evictEntityData(Role.class);
+        cache.evictEntityData(Privilege.class);
+        cache.evictDefaultQueryRegion();
+
+        Map<String, GrantedAuthority> authoritiesByPrivilege = privilegeRepository.findAll().stream()
+                .map(Privilege::getName)
+                .collect(Collectors.toUnmodifiableMap(Function.identity(), SimpleGrantedAuthority::new));
+
+        roles = roleRepository.findAllWithPrivileges().stream()
+                .collect(Collectors.toUnmodifiableMap(Role::getName, role -> new RoleEntry(role.getId(),
+                        role.getPrivileges().stream()
+                                .map(privilege -> authoritiesByPrivilege.get(privilege.getName()))
+                                .collect(Collectors.toUnmodifiableList()))));
+    }
+
+    public List<GrantedAuthority> getAuthorities(String role) {
+
+        RoleEntry entry = role == null ? null : roles.get(role);
+
+        return entry == null ? Collections.emptyList() : entry.authorities;
+    }
+
+    public Optional<Integer> findRoleId(String role) {
+
+        return Optional.ofNullable(roles.get(role)).map(entry -> entry.id);
+    }
+
+    private static final class RoleEntry {
+
+        private final int id;
+
+        private final List<GrantedAuthority> authorities;
+
+        private RoleEntry(int id, List<GrantedAuthority> authorities) {
+            this.id = id;
+            this.authorities = authorities;
+        }
+
+    }
+
+}
@@ -0,0 +1,25 @@
+package com.mikhail.tarasevich.eventmanager.security;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.List;
+
+@Builder(setterPrefix = "with")
+@Value
+public class TokenClaims {
+
+    int userId;
+
+    String email;
+
+    String role;
+
+    List<String> privileges;
+
+    Instant issuedAt;
+
+    Instant expiresAt;
+
+}
@@ -0,0 +1,43 @@
+package com.mikhail.tarasevich.eventmanager.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps, per user, the moment before which issued tokens are no longer trusted. Tokens carry the role and privileges
+ * as claims, so a role change or a user removal has to be announced here to take effect before the token expires.
+ * An entry is useless once every token issued before it has expired, so entries live at most one token lifetime.
+ */
+@Component
+public class TokenRevocationRegistry {
+
+    private final Map<Integer, Instant> revokedBefore = new ConcurrentHashMap<>();
+
+    private final Duration tokenLifetime;
+
+    public TokenRevocationRegistry(@Value("${jwt_lifetime_minutes:60}") long tokenLifetimeMinutes) {
+        this.tokenLifetime = Duration.ofMinutes(tokenLifetimeMinutes);
+    }
+
+    public void revokeUserTokens(int userId) {
+
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+        revokedBefore.put(userId, now);
+        revokedBefore.values().removeIf(revokedAt -> revokedAt.plus(tokenLifetime).isBefore(now));
+    }
+
+    public boolean isRevoked(TokenClaims claims) {
+
+        Instant revokedAt = revokedBefore.get(claims.getUserId());
+
+        return revokedAt != null && !claims.getIssuedAt().isAfter(revokedAt);
+    }
+
+}
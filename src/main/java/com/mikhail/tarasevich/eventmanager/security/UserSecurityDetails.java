@@ -1,41 +1,87 @@
 package com.mikhail.tarasevich.eventmanager.security;
 
 import com.mikhail.tarasevich.eventmanager.entity.User;
+import com.mikhail.tarasevich.eventmanager.service.exception.AuthenticationDataException;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.security.Principal;
 import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
 public class UserSecurityDetails implements UserDetails {
 
-    private final User user;
+    private final int id;
 
-    private final List<String> privileges;
+    private final String email;
 
-    public UserSecurityDetails(User user, List<String> privileges) {
-        this.user = user;
-        this.privileges = privileges;
+    private final String password;
+
+    private final String role;
+
+    private final List<GrantedAuthority> authorities;
+
+    public UserSecurityDetails(User user, List<? extends GrantedAuthority> authorities) {
+        this(user.getId(),
+                user.getEmail(),
+                user.getPassword(),
+                user.getRole() == null ? null : user.getRole().getName(),
+                authorities);
     }
 
-    @Override
-    public Collection<? extends GrantedAuthority> getAuthorities() {
+    public UserSecurityDetails(int id, String email, String role, List<? extends GrantedAuthority> authorities) {
+        this(id, email, null, role, authorities);
+    }
 
-        return privileges.stream()
-                .map(SimpleGrantedAuthority::new)
+    private UserSecurityDetails(int id, String email, String password, String role,
+                                List<? extends GrantedAuthority> authorities) {
+        this.id = id;
+        this.email = email;
+        this.password = password;
+        this.role = role;
+        this.authorities = List.copyOf(authorities);
+    }
+
+    public static UserSecurityDetails from(Principal principal) {
+
+        if (principal instanceof Authentication
+                && ((Authentication) principal).getPrincipal() instanceof UserSecurityDetails) {
+            return (UserSecurityDetails) ((Authentication) principal).getPrincipal();
+        }
+
+        throw new AuthenticationDataException("Request is not authenticated with JWT token");
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public List<String> getPrivileges() {
+
+        return authorities.stream()
+                .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
     @Override
     public String getPassword() {
-        return user.getPassword();
+        return password;
     }
 
     @Override
     public String getUsername() {
-        return user.getEmail();
+        return email;
     }
 
     @Override
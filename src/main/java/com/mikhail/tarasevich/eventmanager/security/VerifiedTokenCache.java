@@ -0,0 +1,121 @@
+package com.mikhail.tarasevich.eventmanager.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Cache of already verified tokens. Keys are SHA-256 digests of the raw token, so the cache never holds a usable
+ * credential, and entries are dropped as soon as the token they belong to expires. Every authenticated request
+ * reads it, so a hit takes no lock. When the cache outgrows its limit, one thread drops the expired tokens and then
+ * the ones expiring first, a tenth of the limit at once, while the other threads go on.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final int maxSize;
+
+    private final Map<String, TokenClaims> entries = new ConcurrentHashMap<>();
+
+    private final Lock eviction = new ReentrantLock();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    public VerifiedTokenCache(@Value("${jwt_cache_max_size:10000}") int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public TokenClaims get(String token, Function<String, TokenClaims> verifier) {
+
+        String key = digest(token);
+        Instant now = Instant.now();
+
+        TokenClaims claims = entries.get(key);
+
+        if (claims != null && !claims.getExpiresAt().isAfter(now)) {
+            entries.remove(key, claims);
+            claims = null;
+        }
+
+        if (claims != null) {
+            hits.incrementAndGet();
+            return claims;
+        }
+
+        misses.incrementAndGet();
+
+        claims = verifier.apply(token);
+
+        if (maxSize > 0 && claims.getExpiresAt() != null) {
+            entries.put(key, claims);
+
+            if (entries.size() > maxSize) {
+                evict(now);
+            }
+        }
+
+        return claims;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // the limit may be passed by a few entries while another thread is evicting
+    private void evict(Instant now) {
+
+        if (!eviction.tryLock()) {
+            return;
+        }
+
+        try {
+            entries.values().removeIf(claims -> !claims.getExpiresAt().isAfter(now));
+
+            int excess = entries.size() - (maxSize - maxSize / 10);
+
+            if (excess > 0) {
+                entries.entrySet().stream()
+                        .sorted(Map.Entry.comparingByValue(Comparator.comparing(TokenClaims::getExpiresAt)))
+                        .limit(excess)
+                        .collect(Collectors.toList())
+                        .forEach(entry -> entries.remove(entry.getKey(), entry.getValue()));
+            }
+        } finally {
+            eviction.unlock();
+        }
+    }
+
+    private static String digest(String token) {
+
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(messageDigest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by JVM", e);
+        }
+    }
+
+}
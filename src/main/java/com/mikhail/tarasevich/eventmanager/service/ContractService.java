@@ -1,24 +1,27 @@
 package com.mikhail.tarasevich.eventmanager.service;
 
 import com.mikhail.tarasevich.eventmanager.dto.ContractResponse;
+import com.mikhail.tarasevich.eventmanager.dto.PageResponse;
 
-import java.util.List;
+import java.util.function.Consumer;
 
 public interface ContractService {
 
-    List<ContractResponse> findPendingContracts();
+    PageResponse<ContractResponse> findPendingContracts(int after, int limit);
 
-    List<ContractResponse> findRejectedContracts();
+    PageResponse<ContractResponse> findRejectedContracts(int after, int limit);
 
-    List<ContractResponse> findAcceptedContracts();
+    PageResponse<ContractResponse> findAcceptedContracts(int after, int limit);
 
-    ContractResponse createContract(String email);
+    void exportAcceptedContracts(Consumer<ContractResponse> consumer);
+
+    ContractResponse createContract(int managerId);
 
     void setContractStatusRejected(int id);
 
     void setContractStatusAccepted(int id);
 
-    boolean hasUserAcceptedContract(String email);
+    boolean hasUserAcceptedContract(int managerId);
 
     void deleteContractById(int id);
 
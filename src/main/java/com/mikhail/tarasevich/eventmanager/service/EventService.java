@@ -1,20 +1,34 @@
 package com.mikhail.tarasevich.eventmanager.service;
 
+import com.mikhail.tarasevich.eventmanager.dto.EventCatalogRequest;
+import com.mikhail.tarasevich.eventmanager.dto.EventImportResponse;
 import com.mikhail.tarasevich.eventmanager.dto.EventRequest;
 import com.mikhail.tarasevich.eventmanager.dto.EventResponse;
+import com.mikhail.tarasevich.eventmanager.dto.PageResponse;
+import com.mikhail.tarasevich.eventmanager.dto.PublicEventResponse;
+import com.mikhail.tarasevich.eventmanager.util.EventImportReader;
 
+import java.util.Iterator;
 import java.util.List;
 
 public interface EventService {
 
-    List<EventResponse> findAllMangerEvents(String email);
+    PageResponse<EventResponse> findAllMangerEvents(int managerId, int after, int limit);
 
-    EventResponse findEventById(int id);
+    PublicEventResponse findEventById(int id);
 
-    EventResponse createNewEvent(String email, EventRequest request);
+    PageResponse<EventResponse> searchEvents(String query, int after, int limit);
 
-    void deleteEventById(String email, int id);
+    PageResponse<PublicEventResponse> findCatalogEvents(EventCatalogRequest request);
+
+    EventResponse createNewEvent(int managerId, EventRequest request);
+
+    EventImportResponse importEvents(int managerId, Iterator<EventImportReader.Row> rows);
+
+    void deleteEventById(int managerId, int id);
 
     void deleteEventByIdForAdmin(int id);
 
+    void deleteEventsByIdsForAdmin(List<Integer> ids);
+
 }
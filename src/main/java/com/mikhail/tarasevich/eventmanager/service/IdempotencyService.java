@@ -0,0 +1,14 @@
+package com.mikhail.tarasevich.eventmanager.service;
+
+import java.util.function.Supplier;
+
+public interface IdempotencyService {
+
+    /**
+     * Runs the action once per idempotency key of the user, a repeated request with the same key gets the stored
+     * response of the first one. Without a key the action just runs.
+     */
+    <T> T execute(int userId, String idempotencyKey, String operation, Object request, Class<T> responseType,
+                  Supplier<T> action);
+
+}
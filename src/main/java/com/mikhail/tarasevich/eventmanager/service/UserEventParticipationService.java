@@ -1,27 +1,34 @@
 package com.mikhail.tarasevich.eventmanager.service;
 
+import com.mikhail.tarasevich.eventmanager.dto.PageResponse;
 import com.mikhail.tarasevich.eventmanager.dto.UserEventParticipationRequest;
 import com.mikhail.tarasevich.eventmanager.dto.UserEventParticipationResponse;
-
-import java.util.List;
+import com.mikhail.tarasevich.eventmanager.dto.UserEventParticipationStatusRequest;
+import com.mikhail.tarasevich.eventmanager.dto.UserEventParticipationStatusResponse;
 
 public interface UserEventParticipationService {
 
-    List<UserEventParticipationResponse> findPendingUserEventParticipationsByEventId(String email, int eventId);
+    PageResponse<UserEventParticipationResponse> findPendingUserEventParticipationsByEventId(int managerId, int eventId,
+                                                                                            int after, int limit);
+
+    PageResponse<UserEventParticipationResponse> findRejectedUserEventParticipationsByEventId(int managerId, int eventId,
+                                                                                             int after, int limit);
 
-    List<UserEventParticipationResponse> findRejectedUserEventParticipationsByEventId(String email, int eventId);
+    PageResponse<UserEventParticipationResponse> findAcceptedUserEventParticipationsByEventId(int managerId, int eventId,
+                                                                                             int after, int limit);
 
-    List<UserEventParticipationResponse> findAcceptedUserEventParticipationsByEventId(String email, int eventId);
+    PageResponse<UserEventParticipationResponse> findAllUserEventParticipationsByUserId(int userId, int after, int limit);
 
-    List<UserEventParticipationResponse> findAllUserEventParticipationsByUserEmail(String email);
+    UserEventParticipationResponse createUserEventParticipation (int userId, UserEventParticipationRequest request);
 
-    UserEventParticipationResponse createUserEventParticipation (String email, UserEventParticipationRequest request);
+    void setUserEventParticipationsStatusRejected(int managerId, int id);
 
-    void setUserEventParticipationsStatusRejected(String email, int id);
+    void setUserEventParticipationsStatusAccepted(int managerId, int id);
 
-    void setUserEventParticipationsStatusAccepted(String email, int id);
+    UserEventParticipationStatusResponse setUserEventParticipationsStatus(int managerId,
+                                                                         UserEventParticipationStatusRequest request);
 
-    void deleteUserEventParticipationsById(String email, int id);
+    void deleteUserEventParticipationsById(int userId, int id);
 
     void deleteUserEventParticipationsByIdForAdmin(int id);
 
@@ -1,13 +1,15 @@
 package com.mikhail.tarasevich.eventmanager.service;
 
+import com.mikhail.tarasevich.eventmanager.dto.PageResponse;
 import com.mikhail.tarasevich.eventmanager.dto.UserRequest;
 import com.mikhail.tarasevich.eventmanager.dto.UserResponse;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface UserService {
 
-    List<UserResponse> findAll();
+    PageResponse<UserResponse> findAll(int after, int limit);
 
     UserResponse findUserById(int id);
 
@@ -17,12 +19,16 @@ public interface UserService {
 
     UserResponse createParticipant(UserRequest request);
 
-    List<UserResponse> findAdmins();
+    PageResponse<UserResponse> findAdmins(int after, int limit);
 
-    List<UserResponse> findManagers();
+    PageResponse<UserResponse> findManagers(int after, int limit);
 
-    List<UserResponse> findParticipants();
+    PageResponse<UserResponse> findParticipants(int after, int limit);
+
+    void exportParticipants(Consumer<UserResponse> consumer);
 
     void deleteUserById(int id);
 
+    void deleteUsersByIds(List<Integer> ids);
+
 }
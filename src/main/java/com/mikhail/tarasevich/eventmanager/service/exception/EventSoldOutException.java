@@ -0,0 +1,9 @@
+package com.mikhail.tarasevich.eventmanager.service.exception;
+
+public class EventSoldOutException extends RuntimeException {
+
+    public EventSoldOutException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,9 @@
+package com.mikhail.tarasevich.eventmanager.service.exception;
+
+public class IdempotencyKeyConflictException extends RuntimeException {
+
+    public IdempotencyKeyConflictException(String message) {
+        super(message);
+    }
+
+}
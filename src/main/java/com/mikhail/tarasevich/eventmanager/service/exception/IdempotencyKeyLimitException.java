@@ -0,0 +1,9 @@
+package com.mikhail.tarasevich.eventmanager.service.exception;
+
+public class IdempotencyKeyLimitException extends RuntimeException {
+
+    public IdempotencyKeyLimitException(String message) {
+        super(message);
+    }
+
+}
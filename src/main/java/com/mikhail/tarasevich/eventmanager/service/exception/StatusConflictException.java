@@ -0,0 +1,9 @@
+package com.mikhail.tarasevich.eventmanager.service.exception;
+
+public class StatusConflictException extends RuntimeException {
+
+    public StatusConflictException(String message) {
+        super(message);
+    }
+
+}
@@ -1,21 +1,33 @@
 package com.mikhail.tarasevich.eventmanager.service.impl;
 
 import com.mikhail.tarasevich.eventmanager.dto.ContractResponse;
+import com.mikhail.tarasevich.eventmanager.dto.PageResponse;
 import com.mikhail.tarasevich.eventmanager.entity.Contract;
 import com.mikhail.tarasevich.eventmanager.entity.User;
 import com.mikhail.tarasevich.eventmanager.repository.ContractRepository;
 import com.mikhail.tarasevich.eventmanager.repository.UserRepository;
+import com.mikhail.tarasevich.eventmanager.repository.projection.ContractView;
 import com.mikhail.tarasevich.eventmanager.service.ContractService;
 import com.mikhail.tarasevich.eventmanager.service.exception.ContractNotFoundException;
+import com.mikhail.tarasevich.eventmanager.service.exception.StatusConflictException;
 import com.mikhail.tarasevich.eventmanager.service.exception.UserNotFoundException;
 import com.mikhail.tarasevich.eventmanager.service.mapper.ContractMapper;
+import com.mikhail.tarasevich.eventmanager.util.KeysetPagination;
 import com.mikhail.tarasevich.eventmanager.util.Status;
+import com.mikhail.tarasevich.eventmanager.util.StreamingExport;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 @Service
 @Transactional
@@ -27,47 +39,66 @@ public class ContractServiceImpl implements ContractService {
 
     private final ContractMapper mapper;
 
+    private final EntityManager entityManager;
+
+    private final long acceptedFlagTtlNanos;
+
+    private final int acceptedFlagsMaxSize;
+
+    // manager id -> System.nanoTime() until which the manager is taken as having an accepted contract. Only accepted
+    // contracts are remembered: a manager without one is asked about again, so an acceptance made through another
+    // node is seen at once, and a contract deleted through another node is noticed when the flag expires
+    private final Map<Integer, Long> acceptedContractFlags = new ConcurrentHashMap<>();
+
     @Autowired
     public ContractServiceImpl(ContractRepository contractRepository,
                                UserRepository userRepository,
-                               ContractMapper mapper) {
+                               ContractMapper mapper,
+                               EntityManager entityManager,
+                               @Value("${accepted_contract_cache_ttl_seconds:60}") long acceptedFlagTtlSeconds,
+                               @Value("${accepted_contract_cache_max_size:10000}") int acceptedFlagsMaxSize) {
         this.contractRepository = contractRepository;
         this.userRepository = userRepository;
         this.mapper = mapper;
+        this.entityManager = entityManager;
+        this.acceptedFlagTtlNanos = TimeUnit.SECONDS.toNanos(acceptedFlagTtlSeconds);
+        this.acceptedFlagsMaxSize = acceptedFlagsMaxSize;
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<ContractResponse> findPendingContracts() {
+    public PageResponse<ContractResponse> findPendingContracts(int after, int limit) {
 
-        return contractRepository.findContractByStatusOrderById(Status.PENDING).stream()
-                .map(mapper::toResponse)
-                .collect(Collectors.toList());
+        return findContractsByStatus(Status.PENDING, after, limit);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<ContractResponse> findRejectedContracts() {
+    public PageResponse<ContractResponse> findRejectedContracts(int after, int limit) {
 
-        return contractRepository.findContractByStatusOrderById(Status.REJECTED).stream()
-                .map(mapper::toResponse)
-                .collect(Collectors.toList());
+        return findContractsByStatus(Status.REJECTED, after, limit);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<ContractResponse> findAcceptedContracts() {
+    public PageResponse<ContractResponse> findAcceptedContracts(int after, int limit) {
 
-        return contractRepository.findContractByStatusOrderById(Status.ACCEPTED).stream()
-                .map(mapper::toResponse)
-                .collect(Collectors.toList());
+        return findContractsByStatus(Status.ACCEPTED, after, limit);
     }
 
     @Override
-    public ContractResponse createContract(String email) {
+    @Transactional(readOnly = true)
+    public void exportAcceptedContracts(Consumer<ContractResponse> consumer) {
 
-        User user = userRepository.findUserByEmail(email)
-                .orElseThrow(() -> new UserNotFoundException("There is no user with email = " + email + " in DB"));
+        StreamingExport.forEach(contractRepository.streamContractsByStatusOrderById(Status.ACCEPTED),
+                entityManager, mapper::toResponse, consumer);
+    }
+
+    @Override
+    public ContractResponse createContract(int managerId) {
+
+        User user = userRepository.findById(managerId)
+                .orElseThrow(() -> new UserNotFoundException("There is no user with id = " + managerId + " in DB"));
 
         return mapper.toResponse(contractRepository.save(Contract.builder()
                 .withId(0)
@@ -79,39 +110,106 @@ public class ContractServiceImpl implements ContractService {
     @Override
     public void setContractStatusRejected(int id) {
 
-        Contract contract = contractRepository.findById(id).orElseThrow(() ->
-                new ContractNotFoundException("There is no contract with id = " + id + " in DB"));
-
-        contract.setStatus(Status.REJECTED);
-
-        contractRepository.save(contract);
+        setContractStatus(id, Status.REJECTED);
     }
 
     @Override
     public void setContractStatusAccepted(int id) {
 
-        Contract contract = contractRepository.findById(id).orElseThrow(() ->
-                new ContractNotFoundException("There is no contract with id = " + id + " in DB"));
-
-        contract.setStatus(Status.ACCEPTED);
-
-        contractRepository.save(contract);
+        // nothing to evict, managers without an accepted contract aren't remembered
+        setContractStatus(id, Status.ACCEPTED);
     }
 
+    // not read-only, so a manager who isn't remembered is looked up on the primary and never on a lagging replica
     @Override
-    @Transactional(readOnly = true)
-    public boolean hasUserAcceptedContract(String email) {
+    public boolean hasUserAcceptedContract(int managerId) {
+
+        Long acceptedUntil = acceptedContractFlags.get(managerId);
+
+        if (acceptedUntil != null) {
+            if (acceptedUntil - System.nanoTime() > 0) {
+                return true;
+            }
+            acceptedContractFlags.remove(managerId, acceptedUntil);
+        }
 
-        User user = userRepository.findUserByEmail(email)
-                .orElseThrow(() -> new UserNotFoundException("There is no user with email = " + email + " in DB"));
+        if (!contractRepository.existsByUserIdAndStatus(managerId, Status.ACCEPTED)) {
+            return false;
+        }
 
-        return !contractRepository.findContractByUserIdAndStatusOrderById(user.getId(), Status.ACCEPTED).isEmpty();
+        if (acceptedFlagTtlNanos > 0 && acceptedFlagsMaxSize > 0) {
+            rememberAccepted(managerId);
+        }
+
+        return true;
     }
 
     @Override
     public void deleteContractById(int id) {
 
+        contractRepository.findById(id).ifPresent(contract -> {
+            int managerId = contract.getUser().getId();
+            evictAcceptedContractFlags(() -> acceptedContractFlags.remove(managerId));
+        });
+
         contractRepository.deleteById(id);
     }
 
+    private void rememberAccepted(int managerId) {
+
+        long now = System.nanoTime();
+
+        if (acceptedContractFlags.size() >= acceptedFlagsMaxSize) {
+            acceptedContractFlags.values().removeIf(acceptedUntil -> acceptedUntil - now <= 0);
+
+            // still full of live flags, they are cheap to read again
+            if (acceptedContractFlags.size() >= acceptedFlagsMaxSize) {
+                acceptedContractFlags.clear();
+            }
+        }
+
+        acceptedContractFlags.put(managerId, now + acceptedFlagTtlNanos);
+    }
+
+    private PageResponse<ContractResponse> findContractsByStatus(Status status, int after, int limit) {
+
+        Pageable pageable = KeysetPagination.limitWithLookahead(limit);
+
+        return KeysetPagination.toPage(contractRepository.findContractViewsByStatusAndIdGreaterThan(status, after, pageable),
+                pageable, ContractView::getId, mapper::toResponse);
+    }
+
+    // returns false when the contract already had the status, a repeated decision is not a conflict
+    private boolean setContractStatus(int id, Status status) {
+
+        if (contractRepository.updateStatusByIdAndStatus(id, Status.PENDING, status) == 1) {
+            return true;
+        }
+
+        Contract contract = contractRepository.findById(id).orElseThrow(() ->
+                new ContractNotFoundException("There is no contract with id = " + id + " in DB"));
+
+        if (contract.getStatus() != status) {
+            throw new StatusConflictException("Contract with id = " + id + " is already " + contract.getStatus() +
+                    " and can't be " + status);
+        }
+
+        return false;
+    }
+
+    private void evictAcceptedContractFlags(Runnable eviction) {
+
+        eviction.run();
+
+        // a concurrent reader may cache the old value before this transaction commits, so evict once more afterwards
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
 }
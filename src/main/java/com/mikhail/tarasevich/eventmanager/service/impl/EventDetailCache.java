@@ -0,0 +1,167 @@
+package com.mikhail.tarasevich.eventmanager.service.impl;
+
+import com.mikhail.tarasevich.eventmanager.dto.PublicEventResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Near-cache of event details in front of the DB: a bounded LRU map whose entries live for a short time. Concurrent
+ * misses for the same event are collapsed into one load, the other requests wait for its result, so a burst of
+ * requests for a cold event sends one query to the DB. Deleted events are invalidated on this node after commit,
+ * other nodes serve them until their entries expire.
+ */
+@Component
+class EventDetailCache {
+
+    private final int maxSize;
+
+    private final long ttlNanos;
+
+    // guards entries and every removal from loads, so an invalidation never races with a finished load
+    private final Map<Integer, Entry> entries;
+
+    // event id -> the load running for it, its result is cached only if the event isn't invalidated meanwhile
+    private final Map<Integer, CompletableFuture<PublicEventResponse>> loads = new ConcurrentHashMap<>();
+
+    @Autowired
+    EventDetailCache(@Value("${event_cache_max_size:10000}") int maxSize,
+                     @Value("${event_cache_ttl_seconds:30}") long ttlSeconds) {
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                return size() > EventDetailCache.this.maxSize;
+            }
+        };
+    }
+
+    PublicEventResponse get(int eventId, IntFunction<PublicEventResponse> loader) {
+
+        PublicEventResponse cached = find(eventId);
+
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<PublicEventResponse> load = new CompletableFuture<>();
+        CompletableFuture<PublicEventResponse> running = loads.putIfAbsent(eventId, load);
+
+        if (running != null) {
+            return await(running);
+        }
+
+        PublicEventResponse loaded;
+
+        try {
+            loaded = loader.apply(eventId);
+        } catch (RuntimeException | Error e) {
+            // the waiting requests get the failure too, the next request tries again
+            loads.remove(eventId, load);
+            load.completeExceptionally(e);
+            throw e;
+        }
+
+        synchronized (entries) {
+            if (loads.remove(eventId, load) && maxSize > 0 && ttlNanos > 0) {
+                entries.put(eventId, new Entry(loaded, System.nanoTime() + ttlNanos));
+            }
+        }
+
+        load.complete(loaded);
+
+        return loaded;
+    }
+
+    void invalidate(Collection<Integer> eventIds) {
+
+        synchronized (entries) {
+            for (Integer eventId : eventIds) {
+                entries.remove(eventId);
+                loads.remove(eventId);
+            }
+        }
+    }
+
+    // the events of deleted users go with them, their ids aren't known without asking the DB
+    void invalidateOwnedBy(Collection<Integer> userIds) {
+
+        synchronized (entries) {
+            entries.values().removeIf(entry -> userIds.contains(entry.getEvent().getOwnerId()));
+            // any running load may be reading one of their events, so none of them is cached
+            loads.clear();
+        }
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private PublicEventResponse find(int eventId) {
+
+        synchronized (entries) {
+            Entry entry = entries.get(eventId);
+
+            if (entry == null) {
+                return null;
+            }
+
+            if (entry.getExpiresAt() - System.nanoTime() <= 0) {
+                entries.remove(eventId);
+                return null;
+            }
+
+            return entry.getEvent();
+        }
+    }
+
+    private static PublicEventResponse await(CompletableFuture<PublicEventResponse> load) {
+
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static final class Entry {
+
+        private final PublicEventResponse event;
+
+        // System.nanoTime() of the moment the entry expires
+        private final long expiresAt;
+
+        private Entry(PublicEventResponse event, long expiresAt) {
+            this.event = event;
+            this.expiresAt = expiresAt;
+        }
+
+        PublicEventResponse getEvent() {
+            return event;
+        }
+
+        long getExpiresAt() {
+            return expiresAt;
+        }
+
+    }
+
+}
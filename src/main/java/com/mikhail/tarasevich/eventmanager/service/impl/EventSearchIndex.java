@@ -0,0 +1,310 @@
+package com.mikhail.tarasevich.eventmanager.service.impl;
+
+import com.mikhail.tarasevich.eventmanager.repository.EventRepository;
+import com.mikhail.tarasevich.eventmanager.repository.projection.EventSearchView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * In-process inverted index over the names and descriptions of events: term -> event id -> weight of the term in
+ * the event. It is built from the DB on startup and updated by the event service after every committed change, so a
+ * search is a few hash lookups instead of a scan of the description column. Every node keeps its own index: events
+ * created through another node are found after a restart, events deleted elsewhere are skipped when the found
+ * events are read from the DB. A rebuild reads the events into new postings while searches keep using the old ones,
+ * and swaps them in when done.
+ */
+@Component
+class EventSearchIndex {
+
+    // a term in the name says more about the event than the same term in its description
+    private static final int NAME_WEIGHT = 3;
+
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private static final Pattern TERM_SEPARATOR = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    private static final Comparator<Match> BEST_FIRST = Comparator.comparingDouble(Match::getScore).reversed()
+            .thenComparingInt(Match::getEventId);
+
+    private final EventRepository eventRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Postings postings = new Postings();
+
+    // event id -> the last change of the event made while a rebuild runs, it is made to the rebuilt postings too;
+    // null when no rebuild runs
+    private Map<Integer, Consumer<Postings>> changedDuringRebuild;
+
+    @Autowired
+    EventSearchIndex(EventRepository eventRepository) {
+        this.eventRepository = eventRepository;
+    }
+
+    // lower-cased runs of letters and digits, in any alphabet
+    static List<String> terms(String text) {
+
+        if (text == null) {
+            return Collections.emptyList();
+        }
+
+        return Arrays.stream(TERM_SEPARATOR.split(text.toLowerCase(Locale.ROOT)))
+                .filter(term -> !term.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    synchronized void rebuild() {
+
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Postings rebuilt = null;
+
+        try {
+            rebuilt = readEvents();
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (rebuilt != null) {
+                    // the events may have been read before or after these changes, made again they are the latest
+                    changedDuringRebuild.values().forEach(rebuilt::apply);
+                    postings = rebuilt;
+                }
+                changedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // replaces whatever has been indexed for the event before
+    void add(int eventId, String name, String description) {
+
+        Map<String, Integer> weights = weights(name, description);
+
+        lock.writeLock().lock();
+        try {
+            change(eventId, index -> index.put(eventId, weights));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(Collection<Integer> eventIds) {
+
+        lock.writeLock().lock();
+        try {
+            eventIds.forEach(eventId -> change(eventId, index -> index.remove(eventId)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the events having every one of the terms, best match first, starting at position offset of the
+     * ranking. Rarer terms and terms in the name weigh more.
+     */
+    List<Integer> search(Collection<String> terms, int offset, int count) {
+
+        if (terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Match> matches = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            List<Map<Integer, Integer>> lists = new ArrayList<>();
+
+            for (String term : terms) {
+                Map<Integer, Integer> list = postings.lists.get(term);
+
+                if (list == null) {
+                    return Collections.emptyList();
+                }
+
+                lists.add(list);
+            }
+
+            // candidates come from the rarest term, the others only confirm them
+            lists.sort(Comparator.comparingInt(Map::size));
+
+            double events = postings.termsByEvent.size();
+
+            for (Map.Entry<Integer, Integer> posting : lists.get(0).entrySet()) {
+                double score = 0;
+
+                for (Map<Integer, Integer> list : lists) {
+                    Integer weight = list.get(posting.getKey());
+
+                    if (weight == null) {
+                        score = -1;
+                        break;
+                    }
+
+                    score += (1 + Math.log(weight)) * Math.log(1 + events / list.size());
+                }
+
+                if (score >= 0) {
+                    matches.add(new Match(posting.getKey(), score));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (offset >= matches.size()) {
+            return Collections.emptyList();
+        }
+
+        return top(matches, offset + count).stream()
+                .skip(offset)
+                .map(Match::getEventId)
+                .collect(Collectors.toList());
+    }
+
+    // only the requested part of the ranking is sorted, not every match
+    private static List<Match> top(List<Match> matches, int size) {
+
+        if (matches.size() <= size) {
+            matches.sort(BEST_FIRST);
+            return matches;
+        }
+
+        PriorityQueue<Match> best = new PriorityQueue<>(size + 1, BEST_FIRST.reversed());
+
+        for (Match match : matches) {
+            best.add(match);
+
+            if (best.size() > size) {
+                best.poll();
+            }
+        }
+
+        List<Match> top = new ArrayList<>(best);
+        top.sort(BEST_FIRST);
+
+        return top;
+    }
+
+    private Postings readEvents() {
+
+        Postings read = new Postings();
+        int after = 0;
+        List<EventSearchView> batch;
+
+        do {
+            batch = eventRepository.findEventSearchViewsByIdGreaterThan(after, PageRequest.of(0, REBUILD_BATCH_SIZE));
+            batch.forEach(event -> read.put(event.getId(), weights(event.getName(), event.getDescription())));
+
+            if (!batch.isEmpty()) {
+                after = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+
+        return read;
+    }
+
+    // called under the write lock
+    private void change(int eventId, Consumer<Postings> change) {
+
+        change.accept(postings);
+
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.put(eventId, change);
+        }
+    }
+
+    private static Map<String, Integer> weights(String name, String description) {
+
+        Map<String, Integer> weights = new HashMap<>();
+        terms(name).forEach(term -> weights.merge(term, NAME_WEIGHT, Integer::sum));
+        terms(description).forEach(term -> weights.merge(term, 1, Integer::sum));
+
+        return weights;
+    }
+
+    private static final class Postings {
+
+        private final Map<String, Map<Integer, Integer>> lists = new HashMap<>();
+
+        private final Map<Integer, Set<String>> termsByEvent = new HashMap<>();
+
+        void apply(Consumer<Postings> change) {
+            change.accept(this);
+        }
+
+        void put(int eventId, Map<String, Integer> weights) {
+
+            remove(eventId);
+            weights.forEach((term, weight) -> lists.computeIfAbsent(term, key -> new HashMap<>()).put(eventId, weight));
+            termsByEvent.put(eventId, weights.keySet());
+        }
+
+        void remove(int eventId) {
+
+            Set<String> terms = termsByEvent.remove(eventId);
+
+            if (terms == null) {
+                return;
+            }
+
+            for (String term : terms) {
+                Map<Integer, Integer> list = lists.get(term);
+                list.remove(eventId);
+
+                if (list.isEmpty()) {
+                    lists.remove(term);
+                }
+            }
+        }
+
+    }
+
+    private static final class Match {
+
+        private final int eventId;
+
+        private final double score;
+
+        private Match(int eventId, double score) {
+            this.eventId = eventId;
+            this.score = score;
+        }
+
+        int getEventId() {
+            return eventId;
+        }
+
+        double getScore() {
+            return score;
+        }
+
+    }
+
+}
@@ -0,0 +1,192 @@
+package com.mikhail.tarasevich.eventmanager.service.impl;
+
+import com.mikhail.tarasevich.eventmanager.repository.EventSeatsRepository;
+import com.mikhail.tarasevich.eventmanager.repository.UserEventParticipationRepository;
+import com.mikhail.tarasevich.eventmanager.util.Status;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the accepted participants of an event within its capacity. A seat is taken with a conditional increment
+ * of the event's row in event_seats, so concurrent acceptances never oversell whichever node they run on. Events
+ * found full are remembered for a moment, a crowd of acceptances and registrations for a sold out event is turned
+ * away without queueing up on the lock of that row.
+ * <p>
+ * Requests for a full event wait on its waitlist. A freed seat goes straight to the oldest waitlisted request,
+ * the counter is left as it is. Joining the waitlist and freeing seats both hold the lock of the counter row, so
+ * a seat is never freed past a request that is joining the waitlist at the same moment.
+ */
+@Component
+class EventSeatRegistry {
+
+    // a seat freed on another node is noticed after this time at the latest
+    private static final long SOLD_OUT_RECHECK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    // the head of a waitlist is looked up on the waitlist index, one row per freed seat
+    private static final Pageable WAITLIST_HEAD = PageRequest.of(0, 1);
+
+    private final EventSeatsRepository eventSeatsRepository;
+
+    private final UserEventParticipationRepository uepRepository;
+
+    // event id -> System.nanoTime() until which the event is taken as full without asking the DB
+    private final Map<Integer, Long> soldOutEvents = new ConcurrentHashMap<>();
+
+    @Autowired
+    EventSeatRegistry(EventSeatsRepository eventSeatsRepository, UserEventParticipationRepository uepRepository) {
+        this.eventSeatsRepository = eventSeatsRepository;
+        this.uepRepository = uepRepository;
+    }
+
+    boolean isSoldOut(int eventId, int capacity) {
+
+        if (isKnownSoldOut(eventId)) {
+            return true;
+        }
+
+        if (freeSeats(eventId, capacity) > 0) {
+            soldOutEvents.remove(eventId);
+            return false;
+        }
+
+        markSoldOut(eventId);
+
+        return true;
+    }
+
+    /**
+     * Whether a new request for the event has to join its waitlist. When it has, the counter row of the event stays
+     * locked until the caller's transaction ends and a seat freed meanwhile waits for the request to be stored.
+     */
+    boolean lockIfSoldOut(int eventId, int capacity) {
+
+        if (!isSoldOut(eventId, capacity)) {
+            return false;
+        }
+
+        // checked again under the lock, a seat may have been freed since
+        int freeSeats = eventSeatsRepository.findLockedByEventId(eventId)
+                .map(seats -> capacity - seats.getAccepted())
+                .orElse(0);
+
+        if (freeSeats > 0) {
+            soldOutEvents.remove(eventId);
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Takes up to count seats of the event and returns how many were taken, fewer when the event fills up.
+     * Runs in the caller's transaction, the seats are given back when it rolls back.
+     */
+    int reserve(int eventId, int capacity, int count) {
+
+        if (isKnownSoldOut(eventId)) {
+            return 0;
+        }
+
+        int wanted = count;
+
+        while (eventSeatsRepository.reserveSeats(eventId, wanted, capacity) == 0) {
+            // the event has fewer free seats than wanted, or other acceptances took them meanwhile
+            wanted = Math.min(count, freeSeats(eventId, capacity));
+
+            if (wanted <= 0) {
+                markSoldOut(eventId);
+                return 0;
+            }
+        }
+
+        return wanted;
+    }
+
+    /**
+     * Gives count seats of the event freed in the caller's transaction to the oldest waitlisted requests, seats
+     * nobody waits for go back to the event.
+     */
+    void free(int eventId, int count) {
+
+        if (count <= 0) {
+            return;
+        }
+
+        // an event without a counter row has no seats to free
+        if (eventSeatsRepository.findLockedByEventId(eventId).isEmpty()) {
+            return;
+        }
+
+        int left = count;
+
+        while (left > 0 && promoteWaitlistHead(eventId)) {
+            left--;
+        }
+
+        if (left > 0) {
+            eventSeatsRepository.releaseSeats(eventId, left);
+            soldOutEvents.remove(eventId);
+        }
+    }
+
+    private boolean promoteWaitlistHead(int eventId) {
+
+        while (true) {
+            List<Integer> head = uepRepository.findIdsByEventIdAndStatusOrderByWaitlistedAt(eventId, Status.WAITLISTED,
+                    WAITLIST_HEAD);
+
+            if (head.isEmpty()) {
+                return false;
+            }
+
+            if (uepRepository.updateStatusByIdAndStatus(head.get(0), Status.WAITLISTED, Status.ACCEPTED) == 1) {
+                return true;
+            }
+
+            // the head was withdrawn after it had been read, the next one gets the seat
+        }
+    }
+
+    private boolean isKnownSoldOut(int eventId) {
+
+        Long soldOutUntil = soldOutEvents.get(eventId);
+
+        return soldOutUntil != null && soldOutUntil - System.nanoTime() > 0;
+    }
+
+    // an event with a capacity but without a counter row has no seats to give
+    private int freeSeats(int eventId, int capacity) {
+
+        return eventSeatsRepository.findAcceptedByEventId(eventId)
+                .map(accepted -> capacity - accepted)
+                .orElse(0);
+    }
+
+    // a transaction that rolls back may give back the seats it has taken, so the event is taken as full only once
+    // the transaction that found it full has committed
+    private void markSoldOut(int eventId) {
+
+        Runnable mark = () -> soldOutEvents.put(eventId, System.nanoTime() + SOLD_OUT_RECHECK_NANOS);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    mark.run();
+                }
+            });
+        } else {
+            mark.run();
+        }
+    }
+
+}
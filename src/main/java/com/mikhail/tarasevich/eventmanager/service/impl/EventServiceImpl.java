@@ -1,12 +1,23 @@
 package com.mikhail.tarasevich.eventmanager.service.impl;
 
+import com.mikhail.tarasevich.eventmanager.dto.EventCatalogRequest;
+import com.mikhail.tarasevich.eventmanager.dto.EventImportError;
+import com.mikhail.tarasevich.eventmanager.dto.EventImportResponse;
 import com.mikhail.tarasevich.eventmanager.dto.EventRequest;
 import com.mikhail.tarasevich.eventmanager.dto.EventResponse;
+import com.mikhail.tarasevich.eventmanager.dto.PageResponse;
+import com.mikhail.tarasevich.eventmanager.dto.PublicEventResponse;
 import com.mikhail.tarasevich.eventmanager.entity.Event;
+import com.mikhail.tarasevich.eventmanager.entity.EventSeats;
 import com.mikhail.tarasevich.eventmanager.entity.User;
 import com.mikhail.tarasevich.eventmanager.repository.EventRepository;
+import com.mikhail.tarasevich.eventmanager.repository.EventSeatsRepository;
+import com.mikhail.tarasevich.eventmanager.repository.EventSpecifications;
 import com.mikhail.tarasevich.eventmanager.repository.UserEventParticipationRepository;
 import com.mikhail.tarasevich.eventmanager.repository.UserRepository;
+import com.mikhail.tarasevich.eventmanager.repository.projection.EventCatalogView;
+import com.mikhail.tarasevich.eventmanager.repository.projection.EventView;
+import com.mikhail.tarasevich.eventmanager.service.ContractService;
 import com.mikhail.tarasevich.eventmanager.service.EventService;
 import com.mikhail.tarasevich.eventmanager.service.exception.AuthorizationException;
 import com.mikhail.tarasevich.eventmanager.service.exception.DataBaseException;
@@ -14,99 +25,471 @@ import com.mikhail.tarasevich.eventmanager.service.exception.EventNotFoundExcept
 import com.mikhail.tarasevich.eventmanager.service.exception.IncorrectRequestDataException;
 import com.mikhail.tarasevich.eventmanager.service.exception.UserNotFoundException;
 import com.mikhail.tarasevich.eventmanager.service.mapper.EventMapper;
-import com.mikhail.tarasevich.eventmanager.util.Status;
+import com.mikhail.tarasevich.eventmanager.util.EventCatalogSort;
+import com.mikhail.tarasevich.eventmanager.util.EventImportReader;
+import com.mikhail.tarasevich.eventmanager.util.KeysetPagination;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class EventServiceImpl implements EventService {
 
+    private static final int MAX_BATCH_SIZE = 500;
+
+    private static final int MAX_SEARCH_TERMS = 10;
+
+    // matches hibernate.jdbc.batch_size, so every imported chunk is written with one batched insert
+    private static final int IMPORT_BATCH_SIZE = 50;
+
+    // an upload of any size gets a report of bounded size, the errors beyond these are only counted
+    private static final int MAX_IMPORT_ERRORS = 100;
+
     private final EventRepository eventRepository;
 
+    private final EventSeatsRepository eventSeatsRepository;
+
+    private final EventSearchIndex searchIndex;
+
+    private final EventDetailCache eventCache;
+
     private final UserRepository userRepository;
 
     private final UserEventParticipationRepository userEventParticipationRepository;
 
+    private final ContractService contractService;
+
     private final EventMapper mapper;
 
+    private final Validator validator;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
     @Autowired
     public EventServiceImpl(EventRepository eventRepository,
+                            EventSeatsRepository eventSeatsRepository,
+                            EventSearchIndex searchIndex,
+                            EventDetailCache eventCache,
                             UserRepository userRepository,
                             UserEventParticipationRepository userEventParticipationRepository,
-                            EventMapper mapper) {
+                            ContractService contractService,
+                            EventMapper mapper,
+                            Validator validator,
+                            PlatformTransactionManager transactionManager) {
         this.eventRepository = eventRepository;
+        this.eventSeatsRepository = eventSeatsRepository;
+        this.searchIndex = searchIndex;
+        this.eventCache = eventCache;
         this.userRepository = userRepository;
         this.userEventParticipationRepository = userEventParticipationRepository;
+        this.contractService = contractService;
         this.mapper = mapper;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<EventResponse> findAllMangerEvents(String email) {
+    public PageResponse<EventResponse> findAllMangerEvents(int managerId, int after, int limit) {
 
-        User user = userRepository.findUserByEmail(email)
-                .orElseThrow(() -> new UserNotFoundException("There is no user with email = " + email + " in DB"));
+        Pageable pageable = KeysetPagination.limitWithLookahead(limit);
 
-        return eventRepository.findEventsByUserIdOrderById(user.getId()).stream()
-                .map(mapper::toResponse)
-                .collect(Collectors.toList());
+        return KeysetPagination.toPage(eventRepository.findEventViewsByUserIdAndIdGreaterThan(managerId, after, pageable),
+                pageable, EventView::getId, mapper::toResponse);
+    }
+
+    // a cached event is returned without a transaction, only a miss takes a connection
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public PublicEventResponse findEventById(int id) {
+
+        return eventCache.get(id, eventId -> readOnlyTransactionTemplate.execute(status -> {
+            Event event = eventRepository.findById(eventId)
+                    .orElseThrow(() -> new EventNotFoundException("There is no event with id = " + eventId + " in DB"));
+
+            return mapper.toPublicResponse(event);
+        }));
     }
 
     @Override
     @Transactional(readOnly = true)
-    public EventResponse findEventById(int id) {
+    public PageResponse<EventResponse> searchEvents(String query, int after, int limit) {
+
+        Set<String> terms = new LinkedHashSet<>(EventSearchIndex.terms(query));
+
+        if (terms.isEmpty() || terms.size() > MAX_SEARCH_TERMS) {
+            throw new IncorrectRequestDataException("Search query should have between 1 and " + MAX_SEARCH_TERMS +
+                    " words");
+        }
+
+        if (after < 0) {
+            throw new IncorrectRequestDataException("Search position should not be negative, but was " + after);
+        }
+
+        Pageable pageable = KeysetPagination.limitWithLookahead(limit);
+        int pageLimit = pageable.getPageSize() - 1;
+
+        List<Integer> ids = searchIndex.search(terms, after, pageable.getPageSize());
+
+        if (ids.isEmpty()) {
+            return PageResponse.<EventResponse>builder()
+                    .withContent(new ArrayList<>())
+                    .build();
+        }
+
+        Map<Integer, EventView> found = eventRepository.findEventViewsByIdIn(ids).stream()
+                .collect(Collectors.toMap(EventView::getId, Function.identity()));
+
+        // ranked results aren't ordered by id, so the cursor is the position in the ranking
+        return PageResponse.<EventResponse>builder()
+                .withContent(ids.stream()
+                        .limit(pageLimit)
+                        .map(found::get)
+                        .filter(Objects::nonNull)
+                        .map(mapper::toResponse)
+                        .collect(Collectors.toList()))
+                .withNextCursor(ids.size() > pageLimit ? after + pageLimit : null)
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PageResponse<PublicEventResponse> findCatalogEvents(EventCatalogRequest request) {
+
+        EventCatalogSort sort = request.getSort() != null ? request.getSort() : EventCatalogSort.NEWEST;
+
+        if (request.getMinPrice() != null && request.getMaxPrice() != null && request.getMinPrice() > request.getMaxPrice()) {
+            throw new IncorrectRequestDataException("Minimal price " + request.getMinPrice() +
+                    " should not be greater than maximal price " + request.getMaxPrice());
+        }
+
+        if (request.getAfter() != null && sort.isByPrice() && request.getAfterPrice() == null) {
+            throw new IncorrectRequestDataException("Price of the last event of the previous page should be given " +
+                    "when events are sorted by " + sort);
+        }
 
-        Event event = eventRepository.findById(id)
-                .orElseThrow(() -> new EventNotFoundException("There is no event with id = " + id + " in DB"));
+        Specification<Event> specification = Specification.where(null);
+
+        if (request.getMinPrice() != null) {
+            specification = specification.and(EventSpecifications.priceAtLeast(request.getMinPrice()));
+        }
+
+        if (request.getMaxPrice() != null) {
+            specification = specification.and(EventSpecifications.priceAtMost(request.getMaxPrice()));
+        }
+
+        if (request.getOwnerId() != null) {
+            specification = specification.and(EventSpecifications.ownedBy(request.getOwnerId()));
+        }
 
-        return mapper.toResponse(event);
+        if (request.getNamePrefix() != null && !request.getNamePrefix().isEmpty()) {
+            specification = specification.and(EventSpecifications.nameStartsWith(request.getNamePrefix()));
+        }
+
+        if (request.getAfter() != null) {
+            specification = specification.and(cursor(sort, request.getAfterPrice(), request.getAfter()));
+        }
+
+        Pageable pageable = KeysetPagination.limitWithLookahead(request.getLimit());
+
+        return KeysetPagination.toPage(eventRepository.findEventViews(specification, sort.getSort(), pageable.getPageSize()),
+                pageable, EventCatalogView::getId, mapper::toPublicResponse);
     }
 
     @Override
-    public EventResponse createNewEvent(String email, EventRequest request) {
+    public EventResponse createNewEvent(int managerId, EventRequest request) {
 
-        User user = userRepository.findUserByEmail(email)
-                .orElseThrow(() -> new UserNotFoundException("There is no user with email = " + email + " in DB"));
+        User user = userRepository.findById(managerId)
+                .orElseThrow(() -> new UserNotFoundException("There is no user with id = " + managerId + " in DB"));
 
-        if (user.getContracts().stream().noneMatch(c -> c.getStatus().equals(Status.ACCEPTED)))
-            throw new AuthorizationException("Manager with email = " + email + " has no approved contract");
+        if (!contractService.hasUserAcceptedContract(managerId))
+            throw new AuthorizationException("Manager with email = " + user.getEmail() + " has no approved contract");
 
         Event event = mapper.toEntity(request);
 
         event.setUser(user);
 
+        // ids are pooled and inserts batched, only a flush makes a duplicate name fail here and not at commit
         try {
-            return mapper.toResponse(eventRepository.save(event));
+            Event saved = eventRepository.saveAndFlush(event);
+
+            addSeatCounters(List.of(saved));
+            addToSearchIndex(List.of(saved));
+
+            return mapper.toResponse(saved);
         } catch (RuntimeException e) {
             throw new DataBaseException("Bad request. Constraint in DB in table events. Message: " + e.getMessage());
         }
     }
 
     @Override
-    public void deleteEventById(String email, int id) {
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public EventImportResponse importEvents(int managerId, Iterator<EventImportReader.Row> rows) {
 
-        Event event = eventRepository.findById(id)
-                .orElseThrow(() -> new EventNotFoundException("There is no event with id = " + id + " in DB"));
+        User user = userRepository.findById(managerId)
+                .orElseThrow(() -> new UserNotFoundException("There is no user with id = " + managerId + " in DB"));
 
-        if (event.getUser().getEmail().equals(email)) {
-            userEventParticipationRepository.deleteUserEventParticipationsByEventId(id);
-            eventRepository.deleteById(id);
-        } else {
-            throw new IncorrectRequestDataException("Manager with email " + email +
+        if (!contractService.hasUserAcceptedContract(managerId))
+            throw new AuthorizationException("Manager with email = " + user.getEmail() + " has no approved contract");
+
+        ImportErrors errors = new ImportErrors();
+        // names of the current chunk only, a name of an earlier chunk is already in the DB and found there
+        Set<String> names = new HashSet<>();
+        List<EventImportReader.Row> chunk = new ArrayList<>(IMPORT_BATCH_SIZE);
+        int imported = 0;
+
+        while (rows.hasNext()) {
+            EventImportReader.Row row = rows.next();
+            String error = row.getError() != null ? row.getError() : validate(row.getRequest());
+
+            if (error == null && !names.add(row.getRequest().getName())) {
+                error = "name - Event's name is repeated in the upload;";
+            }
+
+            if (error != null) {
+                errors.add(row.getLine(), error);
+            } else {
+                chunk.add(row);
+            }
+
+            if (chunk.size() == IMPORT_BATCH_SIZE) {
+                imported += insertChunk(user, chunk, errors);
+                chunk.clear();
+                names.clear();
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            imported += insertChunk(user, chunk, errors);
+        }
+
+        return EventImportResponse.builder()
+                .withImported(imported)
+                .withErrors(errors.first())
+                .withOmittedErrors(errors.omitted)
+                .build();
+    }
+
+    @Override
+    public void deleteEventById(int managerId, int id) {
+
+        if (!eventRepository.existsByIdAndUserId(id, managerId)) {
+            if (!eventRepository.existsById(id)) {
+                throw new EventNotFoundException("There is no event with id = " + id + " in DB");
+            }
+            throw new IncorrectRequestDataException("Manager with id " + managerId +
                     " tried delete event which not relate to the manager");
         }
+
+        deleteEvents(List.of(id));
     }
 
     @Override
     public void deleteEventByIdForAdmin(int id) {
 
-        userEventParticipationRepository.deleteUserEventParticipationsByEventId(id);
-        eventRepository.deleteById(id);
+        deleteEvents(List.of(id));
+    }
+
+    @Override
+    public void deleteEventsByIdsForAdmin(List<Integer> ids) {
+
+        if (ids.isEmpty() || ids.size() > MAX_BATCH_SIZE) {
+            throw new IncorrectRequestDataException("Number of ids must be between 1 and " + MAX_BATCH_SIZE);
+        }
+
+        deleteEvents(ids);
+    }
+
+    private String validate(EventRequest request) {
+
+        Set<ConstraintViolation<EventRequest>> violations = validator.validate(request);
+
+        if (violations.isEmpty()) {
+            return null;
+        }
+
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + " - " + violation.getMessage() + ";")
+                .sorted()
+                .collect(Collectors.joining());
+    }
+
+    // every chunk is committed on its own, a conflicting row never rolls back rows imported before it
+    private int insertChunk(User user, List<EventImportReader.Row> chunk, ImportErrors errors) {
+
+        Set<String> existingNames = new HashSet<>(eventRepository.findNamesByNameIn(chunk.stream()
+                .map(row -> row.getRequest().getName())
+                .collect(Collectors.toList())));
+
+        List<EventImportReader.Row> fresh = new ArrayList<>();
+
+        for (EventImportReader.Row row : chunk) {
+            if (existingNames.contains(row.getRequest().getName())) {
+                errors.add(row.getLine(), "name - Event with this name already exists;");
+            } else {
+                fresh.add(row);
+            }
+        }
+
+        if (fresh.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Event> saved = eventRepository.saveAllAndFlush(fresh.stream()
+                        .map(row -> toNewEvent(user, row.getRequest()))
+                        .collect(Collectors.toList()));
+
+                addSeatCounters(saved);
+                addToSearchIndex(saved);
+            });
+
+            return fresh.size();
+        } catch (RuntimeException e) {
+            // a row conflicts with an event inserted concurrently or breaks another constraint, find it row by row
+            int inserted = 0;
+
+            for (EventImportReader.Row row : fresh) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        List<Event> saved = List.of(eventRepository.saveAndFlush(toNewEvent(user, row.getRequest())));
+
+                        addSeatCounters(saved);
+                        addToSearchIndex(saved);
+                    });
+                    inserted++;
+                } catch (RuntimeException rowException) {
+                    errors.add(row.getLine(), "Constraint in DB in table events. Message: " +
+                            NestedExceptionUtils.getMostSpecificCause(rowException).getMessage());
+                }
+            }
+
+            return inserted;
+        }
+    }
+
+    // an event with a capacity gets the counter of its taken seats, inserted after the event itself
+    private void addSeatCounters(List<Event> events) {
+
+        List<EventSeats> seats = events.stream()
+                .filter(event -> event.getCapacity() != null)
+                .map(event -> EventSeats.builder().withEventId(event.getId()).build())
+                .collect(Collectors.toList());
+
+        if (!seats.isEmpty()) {
+            eventSeatsRepository.saveAll(seats);
+        }
+    }
+
+    private static Specification<Event> cursor(EventCatalogSort sort, Integer price, int id) {
+
+        switch (sort) {
+            case PRICE_ASC:
+                return EventSpecifications.afterByPriceAsc(price, id);
+            case PRICE_DESC:
+                return EventSpecifications.afterByPriceDesc(price, id);
+            default:
+                return EventSpecifications.idLessThan(id);
+        }
+    }
+
+    private void addToSearchIndex(List<Event> events) {
+
+        afterCommit(() -> events.forEach(event -> searchIndex.add(event.getId(), event.getName(),
+                event.getDescription())));
+    }
+
+    // the search index follows committed data only, a rolled back insert never shows up in search results
+    private void afterCommit(Runnable update) {
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+
+    private Event toNewEvent(User user, EventRequest request) {
+
+        Event event = mapper.toEntity(request);
+
+        event.setId(0);
+        event.setUser(user);
+
+        return event;
+    }
+
+    private void deleteEvents(List<Integer> ids) {
+
+        userEventParticipationRepository.deleteUserEventParticipationsByEventIdIn(ids);
+        eventRepository.deleteEventsByIdIn(ids);
+        afterCommit(() -> {
+            searchIndex.remove(ids);
+            eventCache.invalidate(ids);
+        });
+    }
+
+    // errors arrive out of line order, a chunk's DB errors come after the later rows' validation errors
+    private static final class ImportErrors {
+
+        // the MAX_IMPORT_ERRORS errors with the lowest lines so far, the highest line on top
+        private final PriorityQueue<EventImportError> lowest =
+                new PriorityQueue<>(Comparator.comparingInt(EventImportError::getLine).reversed());
+
+        private int omitted;
+
+        void add(int line, String message) {
+
+            lowest.add(new EventImportError(line, message));
+
+            if (lowest.size() > MAX_IMPORT_ERRORS) {
+                lowest.poll();
+                omitted++;
+            }
+        }
+
+        List<EventImportError> first() {
+
+            List<EventImportError> errors = new ArrayList<>(lowest);
+            errors.sort(Comparator.comparingInt(EventImportError::getLine));
+
+            return errors;
+        }
+
     }
 
 }
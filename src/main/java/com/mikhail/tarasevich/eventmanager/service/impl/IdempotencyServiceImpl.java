@@ -0,0 +1,260 @@
+package com.mikhail.tarasevich.eventmanager.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mikhail.tarasevich.eventmanager.entity.IdempotencyRecord;
+import com.mikhail.tarasevich.eventmanager.entity.IdempotencyRecordId;
+import com.mikhail.tarasevich.eventmanager.repository.IdempotencyRecordRepository;
+import com.mikhail.tarasevich.eventmanager.service.IdempotencyService;
+import com.mikhail.tarasevich.eventmanager.service.exception.IdempotencyKeyConflictException;
+import com.mikhail.tarasevich.eventmanager.service.exception.IdempotencyKeyLimitException;
+import com.mikhail.tarasevich.eventmanager.service.exception.IncorrectRequestDataException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Stores the responses of requests sent with an idempotency key. The key is claimed with an insert before the
+ * request is processed, so of concurrent requests with the same key only one runs, and its response is stored when
+ * it is done. Completed responses are also kept in a bounded LRU cache, a retry reaching the same node doesn't go
+ * to the DB at all. Not transactional itself: the claim is committed before the request runs in its own transaction.
+ * <p>
+ * A claim is a lease: a request that hasn't stored its response within the lease, e.g. because its node died, gives
+ * the key up to the next retry. A request still running past its lease may then run a second time, so the lease has
+ * to be well above the time a request takes.
+ */
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final Duration keyLifetime;
+
+    private final Duration claimLease;
+
+    private final int keysPerUser;
+
+    private final int cacheMaxSize;
+
+    private final Map<IdempotencyRecordId, IdempotencyRecord> completed;
+
+    @Autowired
+    public IdempotencyServiceImpl(IdempotencyRecordRepository idempotencyRecordRepository,
+                                  ObjectMapper objectMapper,
+                                  @Value("${idempotency_key_ttl_hours:24}") long keyLifetimeHours,
+                                  @Value("${idempotency_keys_per_user:100}") int keysPerUser,
+                                  @Value("${idempotency_cache_max_size:10000}") int cacheMaxSize,
+                                  @Value("${idempotency_claim_lease_seconds:60}") long claimLeaseSeconds) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.keyLifetime = Duration.ofHours(keyLifetimeHours);
+        this.claimLease = Duration.ofSeconds(claimLeaseSeconds);
+        this.keysPerUser = keysPerUser;
+        this.cacheMaxSize = cacheMaxSize;
+        this.completed = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<IdempotencyRecordId, IdempotencyRecord> eldest) {
+                return size() > IdempotencyServiceImpl.this.cacheMaxSize;
+            }
+        };
+    }
+
+    @Override
+    public <T> T execute(int userId, String idempotencyKey, String operation, Object request, Class<T> responseType,
+                         Supplier<T> action) {
+
+        if (idempotencyKey == null) {
+            return action.get();
+        }
+
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IncorrectRequestDataException("Idempotency key must have between 1 and " + MAX_KEY_LENGTH +
+                    " characters");
+        }
+
+        IdempotencyRecordId id = new IdempotencyRecordId(userId, idempotencyKey);
+        String requestHash = hash(operation, request);
+        // a claim is compared by its time, stored columns keep no more than microseconds
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+
+        IdempotencyRecord cached = findCached(id, now);
+
+        if (cached != null) {
+            return replay(cached, requestHash, responseType);
+        }
+
+        Optional<IdempotencyRecord> stored = idempotencyRecordRepository.findByUserIdAndIdempotencyKey(userId,
+                idempotencyKey);
+
+        IdempotencyRecord record;
+
+        if (stored.isPresent() && isAbandoned(stored.get(), requestHash, now)) {
+            record = stored.get();
+
+            if (idempotencyRecordRepository.takeOverClaim(userId, idempotencyKey, record.getClaimedAt(), now) == 0) {
+                // a concurrent retry has taken the claim over first, or the request holding it has just finished
+                return replay(idempotencyRecordRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey)
+                        .orElseThrow(() -> new IdempotencyKeyConflictException("Request with idempotency key " +
+                                idempotencyKey + " is being processed")), requestHash, responseType);
+            }
+
+            record.setClaimedAt(now);
+        } else {
+            if (stored.isPresent()) {
+                if (!isExpired(stored.get(), now)) {
+                    return replay(stored.get(), requestHash, responseType);
+                }
+
+                // an expired key may be used again
+                idempotencyRecordRepository.deleteByUserIdAndIdempotencyKey(userId, idempotencyKey);
+            }
+
+            checkKeyLimit(userId, now);
+
+            record = IdempotencyRecord.builder()
+                    .withUserId(userId)
+                    .withIdempotencyKey(idempotencyKey)
+                    .withRequestHash(requestHash)
+                    .withCreatedAt(now)
+                    .withClaimedAt(now)
+                    .build();
+
+            try {
+                idempotencyRecordRepository.saveAndFlush(record);
+            } catch (RuntimeException e) {
+                // a concurrent request with the same key has claimed it first
+                return replay(idempotencyRecordRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey)
+                        .orElseThrow(() -> e), requestHash, responseType);
+            }
+        }
+
+        T response;
+
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            // a failed request has no response to replay, the client may retry it with the same key
+            idempotencyRecordRepository.deleteClaim(userId, idempotencyKey, now);
+            throw e;
+        }
+
+        record.setResponse(write(response));
+
+        // a request that has outlived its lease still answers its client, the response of the request that has
+        // taken the claim over is the one stored
+        if (idempotencyRecordRepository.updateResponse(userId, idempotencyKey, now, record.getResponse()) == 1) {
+            cache(id, record);
+        }
+
+        return response;
+    }
+
+    private <T> T replay(IdempotencyRecord record, String requestHash, Class<T> responseType) {
+
+        if (!record.getRequestHash().equals(requestHash)) {
+            throw new IdempotencyKeyConflictException("Idempotency key " + record.getIdempotencyKey() +
+                    " has already been used for another request");
+        }
+
+        if (record.getResponse() == null) {
+            throw new IdempotencyKeyConflictException("Request with idempotency key " + record.getIdempotencyKey() +
+                    " is being processed");
+        }
+
+        cache(record.getId(), record);
+
+        try {
+            return objectMapper.readValue(record.getResponse(), responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored response of idempotency key " + record.getIdempotencyKey() +
+                    " can't be read", e);
+        }
+    }
+
+    // records of a user are purged when the user reaches the limit, so the table holds at most the limit per user
+    private void checkKeyLimit(int userId, LocalDateTime now) {
+
+        if (idempotencyRecordRepository.countByUserId(userId) < keysPerUser) {
+            return;
+        }
+
+        idempotencyRecordRepository.deleteByUserIdAndCreatedAtBefore(userId, now.minus(keyLifetime));
+
+        if (idempotencyRecordRepository.countByUserId(userId) >= keysPerUser) {
+            throw new IdempotencyKeyLimitException("User with id " + userId + " has " + keysPerUser +
+                    " idempotency keys in use, a new one can be used when the oldest expires");
+        }
+    }
+
+    private IdempotencyRecord findCached(IdempotencyRecordId id, LocalDateTime now) {
+
+        synchronized (completed) {
+            IdempotencyRecord record = completed.get(id);
+
+            if (record != null && isExpired(record, now)) {
+                completed.remove(id);
+                return null;
+            }
+
+            return record;
+        }
+    }
+
+    private void cache(IdempotencyRecordId id, IdempotencyRecord record) {
+
+        if (cacheMaxSize > 0) {
+            synchronized (completed) {
+                completed.put(id, record);
+            }
+        }
+    }
+
+    // the same request is retried after the request holding its claim has run out of its lease
+    private boolean isAbandoned(IdempotencyRecord record, String requestHash, LocalDateTime now) {
+
+        return record.getResponse() == null && record.getRequestHash().equals(requestHash) && !isExpired(record, now) &&
+                !record.getClaimedAt().plus(claimLease).isAfter(now);
+    }
+
+    private boolean isExpired(IdempotencyRecord record, LocalDateTime now) {
+        return !record.getCreatedAt().plus(keyLifetime).isAfter(now);
+    }
+
+    private String write(Object value) {
+
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Can't write " + value.getClass().getSimpleName() + " as JSON", e);
+        }
+    }
+
+    // the same key sent with another request or to another endpoint is a client error, not a retry
+    private String hash(String operation, Object request) {
+
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(messageDigest.digest(
+                    (operation + "\n" + write(request)).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by JVM", e);
+        }
+    }
+
+}
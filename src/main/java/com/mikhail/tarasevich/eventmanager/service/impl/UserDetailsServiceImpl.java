@@ -1,8 +1,8 @@
 package com.mikhail.tarasevich.eventmanager.service.impl;
 
-import com.mikhail.tarasevich.eventmanager.entity.Privilege;
 import com.mikhail.tarasevich.eventmanager.entity.User;
 import com.mikhail.tarasevich.eventmanager.repository.UserRepository;
+import com.mikhail.tarasevich.eventmanager.security.RolePrivilegeRegistry;
 import com.mikhail.tarasevich.eventmanager.security.UserSecurityDetails;
 import com.mikhail.tarasevich.eventmanager.service.exception.UserNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,17 +12,18 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.stream.Collectors;
-
 @Service
 @Transactional
 public class UserDetailsServiceImpl implements UserDetailsService {
 
     private final UserRepository userRepository;
 
+    private final RolePrivilegeRegistry rolePrivilegeRegistry;
+
     @Autowired
-    public UserDetailsServiceImpl(UserRepository userRepository) {
+    public UserDetailsServiceImpl(UserRepository userRepository, RolePrivilegeRegistry rolePrivilegeRegistry) {
         this.userRepository = userRepository;
+        this.rolePrivilegeRegistry = rolePrivilegeRegistry;
     }
 
     @Override
@@ -31,10 +32,7 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 
         User user = userRepository.findUserByEmail(email).orElseThrow(() -> new UserNotFoundException("There is no user with email = " + email + " in DB"));
 
-        return new UserSecurityDetails(user,
-                user.getRole().getPrivileges().stream()
-                        .map(Privilege::getName)
-                        .collect(Collectors.toList()));
+        return new UserSecurityDetails(user, rolePrivilegeRegistry.getAuthorities(user.getRole().getName()));
     }
 
 }
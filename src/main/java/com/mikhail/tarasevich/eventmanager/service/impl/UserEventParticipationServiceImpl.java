@@ -1,124 +1,133 @@
 package com.mikhail.tarasevich.eventmanager.service.impl;
 
+import com.mikhail.tarasevich.eventmanager.dto.PageResponse;
 import com.mikhail.tarasevich.eventmanager.dto.UserEventParticipationRequest;
 import com.mikhail.tarasevich.eventmanager.dto.UserEventParticipationResponse;
+import com.mikhail.tarasevich.eventmanager.dto.UserEventParticipationStatusRequest;
+import com.mikhail.tarasevich.eventmanager.dto.UserEventParticipationStatusResponse;
 import com.mikhail.tarasevich.eventmanager.entity.Event;
 import com.mikhail.tarasevich.eventmanager.entity.User;
 import com.mikhail.tarasevich.eventmanager.entity.UserEventParticipation;
 import com.mikhail.tarasevich.eventmanager.repository.EventRepository;
 import com.mikhail.tarasevich.eventmanager.repository.UserEventParticipationRepository;
 import com.mikhail.tarasevich.eventmanager.repository.UserRepository;
+import com.mikhail.tarasevich.eventmanager.repository.projection.UserEventParticipationStatusView;
+import com.mikhail.tarasevich.eventmanager.repository.projection.UserEventParticipationView;
 import com.mikhail.tarasevich.eventmanager.service.UserEventParticipationService;
 import com.mikhail.tarasevich.eventmanager.service.exception.DataBaseException;
 import com.mikhail.tarasevich.eventmanager.service.exception.EventNotFoundException;
+import com.mikhail.tarasevich.eventmanager.service.exception.EventSoldOutException;
 import com.mikhail.tarasevich.eventmanager.service.exception.IncorrectRequestDataException;
+import com.mikhail.tarasevich.eventmanager.service.exception.StatusConflictException;
 import com.mikhail.tarasevich.eventmanager.service.exception.UserEventParticipationNotFoundException;
 import com.mikhail.tarasevich.eventmanager.service.exception.UserNotFoundException;
 import com.mikhail.tarasevich.eventmanager.service.mapper.UserEventParticipationMapper;
+import com.mikhail.tarasevich.eventmanager.util.KeysetPagination;
 import com.mikhail.tarasevich.eventmanager.util.Status;
+import com.mikhail.tarasevich.eventmanager.util.StatusChangeOutcome;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class UserEventParticipationServiceImpl implements UserEventParticipationService {
 
+    private static final int MAX_BATCH_SIZE = 500;
+
     private final UserEventParticipationRepository uepRepository;
 
     private final UserRepository userRepository;
 
     private final EventRepository eventRepository;
 
+    private final EventSeatRegistry seatRegistry;
+
     private final UserEventParticipationMapper mapper;
 
     @Autowired
     public UserEventParticipationServiceImpl(UserEventParticipationRepository uepRepository,
                                              UserRepository userRepository,
                                              EventRepository eventRepository,
+                                             EventSeatRegistry seatRegistry,
                                              UserEventParticipationMapper mapper) {
         this.uepRepository = uepRepository;
         this.userRepository = userRepository;
         this.eventRepository = eventRepository;
+        this.seatRegistry = seatRegistry;
         this.mapper = mapper;
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<UserEventParticipationResponse> findPendingUserEventParticipationsByEventId(String email, int eventId) {
-
-        User user = userRepository.findUserByEmail(email)
-                .orElseThrow(() -> new UserNotFoundException("There is no user with email = " + email + " in DB"));
+    public PageResponse<UserEventParticipationResponse> findPendingUserEventParticipationsByEventId(int managerId, int eventId,
+                                                                                                   int after, int limit) {
 
-        if (user.getEvents().stream().anyMatch(e -> e.getId() == eventId)) {
-            return uepRepository.findUserEventParticipationsByEventIdAndStatusOrderById(eventId, Status.PENDING).stream()
-                    .map(mapper::toResponse)
-                    .collect(Collectors.toList());
+        if (eventRepository.existsByIdAndUserId(eventId, managerId)) {
+            return findUserEventParticipationsByEventIdAndStatus(eventId, Status.PENDING, after, limit);
         } else {
-            throw new IncorrectRequestDataException("Manager with email " + email +
+            throw new IncorrectRequestDataException("Manager with id " + managerId +
                     " tried get information about event' participants which not relate to manager");
         }
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<UserEventParticipationResponse> findRejectedUserEventParticipationsByEventId(String email, int eventId) {
+    public PageResponse<UserEventParticipationResponse> findRejectedUserEventParticipationsByEventId(int managerId, int eventId,
+                                                                                                   int after, int limit) {
 
-        User user = userRepository.findUserByEmail(email)
-                .orElseThrow(() -> new UserNotFoundException("There is no user with email = " + email + " in DB"));
-
-        if (user.getEvents().stream().anyMatch(e -> e.getId() == eventId)) {
-            return uepRepository.findUserEventParticipationsByEventIdAndStatusOrderById(eventId, Status.REJECTED).stream()
-                    .map(mapper::toResponse)
-                    .collect(Collectors.toList());
+        if (eventRepository.existsByIdAndUserId(eventId, managerId)) {
+            return findUserEventParticipationsByEventIdAndStatus(eventId, Status.REJECTED, after, limit);
         } else {
-            throw new IncorrectRequestDataException("Manager with email " + email +
+            throw new IncorrectRequestDataException("Manager with id " + managerId +
                     " tried get information about event' participants which not relate to manager");
         }
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<UserEventParticipationResponse> findAcceptedUserEventParticipationsByEventId(String email, int eventId) {
-
-        User user = userRepository.findUserByEmail(email)
-                .orElseThrow(() -> new UserNotFoundException("There is no user with email = " + email + " in DB"));
+    public PageResponse<UserEventParticipationResponse> findAcceptedUserEventParticipationsByEventId(int managerId, int eventId,
+                                                                                                   int after, int limit) {
 
-        if (user.getEvents().stream().anyMatch(e -> e.getId() == eventId)) {
-            return uepRepository.findUserEventParticipationsByEventIdAndStatusOrderById(eventId, Status.ACCEPTED).stream()
-                    .map(mapper::toResponse)
-                    .collect(Collectors.toList());
+        if (eventRepository.existsByIdAndUserId(eventId, managerId)) {
+            return findUserEventParticipationsByEventIdAndStatus(eventId, Status.ACCEPTED, after, limit);
         } else {
-            throw new IncorrectRequestDataException("Manager with email " + email +
+            throw new IncorrectRequestDataException("Manager with id " + managerId +
                     " tried get information about event' participants which not relate to the manager");
         }
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<UserEventParticipationResponse> findAllUserEventParticipationsByUserEmail(String email) {
+    public PageResponse<UserEventParticipationResponse> findAllUserEventParticipationsByUserId(int userId, int after, int limit) {
 
-        User user = userRepository.findUserByEmail(email)
-                .orElseThrow(() -> new UserNotFoundException("There is no user with email = " + email + " in DB"));
+        Pageable pageable = KeysetPagination.limitWithLookahead(limit);
 
-        return uepRepository.findUserEventParticipationsByUserIdOrderById(user.getId()).stream()
-                .map(mapper::toResponse)
-                .collect(Collectors.toList());
+        return KeysetPagination.toPage(uepRepository.findUserEventParticipationViewsByUserIdAndIdGreaterThan(userId, after, pageable),
+                pageable, UserEventParticipationView::getId, mapper::toResponse);
     }
 
     @Override
-    public UserEventParticipationResponse createUserEventParticipation(String email, UserEventParticipationRequest request) {
+    public UserEventParticipationResponse createUserEventParticipation(int userId, UserEventParticipationRequest request) {
 
-        User user = userRepository.findUserByEmail(email)
-                .orElseThrow(() -> new UserNotFoundException("There is no user with email = " + email + " in DB"));
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new UserNotFoundException("There is no user with id = " + userId + " in DB"));
 
         Event event = eventRepository.findById(request.getEventId())
                 .orElseThrow(() -> new EventNotFoundException("There is no event with id = " + request.getEventId() + " in DB"));
 
-
         UserEventParticipation entity = mapper.toEntity(request);
 
         entity.setId(0);
@@ -126,8 +135,15 @@ public class UserEventParticipationServiceImpl implements UserEventParticipation
         entity.setEvent(event);
         entity.setStatus(Status.PENDING);
 
+        // the seat itself is taken on acceptance, requests for a full event wait for a seat on its waitlist
+        if (event.getCapacity() != null && seatRegistry.lockIfSoldOut(event.getId(), event.getCapacity())) {
+            entity.setStatus(Status.WAITLISTED);
+            entity.setWaitlistedAt(LocalDateTime.now());
+        }
+
+        // ids are pooled and inserts batched, only a flush makes a repeated request fail here and not at commit
         try {
-            return mapper.toResponse(uepRepository.save(entity));
+            return mapper.toResponse(uepRepository.saveAndFlush(entity));
         } catch (RuntimeException e) {
             throw new DataBaseException("Bad request. Constraint in DB in table user_event_participations. Message: " +
                     e.getMessage());
@@ -135,51 +151,199 @@ public class UserEventParticipationServiceImpl implements UserEventParticipation
     }
 
     @Override
-    public void setUserEventParticipationsStatusRejected(String email, int id) {
+    public void setUserEventParticipationsStatusRejected(int managerId, int id) {
 
-        UserEventParticipation userEventParticipation = uepRepository.findById(id)
-                .orElseThrow(() -> new UserEventParticipationNotFoundException("There is no user event participation request with id = " + id + " in DB"));
+        setUserEventParticipationStatus(managerId, id, Status.REJECTED);
+    }
 
-        User user = userRepository.findUserByEmail(email)
-                .orElseThrow(() -> new UserNotFoundException("There is no user with email = " + email + " in DB"));
+    @Override
+    public void setUserEventParticipationsStatusAccepted(int managerId, int id) {
 
-        if (user.getEvents().stream().anyMatch(e -> e.getId() == userEventParticipation.getEvent().getId())) {
-            userEventParticipation.setStatus(Status.REJECTED);
-            uepRepository.save(userEventParticipation);
-        } else {
-            throw new IncorrectRequestDataException("Manager with email " + email +
-                    " tried change user event participation request status which not relate to the manager");
-        }
+        setUserEventParticipationStatus(managerId, id, Status.ACCEPTED);
     }
 
     @Override
-    public void setUserEventParticipationsStatusAccepted(String email, int id) {
+    public UserEventParticipationStatusResponse setUserEventParticipationsStatus(int managerId,
+                                                                                UserEventParticipationStatusRequest request) {
 
-        UserEventParticipation userEventParticipation = uepRepository.findById(id)
-                .orElseThrow(() -> new UserEventParticipationNotFoundException("There is no user event participation request with id = " + id + " in DB"));
+        Status status = request.getStatus();
 
-        User user = userRepository.findUserByEmail(email)
-                .orElseThrow(() -> new UserNotFoundException("There is no user with email = " + email + " in DB"));
+        if (!Status.PENDING.canChangeTo(status)) {
+            throw new IncorrectRequestDataException("Participation requests can only be accepted or rejected");
+        }
 
-        if (user.getEvents().stream().anyMatch(e -> e.getId() == userEventParticipation.getEvent().getId())) {
-            userEventParticipation.setStatus(Status.ACCEPTED);
-            uepRepository.save(userEventParticipation);
-        } else {
-            throw new IncorrectRequestDataException("Manager with email " + email +
+        List<Integer> ids = request.getEventId() == null
+                ? listedIds(request.getIds())
+                : pendingIdsOfEvent(managerId, request);
+
+        Map<Integer, StatusChangeOutcome> outcomes = new LinkedHashMap<>();
+        ids.forEach(id -> outcomes.put(id, StatusChangeOutcome.NOT_FOUND));
+
+        Map<Integer, UserEventParticipationStatusView> candidates = new LinkedHashMap<>();
+
+        if (!ids.isEmpty()) {
+            for (UserEventParticipationStatusView view : uepRepository.findUserEventParticipationStatusViewsByIdIn(ids)) {
+                if (view.getEventUserId() != managerId) {
+                    outcomes.put(view.getId(), StatusChangeOutcome.NOT_OWNED);
+                } else if (view.getStatus() != Status.PENDING) {
+                    outcomes.put(view.getId(), StatusChangeOutcome.NOT_PENDING);
+                } else {
+                    candidates.put(view.getId(), view);
+                }
+            }
+        }
+
+        if (!candidates.isEmpty()) {
+            List<Integer> candidateIds = new ArrayList<>(candidates.keySet());
+            int updated = uepRepository.updateStatusByIdInAndStatusAndEventUserId(candidateIds, Status.PENDING, managerId,
+                    status);
+
+            candidateIds.forEach(id -> outcomes.put(id, StatusChangeOutcome.UPDATED));
+
+            // some candidates were changed or deleted concurrently between the read and the update
+            if (updated != candidateIds.size()) {
+                Map<Integer, Status> current = new LinkedHashMap<>();
+                uepRepository.findUserEventParticipationStatusViewsByIdIn(candidateIds)
+                        .forEach(view -> current.put(view.getId(), view.getStatus()));
+
+                candidateIds.stream()
+                        .filter(id -> current.get(id) != status)
+                        .forEach(id -> outcomes.put(id, current.containsKey(id)
+                                ? StatusChangeOutcome.NOT_PENDING
+                                : StatusChangeOutcome.NOT_FOUND));
+            }
+
+            if (status == Status.ACCEPTED) {
+                reserveSeats(managerId, candidates, outcomes);
+            }
+        }
+
+        return UserEventParticipationStatusResponse.builder()
+                .withStatus(status)
+                .withOutcomes(outcomes)
+                .build();
+    }
+
+    // seats are taken after the requests are updated, in the same order as a single acceptance takes its locks;
+    // requests of an event that fills up are accepted oldest first and the rest go back to pending
+    private void reserveSeats(int managerId, Map<Integer, UserEventParticipationStatusView> candidates,
+                              Map<Integer, StatusChangeOutcome> outcomes) {
+
+        Map<Integer, List<UserEventParticipationStatusView>> acceptedByEvent = candidates.values().stream()
+                .filter(view -> view.getEventCapacity() != null && outcomes.get(view.getId()) == StatusChangeOutcome.UPDATED)
+                .sorted(Comparator.comparingInt(UserEventParticipationStatusView::getId))
+                .collect(Collectors.groupingBy(UserEventParticipationStatusView::getEventId, TreeMap::new,
+                        Collectors.toList()));
+
+        List<Integer> unseated = new ArrayList<>();
+
+        acceptedByEvent.forEach((eventId, accepted) -> {
+            int reserved = seatRegistry.reserve(eventId, accepted.get(0).getEventCapacity(), accepted.size());
+
+            accepted.subList(reserved, accepted.size()).forEach(view -> unseated.add(view.getId()));
+        });
+
+        if (!unseated.isEmpty()) {
+            uepRepository.updateStatusByIdInAndStatusAndEventUserId(unseated, Status.ACCEPTED, managerId, Status.PENDING);
+            unseated.forEach(id -> outcomes.put(id, StatusChangeOutcome.SOLD_OUT));
+        }
+    }
+
+    private List<Integer> listedIds(List<Integer> ids) {
+
+        if (ids == null || ids.isEmpty() || ids.size() > MAX_BATCH_SIZE) {
+            throw new IncorrectRequestDataException("Either event id or between 1 and " + MAX_BATCH_SIZE +
+                    " participation request ids must be specified");
+        }
+
+        return ids.stream().distinct().collect(Collectors.toList());
+    }
+
+    private List<Integer> pendingIdsOfEvent(int managerId, UserEventParticipationStatusRequest request) {
+
+        if (request.getIds() != null && !request.getIds().isEmpty()) {
+            throw new IncorrectRequestDataException("Either event id or participation request ids must be specified, not both");
+        }
+
+        if (!eventRepository.existsByIdAndUserId(request.getEventId(), managerId)) {
+            throw new IncorrectRequestDataException("Manager with id " + managerId +
+                    " tried change user event participation requests of the event which not relate to the manager");
+        }
+
+        // the oldest pending requests first, the rest is left for the next call
+        return uepRepository.findIdsByEventIdAndStatus(request.getEventId(), Status.PENDING,
+                PageRequest.of(0, MAX_BATCH_SIZE));
+    }
+
+    private PageResponse<UserEventParticipationResponse> findUserEventParticipationsByEventIdAndStatus(int eventId, Status status,
+                                                                                                     int after, int limit) {
+
+        Pageable pageable = KeysetPagination.limitWithLookahead(limit);
+
+        return KeysetPagination.toPage(uepRepository.findUserEventParticipationViewsByEventIdAndStatusAndIdGreaterThan(
+                        eventId, status, after, pageable),
+                pageable, UserEventParticipationView::getId, mapper::toResponse);
+    }
+
+    private void setUserEventParticipationStatus(int managerId, int id, Status status) {
+
+        if (uepRepository.updateStatusByIdAndStatusAndEventUserId(id, Status.PENDING, managerId, status) == 1) {
+            if (status == Status.ACCEPTED) {
+                reserveSeat(id);
+            }
+            return;
+        }
+
+        // nothing was updated: the request is missing, belongs to another manager or has been decided already
+        UserEventParticipationStatusView view = uepRepository.findUserEventParticipationStatusViewsByIdIn(List.of(id))
+                .stream()
+                .findFirst()
+                .orElseThrow(() -> new UserEventParticipationNotFoundException("There is no user event participation request with id = " + id + " in DB"));
+
+        if (view.getEventUserId() != managerId) {
+            throw new IncorrectRequestDataException("Manager with id " + managerId +
                     " tried change user event participation request status which not relate to the manager");
         }
+
+        // repeating the decision that has been made succeeds, so a retried request does not fail
+        if (view.getStatus() != status) {
+            throw new StatusConflictException("User event participation request with id = " + id + " is already " +
+                    view.getStatus() + " and can't be " + status);
+        }
+    }
+
+    // throwing rolls back the acceptance, the request stays pending
+    private void reserveSeat(int id) {
+
+        UserEventParticipationStatusView view = uepRepository.findUserEventParticipationStatusViewsByIdIn(List.of(id))
+                .get(0);
+
+        if (view.getEventCapacity() != null && seatRegistry.reserve(view.getEventId(), view.getEventCapacity(), 1) == 0) {
+            throw new EventSoldOutException("All " + view.getEventCapacity() + " seats of the event with id = " +
+                    view.getEventId() + " are taken, user event participation request with id = " + id +
+                    " can't be accepted");
+        }
+    }
+
+    // the seat of a withdrawn participant goes to the head of the event's waitlist
+    private void freeSeat(UserEventParticipation userEventParticipation) {
+
+        if (userEventParticipation.getStatus() == Status.ACCEPTED && userEventParticipation.getEvent().getCapacity() != null) {
+            seatRegistry.free(userEventParticipation.getEvent().getId(), 1);
+        }
     }
 
     @Override
-    public void deleteUserEventParticipationsById(String email, int id) {
+    public void deleteUserEventParticipationsById(int userId, int id) {
 
         UserEventParticipation userEventParticipation = uepRepository.findById(id)
                 .orElseThrow(() -> new UserEventParticipationNotFoundException("There is no user event participation request with id = " + id + " in DB"));
 
-        if (userEventParticipation.getUser().getEmail().equals(email)) {
+        if (userEventParticipation.getUser().getId() == userId) {
             uepRepository.deleteById(id);
+            freeSeat(userEventParticipation);
         } else {
-            throw new IncorrectRequestDataException("Participant with email " + email +
+            throw new IncorrectRequestDataException("Participant with id " + userId +
                     " tried delete user event participation request which not relate to this participant");
         }
     }
@@ -187,7 +351,10 @@ public class UserEventParticipationServiceImpl implements UserEventParticipation
     @Override
     public void deleteUserEventParticipationsByIdForAdmin(int id) {
 
+        Optional<UserEventParticipation> userEventParticipation = uepRepository.findById(id);
+
         uepRepository.deleteById(id);
+        userEventParticipation.ifPresent(this::freeSeat);
     }
 
 }
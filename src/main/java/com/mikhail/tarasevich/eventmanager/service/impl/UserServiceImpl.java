@@ -1,5 +1,6 @@
 package com.mikhail.tarasevich.eventmanager.service.impl;
 
+import com.mikhail.tarasevich.eventmanager.dto.PageResponse;
 import com.mikhail.tarasevich.eventmanager.dto.UserRequest;
 import com.mikhail.tarasevich.eventmanager.dto.UserResponse;
 import com.mikhail.tarasevich.eventmanager.entity.User;
@@ -8,23 +9,38 @@ import com.mikhail.tarasevich.eventmanager.repository.EventRepository;
 import com.mikhail.tarasevich.eventmanager.repository.RoleRepository;
 import com.mikhail.tarasevich.eventmanager.repository.UserEventParticipationRepository;
 import com.mikhail.tarasevich.eventmanager.repository.UserRepository;
+import com.mikhail.tarasevich.eventmanager.repository.projection.EventParticipantsView;
+import com.mikhail.tarasevich.eventmanager.repository.projection.UserView;
+import com.mikhail.tarasevich.eventmanager.security.RolePrivilegeRegistry;
+import com.mikhail.tarasevich.eventmanager.security.TokenRevocationRegistry;
 import com.mikhail.tarasevich.eventmanager.service.UserService;
 import com.mikhail.tarasevich.eventmanager.service.exception.CommonException;
+import com.mikhail.tarasevich.eventmanager.service.exception.IncorrectRequestDataException;
 import com.mikhail.tarasevich.eventmanager.service.exception.UserNotFoundException;
 import com.mikhail.tarasevich.eventmanager.service.mapper.UserMapper;
 import com.mikhail.tarasevich.eventmanager.service.validator.UserValidator;
+import com.mikhail.tarasevich.eventmanager.util.KeysetPagination;
+import com.mikhail.tarasevich.eventmanager.util.Status;
+import com.mikhail.tarasevich.eventmanager.util.StreamingExport;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import javax.persistence.EntityManager;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 @Service
 @Transactional
 public class UserServiceImpl implements UserService {
 
+    private static final int MAX_BATCH_SIZE = 500;
+
     private final UserRepository userRepository;
 
     private final RoleRepository roleRepository;
@@ -41,6 +57,18 @@ public class UserServiceImpl implements UserService {
 
     private final PasswordEncoder encoder;
 
+    private final TokenRevocationRegistry revocationRegistry;
+
+    private final RolePrivilegeRegistry rolePrivilegeRegistry;
+
+    private final EventSeatRegistry seatRegistry;
+
+    private final EventDetailCache eventCache;
+
+    private final EventSearchIndex searchIndex;
+
+    private final EntityManager entityManager;
+
     @Autowired
     public UserServiceImpl(UserRepository userRepository,
                            RoleRepository roleRepository,
@@ -49,7 +77,13 @@ public class UserServiceImpl implements UserService {
                            UserEventParticipationRepository userEventParticipationRepository,
                            UserMapper mapper,
                            UserValidator validator,
-                           PasswordEncoder encoder) {
+                           PasswordEncoder encoder,
+                           TokenRevocationRegistry revocationRegistry,
+                           RolePrivilegeRegistry rolePrivilegeRegistry,
+                           EventSeatRegistry seatRegistry,
+                           EventDetailCache eventCache,
+                           EventSearchIndex searchIndex,
+                           EntityManager entityManager) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.eventRepository = eventRepository;
@@ -58,22 +92,29 @@ public class UserServiceImpl implements UserService {
         this.mapper = mapper;
         this.validator = validator;
         this.encoder = encoder;
+        this.revocationRegistry = revocationRegistry;
+        this.rolePrivilegeRegistry = rolePrivilegeRegistry;
+        this.seatRegistry = seatRegistry;
+        this.eventCache = eventCache;
+        this.searchIndex = searchIndex;
+        this.entityManager = entityManager;
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<UserResponse> findAll() {
+    public PageResponse<UserResponse> findAll(int after, int limit) {
 
-        return userRepository.findAll().stream()
-                .map(mapper::toResponse)
-                .collect(Collectors.toList());
+        Pageable pageable = KeysetPagination.limitWithLookahead(limit);
+
+        return KeysetPagination.toPage(userRepository.findUserViewsByIdGreaterThan(after, pageable),
+                pageable, UserView::getId, mapper::toResponse);
     }
 
     @Override
     @Transactional(readOnly = true)
     public UserResponse findUserById(int id) {
 
-        return mapper.toResponse(userRepository.findById(id)
+        return mapper.toResponse(userRepository.findUserViewById(id)
                 .orElseThrow(() -> new UserNotFoundException("There is no user with id = " + id + " in DB")));
     }
 
@@ -119,40 +160,108 @@ public class UserServiceImpl implements UserService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<UserResponse> findAdmins() {
+    public PageResponse<UserResponse> findAdmins(int after, int limit) {
+
+        return findUsersByRole("ROLE_ADMIN", after, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PageResponse<UserResponse> findManagers(int after, int limit) {
 
-        return userRepository.findUsersByRoleOrderById("ROLE_ADMIN").stream()
-                .map(mapper::toResponse)
-                .collect(Collectors.toList());
+        return findUsersByRole("ROLE_MANAGER", after, limit);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<UserResponse> findManagers() {
+    public PageResponse<UserResponse> findParticipants(int after, int limit) {
 
-        return userRepository.findUsersByRoleOrderById("ROLE_MANAGER").stream()
-                .map(mapper::toResponse)
-                .collect(Collectors.toList());
+        return findUsersByRole("ROLE_PARTICIPANT", after, limit);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<UserResponse> findParticipants() {
+    public void exportParticipants(Consumer<UserResponse> consumer) {
 
-        return userRepository.findUsersByRoleOrderById("ROLE_PARTICIPANT").stream()
-                .map(mapper::toResponse)
-                .collect(Collectors.toList());
+        rolePrivilegeRegistry.findRoleId("ROLE_PARTICIPANT").ifPresent(roleId ->
+                StreamingExport.forEach(userRepository.streamUsersByRoleIdOrderById(roleId),
+                        entityManager, mapper::toResponse, consumer));
     }
 
     @Override
     public void deleteUserById(int id) {
 
-        userEventParticipationRepository.deleteUserEventParticipationsByUserId(id);
-        userEventParticipationRepository.deleteUserEventParticipationsByEventUserId(id);
-        contractRepository.deleteContractsByUserId(id);
-        eventRepository.deleteEventsByUserId(id);
+        deleteUsersByIds(List.of(id));
+    }
+
+    @Override
+    public void deleteUsersByIds(List<Integer> ids) {
+
+        if (ids.isEmpty() || ids.size() > MAX_BATCH_SIZE) {
+            throw new IncorrectRequestDataException("Number of ids must be between 1 and " + MAX_BATCH_SIZE);
+        }
+
+        // seats taken by the users in events with a capacity are counted before their participations go
+        List<EventParticipantsView> takenSeats = userEventParticipationRepository
+                .countParticipantsOfLimitedEventsByUserIdInAndStatus(ids, Status.ACCEPTED);
+
+        // one set-based statement per table instead of loading and removing every dependent row
+        userEventParticipationRepository.deleteUserEventParticipationsByUserIdInOrEventUserIdIn(ids);
+        takenSeats.forEach(seats -> seatRegistry.free(seats.getEventId(), (int) seats.getParticipants()));
+        contractRepository.deleteContractsByUserIdIn(ids);
+        // read before the delete, the search index is keyed by event ids
+        List<Integer> eventIds = eventRepository.findIdsByUserIdIn(ids);
+        eventRepository.deleteEventsByUserIdIn(ids);
+        userRepository.deleteUsersByIdIn(ids);
+
+        ids.forEach(revocationRegistry::revokeUserTokens);
+        invalidateCachedEvents(ids);
+        removeFromSearchIndex(eventIds);
+    }
+
+    // the search index follows committed data only, a rolled back delete leaves the events searchable
+    private void removeFromSearchIndex(List<Integer> eventIds) {
+
+        if (eventIds.isEmpty()) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    searchIndex.remove(eventIds);
+                }
+            });
+        } else {
+            searchIndex.remove(eventIds);
+        }
+    }
+
+    private void invalidateCachedEvents(List<Integer> userIds) {
+
+        eventCache.invalidateOwnedBy(userIds);
+
+        // a concurrent request may cache one of their events before this transaction commits, so invalidate afterwards
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    eventCache.invalidateOwnedBy(userIds);
+                }
+            });
+        }
+    }
+
+    private PageResponse<UserResponse> findUsersByRole(String role, int after, int limit) {
+
+        Pageable pageable = KeysetPagination.limitWithLookahead(limit);
+
+        List<UserView> users = rolePrivilegeRegistry.findRoleId(role)
+                .map(roleId -> userRepository.findUserViewsByRoleIdAndIdGreaterThan(roleId, after, pageable))
+                .orElse(Collections.emptyList());
 
-        userRepository.deleteById(id);
+        return KeysetPagination.toPage(users, pageable, UserView::getId, mapper::toResponse);
     }
 
 }
@@ -3,11 +3,14 @@ package com.mikhail.tarasevich.eventmanager.service.mapper;
 import com.mikhail.tarasevich.eventmanager.dto.ContractRequest;
 import com.mikhail.tarasevich.eventmanager.dto.ContractResponse;
 import com.mikhail.tarasevich.eventmanager.entity.Contract;
+import com.mikhail.tarasevich.eventmanager.repository.projection.ContractView;
 
 public interface ContractMapper {
 
     ContractResponse toResponse (Contract entity);
 
+    ContractResponse toResponse (ContractView view);
+
     Contract toEntity (ContractRequest request);
 
 }
@@ -2,12 +2,21 @@ package com.mikhail.tarasevich.eventmanager.service.mapper;
 
 import com.mikhail.tarasevich.eventmanager.dto.EventRequest;
 import com.mikhail.tarasevich.eventmanager.dto.EventResponse;
+import com.mikhail.tarasevich.eventmanager.dto.PublicEventResponse;
 import com.mikhail.tarasevich.eventmanager.entity.Event;
+import com.mikhail.tarasevich.eventmanager.repository.projection.EventCatalogView;
+import com.mikhail.tarasevich.eventmanager.repository.projection.EventView;
 
 public interface EventMapper {
 
     EventResponse toResponse (Event entity);
 
+    EventResponse toResponse (EventView view);
+
+    PublicEventResponse toPublicResponse (Event entity);
+
+    PublicEventResponse toPublicResponse (EventCatalogView view);
+
     Event toEntity (EventRequest request);
 
 }
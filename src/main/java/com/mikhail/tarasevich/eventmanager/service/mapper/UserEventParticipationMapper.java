@@ -3,11 +3,14 @@ package com.mikhail.tarasevich.eventmanager.service.mapper;
 import com.mikhail.tarasevich.eventmanager.dto.UserEventParticipationRequest;
 import com.mikhail.tarasevich.eventmanager.dto.UserEventParticipationResponse;
 import com.mikhail.tarasevich.eventmanager.entity.UserEventParticipation;
+import com.mikhail.tarasevich.eventmanager.repository.projection.UserEventParticipationView;
 
 public interface UserEventParticipationMapper {
 
     UserEventParticipationResponse toResponse (UserEventParticipation entity);
 
+    UserEventParticipationResponse toResponse (UserEventParticipationView view);
+
     UserEventParticipation toEntity (UserEventParticipationRequest request);
 
 }
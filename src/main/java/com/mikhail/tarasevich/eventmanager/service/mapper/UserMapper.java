@@ -3,11 +3,14 @@ package com.mikhail.tarasevich.eventmanager.service.mapper;
 import com.mikhail.tarasevich.eventmanager.dto.UserRequest;
 import com.mikhail.tarasevich.eventmanager.dto.UserResponse;
 import com.mikhail.tarasevich.eventmanager.entity.User;
+import com.mikhail.tarasevich.eventmanager.repository.projection.UserView;
 
 public interface UserMapper {
 
     UserResponse toResponse (User entity);
 
+    UserResponse toResponse (UserView view);
+
     User toEntity (UserRequest request);
 
 }
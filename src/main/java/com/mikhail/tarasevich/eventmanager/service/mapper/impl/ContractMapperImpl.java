@@ -5,6 +5,7 @@ import com.mikhail.tarasevich.eventmanager.dto.ContractResponse;
 import com.mikhail.tarasevich.eventmanager.dto.UserResponse;
 import com.mikhail.tarasevich.eventmanager.entity.Contract;
 import com.mikhail.tarasevich.eventmanager.entity.User;
+import com.mikhail.tarasevich.eventmanager.repository.projection.ContractView;
 import com.mikhail.tarasevich.eventmanager.service.mapper.ContractMapper;
 import org.springframework.stereotype.Component;
 
@@ -24,6 +25,19 @@ public class ContractMapperImpl implements ContractMapper {
                 .build();
     }
 
+    @Override
+    public ContractResponse toResponse(ContractView view) {
+
+        return ContractResponse.builder()
+                .withId(view.getId())
+                .withUser(UserResponse.builder()
+                        .withId(view.getUserId())
+                        .withEmail(view.getUserEmail())
+                        .build())
+                .withStatus(view.getStatus())
+                .build();
+    }
+
     @Override
     public Contract toEntity(ContractRequest request) {
 
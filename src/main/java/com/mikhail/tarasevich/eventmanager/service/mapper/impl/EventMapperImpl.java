@@ -2,9 +2,12 @@ package com.mikhail.tarasevich.eventmanager.service.mapper.impl;
 
 import com.mikhail.tarasevich.eventmanager.dto.EventRequest;
 import com.mikhail.tarasevich.eventmanager.dto.EventResponse;
+import com.mikhail.tarasevich.eventmanager.dto.PublicEventResponse;
 import com.mikhail.tarasevich.eventmanager.dto.UserResponse;
 import com.mikhail.tarasevich.eventmanager.entity.Event;
 import com.mikhail.tarasevich.eventmanager.entity.User;
+import com.mikhail.tarasevich.eventmanager.repository.projection.EventCatalogView;
+import com.mikhail.tarasevich.eventmanager.repository.projection.EventView;
 import com.mikhail.tarasevich.eventmanager.service.mapper.EventMapper;
 import org.springframework.stereotype.Component;
 
@@ -23,6 +26,49 @@ public class EventMapperImpl implements EventMapper {
                 .withName(entity.getName())
                 .withDescription(entity.getDescription())
                 .withPrice(entity.getPrice())
+                .withCapacity(entity.getCapacity())
+                .build();
+    }
+
+    @Override
+    public EventResponse toResponse(EventView view) {
+
+        return EventResponse.builder()
+                .withId(view.getId())
+                .withUser(UserResponse.builder()
+                        .withId(view.getUserId())
+                        .withEmail(view.getUserEmail())
+                        .build())
+                .withName(view.getName())
+                .withDescription(view.getDescription())
+                .withPrice(view.getPrice())
+                .withCapacity(view.getCapacity())
+                .build();
+    }
+
+    @Override
+    public PublicEventResponse toPublicResponse(Event entity) {
+
+        return PublicEventResponse.builder()
+                .withId(entity.getId())
+                .withOwnerId(entity.getUser().getId())
+                .withName(entity.getName())
+                .withDescription(entity.getDescription())
+                .withPrice(entity.getPrice())
+                .withCapacity(entity.getCapacity())
+                .build();
+    }
+
+    @Override
+    public PublicEventResponse toPublicResponse(EventCatalogView view) {
+
+        return PublicEventResponse.builder()
+                .withId(view.getId())
+                .withOwnerId(view.getOwnerId())
+                .withName(view.getName())
+                .withDescription(view.getDescription())
+                .withPrice(view.getPrice())
+                .withCapacity(view.getCapacity())
                 .build();
     }
 
@@ -35,6 +81,7 @@ public class EventMapperImpl implements EventMapper {
                 .withName(request.getName())
                 .withDescription(request.getDescription())
                 .withPrice(request.getPrice())
+                .withCapacity(request.getCapacity())
                 .build();
     }
 
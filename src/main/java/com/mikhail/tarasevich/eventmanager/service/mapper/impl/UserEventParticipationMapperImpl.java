@@ -7,6 +7,7 @@ import com.mikhail.tarasevich.eventmanager.dto.UserResponse;
 import com.mikhail.tarasevich.eventmanager.entity.Event;
 import com.mikhail.tarasevich.eventmanager.entity.User;
 import com.mikhail.tarasevich.eventmanager.entity.UserEventParticipation;
+import com.mikhail.tarasevich.eventmanager.repository.projection.UserEventParticipationView;
 import com.mikhail.tarasevich.eventmanager.service.mapper.UserEventParticipationMapper;
 import org.springframework.stereotype.Component;
 
@@ -38,6 +39,31 @@ public class UserEventParticipationMapperImpl implements UserEventParticipationM
                 .build();
     }
 
+    @Override
+    public UserEventParticipationResponse toResponse(UserEventParticipationView view) {
+
+        return UserEventParticipationResponse.builder()
+                .withId(view.getId())
+                .withUser(UserResponse.builder()
+                        .withId(view.getUserId() == null ? 0 : view.getUserId())
+                        .withEmail(view.getUserId() == null ? "no user" : view.getUserEmail())
+                        .build())
+                .withEvent(EventResponse.builder()
+                        .withId(view.getEventId())
+                        .withUser(UserResponse.builder()
+                                .withId(view.getEventUserId())
+                                .withEmail(view.getEventUserEmail())
+                                .build())
+                        .withName(view.getEventName())
+                        .withDescription(view.getEventDescription())
+                        .build())
+                .withStatus(view.getStatus())
+                .withFio(view.getFio())
+                .withAge(view.getAge())
+                .withCovidPassportNumber(view.getCovidPassportNumber())
+                .build();
+    }
+
     @Override
     public UserEventParticipation toEntity(UserEventParticipationRequest request) {
 
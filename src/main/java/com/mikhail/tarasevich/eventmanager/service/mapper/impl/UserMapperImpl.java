@@ -3,6 +3,7 @@ package com.mikhail.tarasevich.eventmanager.service.mapper.impl;
 import com.mikhail.tarasevich.eventmanager.dto.UserRequest;
 import com.mikhail.tarasevich.eventmanager.dto.UserResponse;
 import com.mikhail.tarasevich.eventmanager.entity.User;
+import com.mikhail.tarasevich.eventmanager.repository.projection.UserView;
 import com.mikhail.tarasevich.eventmanager.service.mapper.UserMapper;
 import org.springframework.stereotype.Component;
 
@@ -17,6 +18,14 @@ public class UserMapperImpl implements UserMapper {
                 .build();
     }
 
+    public UserResponse toResponse (UserView view) {
+
+        return UserResponse.builder()
+                .withId(view.getId())
+                .withEmail(view.getEmail())
+                .build();
+    }
+
     public User toEntity (UserRequest request) {
 
         return User.builder()
@@ -0,0 +1,28 @@
+package com.mikhail.tarasevich.eventmanager.util;
+
+import org.springframework.data.domain.Sort;
+
+// every order ends with the id, so that the pair (sort key, id) is unique and can be used as a page cursor
+public enum EventCatalogSort {
+
+    NEWEST(Sort.by(Sort.Direction.DESC, "id")),
+    PRICE_ASC(Sort.by(Sort.Direction.ASC, "price", "id")),
+    PRICE_DESC(Sort.by(Sort.Direction.DESC, "price", "id"));
+
+    private final Sort sort;
+
+    EventCatalogSort(Sort sort) {
+        this.sort = sort;
+    }
+
+    public Sort getSort() {
+
+        return sort;
+    }
+
+    public boolean isByPrice() {
+
+        return this != NEWEST;
+    }
+
+}
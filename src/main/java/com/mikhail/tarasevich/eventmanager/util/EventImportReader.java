@@ -0,0 +1,263 @@
+package com.mikhail.tarasevich.eventmanager.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mikhail.tarasevich.eventmanager.dto.EventRequest;
+import com.mikhail.tarasevich.eventmanager.service.exception.IncorrectRequestDataException;
+import lombok.Value;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads an event upload row by row, so the body is never buffered as a whole. CSV input needs a header
+ * with the name, description and price columns and may have a capacity column; NDJSON input holds one {@link EventRequest} object per line.
+ * Rows that cannot be parsed are returned with an error instead of stopping the import.
+ */
+public class EventImportReader implements Iterator<EventImportReader.Row>, Closeable {
+
+    public static final String CSV_VALUE = "text/csv";
+
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+
+    private static final List<String> CSV_COLUMNS = List.of("name", "description", "price");
+
+    private final PushbackReader reader;
+
+    private final ObjectMapper objectMapper;
+
+    private final boolean csv;
+
+    private Map<String, Integer> columns;
+
+    private int line = 1;
+
+    private Row next;
+
+    public EventImportReader(Reader reader, MediaType format, ObjectMapper objectMapper) {
+
+        this.csv = format.equalsTypeAndSubtype(MediaType.valueOf(CSV_VALUE));
+
+        if (!csv && !format.equalsTypeAndSubtype(MediaType.valueOf(NDJSON_VALUE))) {
+            throw new IncorrectRequestDataException("Events can be imported only as " + CSV_VALUE + " or " + NDJSON_VALUE);
+        }
+
+        this.reader = new PushbackReader(new BufferedReader(reader));
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public boolean hasNext() {
+
+        try {
+            if (next == null) {
+                next = csv ? readCsvRow() : readJsonRow();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return next != null;
+    }
+
+    @Override
+    public Row next() {
+
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        Row row = next;
+        next = null;
+
+        return row;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private Row readJsonRow() throws IOException {
+
+        String json;
+        int rowLine;
+
+        do {
+            rowLine = line;
+            json = readLine();
+        } while (json != null && json.isBlank());
+
+        if (json == null) {
+            return null;
+        }
+
+        try {
+            return new Row(rowLine, objectMapper.readValue(json, EventRequest.class), null);
+        } catch (JsonProcessingException e) {
+            return new Row(rowLine, null, "Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private Row readCsvRow() throws IOException {
+
+        if (columns == null) {
+            readCsvHeader();
+        }
+
+        List<String> fields;
+        int rowLine;
+
+        do {
+            rowLine = line;
+            fields = readCsvRecord();
+        } while (fields != null && fields.size() == 1 && fields.get(0).isBlank());
+
+        if (fields == null) {
+            return null;
+        }
+
+        if (fields.size() != columns.size()) {
+            return new Row(rowLine, null, "Expected " + columns.size() + " columns but found " + fields.size());
+        }
+
+        EventRequest request = EventRequest.builder()
+                .withName(fields.get(columns.get("name")))
+                .withDescription(fields.get(columns.get("description")))
+                .build();
+
+        try {
+            request.setPrice(Integer.parseInt(fields.get(columns.get("price")).trim()));
+        } catch (NumberFormatException e) {
+            return new Row(rowLine, null, "price - Event's price should be a number;");
+        }
+
+        String capacity = columns.containsKey("capacity") ? fields.get(columns.get("capacity")).trim() : "";
+
+        try {
+            request.setCapacity(capacity.isEmpty() ? null : Integer.valueOf(capacity));
+        } catch (NumberFormatException e) {
+            return new Row(rowLine, null, "capacity - Event's capacity should be a number;");
+        }
+
+        return new Row(rowLine, request, null);
+    }
+
+    private void readCsvHeader() throws IOException {
+
+        List<String> header = readCsvRecord();
+        columns = new HashMap<>();
+
+        for (int i = 0; header != null && i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+
+        if (!columns.keySet().containsAll(CSV_COLUMNS)) {
+            throw new IncorrectRequestDataException("CSV header should contain the columns " + CSV_COLUMNS);
+        }
+    }
+
+    // RFC 4180: fields may be quoted, quotes inside quoted fields are doubled and quoted fields may span lines
+    private List<String> readCsvRecord() throws IOException {
+
+        int c = reader.read();
+
+        if (c == -1) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        while (true) {
+            if (quoted) {
+                if (c == '"') {
+                    int following = reader.read();
+
+                    if (following == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        unread(following);
+                    }
+                } else if (c == -1) {
+                    quoted = false;
+                    continue;
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                line++;
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+
+            c = reader.read();
+        }
+    }
+
+    private String readLine() throws IOException {
+
+        int c = reader.read();
+
+        if (c == -1) {
+            return null;
+        }
+
+        StringBuilder result = new StringBuilder();
+
+        while (c != -1 && c != '\n') {
+            if (c != '\r') {
+                result.append((char) c);
+            }
+            c = reader.read();
+        }
+
+        line++;
+
+        return result.toString();
+    }
+
+    private void unread(int c) throws IOException {
+
+        if (c != -1) {
+            reader.unread(c);
+        }
+    }
+
+    @Value
+    public static class Row {
+
+        int line;
+
+        EventRequest request;
+
+        // set when the row could not be parsed, request is null then
+        String error;
+
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.mikhail.tarasevich.eventmanager.util;
+
+import com.mikhail.tarasevich.eventmanager.dto.PageResponse;
+import com.mikhail.tarasevich.eventmanager.service.exception.IncorrectRequestDataException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Pages are read as "id > after ORDER BY id LIMIT limit + 1", so every page is a single index range scan
+ * however deep it is. The extra row only tells whether there is a next page and is never returned.
+ */
+public final class KeysetPagination {
+
+    public static final int MAX_LIMIT = 500;
+
+    private KeysetPagination() {
+    }
+
+    public static Pageable limitWithLookahead(int limit) {
+
+        if (limit < 1) {
+            throw new IncorrectRequestDataException("Page limit should be positive, but was " + limit);
+        }
+
+        return PageRequest.of(0, Math.min(limit, MAX_LIMIT) + 1);
+    }
+
+    public static <E, T> PageResponse<T> toPage(List<E> rows, Pageable pageable,
+                                                ToIntFunction<E> idExtractor, Function<E, T> mapper) {
+
+        int limit = pageable.getPageSize() - 1;
+        boolean hasNext = rows.size() > limit;
+        List<E> pageRows = hasNext ? rows.subList(0, limit) : rows;
+
+        return PageResponse.<T>builder()
+                .withContent(pageRows.stream().map(mapper).collect(Collectors.toList()))
+                .withNextCursor(hasNext ? idExtractor.applyAsInt(pageRows.get(limit - 1)) : null)
+                .build();
+    }
+
+}
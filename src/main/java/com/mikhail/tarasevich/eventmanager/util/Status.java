@@ -4,7 +4,7 @@ import java.util.Arrays;
 
 public enum Status {
 
-    PENDING(0), REJECTED(1), ACCEPTED(2);
+    PENDING(0), REJECTED(1), ACCEPTED(2), WAITLISTED(3);
 
     private final int id;
 
@@ -24,4 +24,11 @@ public enum Status {
         return id;
     }
 
+    // contracts and participation requests are decided once, a decision is never changed afterwards;
+    // waitlisted requests are accepted by the waitlist when a seat frees up, not by a manager
+    public boolean canChangeTo(Status status) {
+
+        return this == PENDING && (status == ACCEPTED || status == REJECTED);
+    }
+
 }
@@ -0,0 +1,7 @@
+package com.mikhail.tarasevich.eventmanager.util;
+
+public enum StatusChangeOutcome {
+
+    UPDATED, NOT_PENDING, NOT_FOUND, NOT_OWNED, SOLD_OUT
+
+}
@@ -0,0 +1,65 @@
+package com.mikhail.tarasevich.eventmanager.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Exports whole tables without holding them in memory: rows are read from a repository {@link Stream},
+ * mapped one by one and written as a JSON array straight to the response body.
+ */
+public final class StreamingExport {
+
+    // JDBC fetch size of the streaming repository methods, rows are detached from the persistence context at the same pace
+    public static final String FETCH_SIZE = "500";
+
+    private static final int CLEAR_INTERVAL = Integer.parseInt(FETCH_SIZE);
+
+    private StreamingExport() {
+    }
+
+    public static <E, R> void forEach(Stream<E> rows, EntityManager entityManager,
+                                      Function<E, R> mapper, Consumer<? super R> consumer) {
+
+        try (rows) {
+            Iterator<E> iterator = rows.iterator();
+            int count = 0;
+
+            while (iterator.hasNext()) {
+                consumer.accept(mapper.apply(iterator.next()));
+
+                if (++count % CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+
+    public static <T> void writeJsonArray(OutputStream out, ObjectMapper objectMapper,
+                                          Consumer<Consumer<T>> source) throws IOException {
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+
+            source.accept(item -> {
+                try {
+                    generator.writeObject(item);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            generator.writeEndArray();
+        }
+    }
+
+}
@@ -0,0 +1,43 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Moves the application-written tables from identity columns to sequences with an increment of 50,
+ * so Hibernate can assign ids in memory and batch inserts. Each sequence starts after the current
+ * maximum id; this is done in Java because the start value has to be a literal on every database.
+ */
+public class V4__use_pooled_sequences extends BaseJavaMigration {
+
+    static final int ALLOCATION_SIZE = 50;
+
+    private static final List<String> TABLES = List.of("users", "contracts", "events", "user_event_participations");
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+
+        try (Statement statement = context.getConnection().createStatement()) {
+            for (String table : TABLES) {
+                long start = maxId(statement, table) + 1;
+
+                statement.execute("CREATE SEQUENCE " + table + "_seq START WITH " + start + " INCREMENT BY " + ALLOCATION_SIZE);
+                statement.execute("ALTER TABLE " + table + " ALTER COLUMN id DROP IDENTITY");
+            }
+        }
+    }
+
+    private static long maxId(Statement statement, String table) throws SQLException {
+
+        try (ResultSet resultSet = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+}
@@ -0,0 +1,40 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Indexes of the event catalog: price ranges and price orders, alone and for one owner, and name prefixes.
+ * This is done in Java because the indexes differ between databases. The unique index on the name answers
+ * a LIKE prefix everywhere but in PostgreSQL with a collation other than C, which needs text_pattern_ops.
+ * PostgreSQL reads b-trees backwards, so the ascending indexes serve the descending orders too; H2 reads
+ * them in one direction only and needs descending copies for "newest first" and "most expensive first".
+ * <p>
+ * A price range ordered by "newest first" has no index of its own: a b-tree serves a range on one column
+ * and an order on another only by reading one and filtering or sorting the other. The database walks the id
+ * index and skips events outside the range, which is fast for wide ranges and slows down as the range narrows.
+ */
+public class V8__add_event_catalog_indexes extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+
+        boolean postgres = "PostgreSQL".equals(context.getConnection().getMetaData().getDatabaseProductName());
+
+        try (Statement statement = context.getConnection().createStatement()) {
+            statement.execute("CREATE INDEX idx_events_price_id ON events (price, id)");
+            statement.execute("CREATE INDEX idx_events_user_id_price_id ON events (user_id, price, id)");
+
+            if (postgres) {
+                statement.execute("CREATE INDEX idx_events_name_pattern ON events (name text_pattern_ops)");
+            } else {
+                statement.execute("CREATE INDEX idx_events_id_desc ON events (id DESC)");
+                statement.execute("CREATE INDEX idx_events_price_desc_id_desc ON events (price DESC, id DESC)");
+            }
+        }
+    }
+
+}
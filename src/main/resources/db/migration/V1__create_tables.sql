@@ -1,25 +1,15 @@
-DROP SCHEMA IF EXISTS public CASCADE;
-
-CREATE SCHEMA public;
-
-DROP TABLE IF EXISTS roles CASCADE;
-
 CREATE TABLE roles
 (
     id   INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     name VARCHAR(50) UNIQUE NOT NULL
 );
 
-DROP TABLE IF EXISTS privileges CASCADE;
-
 CREATE TABLE privileges
 (
     id   INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     name VARCHAR(50) UNIQUE NOT NULL
 );
 
-DROP TABLE IF EXISTS role_privileges CASCADE;
-
 CREATE TABLE role_privileges
 (
     role_id      INTEGER REFERENCES roles (id),
@@ -27,8 +17,6 @@ CREATE TABLE role_privileges
     PRIMARY KEY (role_id, privilege_id)
 );
 
-DROP TABLE IF EXISTS users CASCADE;
-
 CREATE TABLE users
 (
     id       INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -37,8 +25,6 @@ CREATE TABLE users
     role_id  INT REFERENCES roles (id)
 );
 
-DROP TABLE IF EXISTS contracts CASCADE;
-
 CREATE TABLE contracts
 (
     id      INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -46,8 +32,6 @@ CREATE TABLE contracts
     status  VARCHAR(255) DEFAULT 'PENDING'
 );
 
-DROP TABLE IF EXISTS events CASCADE;
-
 CREATE TABLE events
 (
     id          INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -57,8 +41,6 @@ CREATE TABLE events
     price       INT CHECK (price > 0) NOT NULL
 );
 
-DROP TABLE IF EXISTS user_event_participations;
-
 CREATE TABLE user_event_participations
 (
     id                    INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -0,0 +1,11 @@
+CREATE INDEX idx_users_role_id_id ON users (role_id, id);
+
+CREATE INDEX idx_contracts_status_id ON contracts (status, id);
+
+CREATE INDEX idx_contracts_user_id_status_id ON contracts (user_id, status, id);
+
+CREATE INDEX idx_events_user_id_id ON events (user_id, id);
+
+CREATE INDEX idx_uep_event_id_status_id ON user_event_participations (event_id, status, id);
+
+CREATE INDEX idx_uep_user_id_id ON user_event_participations (user_id, id);
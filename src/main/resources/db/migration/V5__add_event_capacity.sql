@@ -0,0 +1,9 @@
+ALTER TABLE events ADD COLUMN capacity INT CHECK (capacity > 0);
+
+-- seats taken by accepted participation requests of the events with a capacity, kept apart from the events
+-- table so that reserving a seat doesn't invalidate cached events
+CREATE TABLE event_seats
+(
+    event_id INT PRIMARY KEY REFERENCES events (id) ON DELETE CASCADE,
+    accepted INT NOT NULL DEFAULT 0 CHECK (accepted >= 0)
+);
@@ -0,0 +1,4 @@
+ALTER TABLE user_event_participations ADD COLUMN waitlisted_at TIMESTAMP;
+
+-- the head of an event's waitlist is the first entry of the event's waitlisted rows in this index
+CREATE INDEX idx_uep_event_id_status_waitlisted_at_id ON user_event_participations (event_id, status, waitlisted_at, id);
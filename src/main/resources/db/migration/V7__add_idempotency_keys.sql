@@ -0,0 +1,10 @@
+-- responses of requests sent with an Idempotency-Key header, the response is null while the request is processed
+CREATE TABLE idempotency_keys
+(
+    user_id         INT          NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    idempotency_key VARCHAR(255) NOT NULL,
+    request_hash    VARCHAR(64)  NOT NULL,
+    response        TEXT,
+    created_at      TIMESTAMP    NOT NULL,
+    PRIMARY KEY (user_id, idempotency_key)
+);
@@ -0,0 +1,6 @@
+-- when the request holding the key claimed it, a claim still without a response is taken over once its lease is over
+ALTER TABLE idempotency_keys ADD COLUMN claimed_at TIMESTAMP;
+
+UPDATE idempotency_keys SET claimed_at = created_at;
+
+ALTER TABLE idempotency_keys ALTER COLUMN claimed_at SET NOT NULL;
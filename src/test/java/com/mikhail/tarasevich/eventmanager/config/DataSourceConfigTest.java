@@ -0,0 +1,79 @@
+package com.mikhail.tarasevich.eventmanager.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DataSourceConfigTest {
+
+    // the conversion service SpringApplication registers, it splits the replica URLs
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withInitializer(context -> context.getBeanFactory()
+                    .setConversionService(ApplicationConversionService.getSharedInstance()))
+            .withUserConfiguration(DataSourcePropertiesConfig.class, DataSourceConfig.class)
+            .withPropertyValues(
+                    "spring.datasource.url=jdbc:h2:mem:primary",
+                    "spring.datasource.username=sa",
+                    "datasource_replica_urls=jdbc:h2:mem:replica0, jdbc:h2:mem:replica1",
+                    "spring.datasource.hikari.maximum-pool-size=7",
+                    "spring.datasource.hikari.connection-timeout=2500",
+                    "spring.datasource.hikari.data-source-properties.reWriteBatchedInserts=true",
+                    "spring.datasource.replica.hikari.maximum-pool-size=3");
+
+    @Test
+    void routingDataSource_hikariProperties_expectedAppliedToPrimaryAndReplicaPools() {
+
+        contextRunner.run(context -> {
+            ReadWriteRoutingDataSource routing = context.getBean(ReadWriteRoutingDataSource.class);
+
+            HikariDataSource primary = (HikariDataSource) routing.getPrimary();
+
+            assertEquals("jdbc:h2:mem:primary", primary.getJdbcUrl());
+            assertEquals("primary", primary.getPoolName());
+            assertEquals(7, primary.getMaximumPoolSize());
+            assertEquals(2500, primary.getConnectionTimeout());
+            assertEquals("true", primary.getDataSourceProperties().getProperty("reWriteBatchedInserts"));
+            assertFalse(primary.isReadOnly());
+
+            List<DataSource> replicas = routing.getReplicas();
+
+            assertEquals(2, replicas.size());
+
+            for (int i = 0; i < replicas.size(); i++) {
+                HikariDataSource replica = (HikariDataSource) replicas.get(i);
+
+                assertEquals("jdbc:h2:mem:replica" + i, replica.getJdbcUrl());
+                assertEquals("replica-" + i, replica.getPoolName());
+                assertEquals(3, replica.getMaximumPoolSize());
+                assertEquals(2500, replica.getConnectionTimeout());
+                assertEquals("true", replica.getDataSourceProperties().getProperty("reWriteBatchedInserts"));
+                assertTrue(replica.isReadOnly());
+            }
+        });
+    }
+
+    @Test
+    void routingDataSource_noReplicaUrls_expectedNotConfigured() {
+
+        new ApplicationContextRunner()
+                .withUserConfiguration(DataSourcePropertiesConfig.class, DataSourceConfig.class)
+                .run(context -> assertTrue(context.getBeansOfType(ReadWriteRoutingDataSource.class).isEmpty()));
+    }
+
+    @Configuration
+    @EnableConfigurationProperties(DataSourceProperties.class)
+    static class DataSourcePropertiesConfig {
+    }
+
+}
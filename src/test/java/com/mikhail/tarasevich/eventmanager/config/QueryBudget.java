@@ -0,0 +1,22 @@
+package com.mikhail.tarasevich.eventmanager.config;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Fails the test when its body makes Hibernate prepare more statements than the budget, so a change that turns
+ * one query into one query per row breaks the build. {@code @BeforeEach} setup is not counted.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(QueryBudgetExtension.class)
+public @interface QueryBudget {
+
+    // maximum number of prepared statements
+    int value();
+
+}
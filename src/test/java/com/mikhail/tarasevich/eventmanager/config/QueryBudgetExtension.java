@@ -0,0 +1,47 @@
+package com.mikhail.tarasevich.eventmanager.config;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Counts the statements prepared by Hibernate during a test annotated with {@link QueryBudget}. Relies on
+ * hibernate.generate_statistics, which {@link SpringTestConfig} turns on.
+ */
+public class QueryBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        statistics(context).clear();
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+
+        int budget = context.getRequiredTestMethod().getAnnotation(QueryBudget.class).value();
+        Statistics statistics = statistics(context);
+        long statements = statistics.getPrepareStatementCount();
+
+        assertTrue(statements <= budget, () -> "Expected at most " + budget + " statements but " + statements +
+                " were prepared, entities loaded: " + statistics.getEntityLoadCount() +
+                ", collections fetched: " + statistics.getCollectionFetchCount() +
+                ", queries: " + Arrays.toString(statistics.getQueries()));
+    }
+
+    private static Statistics statistics(ExtensionContext context) {
+
+        return SpringExtension.getApplicationContext(context)
+                .getBean(EntityManagerFactory.class)
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+    }
+
+}
@@ -0,0 +1,334 @@
+package com.mikhail.tarasevich.eventmanager.config;
+
+import com.mikhail.tarasevich.eventmanager.security.UserSecurityDetails;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Routes between two embedded H2 databases that hold different data, so the answer of a query tells
+ * which database served it.
+ */
+class ReadWriteRoutingDataSourceTest {
+
+    private static final Duration READ_YOUR_WRITES_WINDOW = Duration.ofSeconds(5);
+
+    private static final Duration EJECTION_PERIOD = Duration.ofSeconds(30);
+
+    private EmbeddedDatabase primary;
+
+    private EmbeddedDatabase replica;
+
+    private MutableClock clock;
+
+    @BeforeEach
+    void setup() {
+
+        primary = database("primary");
+        replica = database("replica");
+        clock = new MutableClock();
+    }
+
+    @AfterEach
+    void shutdown() {
+
+        SecurityContextHolder.clearContext();
+        primary.shutdown();
+        replica.shutdown();
+    }
+
+    @Test
+    void getConnection_readOnlyTransaction_expectedReplica() {
+
+        Routing routing = new Routing(List.of(replica));
+
+        assertEquals("replica", routing.read());
+        assertEquals("primary", routing.readInReadWriteTransaction());
+        assertEquals("primary", routing.jdbcTemplate.queryForObject("SELECT name FROM origin", String.class));
+    }
+
+    @Test
+    void getConnection_readAfterOwnWrite_expectedPrimaryDuringWindow() {
+
+        Routing routing = new Routing(List.of(replica));
+
+        authenticate(5);
+        routing.write();
+
+        assertEquals("primary", routing.read());
+
+        clock.advance(READ_YOUR_WRITES_WINDOW);
+
+        assertEquals("replica", routing.read());
+    }
+
+    @Test
+    void getConnection_readAfterWriteOfAnotherUser_expectedReplica() {
+
+        Routing routing = new Routing(List.of(replica));
+
+        authenticate(5);
+        routing.write();
+        authenticate(6);
+
+        assertEquals("replica", routing.read());
+    }
+
+    @Test
+    void getConnection_rolledBackWrite_expectedReplica() {
+
+        Routing routing = new Routing(List.of(replica));
+
+        authenticate(5);
+        routing.transactionTemplate.executeWithoutResult(status -> {
+            routing.jdbcTemplate.update("INSERT INTO writes VALUES (1)");
+            status.setRollbackOnly();
+        });
+
+        assertEquals("replica", routing.read());
+    }
+
+    @Test
+    void getConnection_unavailableReplica_expectedEjectedUntilPeriodEnds() {
+
+        FailingDataSource unavailable = new FailingDataSource();
+        Routing routing = new Routing(List.of(unavailable, replica));
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals("replica", routing.read());
+        }
+
+        assertEquals(1, unavailable.attempts);
+
+        clock.advance(EJECTION_PERIOD);
+
+        assertEquals("replica", routing.read());
+        assertEquals("replica", routing.read());
+        assertEquals(2, unavailable.attempts);
+    }
+
+    @Test
+    void getConnection_noAvailableReplica_expectedPrimary() {
+
+        Routing routing = new Routing(List.of(new FailingDataSource()));
+
+        assertEquals("primary", routing.read());
+    }
+
+    @Test
+    void getConnection_withCredentials_expectedRoutedAsWithoutThem() throws SQLException {
+
+        Routing routing = new Routing(List.of(replica));
+
+        try (Connection connection = routing.routingDataSource.getConnection("sa", "")) {
+            assertEquals("primary", origin(connection));
+        }
+
+        assertEquals("replica", routing.readOnlyTransactionTemplate.execute(status -> {
+            try (Connection connection = routing.routingDataSource.getConnection("sa", "")) {
+                return origin(connection);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+    }
+
+    @Test
+    void getConnection_writeAfterReadOnlyTransactionInOneEntityManager_expectedPrimary() {
+
+        Routing routing = new Routing(List.of(replica));
+        EntityManagerFactory entityManagerFactory = entityManagerFactory(routing.dataSource);
+        JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        TransactionTemplate readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate.setReadOnly(true);
+
+        // as open-in-view does, one EntityManager serves both transactions
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+
+        try {
+            assertEquals("replica", readOnlyTransactionTemplate.execute(status ->
+                    entityManager.createNativeQuery("SELECT name FROM origin").getSingleResult()));
+
+            transactionTemplate.executeWithoutResult(status ->
+                    entityManager.createNativeQuery("INSERT INTO writes VALUES (1)").executeUpdate());
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            entityManager.close();
+            entityManagerFactory.close();
+        }
+
+        assertEquals(1, new JdbcTemplate(primary).queryForObject("SELECT COUNT(*) FROM writes", Integer.class));
+        assertEquals(0, new JdbcTemplate(replica).queryForObject("SELECT COUNT(*) FROM writes", Integer.class));
+    }
+
+    // no entities, the queries are native. The Hibernate properties are the ones the application gets with replicas
+    private static EntityManagerFactory entityManagerFactory(DataSource dataSource) {
+
+        Map<String, Object> properties = new HashMap<>();
+        new DataSourceConfig().connectionPerTransactionCustomizer().customize(properties);
+
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan(ReadWriteRoutingDataSourceTest.class.getPackageName());
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(properties);
+        factoryBean.afterPropertiesSet();
+
+        return factoryBean.getNativeEntityManagerFactory();
+    }
+
+    private static String origin(Connection connection) throws SQLException {
+
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT name FROM origin")) {
+            resultSet.next();
+            return resultSet.getString(1);
+        }
+    }
+
+    private static EmbeddedDatabase database(String name) {
+
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE origin (name VARCHAR(20))");
+        jdbcTemplate.execute("CREATE TABLE writes (id INT)");
+        jdbcTemplate.update("INSERT INTO origin VALUES (?)", name);
+
+        return database;
+    }
+
+    private static void authenticate(int userId) {
+
+        UserSecurityDetails user = new UserSecurityDetails(userId, "user" + userId + "@example.com", "PARTICIPANT",
+                AuthorityUtils.NO_AUTHORITIES);
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    private class Routing {
+
+        private final ReadWriteRoutingDataSource routingDataSource;
+
+        private final DataSource dataSource;
+
+        private final JdbcTemplate jdbcTemplate;
+
+        private final TransactionTemplate transactionTemplate;
+
+        private final TransactionTemplate readOnlyTransactionTemplate;
+
+        private Routing(List<DataSource> replicas) {
+
+            routingDataSource = new ReadWriteRoutingDataSource(primary, replicas, READ_YOUR_WRITES_WINDOW,
+                    EJECTION_PERIOD, clock);
+
+            dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+            DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+
+            jdbcTemplate = new JdbcTemplate(dataSource);
+            transactionTemplate = new TransactionTemplate(transactionManager);
+            readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+            readOnlyTransactionTemplate.setReadOnly(true);
+        }
+
+        private String read() {
+            return readOnlyTransactionTemplate.execute(status ->
+                    jdbcTemplate.queryForObject("SELECT name FROM origin", String.class));
+        }
+
+        private String readInReadWriteTransaction() {
+            return transactionTemplate.execute(status ->
+                    jdbcTemplate.queryForObject("SELECT name FROM origin", String.class));
+        }
+
+        private void write() {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.update("INSERT INTO writes VALUES (1)"));
+        }
+
+    }
+
+    private static class FailingDataSource extends AbstractDataSource {
+
+        private int attempts;
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            attempts++;
+            throw new SQLException("Connection refused");
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection();
+        }
+
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant instant = Instant.parse("2023-01-01T00:00:00Z");
+
+        private void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+
+    }
+
+}
@@ -0,0 +1,31 @@
+package com.mikhail.tarasevich.eventmanager.config;
+
+import org.hibernate.SessionFactory;
+import org.springframework.core.Ordered;
+import org.springframework.test.context.TestContext;
+import org.springframework.test.context.support.AbstractTestExecutionListener;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Empties the second-level and query caches after every test method. Tests reset the database with SQL scripts
+ * Hibernate does not see, so entries cached by one test would otherwise leak into the next one.
+ * Registered in META-INF/spring.factories.
+ */
+public class SecondLevelCacheResetListener extends AbstractTestExecutionListener {
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+
+    @Override
+    public void afterTestMethod(TestContext testContext) {
+
+        if (testContext.hasApplicationContext()) {
+            testContext.getApplicationContext().getBeanProvider(EntityManagerFactory.class).ifAvailable(
+                    entityManagerFactory -> entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions());
+        }
+    }
+
+}
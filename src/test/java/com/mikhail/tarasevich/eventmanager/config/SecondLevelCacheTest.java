@@ -0,0 +1,153 @@
+package com.mikhail.tarasevich.eventmanager.config;
+
+import com.mikhail.tarasevich.eventmanager.dto.EventRequest;
+import com.mikhail.tarasevich.eventmanager.dto.EventResponse;
+import com.mikhail.tarasevich.eventmanager.dto.PublicEventResponse;
+import com.mikhail.tarasevich.eventmanager.entity.Event;
+import com.mikhail.tarasevich.eventmanager.entity.Role;
+import com.mikhail.tarasevich.eventmanager.entity.User;
+import com.mikhail.tarasevich.eventmanager.repository.EventRepository;
+import com.mikhail.tarasevich.eventmanager.repository.RoleRepository;
+import com.mikhail.tarasevich.eventmanager.repository.UserRepository;
+import com.mikhail.tarasevich.eventmanager.service.EventService;
+import com.mikhail.tarasevich.eventmanager.service.exception.EventNotFoundException;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+
+import javax.cache.CacheManager;
+import javax.management.ObjectName;
+import javax.persistence.EntityManagerFactory;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = SpringTestConfig.class)
+class SecondLevelCacheTest {
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CacheManager secondLevelCacheManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findById_repeatedRoleLoad_expectedSecondLoadFromCache() {
+
+        roleRepository.findById(2);
+        Role role = roleRepository.findById(2).orElseThrow();
+
+        assertEquals("ROLE_MANAGER", role.getName());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    void findUserByEmail_repeatedQuery_expectedQueryAndEntitiesFromCache() {
+
+        userRepository.findUserByEmail("manager1@example.com");
+        statistics.clear();
+
+        User user = userRepository.findUserByEmail("manager1@example.com").orElseThrow();
+
+        assertEquals(2, user.getId());
+        assertEquals("ROLE_MANAGER", user.getRole().getName());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    @Sql(scripts = {"classpath:sql/schema.sql", "classpath:sql/data.sql"},
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    void findUserByEmail_userSavedAfterEmptyResult_expectedCachedResultInvalidated() {
+
+        assertTrue(userRepository.findUserByEmail("new@example.com").isEmpty());
+
+        userRepository.save(User.builder()
+                .withEmail("new@example.com")
+                .withPassword("password")
+                .withRole(Role.builder().withId(3).build())
+                .build());
+
+        assertTrue(userRepository.findUserByEmail("new@example.com").isPresent());
+    }
+
+    @Test
+    @Sql(scripts = {"classpath:sql/schema.sql", "classpath:sql/data.sql"},
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    void createNewEvent_inputEventRequest_expectedNewEventReadFromCache() {
+
+        EventResponse created = eventService.createNewEvent(4, EventRequest.builder()
+                .withName("Concert")
+                .withDescription("Music concert")
+                .withPrice(100)
+                .build());
+        statistics.clear();
+
+        PublicEventResponse found = eventService.findEventById(created.getId());
+
+        assertEquals("Concert", found.getName());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertTrue(entityManagerFactory.getCache().contains(Event.class, created.getId()));
+    }
+
+    @Test
+    @Sql(scripts = {"classpath:sql/schema.sql", "classpath:sql/data.sql"},
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    void deleteEventById_cachedEvent_expectedEvictedFromCache() {
+
+        eventService.findEventById(1);
+
+        assertTrue(entityManagerFactory.getCache().contains(Event.class, 1));
+
+        eventService.deleteEventById(2, 1);
+
+        assertFalse(entityManagerFactory.getCache().contains(Event.class, 1));
+        assertThrows(EventNotFoundException.class, () -> eventService.findEventById(1));
+    }
+
+    @Test
+    void findById_repeatedEventLoad_expectedHitInCacheStatistics() throws Exception {
+
+        ObjectName events = new ObjectName("javax.cache:type=CacheStatistics,CacheManager=" +
+                secondLevelCacheManager.getURI().toString().replaceAll("[,:=\n]", ".") +
+                ",Cache=" + SecondLevelCacheConfig.EVENTS_REGION);
+        long hits = (long) ManagementFactory.getPlatformMBeanServer().getAttribute(events, "CacheHits");
+
+        eventRepository.findById(3);
+        eventRepository.findById(3);
+
+        assertEquals(hits + 1, (long) ManagementFactory.getPlatformMBeanServer().getAttribute(events, "CacheHits"));
+    }
+
+}
@@ -1,7 +1,9 @@
 package com.mikhail.tarasevich.eventmanager.config;
 
+import org.hibernate.cache.jcache.ConfigSettings;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
@@ -13,13 +15,14 @@ import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
+import javax.cache.CacheManager;
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
 import java.util.Properties;
 
 @Configuration
 @EnableTransactionManagement(proxyTargetClass = true)
-@EnableAutoConfiguration
+@EnableAutoConfiguration(exclude = FlywayAutoConfiguration.class)
 @EntityScan("com.mikhail.tarasevich.eventmanager.entity")
 @ComponentScan("com.mikhail.tarasevich.eventmanager")
 @EnableJpaRepositories("com.mikhail.tarasevich.eventmanager.repository")
@@ -40,12 +43,23 @@ public class SpringTestConfig {
     }
 
     @Bean
-    public EntityManagerFactory entityManagerFactory(DataSource dataSource) {
+    public EntityManagerFactory entityManagerFactory(DataSource dataSource, CacheManager secondLevelCacheManager) {
         LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
 
         Properties props = new Properties();
         props.setProperty("hibernate.format_sql", String.valueOf(true));
         props.setProperty("hibernate.connection.autocommit", String.valueOf(true));
+        props.setProperty("hibernate.generate_statistics", String.valueOf(true));
+        props.setProperty("hibernate.jdbc.batch_size", String.valueOf(50));
+        props.setProperty("hibernate.order_inserts", String.valueOf(true));
+        props.setProperty("hibernate.order_updates", String.valueOf(true));
+        props.setProperty("hibernate.id.optimizer.pooled.preferred", "pooled-lo");
+        props.setProperty("hibernate.cache.use_second_level_cache", String.valueOf(true));
+        props.setProperty("hibernate.cache.use_query_cache", String.valueOf(true));
+        props.setProperty("hibernate.cache.region.factory_class", "jcache");
+        props.setProperty("hibernate.javax.cache.missing_cache_strategy", "fail");
+        props.setProperty("javax.persistence.sharedCache.mode", "ENABLE_SELECTIVE");
+        props.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
 
         factoryBean.setDataSource(dataSource);
         factoryBean.setPackagesToScan("com.mikhail.tarasevich.eventmanager");
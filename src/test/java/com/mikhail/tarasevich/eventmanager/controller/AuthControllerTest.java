@@ -4,6 +4,7 @@ import com.mikhail.tarasevich.eventmanager.dto.LoginRequest;
 import com.mikhail.tarasevich.eventmanager.dto.UserRequest;
 import com.mikhail.tarasevich.eventmanager.dto.UserResponse;
 import com.mikhail.tarasevich.eventmanager.security.JWTUtil;
+import com.mikhail.tarasevich.eventmanager.security.UserSecurityDetails;
 import com.mikhail.tarasevich.eventmanager.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,6 +16,8 @@ import org.springframework.http.MediaType;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
@@ -42,6 +45,9 @@ class AuthControllerTest {
     @Mock
     private AuthenticationManager authenticationManager;
 
+    @Mock
+    private UserDetailsService userDetailsService;
+
     private MockMvc mockMvc;
 
     @BeforeEach
@@ -67,10 +73,14 @@ class AuthControllerTest {
                 .withEmail(userRequest.getEmail())
                 .build();
 
+        UserSecurityDetails userDetails =
+                new UserSecurityDetails(1, userRequest.getEmail(), "ROLE_PARTICIPANT", AuthorityUtils.createAuthorityList("PRIVILEGE_PARTICIPANT"));
+
         String token = "test-token";
 
         when(userService.createParticipant(userRequest)).thenReturn(userResponse);
-        when(jwtUtil.generateToken(userResponse.getEmail())).thenReturn(token);
+        when(userDetailsService.loadUserByUsername(userResponse.getEmail())).thenReturn(userDetails);
+        when(jwtUtil.generateToken(userDetails)).thenReturn(token);
 
         mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/auth/registration/participant")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -79,7 +89,7 @@ class AuthControllerTest {
                 .andExpect(content().json("{\"token\": \"test-token\"}"));
 
         verify(userService, times(1)).createParticipant(userRequest);
-        verify(jwtUtil, times(1)).generateToken(userResponse.getEmail());
+        verify(jwtUtil, times(1)).generateToken(userDetails);
         verifyNoMoreInteractions(userService, jwtUtil);
     }
 
@@ -97,10 +107,14 @@ class AuthControllerTest {
                 .withEmail(userRequest.getEmail())
                 .build();
 
+        UserSecurityDetails userDetails =
+                new UserSecurityDetails(1, userRequest.getEmail(), "ROLE_MANAGER", AuthorityUtils.createAuthorityList("PRIVILEGE_EVENT_CREATOR"));
+
         String token = "test-token";
 
         when(userService.createManager(userRequest)).thenReturn(userResponse);
-        when(jwtUtil.generateToken(userResponse.getEmail())).thenReturn(token);
+        when(userDetailsService.loadUserByUsername(userResponse.getEmail())).thenReturn(userDetails);
+        when(jwtUtil.generateToken(userDetails)).thenReturn(token);
 
         mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/auth/registration/manager")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -109,7 +123,7 @@ class AuthControllerTest {
                 .andExpect(content().json("{\"token\": \"test-token\"}"));
 
         verify(userService, times(1)).createManager(userRequest);
-        verify(jwtUtil, times(1)).generateToken(userResponse.getEmail());
+        verify(jwtUtil, times(1)).generateToken(userDetails);
         verifyNoMoreInteractions(userService, jwtUtil);
     }
 
@@ -126,7 +140,12 @@ class AuthControllerTest {
         UsernamePasswordAuthenticationToken authInputToken =
                 new UsernamePasswordAuthenticationToken(loginRequest.getEmail(), loginRequest.getPassword());
 
-        when(jwtUtil.generateToken(loginRequest.getEmail())).thenReturn(token);
+        UserSecurityDetails userDetails =
+                new UserSecurityDetails(1, loginRequest.getEmail(), "ROLE_PARTICIPANT", AuthorityUtils.createAuthorityList("PRIVILEGE_PARTICIPANT"));
+
+        when(authenticationManager.authenticate(authInputToken))
+                .thenReturn(new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
+        when(jwtUtil.generateToken(userDetails)).thenReturn(token);
 
         mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/auth/login")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -136,7 +155,7 @@ class AuthControllerTest {
                 .andExpect(content().json("{\"token\":\"test-token\"}"));
 
         verify(authenticationManager, times(1)).authenticate(authInputToken);
-        verify(jwtUtil, times(1)).generateToken(loginRequest.getEmail());
+        verify(jwtUtil, times(1)).generateToken(userDetails);
         verifyNoMoreInteractions(authenticationManager, userService, jwtUtil);
     }
 
@@ -1,6 +1,9 @@
 package com.mikhail.tarasevich.eventmanager.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mikhail.tarasevich.eventmanager.dto.ContractResponse;
+import com.mikhail.tarasevich.eventmanager.dto.PageResponse;
+import com.mikhail.tarasevich.eventmanager.security.UserSecurityDetails;
 import com.mikhail.tarasevich.eventmanager.service.ContractService;
 import com.mikhail.tarasevich.eventmanager.util.Status;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,20 +11,28 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.util.List;
+import java.util.function.Consumer;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,6 +44,9 @@ class ContractControllerTest {
     @Mock
     private ContractService contractService;
 
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     private MockMvc mockMvc;
 
     @BeforeEach
@@ -58,13 +72,13 @@ class ContractControllerTest {
                 .build();
         List<ContractResponse> pendingContracts = List.of(contract1, contract2);
 
-        when(contractService.findPendingContracts()).thenReturn(pendingContracts);
+        when(contractService.findPendingContracts(0, 50)).thenReturn(PageResponse.<ContractResponse>builder().withContent(pendingContracts).build());
 
         mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/contract/pending"))
                 .andExpect(status().isOk())
-                .andExpect(content().json("[{\"id\":1,\"status\":\"PENDING\"},{\"id\":2,\"status\":\"PENDING\"}]"));
+                .andExpect(content().json("{\"content\":[{\"id\":1,\"status\":\"PENDING\"},{\"id\":2,\"status\":\"PENDING\"}]}"));
 
-        verify(contractService, times(1)).findPendingContracts();
+        verify(contractService, times(1)).findPendingContracts(0, 50);
         verifyNoMoreInteractions(contractService);
     }
 
@@ -82,13 +96,13 @@ class ContractControllerTest {
                 .build();
         List<ContractResponse> rejectedContracts = List.of(contract1, contract2);
 
-        when(contractService.findRejectedContracts()).thenReturn(rejectedContracts);
+        when(contractService.findRejectedContracts(0, 50)).thenReturn(PageResponse.<ContractResponse>builder().withContent(rejectedContracts).build());
 
         mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/contract/rejected"))
                 .andExpect(status().isOk())
-                .andExpect(content().json("[{\"id\":1,\"status\":\"REJECTED\"},{\"id\":2,\"status\":\"REJECTED\"}]"));
+                .andExpect(content().json("{\"content\":[{\"id\":1,\"status\":\"REJECTED\"},{\"id\":2,\"status\":\"REJECTED\"}]}"));
 
-        verify(contractService, times(1)).findRejectedContracts();
+        verify(contractService, times(1)).findRejectedContracts(0, 50);
         verifyNoMoreInteractions(contractService);
     }
 
@@ -106,13 +120,13 @@ class ContractControllerTest {
                 .build();
         List<ContractResponse> acceptedContracts = List.of(contract1, contract2);
 
-        when(contractService.findAcceptedContracts()).thenReturn(acceptedContracts);
+        when(contractService.findAcceptedContracts(0, 50)).thenReturn(PageResponse.<ContractResponse>builder().withContent(acceptedContracts).build());
 
         mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/contract/accepted"))
                 .andExpect(status().isOk())
-                .andExpect(content().json("[{\"id\":1,\"status\":\"ACCEPTED\"},{\"id\":2,\"status\":\"ACCEPTED\"}]"));
+                .andExpect(content().json("{\"content\":[{\"id\":1,\"status\":\"ACCEPTED\"},{\"id\":2,\"status\":\"ACCEPTED\"}]}"));
 
-        verify(contractService, times(1)).findAcceptedContracts();
+        verify(contractService, times(1)).findAcceptedContracts(0, 50);
         verifyNoMoreInteractions(contractService);
     }
 
@@ -121,20 +135,21 @@ class ContractControllerTest {
     void createNewContract_returnsCreatedContract() throws Exception {
 
         String userName = "testUser";
+        int userId = 1;
 
         ContractResponse contractResponse = ContractResponse.builder()
                 .withId(1)
                 .withStatus(Status.PENDING)
                 .build();
 
-        when(contractService.createContract(userName)).thenReturn(contractResponse);
+        when(contractService.createContract(userId)).thenReturn(contractResponse);
 
         mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/contract/")
-                        .principal(new UsernamePasswordAuthenticationToken(userName, "")))
+                        .principal(principal(userId, userName)))
                 .andExpect(status().isOk())
                 .andExpect(content().json("{\"id\":1,\"status\":\"PENDING\"}"));
 
-        verify(contractService, times(1)).createContract(userName);
+        verify(contractService, times(1)).createContract(userId);
         verifyNoMoreInteractions(contractService);
     }
 
@@ -143,15 +158,16 @@ class ContractControllerTest {
     void hasMangerAcceptedContract_returnsAcceptedMessage() throws Exception {
 
         String userName = "testUser";
+        int userId = 1;
 
-        when(contractService.hasUserAcceptedContract(userName)).thenReturn(true);
+        when(contractService.hasUserAcceptedContract(userId)).thenReturn(true);
 
         mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/contract/manager/valid")
-                        .principal(new UsernamePasswordAuthenticationToken(userName, "")))
+                        .principal(principal(userId, userName)))
                 .andExpect(status().isOk())
                 .andExpect(content().string("Manger with email = " + userName + " has accepted contract"));
 
-        verify(contractService, times(1)).hasUserAcceptedContract(userName);
+        verify(contractService, times(1)).hasUserAcceptedContract(userId);
         verifyNoMoreInteractions(contractService);
     }
 
@@ -160,15 +176,16 @@ class ContractControllerTest {
     void hasMangerAcceptedContract_returnsNotAcceptedMessage() throws Exception {
 
         String userName = "testUser";
+        int userId = 1;
 
-        when(contractService.hasUserAcceptedContract(userName)).thenReturn(false);
+        when(contractService.hasUserAcceptedContract(userId)).thenReturn(false);
 
         mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/contract/manager/valid")
-                        .principal(new UsernamePasswordAuthenticationToken(userName, "")))
+                        .principal(principal(userId, userName)))
                 .andExpect(status().isOk())
                 .andExpect(content().string("Manger with email = " + userName + " has no accepted contract"));
 
-        verify(contractService, times(1)).hasUserAcceptedContract(userName);
+        verify(contractService, times(1)).hasUserAcceptedContract(userId);
         verifyNoMoreInteractions(contractService);
     }
 
@@ -214,4 +231,33 @@ class ContractControllerTest {
         verifyNoMoreInteractions(contractService);
     }
 
+    @Test
+    @WithMockUser(authorities = "PRIVILEGE_APP_ADMIN")
+    void exportAcceptedContracts_streamsJsonArray() throws Exception {
+
+        doAnswer(invocation -> {
+            Consumer<ContractResponse> consumer = invocation.getArgument(0);
+            consumer.accept(ContractResponse.builder().withId(3).withStatus(Status.ACCEPTED).build());
+            return null;
+        }).when(contractService).exportAcceptedContracts(any());
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/contract/accepted/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"id\":3,\"status\":\"ACCEPTED\"}]"));
+
+        verify(contractService, times(1)).exportAcceptedContracts(any());
+        verifyNoMoreInteractions(contractService);
+    }
+
+    private static UsernamePasswordAuthenticationToken principal(int id, String email) {
+
+        UserSecurityDetails userDetails = new UserSecurityDetails(id, email, null, AuthorityUtils.NO_AUTHORITIES);
+
+        return new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+    }
+
 }
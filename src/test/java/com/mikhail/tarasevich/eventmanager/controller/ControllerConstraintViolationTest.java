@@ -0,0 +1,91 @@
+package com.mikhail.tarasevich.eventmanager.controller;
+
+import com.mikhail.tarasevich.eventmanager.config.SpringTestConfig;
+import com.mikhail.tarasevich.eventmanager.security.UserSecurityDetails;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Rows breaking a unique constraint, sent through the real controllers, services and repositories. Inserts are
+ * batched and get pooled ids, so nothing reaches the DB before a flush: the violation must still be reported as
+ * a bad request and not surface at commit as a server error.
+ */
+@SpringBootTest(classes = SpringTestConfig.class)
+@Sql(scripts = {"classpath:sql/schema.sql", "classpath:sql/data.sql"},
+        executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class ControllerConstraintViolationTest {
+
+    @Autowired
+    private EventController eventController;
+
+    @Autowired
+    private UserEventParticipationController uepController;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setup() {
+
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(eventController, uepController)
+                .setControllerAdvice(GlobalExceptionHandler.class)
+                .build();
+    }
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void createNewEvent_nameOfExistingEvent_expectedBadRequest() throws Exception {
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/event/").with(user(4, "PRIVILEGE_EVENT_CREATOR"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Event 1\", \"description\": \"Music concert\", \"price\": 100}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("events")));
+    }
+
+    @Test
+    void createUserEventParticipation_repeatedParticipation_expectedBadRequest() throws Exception {
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/event/participation/").with(user(5, "PRIVILEGE_PARTICIPANT"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"eventId\": 2, \"fio\": \"Participant 2\", \"age\": 30, \"covidPassportNumber\": 987654321}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("user_event_participations")));
+    }
+
+    private static RequestPostProcessor user(int id, String privilege) {
+
+        return request -> {
+            UserSecurityDetails user = new UserSecurityDetails(id, "user" + id + "@example.com", privilege,
+                    AuthorityUtils.createAuthorityList(privilege));
+            UsernamePasswordAuthenticationToken authentication =
+                    new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+
+            SecurityContextHolder.getContext().setAuthentication(authentication);
+            request.setUserPrincipal(authentication);
+
+            return request;
+        };
+    }
+
+}
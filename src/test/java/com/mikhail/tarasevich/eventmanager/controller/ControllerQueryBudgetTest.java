@@ -0,0 +1,491 @@
+package com.mikhail.tarasevich.eventmanager.controller;
+
+import com.mikhail.tarasevich.eventmanager.config.QueryBudget;
+import com.mikhail.tarasevich.eventmanager.config.SpringTestConfig;
+import com.mikhail.tarasevich.eventmanager.security.UserSecurityDetails;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs every endpoint through the real services, mappers and repositories on the test database and keeps
+ * the number of statements of each request within its {@link QueryBudget}. Budgets do not depend on the
+ * number of rows, so a mapper or ownership check that queries per row fails here. Budgets of inserts include
+ * the sequence call, which is made only when the ids allocated before are used up.
+ */
+@SpringBootTest(classes = SpringTestConfig.class)
+@Sql(scripts = {"classpath:sql/schema.sql", "classpath:sql/data.sql"},
+        executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class ControllerQueryBudgetTest {
+
+    private static final String ADMIN = "PRIVILEGE_APP_ADMIN";
+
+    private static final String MANAGER = "PRIVILEGE_EVENT_CREATOR";
+
+    private static final String PARTICIPANT = "PRIVILEGE_PARTICIPANT";
+
+    @Autowired
+    private AuthController authController;
+
+    @Autowired
+    private ContractController contractController;
+
+    @Autowired
+    private EventController eventController;
+
+    @Autowired
+    private UserController userController;
+
+    @Autowired
+    private UserEventParticipationController uepController;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setup() {
+
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(authController, contractController, eventController, userController, uepController)
+                .setControllerAdvice(GlobalExceptionHandler.class)
+                .build();
+    }
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Nested
+    class Auth {
+
+        @Test
+        @QueryBudget(6)
+        void registerManager() throws Exception {
+
+            mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/auth/registration/manager")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"email\": \"new@example.com\", \"password\": \"1111\", \"confirmPassword\": \"1111\"}"))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @QueryBudget(6)
+        void registerParticipant() throws Exception {
+
+            mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/auth/registration/participant")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"email\": \"new@example.com\", \"password\": \"1111\", \"confirmPassword\": \"1111\"}"))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @QueryBudget(2)
+        void login() throws Exception {
+
+            mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/auth/login")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"email\": \"manager1@example.com\", \"password\": \"1111\"}"))
+                    .andExpect(status().isOk());
+        }
+
+    }
+
+    @Nested
+    class Contract {
+
+        @Test
+        @QueryBudget(1)
+        void showPendingContracts() throws Exception {
+
+            mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/contract/pending").with(user(1, ADMIN)))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @QueryBudget(1)
+        void showRejectedContracts() throws Exception {
+
+            mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/contract/rejected").with(user(1, ADMIN)))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @QueryBudget(1)
+        void showAcceptedContracts() throws Exception {
+
+            mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/contract/accepted").with(user(1, ADMIN)))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @QueryBudget(1)
+        void exportAcceptedContracts() throws Exception {
+
+            performAsync(MockMvcRequestBuilders.get("/api/v1/contract/accepted/export").with(user(1, ADMIN)));
+        }
+
+        @Test
+        @QueryBudget(3)
+        void createContract() throws Exception {
+
+            mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/contract/").with(user(3, MANAGER)))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @QueryBudget(1)
+        void hasManagerAcceptedContract() throws Exception {
+
+            mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/contract/manager/valid").with(user(4, MANAGER)))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @QueryBudget(2)
+        void acceptContract() throws Exception {
+
+            mockMvc.perform(MockMvcRequestBuilders.patch("/api/v1/contract/accept/{id}", 1).with(user(1, ADMIN)))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @QueryBudget(2)
+        void rejectContract() throws Exception {
+
+            mockMvc.perform(MockMvcRequestBuilders.patch("/api/v1/contract/reject/{id}", 1).with(user(1, ADMIN)))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @QueryBudget(2)
+        void deleteContract() throws Exception {
+
+            mockMvc.perform(MockMvcRequestBuilders.delete("/api/v1/contract/{id}", 1).with(user(1, ADMIN)))
+                    .andExpect(status().isOk());
+        }
+
+    }
+
+    @Nested
+    class Event {
+
+        @Test
+        @QueryBudget(1)
+        void showManagerEvents() throws Exception {
+
+            mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/event/").with(user(2, MANAGER)))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @QueryBudget(1)
+        void showCatalog() throws Exception {
+
+            mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/event/catalog")
+                            .param("minPrice", "100")
+                            .param("sort", "PRICE_ASC")
+                            .param("after", "1")
+                            .param("afterPrice", "100"))
+                    .andExpect(status().isOk());
+        }
+
+        // the event and its owner are read once, the repeated request is served from the near-cache
+        @Test
+        @QueryBudget(2)
+        void showEvent() throws Exception {
+
+            mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/event/{id}", 2))
+                    .andExpect(status().isOk());
+            mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/event/{id}", 2))
+                    .andExpect(status().isOk());
+        }
+
+        // events are found in the search index, only the found ones are read from the DB
+        @Test
+        @QueryBudget(1)
+        void searchEvents() throws Exception {
+
+            mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/event/search").with(user(5, PARTICIPANT))
+                            .param("query", "description event"))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @QueryBudget(4)
+        void createEvent() throws Exception {
+
+            mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/event/").with(user(4, MANAGER))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"name\": \"Concert\", \"description\": \"Music concert\", \"price\": 100}"))
+                    .andExpect(status().isOk());
+        }
+
+        // user and contract checks, then per chunk of 50 rows the name lookup, the sequence call and the batch
+        @Test
+        @QueryBudget(11)
+        void importEvents() throws Exception {
+
+            String csv = IntStream.rangeClosed(1, 120)
+                    .mapToObj(i -> "Imported " + i + ",Description " + i + "," + i)
+                    .collect(Collectors.joining("\n", "name,description,price\n", "\n"));
+
+            mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/event/import").with(user(4, MANAGER))
+                            .contentType("text/csv")
+                            .content(csv))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @QueryBudget(3)
+        void deleteEvent() throws Exception {
+
+            mockMvc.perform(MockMvcRequestBuilders.delete("/api/v1/event/manager").with(user(2, MANAGER))
+                            .param("id", "1"))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @QueryBudget(2)
+        void deleteEventByAdmin() throws Exception {
+
+            mockMvc.perform(MockMvcRequestBuilders.delete("/api/v1/event/admin").with(user(1, ADMIN))
+                            .param("id", "2"))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @QueryBudget(2)
+        void deleteEventsByAdmin() throws Exception {
+
+            mockMvc.perform(MockMvcRequestBuilders.delete("/api/v1/event/admin/batch").with(user(1, ADMIN))
+                            .param("ids", "1,2,3,4,5"))
+                    .andExpect(status().isOk());
+        }
+
+    }
+
+    @Nested
+    class User {
+
+        @Test
+        @QueryBudget(1)
+        void showUser() throws Exception {
+
+            mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/user/").with(user(5, PARTICIPANT)))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @QueryBudget(1)
+        void showAdmins() throws Exception {
+
+            mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/user/admins").with(user(1, ADMIN)))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @QueryBudget(1)
+        void showManagers() throws Exception {
+
+            mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/user/managers").with(user(1, ADMIN)))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @QueryBudget(1)
+        void showParticipants() throws Exception {
+
+            mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/user/participants").with(user(1, ADMIN)))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @QueryBudget(1)
+        void exportParticipants() throws Exception {
+
+            performAsync(MockMvcRequestBuilders.get("/api/v1/user/participants/export").with(user(1, ADMIN)));
+        }
+
+        @Test
+        @QueryBudget(6)
+        void deleteUser() throws Exception {
+
+            mockMvc.perform(MockMvcRequestBuilders.delete("/api/v1/user/").with(user(1, ADMIN))
+                            .param("id", "2"))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @QueryBudget(6)
+        void deleteUsers() throws Exception {
+
+            mockMvc.perform(MockMvcRequestBuilders.delete("/api/v1/user/batch").with(user(1, ADMIN))
+                            .param("ids", "2,3,4,5,6,7,8,9"))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @QueryBudget(2)
+        void refreshRolePrivileges() throws Exception {
+
+            mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/user/roles/refresh").with(user(1, ADMIN)))
+                    .andExpect(status().isOk());
+        }
+
+    }
+
+    @Nested
+    class UserEventParticipation {
+
+        @Test
+        @QueryBudget(2)
+        void showPendingParticipations() throws Exception {
+
+            mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/event/participation/pending").with(user(3, MANAGER))
+                            .param("eventId", "2"))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @QueryBudget(2)
+        void showRejectedParticipations() throws Exception {
+
+            mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/event/participation/rejected").with(user(4, MANAGER))
+                            .param("eventId", "3"))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @QueryBudget(2)
+        void showAcceptedParticipations() throws Exception {
+
+            mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/event/participation/accepted").with(user(2, MANAGER))
+                            .param("eventId", "4"))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @QueryBudget(1)
+        void showParticipantParticipations() throws Exception {
+
+            mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/event/participation/").with(user(5, PARTICIPANT)))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @QueryBudget(4)
+        void createParticipation() throws Exception {
+
+            mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/event/participation/").with(user(6, PARTICIPANT))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"eventId\": 2, \"fio\": \"Ivanov Ivan Ivanovich\", \"age\": 22, \"covidPassportNumber\": 11111111}"))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @QueryBudget(2)
+        void acceptParticipation() throws Exception {
+
+            mockMvc.perform(MockMvcRequestBuilders.patch("/api/v1/event/participation/accept/{id}", 1)
+                            .with(user(3, MANAGER)))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @QueryBudget(1)
+        void rejectParticipation() throws Exception {
+
+            mockMvc.perform(MockMvcRequestBuilders.patch("/api/v1/event/participation/reject/{id}", 1)
+                            .with(user(3, MANAGER)))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @QueryBudget(2)
+        void changeParticipationsStatusByIds() throws Exception {
+
+            mockMvc.perform(MockMvcRequestBuilders.patch("/api/v1/event/participation/status").with(user(3, MANAGER))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"ids\": [1, 2, 3, 4, 5, 6, 7], \"status\": \"ACCEPTED\"}"))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @QueryBudget(4)
+        void changeParticipationsStatusByEvent() throws Exception {
+
+            mockMvc.perform(MockMvcRequestBuilders.patch("/api/v1/event/participation/status").with(user(3, MANAGER))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"eventId\": 2, \"status\": \"REJECTED\"}"))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @QueryBudget(3)
+        void deleteParticipation() throws Exception {
+
+            mockMvc.perform(MockMvcRequestBuilders.delete("/api/v1/event/participation/participant")
+                            .with(user(5, PARTICIPANT))
+                            .param("id", "1"))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @QueryBudget(3)
+        void deleteParticipationByAdmin() throws Exception {
+
+            mockMvc.perform(MockMvcRequestBuilders.delete("/api/v1/event/participation/admin").with(user(1, ADMIN))
+                            .param("id", "1"))
+                    .andExpect(status().isOk());
+        }
+
+    }
+
+    private void performAsync(MockHttpServletRequestBuilder builder) throws Exception {
+
+        MvcResult result = mockMvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+    }
+
+    // authenticates the request principal and the security context, the controllers check @PreAuthorize
+    private static RequestPostProcessor user(int id, String privilege) {
+
+        return request -> {
+            UserSecurityDetails user = new UserSecurityDetails(id, "user" + id + "@example.com", privilege,
+                    AuthorityUtils.createAuthorityList(privilege));
+            UsernamePasswordAuthenticationToken authentication =
+                    new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+
+            SecurityContextHolder.getContext().setAuthentication(authentication);
+            request.setUserPrincipal(authentication);
+
+            return request;
+        };
+    }
+
+}
@@ -1,28 +1,46 @@
 package com.mikhail.tarasevich.eventmanager.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mikhail.tarasevich.eventmanager.dto.EventCatalogRequest;
+import com.mikhail.tarasevich.eventmanager.dto.EventImportError;
+import com.mikhail.tarasevich.eventmanager.dto.EventImportResponse;
 import com.mikhail.tarasevich.eventmanager.dto.EventRequest;
 import com.mikhail.tarasevich.eventmanager.dto.EventResponse;
+import com.mikhail.tarasevich.eventmanager.dto.PageResponse;
+import com.mikhail.tarasevich.eventmanager.dto.PublicEventResponse;
+import com.mikhail.tarasevich.eventmanager.security.UserSecurityDetails;
 import com.mikhail.tarasevich.eventmanager.service.EventService;
+import com.mikhail.tarasevich.eventmanager.service.IdempotencyService;
+import com.mikhail.tarasevich.eventmanager.util.EventCatalogSort;
+import com.mikhail.tarasevich.eventmanager.util.EventImportReader;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Supplier;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,6 +52,12 @@ class EventControllerTest {
     @Mock
     private EventService eventService;
 
+    @Mock
+    private IdempotencyService idempotencyService;
+
+    @Spy
+    private ObjectMapper objectMapper;
+
     private MockMvc mockMvc;
 
     @BeforeEach
@@ -50,6 +74,7 @@ class EventControllerTest {
     void showAllMangerEvents_returnsListOfEvents() throws Exception {
 
         String userName = "testUser";
+        int userId = 1;
 
         EventResponse event1 = EventResponse.builder()
                 .withId(1)
@@ -62,21 +87,134 @@ class EventControllerTest {
 
         List<EventResponse> events = List.of(event1, event2);
 
-        when(eventService.findAllMangerEvents(userName)).thenReturn(events);
+        when(eventService.findAllMangerEvents(userId, 0, 50)).thenReturn(PageResponse.<EventResponse>builder().withContent(events).build());
 
         mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/event/")
-                        .principal(new UsernamePasswordAuthenticationToken(userName, "")))
+                        .principal(principal(userId, userName)))
                 .andExpect(status().isOk())
-                .andExpect(content().json("[{\"id\":1,\"name\":\"Event 1\"},{\"id\":2,\"name\":\"Event 2\"}]"));
+                .andExpect(content().json("{\"content\":[{\"id\":1,\"name\":\"Event 1\"},{\"id\":2,\"name\":\"Event 2\"}]}"));
 
-        verify(eventService, times(1)).findAllMangerEvents(userName);
+        verify(eventService, times(1)).findAllMangerEvents(userId, 0, 50);
         verifyNoMoreInteractions(eventService);
     }
 
+    @Test
+    @WithMockUser(authorities = "PRIVILEGE_EVENT_CREATOR")
+    void showAllMangerEvents_afterAndLimitParams_returnsPageWithNextCursor() throws Exception {
+
+        String userName = "testUser";
+        int userId = 1;
+
+        EventResponse event = EventResponse.builder()
+                .withId(4)
+                .withName("Event 4")
+                .build();
+
+        when(eventService.findAllMangerEvents(userId, 1, 1)).thenReturn(PageResponse.<EventResponse>builder()
+                .withContent(List.of(event))
+                .withNextCursor(4)
+                .build());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/event/")
+                        .param("after", "1")
+                        .param("limit", "1")
+                        .principal(principal(userId, userName)))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"content\":[{\"id\":4,\"name\":\"Event 4\"}],\"nextCursor\":4}"));
+
+        verify(eventService, times(1)).findAllMangerEvents(userId, 1, 1);
+        verifyNoMoreInteractions(eventService);
+    }
+
+    @Test
+    @WithMockUser(authorities = "PRIVILEGE_PARTICIPANT")
+    void searchEvents_queryParam_returnsRankedPage() throws Exception {
+
+        EventResponse event = EventResponse.builder()
+                .withId(3)
+                .withName("Jazz concert")
+                .build();
+
+        when(eventService.searchEvents("jazz concert", 20, 10)).thenReturn(PageResponse.<EventResponse>builder()
+                .withContent(List.of(event))
+                .withNextCursor(30)
+                .build());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/event/search")
+                        .param("query", "jazz concert")
+                        .param("after", "20")
+                        .param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"content\":[{\"id\":3,\"name\":\"Jazz concert\"}],\"nextCursor\":30}"));
+
+        verify(eventService, times(1)).searchEvents("jazz concert", 20, 10);
+        verifyNoMoreInteractions(eventService);
+    }
+
+    @Test
+    void showCatalog_filterParams_returnsPageFromService() throws Exception {
+
+        PublicEventResponse event = PublicEventResponse.builder()
+                .withId(3)
+                .withOwnerId(2)
+                .withName("Event 3")
+                .withPrice(150)
+                .build();
+
+        EventCatalogRequest expectedRequest = EventCatalogRequest.builder()
+                .withMinPrice(100)
+                .withMaxPrice(500)
+                .withNamePrefix("Event")
+                .withSort(EventCatalogSort.PRICE_ASC)
+                .withAfter(1)
+                .withAfterPrice(100)
+                .withLimit(1)
+                .build();
+
+        when(eventService.findCatalogEvents(expectedRequest)).thenReturn(PageResponse.<PublicEventResponse>builder()
+                .withContent(List.of(event))
+                .withNextCursor(3)
+                .build());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/event/catalog")
+                        .param("minPrice", "100")
+                        .param("maxPrice", "500")
+                        .param("namePrefix", "Event")
+                        .param("sort", "PRICE_ASC")
+                        .param("after", "1")
+                        .param("afterPrice", "100")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"content\":[{\"id\":3,\"ownerId\":2,\"name\":\"Event 3\",\"price\":150}],\"nextCursor\":3}"))
+                .andExpect(jsonPath("$.content[0].user").doesNotExist());
+
+        verify(eventService, times(1)).findCatalogEvents(expectedRequest);
+        verifyNoMoreInteractions(eventService);
+    }
+
+    @Test
+    void showEvent_existingEvent_returnsEvent() throws Exception {
+
+        when(eventService.findEventById(3)).thenReturn(PublicEventResponse.builder()
+                .withId(3)
+                .withOwnerId(2)
+                .withName("Event 3")
+                .withPrice(150)
+                .build());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/event/{id}", 3))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"id\":3,\"ownerId\":2,\"name\":\"Event 3\",\"price\":150}"))
+                .andExpect(jsonPath("$.user").doesNotExist());
+
+        verify(eventService, times(1)).findEventById(3);
+    }
+
     @Test
     @WithMockUser(authorities = "PRIVILEGE_EVENT_CREATOR")
     void createNewEvent_returnsCreatedEvent() throws Exception {
         String userName = "testUser";
+        int userId = 1;
 
         EventRequest eventRequest = EventRequest.builder()
                 .withName("New Event")
@@ -91,16 +229,18 @@ class EventControllerTest {
                 .withPrice(100)
                 .build();
 
-        when(eventService.createNewEvent(userName, eventRequest)).thenReturn(createdEvent);
+        when(eventService.createNewEvent(userId, eventRequest)).thenReturn(createdEvent);
+        when(idempotencyService.execute(eq(userId), isNull(), eq("POST /api/v1/event/"), eq(eventRequest),
+                eq(EventResponse.class), any())).thenAnswer(invocation -> invocation.<Supplier<EventResponse>>getArgument(5).get());
 
         mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/event/")
-                        .principal(new UsernamePasswordAuthenticationToken(userName, ""))
+                        .principal(principal(userId, userName))
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{\"name\":\"New Event\",\"description\":\"New Event\",\"price\":100}"))
                 .andExpect(status().isOk())
                 .andExpect(content().json("{\"id\":1,\"name\":\"New Event\",\"description\":\"New Event\",\"price\":100}"));
 
-        verify(eventService, times(1)).createNewEvent(userName, eventRequest);
+        verify(eventService, times(1)).createNewEvent(userId, eventRequest);
         verifyNoMoreInteractions(eventService);
     }
 
@@ -108,15 +248,16 @@ class EventControllerTest {
     @WithMockUser(authorities = "PRIVILEGE_EVENT_CREATOR")
     void deleteEvent_validEventId_returnsOk() throws Exception {
         String userName = "testUser";
+        int userId = 1;
         int eventId = 1;
 
         mockMvc.perform(MockMvcRequestBuilders.delete("/api/v1/event/manager")
-                        .principal(new UsernamePasswordAuthenticationToken(userName, ""))
+                        .principal(principal(userId, userName))
                         .param("id", String.valueOf(eventId)))
                 .andExpect(status().isOk())
                 .andExpect(content().string("Event with id = " + eventId + " has been deleted"));
 
-        verify(eventService, times(1)).deleteEventById(userName, eventId);
+        verify(eventService, times(1)).deleteEventById(userId, eventId);
         verifyNoMoreInteractions(eventService);
     }
 
@@ -134,4 +275,69 @@ class EventControllerTest {
         verifyNoMoreInteractions(eventService);
     }
 
+    @Test
+    @WithMockUser(authorities = "PRIVILEGE_APP_ADMIN")
+    void deleteEventsByAdmin_severalEventIds_returnsOk() throws Exception {
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/v1/event/admin/batch")
+                        .param("ids", "1,4,5"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("Events with ids = [1, 4, 5] have been deleted by Admin"));
+
+        verify(eventService, times(1)).deleteEventsByIdsForAdmin(List.of(1, 4, 5));
+        verifyNoMoreInteractions(eventService);
+    }
+
+    @Test
+    @WithMockUser(authorities = "PRIVILEGE_EVENT_CREATOR")
+    void importEvents_csvBody_rowsPassedToServiceAndReportReturned() throws Exception {
+
+        String userName = "manager@example.com";
+        int userId = 2;
+
+        when(eventService.importEvents(eq(userId), any())).thenAnswer(invocation -> {
+            Iterator<EventImportReader.Row> rows = invocation.getArgument(1);
+            EventImportReader.Row first = rows.next();
+            EventImportReader.Row second = rows.next();
+
+            return EventImportResponse.builder()
+                    .withImported(rows.hasNext() ? -1 : 1)
+                    .withErrors(List.of(new EventImportError(second.getLine(), second.getError()),
+                            new EventImportError(first.getLine(), first.getRequest().getName())))
+                    .build();
+        });
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/event/import")
+                        .contentType("text/csv;charset=UTF-8")
+                        .content("name,description,price\nConcert,Music concert,100\nTalk,Talk show,free\n")
+                        .principal(principal(userId, userName)))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"imported\": 1, \"errors\": [" +
+                        "{\"line\": 3, \"message\": \"price - Event's price should be a number;\"}, " +
+                        "{\"line\": 2, \"message\": \"Concert\"}]}"));
+
+        verify(eventService, times(1)).importEvents(eq(userId), any());
+        verifyNoMoreInteractions(eventService);
+    }
+
+    @Test
+    @WithMockUser(authorities = "PRIVILEGE_EVENT_CREATOR")
+    void importEvents_jsonBody_unsupportedMediaType() throws Exception {
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/event/import")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]")
+                        .principal(principal(2, "manager@example.com")))
+                .andExpect(status().isUnsupportedMediaType());
+
+        verifyNoMoreInteractions(eventService);
+    }
+
+    private static UsernamePasswordAuthenticationToken principal(int id, String email) {
+
+        UserSecurityDetails userDetails = new UserSecurityDetails(id, email, null, AuthorityUtils.NO_AUTHORITIES);
+
+        return new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+    }
+
 }
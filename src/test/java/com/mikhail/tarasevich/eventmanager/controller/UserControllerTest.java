@@ -1,28 +1,40 @@
 package com.mikhail.tarasevich.eventmanager.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mikhail.tarasevich.eventmanager.dto.PageResponse;
 import com.mikhail.tarasevich.eventmanager.dto.UserResponse;
+import com.mikhail.tarasevich.eventmanager.security.RolePrivilegeRegistry;
+import com.mikhail.tarasevich.eventmanager.security.UserSecurityDetails;
 import com.mikhail.tarasevich.eventmanager.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,6 +46,12 @@ class UserControllerTest {
     @Mock
     private UserService userService;
 
+    @Mock
+    private RolePrivilegeRegistry rolePrivilegeRegistry;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     private MockMvc mockMvc;
 
     @BeforeEach
@@ -57,14 +75,14 @@ class UserControllerTest {
                 .withEmail(userEmail)
                 .build();
 
-        when(userService.findUserByEmail(userEmail)).thenReturn(userResponse);
+        when(userService.findUserById(id)).thenReturn(userResponse);
 
         mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/user/")
-                        .principal(new UsernamePasswordAuthenticationToken(userEmail, "")))
+                        .principal(principal(id, userEmail)))
                 .andExpect(status().isOk())
                 .andExpect(content().json("{\"id\":1,\"email\":\"test@example.com\"}"));
 
-        verify(userService, times(1)).findUserByEmail(userEmail);
+        verify(userService, times(1)).findUserById(id);
         verifyNoMoreInteractions(userService);
     }
 
@@ -76,13 +94,13 @@ class UserControllerTest {
                 UserResponse.builder().withId(1).withEmail("admin1@example.com").build(),
                 UserResponse.builder().withId(2).withEmail("admin2@example.com").build()
         );
-        when(userService.findAdmins()).thenReturn(admins);
+        when(userService.findAdmins(0, 50)).thenReturn(PageResponse.<UserResponse>builder().withContent(admins).build());
 
         mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/user/admins"))
                 .andExpect(status().isOk())
-                .andExpect(content().json("[{\"id\":1,\"email\":\"admin1@example.com\"},{\"id\":2,\"email\":\"admin2@example.com\"}]"));
+                .andExpect(content().json("{\"content\":[{\"id\":1,\"email\":\"admin1@example.com\"},{\"id\":2,\"email\":\"admin2@example.com\"}]}"));
 
-        verify(userService, times(1)).findAdmins();
+        verify(userService, times(1)).findAdmins(0, 50);
         verifyNoMoreInteractions(userService);
     }
 
@@ -95,13 +113,13 @@ class UserControllerTest {
                 UserResponse.builder().withId(2).withEmail("manager2@example.com").build()
         );
 
-        when(userService.findManagers()).thenReturn(managers);
+        when(userService.findManagers(0, 50)).thenReturn(PageResponse.<UserResponse>builder().withContent(managers).build());
 
         mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/user/managers"))
                 .andExpect(status().isOk())
-                .andExpect(content().json("[{\"id\":1,\"email\":\"manager1@example.com\"},{\"id\":2,\"email\":\"manager2@example.com\"}]"));
+                .andExpect(content().json("{\"content\":[{\"id\":1,\"email\":\"manager1@example.com\"},{\"id\":2,\"email\":\"manager2@example.com\"}]}"));
 
-        verify(userService, times(1)).findManagers();
+        verify(userService, times(1)).findManagers(0, 50);
         verifyNoMoreInteractions(userService);
     }
 
@@ -114,13 +132,13 @@ class UserControllerTest {
                 UserResponse.builder().withId(2).withEmail("participant2@example.com").build()
         );
 
-        when(userService.findParticipants()).thenReturn(participants);
+        when(userService.findParticipants(0, 50)).thenReturn(PageResponse.<UserResponse>builder().withContent(participants).build());
 
         mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/user/participants"))
                 .andExpect(status().isOk())
-                .andExpect(content().json("[{\"id\":1,\"email\":\"participant1@example.com\"},{\"id\":2,\"email\":\"participant2@example.com\"}]"));
+                .andExpect(content().json("{\"content\":[{\"id\":1,\"email\":\"participant1@example.com\"},{\"id\":2,\"email\":\"participant2@example.com\"}]}"));
 
-        verify(userService, times(1)).findParticipants();
+        verify(userService, times(1)).findParticipants(0, 50);
         verifyNoMoreInteractions(userService);
     }
 
@@ -140,4 +158,58 @@ class UserControllerTest {
         verifyNoMoreInteractions(userService);
     }
 
+    @Test
+    @WithMockUser(authorities = "PRIVILEGE_APP_ADMIN")
+    void refreshRolePrivileges_authenticatedAdmin_returnsOkResponse() throws Exception {
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/user/roles/refresh"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("Roles and privileges have been reloaded"));
+
+        verify(rolePrivilegeRegistry, times(1)).refresh();
+        verifyNoMoreInteractions(userService, rolePrivilegeRegistry);
+    }
+
+    @Test
+    @WithMockUser(authorities = "PRIVILEGE_APP_ADMIN")
+    void exportAllParticipants_streamsJsonArray() throws Exception {
+
+        doAnswer(invocation -> {
+            Consumer<UserResponse> consumer = invocation.getArgument(0);
+            consumer.accept(UserResponse.builder().withId(5).withEmail("participant1@example.com").build());
+            return null;
+        }).when(userService).exportParticipants(any());
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/user/participants/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"id\":5,\"email\":\"participant1@example.com\"}]"));
+
+        verify(userService, times(1)).exportParticipants(any());
+        verifyNoMoreInteractions(userService);
+    }
+
+    @Test
+    @WithMockUser(authorities = "PRIVILEGE_APP_ADMIN")
+    void deleteUsers_severalUserIds_returnsOk() throws Exception {
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/v1/user/batch")
+                        .param("ids", "7,8,9"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("Users with ids = [7, 8, 9] have been deleted"));
+
+        verify(userService, times(1)).deleteUsersByIds(List.of(7, 8, 9));
+        verifyNoMoreInteractions(userService);
+    }
+
+    private static UsernamePasswordAuthenticationToken principal(int id, String email) {
+
+        UserSecurityDetails userDetails = new UserSecurityDetails(id, email, null, AuthorityUtils.NO_AUTHORITIES);
+
+        return new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+    }
+
 }
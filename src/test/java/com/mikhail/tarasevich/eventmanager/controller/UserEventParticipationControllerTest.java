@@ -1,9 +1,18 @@
 package com.mikhail.tarasevich.eventmanager.controller;
 
+import com.mikhail.tarasevich.eventmanager.dto.PageResponse;
 import com.mikhail.tarasevich.eventmanager.dto.UserEventParticipationRequest;
 import com.mikhail.tarasevich.eventmanager.dto.UserEventParticipationResponse;
+import com.mikhail.tarasevich.eventmanager.dto.UserEventParticipationStatusRequest;
+import com.mikhail.tarasevich.eventmanager.dto.UserEventParticipationStatusResponse;
+import com.mikhail.tarasevich.eventmanager.security.UserSecurityDetails;
+import com.mikhail.tarasevich.eventmanager.service.IdempotencyService;
 import com.mikhail.tarasevich.eventmanager.service.UserEventParticipationService;
+import com.mikhail.tarasevich.eventmanager.service.exception.EventSoldOutException;
+import com.mikhail.tarasevich.eventmanager.service.exception.IdempotencyKeyConflictException;
+import com.mikhail.tarasevich.eventmanager.service.exception.StatusConflictException;
 import com.mikhail.tarasevich.eventmanager.util.Status;
+import com.mikhail.tarasevich.eventmanager.util.StatusChangeOutcome;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,18 +21,27 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,6 +53,9 @@ class UserEventParticipationControllerTest {
     @Mock
     private UserEventParticipationService uepService;
 
+    @Mock
+    private IdempotencyService idempotencyService;
+
     private MockMvc mockMvc;
 
     @BeforeEach
@@ -52,6 +73,7 @@ class UserEventParticipationControllerTest {
 
         int eventId = 1;
         String userName = "manager@example.com";
+        int userId = 1;
 
         UserEventParticipationResponse uepResponse1 = UserEventParticipationResponse.builder()
                 .withId(1)
@@ -67,15 +89,15 @@ class UserEventParticipationControllerTest {
 
         List<UserEventParticipationResponse> responses = List.of(uepResponse1, uepResponse2);
 
-        when(uepService.findPendingUserEventParticipationsByEventId(userName, eventId)).thenReturn(responses);
+        when(uepService.findPendingUserEventParticipationsByEventId(userId, eventId, 0, 50)).thenReturn(PageResponse.<UserEventParticipationResponse>builder().withContent(responses).build());
 
         mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/event/participation/pending")
                         .param("eventId", "1")
-                .principal(new UsernamePasswordAuthenticationToken(userName, "")))
+                .principal(principal(userId, userName)))
                 .andExpect(status().isOk())
-                .andExpect(content().json("[{\"id\":1,\"fio\":\"Ivanov\",\"status\": \"PENDING\"}, {\"id\":2,\"fio\":\"Petrov\",\"status\": \"PENDING\"}]"));
+                .andExpect(content().json("{\"content\":[{\"id\":1,\"fio\":\"Ivanov\",\"status\": \"PENDING\"}, {\"id\":2,\"fio\":\"Petrov\",\"status\": \"PENDING\"}]}"));
 
-        verify(uepService, times(1)).findPendingUserEventParticipationsByEventId(userName, eventId);
+        verify(uepService, times(1)).findPendingUserEventParticipationsByEventId(userId, eventId, 0, 50);
         verifyNoMoreInteractions(uepService);
     }
 
@@ -85,6 +107,7 @@ class UserEventParticipationControllerTest {
 
         int eventId = 1;
         String userName = "manager@example.com";
+        int userId = 1;
 
         UserEventParticipationResponse uepResponse1 = UserEventParticipationResponse.builder()
                 .withId(1)
@@ -100,15 +123,15 @@ class UserEventParticipationControllerTest {
 
         List<UserEventParticipationResponse> responses = List.of(uepResponse1, uepResponse2);
 
-        when(uepService.findRejectedUserEventParticipationsByEventId(userName, eventId)).thenReturn(responses);
+        when(uepService.findRejectedUserEventParticipationsByEventId(userId, eventId, 0, 50)).thenReturn(PageResponse.<UserEventParticipationResponse>builder().withContent(responses).build());
 
         mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/event/participation/rejected")
                         .param("eventId", "1")
-                .principal(new UsernamePasswordAuthenticationToken(userName, "")))
+                .principal(principal(userId, userName)))
                 .andExpect(status().isOk())
-                .andExpect(content().json("[{\"id\":1,\"fio\":\"Ivanov\",\"status\": \"REJECTED\"}, {\"id\":2,\"fio\":\"Petrov\",\"status\": \"REJECTED\"}]"));
+                .andExpect(content().json("{\"content\":[{\"id\":1,\"fio\":\"Ivanov\",\"status\": \"REJECTED\"}, {\"id\":2,\"fio\":\"Petrov\",\"status\": \"REJECTED\"}]}"));
 
-        verify(uepService, times(1)).findRejectedUserEventParticipationsByEventId(userName, eventId);
+        verify(uepService, times(1)).findRejectedUserEventParticipationsByEventId(userId, eventId, 0, 50);
         verifyNoMoreInteractions(uepService);
     }
 
@@ -118,6 +141,7 @@ class UserEventParticipationControllerTest {
 
         int eventId = 1;
         String userName = "manager@example.com";
+        int userId = 1;
 
         UserEventParticipationResponse uepResponse1 = UserEventParticipationResponse.builder()
                 .withId(1)
@@ -133,15 +157,15 @@ class UserEventParticipationControllerTest {
 
         List<UserEventParticipationResponse> responses = List.of(uepResponse1, uepResponse2);
 
-        when(uepService.findAcceptedUserEventParticipationsByEventId(userName, eventId)).thenReturn(responses);
+        when(uepService.findAcceptedUserEventParticipationsByEventId(userId, eventId, 0, 50)).thenReturn(PageResponse.<UserEventParticipationResponse>builder().withContent(responses).build());
 
         mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/event/participation/accepted")
                         .param("eventId", "1")
-                .principal(new UsernamePasswordAuthenticationToken(userName, "")))
+                .principal(principal(userId, userName)))
                 .andExpect(status().isOk())
-                .andExpect(content().json("[{\"id\":1,\"fio\":\"Ivanov\",\"status\": \"ACCEPTED\"}, {\"id\":2,\"fio\":\"Petrov\",\"status\": \"ACCEPTED\"}]"));
+                .andExpect(content().json("{\"content\":[{\"id\":1,\"fio\":\"Ivanov\",\"status\": \"ACCEPTED\"}, {\"id\":2,\"fio\":\"Petrov\",\"status\": \"ACCEPTED\"}]}"));
 
-        verify(uepService, times(1)).findAcceptedUserEventParticipationsByEventId(userName, eventId);
+        verify(uepService, times(1)).findAcceptedUserEventParticipationsByEventId(userId, eventId, 0, 50);
         verifyNoMoreInteractions(uepService);
     }
 
@@ -150,6 +174,7 @@ class UserEventParticipationControllerTest {
     void showAllUserEventParticipationsForParticipant_returnUserEventParticipationResponseList() throws Exception {
 
         String userName = "manager@example.com";
+        int userId = 1;
 
         UserEventParticipationResponse uepResponse1 = UserEventParticipationResponse.builder()
                 .withId(1)
@@ -165,14 +190,14 @@ class UserEventParticipationControllerTest {
 
         List<UserEventParticipationResponse> responses = List.of(uepResponse1, uepResponse2);
 
-        when(uepService.findAllUserEventParticipationsByUserEmail(userName)).thenReturn(responses);
+        when(uepService.findAllUserEventParticipationsByUserId(userId, 0, 50)).thenReturn(PageResponse.<UserEventParticipationResponse>builder().withContent(responses).build());
 
         mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/event/participation/")
-                .principal(new UsernamePasswordAuthenticationToken(userName, "")))
+                .principal(principal(userId, userName)))
                 .andExpect(status().isOk())
-                .andExpect(content().json("[{\"id\":1,\"fio\":\"Ivanov\",\"status\": \"REJECTED\"}, {\"id\":2,\"fio\":\"Petrov\",\"status\": \"ACCEPTED\"}]"));
+                .andExpect(content().json("{\"content\":[{\"id\":1,\"fio\":\"Ivanov\",\"status\": \"REJECTED\"}, {\"id\":2,\"fio\":\"Petrov\",\"status\": \"ACCEPTED\"}]}"));
 
-        verify(uepService, times(1)).findAllUserEventParticipationsByUserEmail(userName);
+        verify(uepService, times(1)).findAllUserEventParticipationsByUserId(userId, 0, 50);
         verifyNoMoreInteractions(uepService);
     }
 
@@ -181,6 +206,7 @@ class UserEventParticipationControllerTest {
     void createNewUserEventParticipation_returnUserEventParticipationResponse() throws Exception {
 
         String userName = "participant@example.com";
+        int userId = 1;
 
         UserEventParticipationRequest request = UserEventParticipationRequest.builder()
                 .withId(1)
@@ -198,16 +224,19 @@ class UserEventParticipationControllerTest {
                 .withStatus(Status.PENDING)
                 .build();
 
-        when(uepService.createUserEventParticipation(userName, request)).thenReturn(response);
+        when(uepService.createUserEventParticipation(userId, request)).thenReturn(response);
+        when(idempotencyService.execute(eq(userId), isNull(), eq("POST /api/v1/event/participation/"), eq(request),
+                eq(UserEventParticipationResponse.class), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<UserEventParticipationResponse>>getArgument(5).get());
 
         mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/event/participation/")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{ \"id\": 1, \"userId\": 1, \"eventId\": 1, \"status\": \"PENDING\", \"fio\": \"Ivanov Ivan Ivanovich\", \"age\": 22, \"covidPassportNumber\": 11111111 }")
-                        .principal(new UsernamePasswordAuthenticationToken(userName, "")))
+                        .principal(principal(userId, userName)))
                 .andExpect(status().isOk())
                 .andExpect(content().json("{\"id\": 1, \"fio\": \"Ivanov Ivan Ivanovich\", \"status\": \"PENDING\"}"));
 
-        verify(uepService, times(1)).createUserEventParticipation(userName, request);
+        verify(uepService, times(1)).createUserEventParticipation(userId, request);
         verifyNoMoreInteractions(uepService);
     }
 
@@ -216,14 +245,15 @@ class UserEventParticipationControllerTest {
     void acceptParticipationRequest_returnsAcceptedResponse() throws Exception {
 
         String userName = "creator@example.com";
+        int userId = 1;
         int requestId = 1;
 
         mockMvc.perform(MockMvcRequestBuilders.patch("/api/v1/event/participation/accept/{id}", requestId)
-                        .principal(new UsernamePasswordAuthenticationToken(userName, "")))
+                        .principal(principal(userId, userName)))
                 .andExpect(status().isOk())
                 .andExpect(content().string("Participation Request with id = " + requestId + " has been accepted"));
 
-        verify(uepService, times(1)).setUserEventParticipationsStatusAccepted(userName, requestId);
+        verify(uepService, times(1)).setUserEventParticipationsStatusAccepted(userId, requestId);
         verifyNoMoreInteractions(uepService);
     }
 
@@ -232,31 +262,87 @@ class UserEventParticipationControllerTest {
     void rejectParticipationRequest_returnsRejectedResponse() throws Exception {
 
         String userName = "creator@example.com";
+        int userId = 1;
         int requestId = 1;
 
         mockMvc.perform(MockMvcRequestBuilders.patch("/api/v1/event/participation/reject/{id}", requestId)
-                        .principal(new UsernamePasswordAuthenticationToken(userName, "")))
+                        .principal(principal(userId, userName)))
                 .andExpect(status().isOk())
                 .andExpect(content().string("Participation Request with id = " + requestId + " has been rejected"));
 
-        verify(uepService, times(1)).setUserEventParticipationsStatusRejected(userName, requestId);
+        verify(uepService, times(1)).setUserEventParticipationsStatusRejected(userId, requestId);
+        verifyNoMoreInteractions(uepService);
+    }
+
+    @Test
+    @WithMockUser(authorities = "PRIVILEGE_EVENT_CREATOR")
+    void rejectParticipationRequest_acceptedRequest_returnsConflict() throws Exception {
+
+        String userName = "creator@example.com";
+        int userId = 1;
+        int requestId = 1;
+
+        doThrow(new StatusConflictException("User event participation request with id = 1 is already ACCEPTED"))
+                .when(uepService).setUserEventParticipationsStatusRejected(userId, requestId);
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/api/v1/event/participation/reject/{id}", requestId)
+                        .principal(principal(userId, userName)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("User event participation request with id = 1 is already ACCEPTED"));
+    }
+
+    @Test
+    void createNewUserEventParticipation_idempotencyKeyOfAnotherRequest_returnsConflict() throws Exception {
+
+        String userName = "participant@example.com";
+        int userId = 1;
+
+        when(idempotencyService.execute(eq(userId), eq("retry-1"), eq("POST /api/v1/event/participation/"), any(),
+                eq(UserEventParticipationResponse.class), any()))
+                .thenThrow(new IdempotencyKeyConflictException("Idempotency key retry-1 has already been used for another request"));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/event/participation/")
+                        .header("Idempotency-Key", "retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{ \"eventId\": 1, \"fio\": \"Ivanov Ivan Ivanovich\", \"age\": 22, \"covidPassportNumber\": 11111111 }")
+                        .principal(principal(userId, userName)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("Idempotency key retry-1 has already been used for another request"));
+
         verifyNoMoreInteractions(uepService);
     }
 
+    @Test
+    void acceptParticipationRequest_soldOutEvent_returnsConflict() throws Exception {
+
+        String userName = "creator@example.com";
+        int userId = 1;
+        int requestId = 1;
+
+        doThrow(new EventSoldOutException("All 10 seats of the event with id = 2 are taken"))
+                .when(uepService).setUserEventParticipationsStatusAccepted(userId, requestId);
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/api/v1/event/participation/accept/{id}", requestId)
+                        .principal(principal(userId, userName)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("All 10 seats of the event with id = 2 are taken"));
+    }
+
     @Test
     @WithMockUser(authorities = "PRIVILEGE_PARTICIPANT")
     void deleteUserEventParticipation_returnsDeletedResponse() throws Exception {
 
         String userName = "participant@example.com";
+        int userId = 1;
         int requestId = 1;
 
         mockMvc.perform(MockMvcRequestBuilders.delete("/api/v1/event/participation/participant")
                         .param("id", String.valueOf(requestId))
-                        .principal(new UsernamePasswordAuthenticationToken(userName, "")))
+                        .principal(principal(userId, userName)))
                 .andExpect(status().isOk())
                 .andExpect(content().string("Participation request with id = " + requestId + " has been deleted"));
 
-        verify(uepService, times(1)).deleteUserEventParticipationsById(userName, requestId);
+        verify(uepService, times(1)).deleteUserEventParticipationsById(userId, requestId);
         verifyNoMoreInteractions(uepService);
     }
 
@@ -275,4 +361,44 @@ class UserEventParticipationControllerTest {
         verifyNoMoreInteractions(uepService);
     }
 
+    @Test
+    @WithMockUser(authorities = "PRIVILEGE_EVENT_CREATOR")
+    void changeParticipationRequestsStatus_inputIdsAndStatus_returnsOutcomePerId() throws Exception {
+
+        String userName = "creator@example.com";
+        int userId = 3;
+
+        UserEventParticipationStatusRequest request = UserEventParticipationStatusRequest.builder()
+                .withIds(List.of(1, 2))
+                .withStatus(Status.ACCEPTED)
+                .build();
+
+        Map<Integer, StatusChangeOutcome> outcomes = new LinkedHashMap<>();
+        outcomes.put(1, StatusChangeOutcome.UPDATED);
+        outcomes.put(2, StatusChangeOutcome.NOT_OWNED);
+
+        when(uepService.setUserEventParticipationsStatus(userId, request)).thenReturn(
+                UserEventParticipationStatusResponse.builder()
+                        .withStatus(Status.ACCEPTED)
+                        .withOutcomes(outcomes)
+                        .build());
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/api/v1/event/participation/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{ \"ids\": [1, 2], \"status\": \"ACCEPTED\" }")
+                        .principal(principal(userId, userName)))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"status\": \"ACCEPTED\", \"outcomes\": {\"1\": \"UPDATED\", \"2\": \"NOT_OWNED\"}}"));
+
+        verify(uepService, times(1)).setUserEventParticipationsStatus(userId, request);
+        verifyNoMoreInteractions(uepService);
+    }
+
+    private static UsernamePasswordAuthenticationToken principal(int id, String email) {
+
+        UserSecurityDetails userDetails = new UserSecurityDetails(id, email, null, AuthorityUtils.NO_AUTHORITIES);
+
+        return new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+    }
+
 }
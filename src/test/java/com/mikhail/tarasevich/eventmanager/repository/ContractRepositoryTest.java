@@ -1,19 +1,30 @@
 package com.mikhail.tarasevich.eventmanager.repository;
 
 import com.mikhail.tarasevich.eventmanager.config.SpringTestConfig;
+import com.mikhail.tarasevich.eventmanager.dto.ContractResponse;
 import com.mikhail.tarasevich.eventmanager.entity.Contract;
+import com.mikhail.tarasevich.eventmanager.repository.projection.ContractView;
+import com.mikhail.tarasevich.eventmanager.service.mapper.impl.ContractMapperImpl;
 import com.mikhail.tarasevich.eventmanager.util.Status;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.jdbc.JdbcTestUtils;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManagerFactory;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest(classes = SpringTestConfig.class)
@@ -22,6 +33,9 @@ class ContractRepositoryTest {
     @Autowired
     private ContractRepository contractRepository;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
@@ -49,26 +63,92 @@ class ContractRepositoryTest {
     }
 
     @Test
-    void findContractByStatusOrderById_inputStatus_expectedEntityList() {
+    void existsByUserIdAndStatus_inputUserIdAndStatus_expectedOnlyAcceptedContractFound() {
 
-        List<Contract> foundEntities = contractRepository.findContractByStatusOrderById(Status.PENDING);
+        assertTrue(contractRepository.existsByUserIdAndStatus(4, Status.ACCEPTED));
+        assertFalse(contractRepository.existsByUserIdAndStatus(2, Status.ACCEPTED));
+    }
+
+    @Test
+    void findContractViewsByStatusAndIdGreaterThan_inputStatus_expectedEntityList() {
+
+        List<ContractView> foundEntities = contractRepository.findContractViewsByStatusAndIdGreaterThan(Status.PENDING, 0,
+                PageRequest.of(0, 10));
 
         assertEquals(1, foundEntities.size());
         assertEquals(1, foundEntities.get(0).getId());
     }
 
+    @Test
+    @Transactional(readOnly = true)
+    void streamContractsByStatusOrderById_inputStatus_expectedEntitiesWithUsers() {
+
+        try (Stream<Contract> contracts = contractRepository.streamContractsByStatusOrderById(Status.ACCEPTED)) {
+            List<String> emails = contracts
+                    .map(contract -> contract.getUser().getEmail())
+                    .collect(Collectors.toList());
+
+            assertEquals(List.of("manager3@example.com"), emails);
+        }
+    }
+
     @Test
     @Sql(scripts = {"classpath:sql/schema.sql", "classpath:sql/data.sql"},
             executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
-    void deleteContractsByUserId_inputUserId_expectedEntitiesDeleted() {
+    void updateStatusByIdAndStatus_inputPendingContract_expectedStatusUpdated() {
+
+        assertEquals(1, contractRepository.updateStatusByIdAndStatus(1, Status.PENDING, Status.ACCEPTED));
+
+        assertEquals(1, JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "contracts",
+                "id = 1 AND status = 'ACCEPTED'"));
+    }
+
+    @Test
+    void updateStatusByIdAndStatus_inputDecidedContract_expectedNothingUpdated() {
+
+        assertEquals(0, contractRepository.updateStatusByIdAndStatus(2, Status.PENDING, Status.ACCEPTED));
 
         assertEquals(1, JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "contracts",
-                "user_id = 2"));
+                "id = 2 AND status = 'REJECTED'"));
+    }
 
-        contractRepository.deleteContractsByUserId(2);
+    @Test
+    @Sql(scripts = {"classpath:sql/schema.sql", "classpath:sql/data.sql"},
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    void deleteContractsByUserIdIn_inputUserIds_expectedEntitiesDeleted() {
+
+        assertEquals(2, JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "contracts",
+                "user_id IN (2, 3)"));
+
+        assertEquals(2, contractRepository.deleteContractsByUserIdIn(List.of(2, 3)));
 
         assertEquals(0, JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "contracts",
-                "user_id = 2"));
+                "user_id IN (2, 3)"));
+        assertEquals(1, JdbcTestUtils.countRowsInTable(jdbcTemplate, "contracts"));
+    }
+
+    @Test
+    void findContractViewsByStatusAndIdGreaterThan_mappedToResponses_expectedSingleQueryWithoutEntities() {
+
+        Statistics statistics = statistics();
+
+        List<ContractResponse> responses = contractRepository.findContractViewsByStatusAndIdGreaterThan(Status.PENDING, 0,
+                        PageRequest.of(0, 10)).stream()
+                .map(new ContractMapperImpl()::toResponse)
+                .collect(Collectors.toList());
+
+        assertEquals(1, responses.size());
+        assertEquals("manager1@example.com", responses.get(0).getUser().getEmail());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    private Statistics statistics() {
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        return statistics;
     }
 
 }
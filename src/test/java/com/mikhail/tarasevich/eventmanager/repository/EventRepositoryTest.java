@@ -1,15 +1,30 @@
 package com.mikhail.tarasevich.eventmanager.repository;
 
 import com.mikhail.tarasevich.eventmanager.config.SpringTestConfig;
+import com.mikhail.tarasevich.eventmanager.dto.EventResponse;
 import com.mikhail.tarasevich.eventmanager.entity.Event;
+import com.mikhail.tarasevich.eventmanager.repository.projection.EventCatalogView;
+import com.mikhail.tarasevich.eventmanager.repository.projection.EventView;
+import com.mikhail.tarasevich.eventmanager.service.mapper.impl.EventMapperImpl;
+import com.mikhail.tarasevich.eventmanager.util.EventCatalogSort;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.jdbc.JdbcTestUtils;
 
+import javax.persistence.EntityManagerFactory;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest(classes = SpringTestConfig.class)
 class EventRepositoryTest {
@@ -17,14 +32,147 @@ class EventRepositoryTest {
     @Autowired
     private EventRepository eventRepository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void findNamesByNameIn_inputNames_expectedOnlyExistingNames() {
+
+        assertEquals(List.of("Event 2"), eventRepository.findNamesByNameIn(List.of("Event 2", "Concert")));
+    }
+
     @Test
-    void findEventsByUserIdOrderById_inputUserId_expectedEventList() {
+    void findEventViewsByUserIdAndIdGreaterThan_inputUserId_expectedEventList() {
 
-        List<Event> foundEntities =
-                eventRepository.findEventsByUserIdOrderById(2);
+        List<EventView> foundEntities =
+                eventRepository.findEventViewsByUserIdAndIdGreaterThan(2, 0, PageRequest.of(0, 10));
 
         assertEquals(3, foundEntities.size());
-        assertEquals(List.of("Event 1", "Event 4", "Event 5"), foundEntities.stream().map(Event::getName).collect(Collectors.toList()));
+        assertEquals(List.of("Event 1", "Event 4", "Event 5"), foundEntities.stream().map(EventView::getName).collect(Collectors.toList()));
+    }
+
+    @Test
+    void findEventViewsByUserIdAndIdGreaterThan_inputCursorAndLimit_expectedNextEvents() {
+
+        List<EventView> foundEntities =
+                eventRepository.findEventViewsByUserIdAndIdGreaterThan(2, 1, PageRequest.of(0, 1));
+
+        assertEquals(List.of("Event 4"), foundEntities.stream().map(EventView::getName).collect(Collectors.toList()));
+    }
+
+    @Test
+    void existsByIdAndUserId_inputEventIdAndOwnerId_expectedTrue() {
+
+        assertTrue(eventRepository.existsByIdAndUserId(4, 2));
+    }
+
+    @Test
+    void existsByIdAndUserId_inputEventIdAndAnotherManagerId_expectedFalse() {
+
+        assertFalse(eventRepository.existsByIdAndUserId(2, 2));
+    }
+
+    @Test
+    void findEventViewsByUserIdAndIdGreaterThan_mappedToResponses_expectedSingleQueryWithoutEntities() {
+
+        Statistics statistics = statistics();
+
+        List<EventResponse> responses = eventRepository.findEventViewsByUserIdAndIdGreaterThan(2, 0, PageRequest.of(0, 10))
+                .stream()
+                .map(new EventMapperImpl()::toResponse)
+                .collect(Collectors.toList());
+
+        assertEquals(3, responses.size());
+        assertEquals("manager1@example.com", responses.get(0).getUser().getEmail());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void findEventViews_priceRangeSortedByPrice_expectedPagesInPriceOrder() {
+
+        Specification<Event> priceRange = EventSpecifications.priceAtLeast(100)
+                .and(EventSpecifications.priceAtMost(500));
+
+        List<EventCatalogView> firstPage = eventRepository.findEventViews(priceRange, EventCatalogSort.PRICE_ASC.getSort(), 2);
+        List<EventCatalogView> secondPage = eventRepository.findEventViews(priceRange.and(EventSpecifications.afterByPriceAsc(150, 3)),
+                EventCatalogSort.PRICE_ASC.getSort(), 2);
+
+        assertEquals(List.of(1, 3), firstPage.stream().map(EventCatalogView::getId).collect(Collectors.toList()));
+        assertEquals(List.of(2, 4), secondPage.stream().map(EventCatalogView::getId).collect(Collectors.toList()));
+        assertEquals(2, firstPage.get(0).getOwnerId());
+    }
+
+    @Test
+    void findEventViews_ownerSortedByPriceDesc_expectedOwnerEventsMostExpensiveFirst() {
+
+        List<EventCatalogView> foundEntities = eventRepository.findEventViews(EventSpecifications.ownedBy(2)
+                .and(EventSpecifications.afterByPriceDesc(950, 5)), EventCatalogSort.PRICE_DESC.getSort(), 10);
+
+        assertEquals(List.of(4, 1), foundEntities.stream().map(EventCatalogView::getId).collect(Collectors.toList()));
+        assertEquals(List.of(2, 2), foundEntities.stream().map(EventCatalogView::getOwnerId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void findEventViews_namePrefixWithWildcards_expectedWildcardsMatchedLiterally() {
+
+        assertEquals(5, eventRepository.findEventViews(EventSpecifications.nameStartsWith("Event "),
+                EventCatalogSort.NEWEST.getSort(), 10).size());
+        assertTrue(eventRepository.findEventViews(EventSpecifications.nameStartsWith("Event_"),
+                EventCatalogSort.NEWEST.getSort(), 10).isEmpty());
+        assertTrue(eventRepository.findEventViews(EventSpecifications.nameStartsWith("%"),
+                EventCatalogSort.NEWEST.getSort(), 10).isEmpty());
+    }
+
+    @Test
+    void findEventViews_noFilterNewestFirst_expectedSingleQueryWithoutEntities() {
+
+        Statistics statistics = statistics();
+
+        List<EventCatalogView> foundEntities = eventRepository.findEventViews(Specification.where(null),
+                EventCatalogSort.NEWEST.getSort(), 3);
+
+        assertEquals(List.of(5, 4, 3), foundEntities.stream().map(EventCatalogView::getId).collect(Collectors.toList()));
+        assertEquals(List.of(2, 2, 4), foundEntities.stream().map(EventCatalogView::getOwnerId).collect(Collectors.toList()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    @Sql(scripts = {"classpath:sql/schema.sql", "classpath:sql/data.sql"},
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    void deleteEventsByIdIn_inputIds_expectedEntitiesDeleted() {
+
+        jdbcTemplate.update("DELETE FROM user_event_participations");
+
+        assertEquals(2, eventRepository.deleteEventsByIdIn(List.of(1, 5)));
+
+        assertEquals(0, JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "events", "id IN (1, 5)"));
+        assertEquals(3, JdbcTestUtils.countRowsInTable(jdbcTemplate, "events"));
+    }
+
+    @Test
+    @Sql(scripts = {"classpath:sql/schema.sql", "classpath:sql/data.sql"},
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    void deleteEventsByUserIdIn_inputUserIds_expectedEntitiesDeleted() {
+
+        jdbcTemplate.update("DELETE FROM user_event_participations");
+
+        assertEquals(4, eventRepository.deleteEventsByUserIdIn(List.of(2, 3)));
+
+        assertEquals(0, JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "events", "user_id IN (2, 3)"));
+        assertEquals(1, JdbcTestUtils.countRowsInTable(jdbcTemplate, "events"));
+    }
+
+    private Statistics statistics() {
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        return statistics;
     }
 
 }
@@ -0,0 +1,158 @@
+package com.mikhail.tarasevich.eventmanager.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Applies the Flyway migrations to an empty H2 database and checks that every repository finder
+ * is answered from an index instead of a table scan.
+ */
+class FinderIndexTest {
+
+    private static EmbeddedDatabase dataSource;
+
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void migrate() {
+
+        dataSource = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+
+        Flyway.configure().dataSource(dataSource).load().migrate();
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @AfterAll
+    static void shutdown() {
+        dataSource.shutdown();
+    }
+
+    @Test
+    void migrate_emptyDatabase_expectedAllVersionsApplied() {
+
+        assertEquals(List.of("1", "2", "3", "4", "5", "6", "7", "8", "9"), jdbcTemplate.queryForList(
+                "SELECT \"version\" FROM \"flyway_schema_history\" WHERE \"success\" AND \"version\" IS NOT NULL ORDER BY \"installed_rank\"",
+                String.class));
+    }
+
+    @Test
+    void findEventViewsByUserIdAndIdGreaterThan_explain_expectedIndexScan() {
+
+        assertIndexScan("SELECT * FROM events WHERE user_id = 2 AND id > 1 ORDER BY id LIMIT 51");
+        assertIndexColumns("IDX_EVENTS_USER_ID_ID", "USER_ID", "ID");
+    }
+
+    @Test
+    void findEventViews_priceRangeByPrice_expectedIndexScan() {
+
+        assertIndexScan("SELECT * FROM events WHERE price >= 100 AND price <= 500 AND price >= 150 " +
+                "AND (price > 150 OR id > 3) ORDER BY price, id LIMIT 51");
+        assertIndexColumns("IDX_EVENTS_PRICE_ID", "PRICE", "ID");
+    }
+
+    @Test
+    void findEventViews_newestFirst_expectedIndexScan() {
+
+        assertIndexScan("SELECT * FROM events WHERE id < 5 ORDER BY id DESC LIMIT 51");
+        assertIndexColumns("IDX_EVENTS_ID_DESC", "ID");
+    }
+
+    @Test
+    void findEventViews_ownerByPriceDesc_expectedIndexScan() {
+
+        assertIndexScan("SELECT * FROM events WHERE user_id = 2 AND price <= 950 AND (price < 950 OR id < 5) " +
+                "ORDER BY price DESC, id DESC LIMIT 51");
+        assertIndexColumns("IDX_EVENTS_USER_ID_PRICE_ID", "USER_ID", "PRICE", "ID");
+    }
+
+    @Test
+    void findEventViews_namePrefix_expectedIndexScan() {
+
+        assertIndexScan("SELECT * FROM events WHERE name LIKE 'Event%' ESCAPE '\\' ORDER BY id DESC LIMIT 51");
+    }
+
+    @Test
+    void existsByIdAndUserId_explain_expectedIndexScan() {
+
+        assertIndexScan("SELECT id FROM events WHERE id = 1 AND user_id = 2 LIMIT 1");
+    }
+
+    @Test
+    void findUserEventParticipationViewsByEventIdAndStatusAndIdGreaterThan_explain_expectedIndexScan() {
+
+        assertIndexScan("SELECT * FROM user_event_participations WHERE event_id = 2 AND status = 'PENDING' AND id > 1 ORDER BY id LIMIT 51");
+        assertIndexColumns("IDX_UEP_EVENT_ID_STATUS_ID", "EVENT_ID", "STATUS", "ID");
+    }
+
+    @Test
+    void findIdsByEventIdAndStatusOrderByWaitlistedAt_explain_expectedIndexScan() {
+
+        assertIndexScan("SELECT id FROM user_event_participations WHERE event_id = 2 AND status = 'WAITLISTED' " +
+                "ORDER BY waitlisted_at, id LIMIT 1");
+        assertIndexColumns("IDX_UEP_EVENT_ID_STATUS_WAITLISTED_AT_ID", "EVENT_ID", "STATUS", "WAITLISTED_AT", "ID");
+    }
+
+    @Test
+    void findUserEventParticipationViewsByUserIdAndIdGreaterThan_explain_expectedIndexScan() {
+
+        assertIndexScan("SELECT * FROM user_event_participations WHERE user_id = 5 AND id > 1 ORDER BY id LIMIT 51");
+        assertIndexColumns("IDX_UEP_USER_ID_ID", "USER_ID", "ID");
+    }
+
+    @Test
+    void findContractViewsByStatusAndIdGreaterThan_explain_expectedIndexScan() {
+
+        assertIndexScan("SELECT * FROM contracts WHERE status = 'PENDING' AND id > 1 ORDER BY id LIMIT 51");
+        assertIndexColumns("IDX_CONTRACTS_STATUS_ID", "STATUS", "ID");
+    }
+
+    @Test
+    void findContractByUserIdAndStatusOrderById_explain_expectedIndexScan() {
+
+        assertIndexScan("SELECT * FROM contracts WHERE user_id = 2 AND status = 'PENDING' ORDER BY id");
+        assertIndexColumns("IDX_CONTRACTS_USER_ID_STATUS_ID", "USER_ID", "STATUS", "ID");
+    }
+
+    @Test
+    void findUserViewsByIdGreaterThan_explain_expectedIndexScan() {
+
+        assertIndexScan("SELECT * FROM users WHERE id > 1 ORDER BY id LIMIT 51");
+    }
+
+    @Test
+    void findUserViewsByRoleIdAndIdGreaterThan_explain_expectedIndexScan() {
+
+        assertIndexScan("SELECT * FROM users WHERE role_id = 2 AND id > 1 ORDER BY id LIMIT 51");
+        assertIndexColumns("IDX_USERS_ROLE_ID_ID", "ROLE_ID", "ID");
+    }
+
+    private static void assertIndexScan(String query) {
+
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + query, String.class);
+
+        assertFalse(plan.contains("tableScan"), () -> "Query is executed with a table scan: " + plan);
+    }
+
+    private static void assertIndexColumns(String indexName, String... columns) {
+
+        assertEquals(List.of(columns), jdbcTemplate.queryForList(
+                "SELECT COLUMN_NAME FROM INFORMATION_SCHEMA.INDEX_COLUMNS WHERE INDEX_NAME = ? ORDER BY ORDINAL_POSITION",
+                String.class, indexName));
+    }
+
+}
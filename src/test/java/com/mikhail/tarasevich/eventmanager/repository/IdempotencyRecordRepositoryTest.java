@@ -0,0 +1,99 @@
+package com.mikhail.tarasevich.eventmanager.repository;
+
+import com.mikhail.tarasevich.eventmanager.config.SpringTestConfig;
+import com.mikhail.tarasevich.eventmanager.entity.IdempotencyRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = SpringTestConfig.class)
+@Sql(scripts = {"classpath:sql/schema.sql", "classpath:sql/data.sql"},
+        executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class IdempotencyRecordRepositoryTest {
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void saveAndFlush_keyClaimedTwice_throwsException() {
+
+        idempotencyRecordRepository.saveAndFlush(record("retry-1", LocalDateTime.now()));
+
+        assertThrows(RuntimeException.class,
+                () -> idempotencyRecordRepository.saveAndFlush(record("retry-1", LocalDateTime.now())));
+        assertNull(idempotencyRecordRepository.findByUserIdAndIdempotencyKey(1, "retry-1").orElseThrow().getResponse());
+    }
+
+    @Test
+    void deleteByUserIdAndCreatedAtBefore_expiredAndLiveKeys_expectedOnlyExpiredDeleted() {
+
+        LocalDateTime now = LocalDateTime.now();
+
+        idempotencyRecordRepository.saveAndFlush(record("expired", now.minusDays(2)));
+        idempotencyRecordRepository.saveAndFlush(record("live", now));
+
+        assertEquals(1, idempotencyRecordRepository.deleteByUserIdAndCreatedAtBefore(1, now.minusDays(1)));
+        assertEquals(1, idempotencyRecordRepository.countByUserId(1));
+    }
+
+    @Test
+    void takeOverClaim_abandonedClaim_expectedOnlyFirstTakeOverAndItsResponseStored() {
+
+        LocalDateTime abandonedAt = LocalDateTime.of(2024, 1, 1, 12, 0);
+        LocalDateTime takenOverAt = abandonedAt.plusMinutes(5);
+
+        idempotencyRecordRepository.saveAndFlush(record("retry-1", abandonedAt));
+
+        assertEquals(1, idempotencyRecordRepository.takeOverClaim(1, "retry-1", abandonedAt, takenOverAt));
+        assertEquals(0, idempotencyRecordRepository.takeOverClaim(1, "retry-1", abandonedAt,
+                takenOverAt.plusSeconds(1)));
+
+        // the request that has lost its claim can neither store its response nor give the key up
+        assertEquals(0, idempotencyRecordRepository.updateResponse(1, "retry-1", abandonedAt, "{\"id\":1}"));
+        assertEquals(0, idempotencyRecordRepository.deleteClaim(1, "retry-1", abandonedAt));
+        assertEquals(1, idempotencyRecordRepository.updateResponse(1, "retry-1", takenOverAt, "{\"id\":2}"));
+
+        IdempotencyRecord stored = idempotencyRecordRepository.findByUserIdAndIdempotencyKey(1, "retry-1")
+                .orElseThrow();
+
+        assertEquals(takenOverAt, stored.getClaimedAt());
+        assertEquals("{\"id\":2}", stored.getResponse());
+        // a claim with a response is never taken over
+        assertEquals(0, idempotencyRecordRepository.takeOverClaim(1, "retry-1", takenOverAt,
+                takenOverAt.plusMinutes(5)));
+    }
+
+    @Test
+    void deleteUsersByIdIn_userWithKeys_expectedKeysDeleted() {
+
+        idempotencyRecordRepository.saveAndFlush(record("retry-1", LocalDateTime.now()));
+
+        userRepository.deleteUsersByIdIn(List.of(1));
+
+        assertTrue(idempotencyRecordRepository.findByUserIdAndIdempotencyKey(1, "retry-1").isEmpty());
+    }
+
+    private static IdempotencyRecord record(String key, LocalDateTime createdAt) {
+
+        return IdempotencyRecord.builder()
+                .withUserId(1)
+                .withIdempotencyKey(key)
+                .withRequestHash("hash")
+                .withCreatedAt(createdAt)
+                .withClaimedAt(createdAt)
+                .build();
+    }
+
+}
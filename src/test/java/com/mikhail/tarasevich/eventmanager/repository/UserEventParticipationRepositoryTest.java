@@ -1,15 +1,22 @@
 package com.mikhail.tarasevich.eventmanager.repository;
 
 import com.mikhail.tarasevich.eventmanager.config.SpringTestConfig;
-import com.mikhail.tarasevich.eventmanager.entity.UserEventParticipation;
+import com.mikhail.tarasevich.eventmanager.dto.UserEventParticipationResponse;
+import com.mikhail.tarasevich.eventmanager.repository.projection.UserEventParticipationStatusView;
+import com.mikhail.tarasevich.eventmanager.repository.projection.UserEventParticipationView;
+import com.mikhail.tarasevich.eventmanager.service.mapper.impl.UserEventParticipationMapperImpl;
 import com.mikhail.tarasevich.eventmanager.util.Status;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.jdbc.JdbcTestUtils;
 
+import javax.persistence.EntityManagerFactory;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -21,15 +28,19 @@ class UserEventParticipationRepositoryTest {
     @Autowired
     private UserEventParticipationRepository uepRepository;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
 
     @Test
-    void findUserEventParticipationsByEventIdAndStatusOrderById_inputEventIdAndStatus_expectedEntityList() {
+    void findUserEventParticipationViewsByEventIdAndStatusAndIdGreaterThan_inputEventIdAndStatus_expectedEntityList() {
 
-        List<UserEventParticipation> foundEntities =
-                uepRepository.findUserEventParticipationsByEventIdAndStatusOrderById(2, Status.PENDING);
+        List<UserEventParticipationView> foundEntities =
+                uepRepository.findUserEventParticipationViewsByEventIdAndStatusAndIdGreaterThan(2, Status.PENDING, 0,
+                        PageRequest.of(0, 10));
 
         assertEquals(3, foundEntities.size());
         assertEquals(3, foundEntities.stream()
@@ -37,66 +48,180 @@ class UserEventParticipationRepositoryTest {
     }
 
     @Test
-    void findUserEventParticipationsByUserIdOrderById_inputUserId_expectedEntityList() {
+    void findUserEventParticipationViewsByUserIdAndIdGreaterThan_inputUserId_expectedEntityList() {
 
         int id = 5;
 
-        List<UserEventParticipation> foundEntities =
-                uepRepository.findUserEventParticipationsByUserIdOrderById(id);
+        List<UserEventParticipationView> foundEntities =
+                uepRepository.findUserEventParticipationViewsByUserIdAndIdGreaterThan(id, 0, PageRequest.of(0, 10));
 
         assertEquals(3, foundEntities.size());
         assertEquals(3, foundEntities.stream()
-                .filter(e -> e.getUser().getId() == id).collect(Collectors.toList()).size());
+                .filter(e -> e.getUserId() == id).collect(Collectors.toList()).size());
+    }
+
+    @Test
+    void findUserEventParticipationViewsByEventIdAndStatusAndIdGreaterThan_inputCursorAndLimit_expectedNextEntities() {
+
+        List<UserEventParticipationView> foundEntities =
+                uepRepository.findUserEventParticipationViewsByEventIdAndStatusAndIdGreaterThan(2, Status.PENDING, 1,
+                        PageRequest.of(0, 1));
+
+        assertEquals(List.of(6), foundEntities.stream().map(UserEventParticipationView::getId).collect(Collectors.toList()));
     }
 
     @Test
     @Sql(scripts = {"classpath:sql/schema.sql", "classpath:sql/data.sql"},
             executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
-    void deleteUserEventParticipationsByUserId_inputUserId_expectedEntitiesDeleted() {
+    void updateStatusByIdAndStatusAndEventUserId_inputEventOwnerId_expectedStatusUpdated() {
 
-        assertEquals(3, JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "user_event_participations",
-                "user_id = 5"));
+        assertEquals(1, uepRepository.updateStatusByIdAndStatusAndEventUserId(1, Status.PENDING, 3, Status.ACCEPTED));
 
-        uepRepository.deleteUserEventParticipationsByUserId(5);
+        assertEquals(1, JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "user_event_participations",
+                "id = 1 AND status = 'ACCEPTED'"));
+    }
 
-        assertEquals(0, JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "user_event_participations",
-                "user_id = 5"));
+    @Test
+    void updateStatusByIdAndStatusAndEventUserId_inputAnotherManagerId_expectedNothingUpdated() {
+
+        assertEquals(0, uepRepository.updateStatusByIdAndStatusAndEventUserId(1, Status.PENDING, 2, Status.ACCEPTED));
+
+        assertEquals(1, JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "user_event_participations",
+                "id = 1 AND status = 'PENDING'"));
+    }
+
+    @Test
+    void updateStatusByIdAndStatusAndEventUserId_inputDecidedRequest_expectedNothingUpdated() {
+
+        assertEquals(0, uepRepository.updateStatusByIdAndStatusAndEventUserId(2, Status.PENDING, 4, Status.ACCEPTED));
+
+        assertEquals(1, JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "user_event_participations",
+                "id = 2 AND status = 'REJECTED'"));
+    }
+
+    @Test
+    void findIdsByEventIdAndStatus_inputEventIdAndStatus_expectedIdsInOrder() {
+
+        assertEquals(List.of(1, 6, 7), uepRepository.findIdsByEventIdAndStatus(2, Status.PENDING, PageRequest.of(0, 10)));
+        assertEquals(List.of(1, 6), uepRepository.findIdsByEventIdAndStatus(2, Status.PENDING, PageRequest.of(0, 2)));
     }
 
     @Test
     @Sql(scripts = {"classpath:sql/schema.sql", "classpath:sql/data.sql"},
             executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
-    void deleteUserEventParticipationsByEventId_inputEventId_expectedEntitiesDeleted() {
+    void findIdsByEventIdAndStatusOrderByWaitlistedAt_waitlistedRequests_expectedOldestFirst() {
 
-        assertEquals(3, JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "user_event_participations",
-                "event_id = 2"));
+        jdbcTemplate.update("INSERT INTO user_event_participations (id, user_id, event_id, status, fio, age, " +
+                "covid_passport_number, waitlisted_at) VALUES (100, 6, 2, 'WAITLISTED', 'Participant', 30, 1, " +
+                "TIMESTAMP '2023-06-01 12:00:00'), (101, 7, 2, 'WAITLISTED', 'Participant', 30, 2, " +
+                "TIMESTAMP '2023-06-01 11:00:00')");
 
-        uepRepository.deleteUserEventParticipationsByEventId(2);
+        assertEquals(List.of(101), uepRepository.findIdsByEventIdAndStatusOrderByWaitlistedAt(2, Status.WAITLISTED,
+                PageRequest.of(0, 1)));
 
-        assertEquals(0, JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "user_event_participations",
-                "event_id = 2"));
+        assertEquals(1, uepRepository.updateStatusByIdAndStatus(101, Status.WAITLISTED, Status.ACCEPTED));
+        assertEquals(0, uepRepository.updateStatusByIdAndStatus(101, Status.WAITLISTED, Status.ACCEPTED));
+
+        assertEquals(List.of(100), uepRepository.findIdsByEventIdAndStatusOrderByWaitlistedAt(2, Status.WAITLISTED,
+                PageRequest.of(0, 1)));
+    }
+
+    @Test
+    void findUserEventParticipationStatusViewsByIdIn_inputIds_expectedStatusAndEventOwner() {
+
+        List<UserEventParticipationStatusView> views = uepRepository.findUserEventParticipationStatusViewsByIdIn(
+                List.of(1, 2, 99));
+
+        assertEquals(List.of("1:PENDING:3", "2:REJECTED:4"), views.stream()
+                .map(view -> view.getId() + ":" + view.getStatus() + ":" + view.getEventUserId())
+                .sorted()
+                .collect(Collectors.toList()));
     }
 
     @Test
     @Sql(scripts = {"classpath:sql/schema.sql", "classpath:sql/data.sql"},
             executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
-    void deleteUserEventParticipationsByEventUserId_inputManagerId_expectedEntitiesDeleted() {
+    void updateStatusByIdInAndStatusAndEventUserId_inputMixedIds_expectedOnlyOwnedPendingUpdated() {
 
+        assertEquals(2, uepRepository.updateStatusByIdInAndStatusAndEventUserId(List.of(1, 2, 3, 6), Status.PENDING,
+                3, Status.REJECTED));
+
+        assertEquals(2, JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "user_event_participations",
+                "id IN (1, 6) AND status = 'REJECTED'"));
         assertEquals(1, JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "user_event_participations",
-                "id = 2"));
-        assertEquals(1, JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "user_event_participations",
-                "id = 3"));
-        assertEquals(1, JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "user_event_participations",
-                "id = 4"));
+                "id = 3 AND status = 'ACCEPTED'"));
+    }
+
+    @Test
+    @Sql(scripts = {"classpath:sql/schema.sql", "classpath:sql/data.sql"},
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    void deleteUserEventParticipationsByUserIdInOrEventUserIdIn_inputUserIds_expectedOwnAndEventEntitiesDeleted() {
 
-        uepRepository.deleteUserEventParticipationsByEventUserId(4);
+        assertEquals(7, JdbcTestUtils.countRowsInTable(jdbcTemplate, "user_event_participations"));
 
+        // participant 6 owns participation 4; manager 4 owns event 3 with participations 2 and 4
+        int deleted = uepRepository.deleteUserEventParticipationsByUserIdInOrEventUserIdIn(List.of(4, 6));
+
+        assertEquals(2, deleted);
         assertEquals(0, JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "user_event_participations",
-                "id = 2"));
-        assertEquals(1, JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "user_event_participations",
-                "id = 3"));
+                "id IN (2, 4)"));
+        assertEquals(5, JdbcTestUtils.countRowsInTable(jdbcTemplate, "user_event_participations"));
+    }
+
+    @Test
+    @Sql(scripts = {"classpath:sql/schema.sql", "classpath:sql/data.sql"},
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    void deleteUserEventParticipationsByEventIdIn_inputEventIds_expectedEntitiesDeleted() {
+
+        assertEquals(4, JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "user_event_participations",
+                "event_id IN (1, 2)"));
+
+        int deleted = uepRepository.deleteUserEventParticipationsByEventIdIn(List.of(1, 2));
+
+        assertEquals(4, deleted);
         assertEquals(0, JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "user_event_participations",
-                "id = 4"));
+                "event_id IN (1, 2)"));
+    }
+
+    @Test
+    void findUserEventParticipationViewsByEventIdAndStatusAndIdGreaterThan_mappedToResponses_expectedSingleQueryWithoutEntities() {
+
+        Statistics statistics = statistics();
+
+        List<UserEventParticipationResponse> responses =
+                uepRepository.findUserEventParticipationViewsByEventIdAndStatusAndIdGreaterThan(2, Status.PENDING, 0,
+                                PageRequest.of(0, 10)).stream()
+                        .map(new UserEventParticipationMapperImpl()::toResponse)
+                        .collect(Collectors.toList());
+
+        assertEquals(3, responses.size());
+        assertEquals("manager2@example.com", responses.get(0).getEvent().getUser().getEmail());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void findUserEventParticipationViewsByUserIdAndIdGreaterThan_mappedToResponses_expectedSingleQueryWithoutEntities() {
+
+        Statistics statistics = statistics();
+
+        List<UserEventParticipationResponse> responses =
+                uepRepository.findUserEventParticipationViewsByUserIdAndIdGreaterThan(5, 0, PageRequest.of(0, 10)).stream()
+                        .map(new UserEventParticipationMapperImpl()::toResponse)
+                        .collect(Collectors.toList());
+
+        assertEquals(3, responses.size());
+        assertEquals("participant1@example.com", responses.get(0).getUser().getEmail());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    private Statistics statistics() {
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        return statistics;
     }
 
 }
@@ -1,13 +1,26 @@
 package com.mikhail.tarasevich.eventmanager.repository;
 
 import com.mikhail.tarasevich.eventmanager.config.SpringTestConfig;
+import com.mikhail.tarasevich.eventmanager.entity.Role;
 import com.mikhail.tarasevich.eventmanager.entity.User;
+import com.mikhail.tarasevich.eventmanager.repository.projection.UserView;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.jdbc.JdbcTestUtils;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManagerFactory;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -18,6 +31,12 @@ class UserRepositoryTest {
     @Autowired
     private UserRepository ur;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @Test
     void findUserByEmail_inputEmail_expectedUserInDB() {
 
@@ -30,13 +49,89 @@ class UserRepositoryTest {
     }
 
     @Test
-    void findUsersByRoleOrderById_inputRoleName_expectedUserList() {
+    void findUserViewById_inputId_expectedIdAndEmail() {
+
+        Optional<UserView> user = ur.findUserViewById(2);
+
+        assertTrue(user.isPresent());
+        assertEquals(2, user.get().getId());
+        assertEquals("manager1@example.com", user.get().getEmail());
+    }
+
+    @Test
+    void findUserViewsByRoleIdAndIdGreaterThan_inputRoleId_expectedUserList() {
 
-        String role = "ROLE_MANAGER";
+        int managerRoleId = 2;
 
-        List<User> managers = ur.findUsersByRoleOrderById(role);
+        List<UserView> managers = ur.findUserViewsByRoleIdAndIdGreaterThan(managerRoleId, 0, PageRequest.of(0, 10));
 
         assertEquals(3, managers.size());
+        assertEquals(List.of(2, 3, 4), managers.stream().map(UserView::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void findUserViewsByRoleIdAndIdGreaterThan_inputCursorAndLimit_expectedNextUsers() {
+
+        List<UserView> participants = ur.findUserViewsByRoleIdAndIdGreaterThan(3, 6, PageRequest.of(0, 2));
+
+        assertEquals(List.of(7, 8), participants.stream().map(UserView::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void findUserViewsByIdGreaterThan_inputCursorAndLimit_expectedNextUsers() {
+
+        List<UserView> users = ur.findUserViewsByIdGreaterThan(3, PageRequest.of(0, 3));
+
+        assertEquals(List.of(4, 5, 6), users.stream().map(UserView::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    @Transactional(readOnly = true)
+    void streamUsersByRoleIdOrderById_inputRoleId_expectedUsersInIdOrder() {
+
+        int participantRoleId = 3;
+
+        try (Stream<User> participants = ur.streamUsersByRoleIdOrderById(participantRoleId)) {
+            assertEquals(List.of(5, 6, 7, 8, 9), participants.map(User::getId).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    @Sql(scripts = {"classpath:sql/schema.sql", "classpath:sql/data.sql"},
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    void deleteUsersByIdIn_inputIds_expectedEntitiesDeleted() {
+
+        jdbcTemplate.update("DELETE FROM user_event_participations WHERE user_id IN (7, 8, 9)");
+
+        assertEquals(3, ur.deleteUsersByIdIn(List.of(7, 8, 9)));
+
+        assertEquals(0, JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "users", "id IN (7, 8, 9)"));
+        assertEquals(6, JdbcTestUtils.countRowsInTable(jdbcTemplate, "users"));
+    }
+
+    @Test
+    @Transactional
+    void saveAllAndFlush_inputManyUsers_expectedIdsFromSequenceAndBatchedInserts() {
+
+        Role participant = Role.builder().withId(3).build();
+        List<User> users = IntStream.range(0, 120)
+                .mapToObj(i -> User.builder()
+                        .withEmail("batch" + i + "@example.com")
+                        .withPassword("password")
+                        .withRole(participant)
+                        .build())
+                .collect(Collectors.toList());
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<User> saved = ur.saveAllAndFlush(users);
+
+        // a single batched insert statement and at most three sequence calls for 120 ids, fewer when ids allocated
+        // by an earlier test are left
+        assertTrue(statistics.getPrepareStatementCount() <= 4);
+        assertTrue(saved.stream().allMatch(user -> user.getId() >= 1000));
+        assertEquals(120, saved.stream().map(User::getId).distinct().count());
     }
 
 }
@@ -0,0 +1,98 @@
+package com.mikhail.tarasevich.eventmanager.security;
+
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JWTUtilTest {
+
+    private VerifiedTokenCache tokenCache;
+
+    private JWTUtil jwtUtil;
+
+    @BeforeEach
+    void setup() {
+
+        tokenCache = new VerifiedTokenCache(2);
+        jwtUtil = new JWTUtil("test-secret", 60, tokenCache);
+    }
+
+    @Test
+    void validateTokenAndRetrieveClaims_generatedToken_expectedUserDetailsFromClaims() {
+
+        UserSecurityDetails user = new UserSecurityDetails(2, "manager1@example.com", "ROLE_MANAGER",
+                AuthorityUtils.createAuthorityList("PRIVILEGE_EVENT_CREATOR"));
+
+        TokenClaims claims = jwtUtil.validateTokenAndRetrieveClaims(jwtUtil.generateToken(user));
+
+        assertEquals(2, claims.getUserId());
+        assertEquals("manager1@example.com", claims.getEmail());
+        assertEquals("ROLE_MANAGER", claims.getRole());
+        assertEquals(List.of("PRIVILEGE_EVENT_CREATOR"), claims.getPrivileges());
+        assertTrue(claims.getExpiresAt().isAfter(claims.getIssuedAt()));
+    }
+
+    @Test
+    void validateTokenAndRetrieveClaims_tokenSignedWithAnotherSecret_expectedJWTVerificationException() {
+
+        UserSecurityDetails user = new UserSecurityDetails(1, "admin@example.com", "ROLE_ADMIN",
+                AuthorityUtils.createAuthorityList("PRIVILEGE_APP_ADMIN"));
+
+        JWTUtil anotherJwtUtil = new JWTUtil("another-secret", 60, new VerifiedTokenCache(0));
+
+        String token = anotherJwtUtil.generateToken(user);
+
+        assertThrows(JWTVerificationException.class, () -> jwtUtil.validateTokenAndRetrieveClaims(token));
+    }
+
+    @Test
+    void validateTokenAndRetrieveClaims_repeatedToken_expectedClaimsFromCache() {
+
+        String token = jwtUtil.generateToken(new UserSecurityDetails(2, "manager1@example.com", "ROLE_MANAGER",
+                AuthorityUtils.createAuthorityList("PRIVILEGE_EVENT_CREATOR")));
+
+        TokenClaims first = jwtUtil.validateTokenAndRetrieveClaims(token);
+        TokenClaims second = jwtUtil.validateTokenAndRetrieveClaims(token);
+
+        assertSame(first, second);
+        assertEquals(1, tokenCache.getMissCount());
+        assertEquals(1, tokenCache.getHitCount());
+    }
+
+    @Test
+    void validateTokenAndRetrieveClaims_moreTokensThanCacheSize_expectedEldestEvicted() {
+
+        for (int id = 1; id <= 3; id++) {
+            jwtUtil.validateTokenAndRetrieveClaims(jwtUtil.generateToken(
+                    new UserSecurityDetails(id, "user" + id + "@example.com", "ROLE_PARTICIPANT", AuthorityUtils.createAuthorityList("PRIVILEGE_PARTICIPANT"))));
+        }
+
+        assertEquals(2, tokenCache.size());
+        assertEquals(3, tokenCache.getMissCount());
+    }
+
+    @Test
+    void isRevoked_tokenIssuedBeforeRevocation_expectedRevoked() {
+
+        TokenRevocationRegistry registry = new TokenRevocationRegistry(60);
+
+        TokenClaims claims = jwtUtil.validateTokenAndRetrieveClaims(jwtUtil.generateToken(
+                new UserSecurityDetails(5, "participant1@example.com", "ROLE_PARTICIPANT", AuthorityUtils.createAuthorityList("PRIVILEGE_PARTICIPANT"))));
+
+        assertFalse(registry.isRevoked(claims));
+
+        registry.revokeUserTokens(5);
+
+        assertTrue(registry.isRevoked(claims));
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.mikhail.tarasevich.eventmanager.security;
+
+import com.mikhail.tarasevich.eventmanager.config.SpringTestConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = SpringTestConfig.class)
+class RolePrivilegeRegistryTest {
+
+    @Autowired
+    private RolePrivilegeRegistry registry;
+
+    @Test
+    void getAuthorities_inputRoleName_expectedPrivilegesFromDB() {
+
+        assertEquals(List.of("PRIVILEGE_APP_ADMIN"), names(registry.getAuthorities("ROLE_ADMIN")));
+        assertEquals(List.of("PRIVILEGE_EVENT_CREATOR"), names(registry.getAuthorities("ROLE_MANAGER")));
+        assertEquals(List.of("PRIVILEGE_PARTICIPANT"), names(registry.getAuthorities("ROLE_PARTICIPANT")));
+        assertTrue(registry.getAuthorities("ROLE_UNKNOWN").isEmpty());
+    }
+
+    @Test
+    void getAuthorities_repeatedCalls_expectedSameInstance() {
+
+        assertSame(registry.getAuthorities("ROLE_MANAGER"), registry.getAuthorities("ROLE_MANAGER"));
+    }
+
+    @Test
+    void findRoleId_inputRoleName_expectedRoleId() {
+
+        assertEquals(Optional.of(2), registry.findRoleId("ROLE_MANAGER"));
+        assertEquals(Optional.empty(), registry.findRoleId("ROLE_UNKNOWN"));
+    }
+
+    private static List<String> names(List<GrantedAuthority> authorities) {
+
+        return authorities.stream().map(GrantedAuthority::getAuthority).collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,138 @@
+package com.mikhail.tarasevich.eventmanager.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VerifiedTokenCacheTest {
+
+    private static final int THREADS = 16;
+
+    private final AtomicInteger verifications = new AtomicInteger();
+
+    // "token-<user id>" is verified into the claims of that user, valid for an hour
+    private final Function<String, TokenClaims> verifier = token -> {
+        verifications.incrementAndGet();
+        return claims(Integer.parseInt(token.substring("token-".length())), Instant.now().plus(1, ChronoUnit.HOURS));
+    };
+
+    @Test
+    void get_sameTokensFromManyThreads_expectedClaimsOfEveryTokenAndFewVerifications() throws Exception {
+
+        VerifiedTokenCache cache = new VerifiedTokenCache(100);
+
+        int tokens = 50;
+        int callsPerThread = 10_000;
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < callsPerThread; i++) {
+                int userId = (thread + i) % tokens;
+
+                assertEquals(userId, cache.get("token-" + userId, verifier).getUserId());
+            }
+        });
+
+        assertEquals((long) THREADS * callsPerThread, cache.getHitCount() + cache.getMissCount());
+        assertEquals(verifications.get(), cache.getMissCount());
+        // a token may be verified by several threads at once before it is cached, never more than once per thread
+        assertTrue(verifications.get() <= tokens * THREADS);
+        assertEquals(tokens, cache.size());
+    }
+
+    @Test
+    void get_moreTokensFromManyThreadsThanMaxSize_expectedSizeNearLimit() throws Exception {
+
+        VerifiedTokenCache cache = new VerifiedTokenCache(20);
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < 1000; i++) {
+                cache.get("token-" + (thread * 1000 + i), verifier);
+            }
+        });
+
+        assertTrue(cache.size() <= 20 + THREADS, () -> "Cache has grown to " + cache.size() + " entries");
+    }
+
+    @Test
+    void get_cacheOverLimit_expectedExpiredAndSoonestExpiringDropped() {
+
+        VerifiedTokenCache cache = new VerifiedTokenCache(3);
+        Instant now = Instant.now();
+
+        cache.get("expiring", token -> claims(1, now.plusSeconds(60)));
+        cache.get("token-2", verifier);
+        cache.get("token-3", verifier);
+        cache.get("token-4", verifier);
+
+        assertEquals(3, cache.size());
+
+        cache.get("token-2", verifier);
+        cache.get("token-3", verifier);
+        cache.get("token-4", verifier);
+        assertEquals(3, verifications.get());
+
+        cache.get("expiring", token -> claims(1, now.plusSeconds(60)));
+        assertEquals(5, cache.getMissCount());
+    }
+
+    private static void runConcurrently(ThreadTask task) throws Exception {
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+
+        try {
+            List<Future<?>> results = new ArrayList<>();
+
+            for (int thread = 0; thread < THREADS; thread++) {
+                int number = thread;
+
+                results.add(executor.submit(() -> {
+                    start.await();
+                    task.run(number);
+                    return null;
+                }));
+            }
+
+            start.countDown();
+
+            for (Future<?> result : results) {
+                result.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static TokenClaims claims(int userId, Instant expiresAt) {
+
+        return TokenClaims.builder()
+                .withUserId(userId)
+                .withEmail("user" + userId + "@example.com")
+                .withRole("ROLE_PARTICIPANT")
+                .withPrivileges(List.of("PRIVILEGE_PARTICIPANT"))
+                .withIssuedAt(Instant.now())
+                .withExpiresAt(expiresAt)
+                .build();
+    }
+
+    @FunctionalInterface
+    private interface ThreadTask {
+
+        void run(int thread) throws Exception;
+
+    }
+
+}
@@ -1,29 +1,43 @@
 package com.mikhail.tarasevich.eventmanager.service.impl;
 
 import com.mikhail.tarasevich.eventmanager.dto.ContractResponse;
+import com.mikhail.tarasevich.eventmanager.dto.PageResponse;
 import com.mikhail.tarasevich.eventmanager.entity.Contract;
 import com.mikhail.tarasevich.eventmanager.entity.User;
 import com.mikhail.tarasevich.eventmanager.repository.ContractRepository;
 import com.mikhail.tarasevich.eventmanager.repository.UserRepository;
+import com.mikhail.tarasevich.eventmanager.repository.projection.ContractView;
 import com.mikhail.tarasevich.eventmanager.service.exception.ContractNotFoundException;
+import com.mikhail.tarasevich.eventmanager.service.exception.StatusConflictException;
+import com.mikhail.tarasevich.eventmanager.service.exception.IncorrectRequestDataException;
 import com.mikhail.tarasevich.eventmanager.service.exception.UserNotFoundException;
 import com.mikhail.tarasevich.eventmanager.service.mapper.ContractMapper;
+import com.mikhail.tarasevich.eventmanager.util.KeysetPagination;
 import com.mikhail.tarasevich.eventmanager.util.Status;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -32,7 +46,6 @@ import static org.mockito.Mockito.when;
 @ExtendWith(MockitoExtension.class)
 class ContractServiceImplTest {
 
-    @InjectMocks
     private ContractServiceImpl contractService;
 
     @Mock
@@ -44,15 +57,23 @@ class ContractServiceImplTest {
     @Mock
     private ContractMapper mapper;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setup() {
+        contractService = newService(60, 100);
+    }
+
     @Test
     void findPendingContracts_expectedContractResponseList() {
 
-        Contract contract1 = Contract.builder().withId(1).build();
-        Contract contract2 = Contract.builder().withId(2).build();
+        ContractView contract1 = contractView(1);
+        ContractView contract2 = contractView(2);
 
-        List<Contract> contracts = List.of(contract1, contract2);
+        List<ContractView> contracts = List.of(contract1, contract2);
 
-        when(contractRepository.findContractByStatusOrderById(Status.PENDING)).thenReturn(contracts);
+        when(contractRepository.findContractViewsByStatusAndIdGreaterThan(Status.PENDING, 0, PageRequest.of(0, 51))).thenReturn(contracts);
 
         ContractResponse ContractResponse1 = ContractResponse.builder().withId(1).build();
         ContractResponse ContractResponse2 = ContractResponse.builder().withId(2).build();
@@ -62,13 +83,13 @@ class ContractServiceImplTest {
 
         List<ContractResponse> contractResponses = List.of(ContractResponse1, ContractResponse2);
 
-        List<ContractResponse> result = contractService.findPendingContracts();
+        List<ContractResponse> result = contractService.findPendingContracts(0, 50).getContent();
 
         assertEquals(contractResponses.size(), result.size());
         assertEquals(ContractResponse1, result.get(0));
         assertEquals(ContractResponse2, result.get(1));
 
-        verify(contractRepository, times(1)).findContractByStatusOrderById(Status.PENDING);
+        verify(contractRepository, times(1)).findContractViewsByStatusAndIdGreaterThan(Status.PENDING, 0, PageRequest.of(0, 51));
         verify(mapper, times(1)).toResponse(contract1);
         verify(mapper, times(1)).toResponse(contract2);
     }
@@ -76,12 +97,12 @@ class ContractServiceImplTest {
     @Test
     void findRejectedContracts_expectedContractResponseList() {
 
-        Contract contract1 = Contract.builder().withId(1).build();
-        Contract contract2 = Contract.builder().withId(2).build();
+        ContractView contract1 = contractView(1);
+        ContractView contract2 = contractView(2);
 
-        List<Contract> contracts = List.of(contract1, contract2);
+        List<ContractView> contracts = List.of(contract1, contract2);
 
-        when(contractRepository.findContractByStatusOrderById(Status.REJECTED)).thenReturn(contracts);
+        when(contractRepository.findContractViewsByStatusAndIdGreaterThan(Status.REJECTED, 0, PageRequest.of(0, 51))).thenReturn(contracts);
 
         ContractResponse ContractResponse1 = ContractResponse.builder().withId(1).build();
         ContractResponse ContractResponse2 = ContractResponse.builder().withId(2).build();
@@ -91,13 +112,13 @@ class ContractServiceImplTest {
 
         List<ContractResponse> contractResponses = List.of(ContractResponse1, ContractResponse2);
 
-        List<ContractResponse> result = contractService.findRejectedContracts();
+        List<ContractResponse> result = contractService.findRejectedContracts(0, 50).getContent();
 
         assertEquals(contractResponses.size(), result.size());
         assertEquals(ContractResponse1, result.get(0));
         assertEquals(ContractResponse2, result.get(1));
 
-        verify(contractRepository, times(1)).findContractByStatusOrderById(Status.REJECTED);
+        verify(contractRepository, times(1)).findContractViewsByStatusAndIdGreaterThan(Status.REJECTED, 0, PageRequest.of(0, 51));
         verify(mapper, times(1)).toResponse(contract1);
         verify(mapper, times(1)).toResponse(contract2);
     }
@@ -105,12 +126,12 @@ class ContractServiceImplTest {
     @Test
     void findAcceptedContracts_expectedContractResponseList() {
 
-        Contract contract1 = Contract.builder().withId(1).build();
-        Contract contract2 = Contract.builder().withId(2).build();
+        ContractView contract1 = contractView(1);
+        ContractView contract2 = contractView(2);
 
-        List<Contract> contracts = List.of(contract1, contract2);
+        List<ContractView> contracts = List.of(contract1, contract2);
 
-        when(contractRepository.findContractByStatusOrderById(Status.ACCEPTED)).thenReturn(contracts);
+        when(contractRepository.findContractViewsByStatusAndIdGreaterThan(Status.ACCEPTED, 0, PageRequest.of(0, 51))).thenReturn(contracts);
 
         ContractResponse ContractResponse1 = ContractResponse.builder().withId(1).build();
         ContractResponse ContractResponse2 = ContractResponse.builder().withId(2).build();
@@ -120,63 +141,101 @@ class ContractServiceImplTest {
 
         List<ContractResponse> contractResponses = List.of(ContractResponse1, ContractResponse2);
 
-        List<ContractResponse> result = contractService.findAcceptedContracts();
+        List<ContractResponse> result = contractService.findAcceptedContracts(0, 50).getContent();
 
         assertEquals(contractResponses.size(), result.size());
         assertEquals(ContractResponse1, result.get(0));
         assertEquals(ContractResponse2, result.get(1));
 
-        verify(contractRepository, times(1)).findContractByStatusOrderById(Status.ACCEPTED);
+        verify(contractRepository, times(1)).findContractViewsByStatusAndIdGreaterThan(Status.ACCEPTED, 0, PageRequest.of(0, 51));
         verify(mapper, times(1)).toResponse(contract1);
         verify(mapper, times(1)).toResponse(contract2);
     }
 
     @Test
-    void createContract_validEmail_returnsContractResponse() {
+    void findPendingContracts_moreContractsThanLimit_returnsPageWithNextCursor() {
+
+        ContractView contract1 = contractView(3);
+        ContractView contract2 = contractView(7);
+
+        when(contractRepository.findContractViewsByStatusAndIdGreaterThan(Status.PENDING, 2, PageRequest.of(0, 2)))
+                .thenReturn(List.of(contract1, contract2));
+
+        ContractResponse contractResponse1 = ContractResponse.builder().withId(3).build();
+
+        when(mapper.toResponse(contract1)).thenReturn(contractResponse1);
+
+        PageResponse<ContractResponse> result = contractService.findPendingContracts(2, 1);
+
+        assertEquals(List.of(contractResponse1), result.getContent());
+        assertEquals(3, result.getNextCursor());
+        verify(mapper, never()).toResponse(contract2);
+    }
+
+    @Test
+    void findPendingContracts_limitAboveMaximum_expectedLimitCapped() {
+
+        when(contractRepository.findContractViewsByStatusAndIdGreaterThan(Status.PENDING, 0,
+                PageRequest.of(0, KeysetPagination.MAX_LIMIT + 1))).thenReturn(Collections.emptyList());
+
+        PageResponse<ContractResponse> result = contractService.findPendingContracts(0, 100_000);
+
+        assertTrue(result.getContent().isEmpty());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void findPendingContracts_notPositiveLimit_throwsIncorrectRequestDataException() {
+
+        assertThrows(IncorrectRequestDataException.class, () -> contractService.findPendingContracts(0, 0));
+        verify(contractRepository, never()).findContractViewsByStatusAndIdGreaterThan(any(), anyInt(), any());
+    }
+
+    @Test
+    void createContract_validId_returnsContractResponse() {
 
-        String email = "test@example.com";
-        User user = User.builder().withId(1).withEmail(email).build();
+        int managerId = 1;
+        User user = User.builder().withId(managerId).withEmail("test@example.com").build();
         Contract contract = Contract.builder().withId(0).withUser(user).withStatus(Status.PENDING).build();
         ContractResponse expectedResponse = ContractResponse.builder().withId(1).build();
 
-        when(userRepository.findUserByEmail(email)).thenReturn(Optional.of(user));
+        when(userRepository.findById(managerId)).thenReturn(Optional.of(user));
         when(contractRepository.save(contract)).thenReturn(contract);
         when(mapper.toResponse(contract)).thenReturn(expectedResponse);
 
-        ContractResponse result = contractService.createContract(email);
+        ContractResponse result = contractService.createContract(managerId);
 
         assertEquals(expectedResponse, result);
-        verify(userRepository, times(1)).findUserByEmail(email);
+        verify(userRepository, times(1)).findById(managerId);
         verify(contractRepository, times(1)).save(contract);
         verify(mapper, times(1)).toResponse(contract);
     }
 
     @Test
-    void createContract_invalidEmail_throwsUserNotFoundException() {
+    void createContract_invalidId_throwsUserNotFoundException() {
 
-        String email = "test@example.com";
+        int managerId = 1;
 
-        when(userRepository.findUserByEmail(email)).thenReturn(Optional.empty());
+        when(userRepository.findById(managerId)).thenReturn(Optional.empty());
 
-        assertThrows(UserNotFoundException.class, () -> contractService.createContract(email));
-        verify(userRepository, times(1)).findUserByEmail(email);
+        assertThrows(UserNotFoundException.class, () -> contractService.createContract(managerId));
+        verify(userRepository, times(1)).findById(managerId);
         verify(contractRepository, never()).save(any());
-        verify(mapper, never()).toResponse(any());
+        verify(mapper, never()).toResponse(any(Contract.class));
     }
 
     @Test
-    void setContractStatusRejected_existingContract_updatesStatus() {
+    void setContractStatusRejected_pendingContract_updatesStatusWithSingleStatement() {
 
         int contractId = 1;
-        Contract existingContract = Contract.builder().withId(contractId).withStatus(Status.PENDING).build();
 
-        when(contractRepository.findById(contractId)).thenReturn(Optional.of(existingContract));
+        when(contractRepository.updateStatusByIdAndStatus(contractId, Status.PENDING, Status.REJECTED)).thenReturn(1);
 
         contractService.setContractStatusRejected(contractId);
 
-        assertEquals(Status.REJECTED, existingContract.getStatus());
-        verify(contractRepository, times(1)).findById(contractId);
-        verify(contractRepository, times(1)).save(existingContract);
+        verify(contractRepository, times(1)).updateStatusByIdAndStatus(contractId, Status.PENDING, Status.REJECTED);
+        verify(contractRepository, never()).findById(any());
+        verify(contractRepository, never()).save(any());
     }
 
     @Test
@@ -184,26 +243,54 @@ class ContractServiceImplTest {
 
         int contractId = 1;
 
+        when(contractRepository.updateStatusByIdAndStatus(contractId, Status.PENDING, Status.REJECTED)).thenReturn(0);
         when(contractRepository.findById(contractId)).thenReturn(Optional.empty());
 
         assertThrows(ContractNotFoundException.class, () -> contractService.setContractStatusRejected(contractId));
-        verify(contractRepository, times(1)).findById(contractId);
         verify(contractRepository, never()).save(any());
     }
 
     @Test
-    void setContractStatusAccepted_existingContract_updatesStatus() {
+    void setContractStatusRejected_acceptedContract_throwsStatusConflictException() {
+
+        int contractId = 3;
+        Contract contract = Contract.builder().withId(contractId).withUser(User.builder().withId(4).build())
+                .withStatus(Status.ACCEPTED).build();
+
+        when(contractRepository.updateStatusByIdAndStatus(contractId, Status.PENDING, Status.REJECTED)).thenReturn(0);
+        when(contractRepository.findById(contractId)).thenReturn(Optional.of(contract));
+
+        assertThrows(StatusConflictException.class, () -> contractService.setContractStatusRejected(contractId));
+        assertEquals(Status.ACCEPTED, contract.getStatus());
+    }
+
+    @Test
+    void setContractStatusRejected_rejectedContract_succeedsWithoutChanges() {
+
+        int contractId = 2;
+        Contract contract = Contract.builder().withId(contractId).withUser(User.builder().withId(3).build())
+                .withStatus(Status.REJECTED).build();
+
+        when(contractRepository.updateStatusByIdAndStatus(contractId, Status.PENDING, Status.REJECTED)).thenReturn(0);
+        when(contractRepository.findById(contractId)).thenReturn(Optional.of(contract));
+
+        contractService.setContractStatusRejected(contractId);
+
+        verify(contractRepository, never()).save(any());
+    }
+
+    @Test
+    void setContractStatusAccepted_pendingContract_updatesStatusWithSingleStatement() {
 
         int contractId = 1;
-        Contract existingContract = Contract.builder().withId(contractId).withStatus(Status.PENDING).build();
 
-        when(contractRepository.findById(contractId)).thenReturn(Optional.of(existingContract));
+        when(contractRepository.updateStatusByIdAndStatus(contractId, Status.PENDING, Status.ACCEPTED)).thenReturn(1);
 
         contractService.setContractStatusAccepted(contractId);
 
-        assertEquals(Status.ACCEPTED, existingContract.getStatus());
-        verify(contractRepository, times(1)).findById(contractId);
-        verify(contractRepository, times(1)).save(existingContract);
+        verify(contractRepository, times(1)).updateStatusByIdAndStatus(contractId, Status.PENDING, Status.ACCEPTED);
+        verify(contractRepository, never()).findById(any());
+        verify(contractRepository, never()).save(any());
     }
 
     @Test
@@ -211,65 +298,181 @@ class ContractServiceImplTest {
 
         int contractId = 1;
 
+        when(contractRepository.updateStatusByIdAndStatus(contractId, Status.PENDING, Status.ACCEPTED)).thenReturn(0);
         when(contractRepository.findById(contractId)).thenReturn(Optional.empty());
 
         assertThrows(ContractNotFoundException.class, () -> contractService.setContractStatusAccepted(contractId));
-        verify(contractRepository, times(1)).findById(contractId);
         verify(contractRepository, never()).save(any());
     }
 
     @Test
-    void hasUserAcceptedContract_existingUserWithAcceptedContract_returnsTrue() {
+    void setContractStatusAccepted_rejectedContract_throwsStatusConflictException() {
+
+        int contractId = 2;
+        Contract contract = Contract.builder().withId(contractId).withUser(User.builder().withId(3).build())
+                .withStatus(Status.REJECTED).build();
+
+        when(contractRepository.updateStatusByIdAndStatus(contractId, Status.PENDING, Status.ACCEPTED)).thenReturn(0);
+        when(contractRepository.findById(contractId)).thenReturn(Optional.of(contract));
+
+        assertThrows(StatusConflictException.class, () -> contractService.setContractStatusAccepted(contractId));
+    }
+
+    @Test
+    void hasUserAcceptedContract_managerWithAcceptedContract_returnsTrue() {
 
-        String email = "test@example.com";
-        User existingUser = User.builder().withId(1).withEmail(email).build();
+        int managerId = 1;
 
-        when(userRepository.findUserByEmail(email)).thenReturn(Optional.of(existingUser));
-        when(contractRepository.findContractByUserIdAndStatusOrderById(existingUser.getId(), Status.ACCEPTED))
-                .thenReturn(List.of(new Contract()));
+        when(contractRepository.existsByUserIdAndStatus(managerId, Status.ACCEPTED)).thenReturn(true);
 
-        boolean result = contractService.hasUserAcceptedContract(email);
+        boolean result = contractService.hasUserAcceptedContract(managerId);
 
         assertTrue(result);
-        verify(userRepository, times(1)).findUserByEmail(email);
-        verify(contractRepository, times(1)).findContractByUserIdAndStatusOrderById(existingUser.getId(), Status.ACCEPTED);
+        verify(userRepository, never()).findById(any());
+        verify(contractRepository, times(1)).existsByUserIdAndStatus(managerId, Status.ACCEPTED);
     }
 
     @Test
-    void hasUserAcceptedContract_existingUserWithoutAcceptedContract_returnsFalse() {
+    void hasUserAcceptedContract_managerWithoutAcceptedContract_returnsFalse() {
 
-        String email = "test@example.com";
-        User existingUser = User.builder().withId(1).withEmail(email).build();
+        int managerId = 1;
 
-        when(userRepository.findUserByEmail(email)).thenReturn(Optional.of(existingUser));
-        when(contractRepository.findContractByUserIdAndStatusOrderById(existingUser.getId(), Status.ACCEPTED))
-                .thenReturn(Collections.emptyList());
+        when(contractRepository.existsByUserIdAndStatus(managerId, Status.ACCEPTED)).thenReturn(false);
 
-        boolean result = contractService.hasUserAcceptedContract(email);
+        boolean result = contractService.hasUserAcceptedContract(managerId);
 
         assertFalse(result);
-        verify(userRepository, times(1)).findUserByEmail(email);
-        verify(contractRepository, times(1)).findContractByUserIdAndStatusOrderById(existingUser.getId(), Status.ACCEPTED);
+        verify(contractRepository, times(1)).existsByUserIdAndStatus(managerId, Status.ACCEPTED);
+    }
+
+    @Test
+    void hasUserAcceptedContract_repeatedCall_returnsCachedFlag() {
+
+        int managerId = 1;
+
+        when(contractRepository.existsByUserIdAndStatus(managerId, Status.ACCEPTED)).thenReturn(true);
+
+        assertTrue(contractService.hasUserAcceptedContract(managerId));
+        assertTrue(contractService.hasUserAcceptedContract(managerId));
+
+        verify(contractRepository, times(1)).existsByUserIdAndStatus(managerId, Status.ACCEPTED);
+    }
+
+    @Test
+    void hasUserAcceptedContract_contractStatusChanged_returnsFreshFlag() {
+
+        int managerId = 2;
+        int contractId = 1;
+
+        when(contractRepository.existsByUserIdAndStatus(managerId, Status.ACCEPTED)).thenReturn(false, true);
+        when(contractRepository.updateStatusByIdAndStatus(contractId, Status.PENDING, Status.ACCEPTED)).thenReturn(1);
+
+        assertFalse(contractService.hasUserAcceptedContract(managerId));
+
+        contractService.setContractStatusAccepted(contractId);
+
+        assertTrue(contractService.hasUserAcceptedContract(managerId));
+        verify(contractRepository, times(2)).existsByUserIdAndStatus(managerId, Status.ACCEPTED);
+    }
+
+    @Test
+    void hasUserAcceptedContract_repeatedCallWithoutAcceptedContract_expectedReadEveryTime() {
+
+        when(contractRepository.existsByUserIdAndStatus(2, Status.ACCEPTED)).thenReturn(false, false, true);
+
+        assertFalse(contractService.hasUserAcceptedContract(2));
+        assertFalse(contractService.hasUserAcceptedContract(2));
+        // accepted through another node
+        assertTrue(contractService.hasUserAcceptedContract(2));
+        verify(contractRepository, times(3)).existsByUserIdAndStatus(2, Status.ACCEPTED);
+    }
+
+    @Test
+    void hasUserAcceptedContract_flagExpired_expectedReadAgain() {
+
+        ContractServiceImpl service = newService(0, 100);
+
+        when(contractRepository.existsByUserIdAndStatus(2, Status.ACCEPTED)).thenReturn(true, false);
+
+        assertTrue(service.hasUserAcceptedContract(2));
+        // the contract was deleted through another node
+        assertFalse(service.hasUserAcceptedContract(2));
     }
 
     @Test
-    void hasUserAcceptedContract_nonExistingUser_throwsUserNotFoundException() {
+    void hasUserAcceptedContract_moreManagersThanMaxSize_expectedFlagsDroppedAndReadAgain() {
+
+        ContractServiceImpl service = newService(60, 2);
 
-        String email = "test@example.com";
+        when(contractRepository.existsByUserIdAndStatus(anyInt(), eq(Status.ACCEPTED))).thenReturn(true);
 
-        when(userRepository.findUserByEmail(email)).thenReturn(Optional.empty());
+        for (int managerId = 1; managerId <= 3; managerId++) {
+            assertTrue(service.hasUserAcceptedContract(managerId));
+        }
 
-        assertThrows(UserNotFoundException.class, () -> contractService.hasUserAcceptedContract(email));
+        assertTrue(service.hasUserAcceptedContract(3));
+        assertTrue(service.hasUserAcceptedContract(1));
+        verify(contractRepository, times(1)).existsByUserIdAndStatus(3, Status.ACCEPTED);
+        verify(contractRepository, times(2)).existsByUserIdAndStatus(1, Status.ACCEPTED);
     }
 
     @Test
     void deleteContractById_existingContract_deletesContract() {
 
         int contractId = 1;
+        Contract contract = Contract.builder().withId(contractId).withUser(User.builder().withId(2).build()).build();
+
+        when(contractRepository.findById(contractId)).thenReturn(Optional.of(contract));
 
         contractService.deleteContractById(contractId);
 
         verify(contractRepository, times(1)).deleteById(contractId);
     }
 
+    @Test
+    void exportAcceptedContracts_moreRowsThanFetchSize_expectedAllRowsMappedAndPersistenceContextCleared() {
+
+        List<Contract> contracts = new ArrayList<>();
+        for (int id = 1; id <= 501; id++) {
+            contracts.add(Contract.builder().withId(id).withStatus(Status.ACCEPTED).build());
+        }
+
+        when(contractRepository.streamContractsByStatusOrderById(Status.ACCEPTED)).thenReturn(contracts.stream());
+        when(mapper.toResponse(any(Contract.class))).thenAnswer(invocation ->
+                ContractResponse.builder().withId(invocation.<Contract>getArgument(0).getId()).build());
+
+        List<ContractResponse> exported = new ArrayList<>();
+
+        contractService.exportAcceptedContracts(exported::add);
+
+        assertEquals(501, exported.size());
+        assertEquals(1, exported.get(0).getId());
+        assertEquals(501, exported.get(500).getId());
+
+        verify(entityManager, times(1)).clear();
+    }
+
+    @Test
+    void exportAcceptedContracts_exportFinished_expectedStreamClosed() {
+
+        boolean[] closed = {false};
+
+        when(contractRepository.streamContractsByStatusOrderById(Status.ACCEPTED))
+                .thenReturn(Stream.<Contract>empty().onClose(() -> closed[0] = true));
+
+        contractService.exportAcceptedContracts(contract -> {});
+
+        assertTrue(closed[0]);
+        verify(entityManager, never()).clear();
+    }
+
+    private static ContractView contractView(int id) {
+        return new SpelAwareProxyProjectionFactory().createProjection(ContractView.class, Map.of("id", id));
+    }
+
+    private ContractServiceImpl newService(long acceptedFlagTtlSeconds, int acceptedFlagsMaxSize) {
+        return new ContractServiceImpl(contractRepository, userRepository, mapper, entityManager,
+                acceptedFlagTtlSeconds, acceptedFlagsMaxSize);
+    }
+
 }
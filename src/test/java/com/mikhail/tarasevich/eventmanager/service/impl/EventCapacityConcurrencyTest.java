@@ -0,0 +1,230 @@
+package com.mikhail.tarasevich.eventmanager.service.impl;
+
+import com.mikhail.tarasevich.eventmanager.config.SpringTestConfig;
+import com.mikhail.tarasevich.eventmanager.dto.EventRequest;
+import com.mikhail.tarasevich.eventmanager.dto.UserEventParticipationRequest;
+import com.mikhail.tarasevich.eventmanager.dto.UserEventParticipationStatusRequest;
+import com.mikhail.tarasevich.eventmanager.service.EventService;
+import com.mikhail.tarasevich.eventmanager.service.UserEventParticipationService;
+import com.mikhail.tarasevich.eventmanager.service.exception.EventSoldOutException;
+import com.mikhail.tarasevich.eventmanager.util.Status;
+import com.mikhail.tarasevich.eventmanager.util.StatusChangeOutcome;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * A flash crowd of acceptances for one event with few seats. Requests are accepted one by one and in bulk from
+ * many threads at once, the event must end up with exactly as many accepted participants as it has seats. Later
+ * registrations join the waitlist and get the seats participants give up.
+ */
+@SpringBootTest(classes = SpringTestConfig.class)
+@Sql(scripts = {"classpath:sql/schema.sql", "classpath:sql/data.sql"},
+        executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class EventCapacityConcurrencyTest {
+
+    private static final int MANAGER_ID = 4;
+
+    private static final int CAPACITY = 50;
+
+    private static final int REQUESTS = 2000;
+
+    private static final int CHUNK_SIZE = 10;
+
+    private static final int THREADS = 32;
+
+    // ids far above the ones the pooled sequences hand out
+    private static final int FIRST_ID = 500_000;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private UserEventParticipationService uepService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void setUserEventParticipationsStatusAccepted_flashCrowd_expectedNoOversell() throws Exception {
+
+        int eventId = eventService.createNewEvent(MANAGER_ID, EventRequest.builder()
+                .withName("Flash crowd")
+                .withDescription("Sold out in seconds")
+                .withPrice(100)
+                .withCapacity(CAPACITY)
+                .build()).getId();
+
+        List<Integer> ids = addPendingRequests(eventId);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+
+        try {
+            for (int from = 0; from < REQUESTS; from += CHUNK_SIZE) {
+                List<Integer> chunk = ids.subList(from, from + CHUNK_SIZE);
+                boolean bulk = from / CHUNK_SIZE % 2 == 0;
+
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return bulk ? acceptInBulk(chunk) : acceptOneByOne(chunk);
+                }));
+            }
+
+            start.countDown();
+
+            int accepted = 0;
+
+            for (Future<Integer> future : futures) {
+                accepted += future.get(60, TimeUnit.SECONDS);
+            }
+
+            assertEquals(CAPACITY, accepted);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(CAPACITY, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_event_participations " +
+                "WHERE event_id = ? AND status = 'ACCEPTED'", Integer.class, eventId));
+        assertEquals(REQUESTS - CAPACITY, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_event_participations " +
+                "WHERE event_id = ? AND status = 'PENDING'", Integer.class, eventId));
+        assertEquals(CAPACITY, jdbcTemplate.queryForObject("SELECT accepted FROM event_seats WHERE event_id = ?",
+                Integer.class, eventId));
+
+        UserEventParticipationRequest lateRequest = UserEventParticipationRequest.builder()
+                .withEventId(eventId)
+                .withFio("Late Participant")
+                .withAge(30)
+                .withCovidPassportNumber(1)
+                .build();
+
+        int lateId = uepService.createUserEventParticipation(5, lateRequest).getId();
+
+        assertEquals("WAITLISTED", jdbcTemplate.queryForObject("SELECT status FROM user_event_participations " +
+                "WHERE id = ?", String.class, lateId));
+
+        uepService.deleteUserEventParticipationsByIdForAdmin(jdbcTemplate.queryForObject("SELECT MIN(id) FROM " +
+                "user_event_participations WHERE event_id = ? AND status = 'ACCEPTED'", Integer.class, eventId));
+
+        assertEquals("ACCEPTED", jdbcTemplate.queryForObject("SELECT status FROM user_event_participations " +
+                "WHERE id = ?", String.class, lateId));
+        assertEquals(CAPACITY, jdbcTemplate.queryForObject("SELECT accepted FROM event_seats WHERE event_id = ?",
+                Integer.class, eventId));
+    }
+
+    @Test
+    void deleteUserEventParticipationsById_concurrentWithdrawals_expectedOldestWaitlistedPromotedOnce() throws Exception {
+
+        int capacity = 20;
+        int waitlisted = 30;
+
+        int eventId = eventService.createNewEvent(MANAGER_ID, EventRequest.builder()
+                .withName("Waitlist")
+                .withDescription("Seats change hands")
+                .withPrice(100)
+                .withCapacity(capacity)
+                .build()).getId();
+
+        List<Integer> ids = IntStream.range(FIRST_ID, FIRST_ID + capacity + waitlisted).boxed().collect(Collectors.toList());
+        LocalDateTime now = LocalDateTime.now();
+
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, email, password, role_id) VALUES (?, ?, '1111', 3)",
+                ids.stream().map(id -> new Object[]{id, "crowd" + id + "@example.com"}).collect(Collectors.toList()));
+        // the first ones are accepted, the rest joined the waitlist latest id first
+        jdbcTemplate.batchUpdate("INSERT INTO user_event_participations (id, user_id, event_id, status, fio, age, " +
+                        "covid_passport_number, waitlisted_at) VALUES (?, ?, ?, ?, 'Participant', 30, ?, ?)",
+                ids.stream().map(id -> id - FIRST_ID < capacity
+                                ? new Object[]{id, id, eventId, "ACCEPTED", id, null}
+                                : new Object[]{id, id, eventId, "WAITLISTED", id, now.minusSeconds(id - FIRST_ID)})
+                        .collect(Collectors.toList()));
+        jdbcTemplate.update("UPDATE event_seats SET accepted = ? WHERE event_id = ?", capacity, eventId);
+
+        ExecutorService executor = Executors.newFixedThreadPool(capacity);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for (int id : ids.subList(0, capacity)) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    uepService.deleteUserEventParticipationsById(id, id);
+                    return null;
+                }));
+            }
+
+            start.countDown();
+
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<Integer> oldestWaitlisted = ids.subList(ids.size() - capacity, ids.size());
+
+        assertEquals(oldestWaitlisted, jdbcTemplate.queryForList("SELECT id FROM user_event_participations " +
+                "WHERE event_id = ? AND status = 'ACCEPTED' ORDER BY id", Integer.class, eventId));
+        assertEquals(waitlisted - capacity, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_event_participations " +
+                "WHERE event_id = ? AND status = 'WAITLISTED'", Integer.class, eventId));
+        assertEquals(capacity, jdbcTemplate.queryForObject("SELECT accepted FROM event_seats WHERE event_id = ?",
+                Integer.class, eventId));
+    }
+
+    private int acceptInBulk(List<Integer> chunk) {
+
+        return (int) uepService.setUserEventParticipationsStatus(MANAGER_ID, UserEventParticipationStatusRequest.builder()
+                        .withIds(chunk)
+                        .withStatus(Status.ACCEPTED)
+                        .build())
+                .getOutcomes().values().stream()
+                .filter(outcome -> outcome == StatusChangeOutcome.UPDATED)
+                .count();
+    }
+
+    private int acceptOneByOne(List<Integer> chunk) {
+
+        int accepted = 0;
+
+        for (int id : chunk) {
+            try {
+                uepService.setUserEventParticipationsStatusAccepted(MANAGER_ID, id);
+                accepted++;
+            } catch (EventSoldOutException e) {
+                // the event is full, the request stays pending
+            }
+        }
+
+        return accepted;
+    }
+
+    private List<Integer> addPendingRequests(int eventId) {
+
+        List<Integer> ids = IntStream.range(FIRST_ID, FIRST_ID + REQUESTS).boxed().collect(Collectors.toList());
+
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, email, password, role_id) VALUES (?, ?, '1111', 3)",
+                ids.stream().map(id -> new Object[]{id, "crowd" + id + "@example.com"}).collect(Collectors.toList()));
+        jdbcTemplate.batchUpdate("INSERT INTO user_event_participations (id, user_id, event_id, status, fio, age, " +
+                        "covid_passport_number) VALUES (?, ?, ?, 'PENDING', 'Participant', 30, ?)",
+                ids.stream().map(id -> new Object[]{id, id, eventId, id}).collect(Collectors.toList()));
+
+        return ids;
+    }
+
+}
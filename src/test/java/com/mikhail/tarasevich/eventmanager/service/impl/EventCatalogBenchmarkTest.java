@@ -0,0 +1,269 @@
+package com.mikhail.tarasevich.eventmanager.service.impl;
+
+import com.mikhail.tarasevich.eventmanager.config.SpringTestConfig;
+import com.mikhail.tarasevich.eventmanager.dto.EventCatalogRequest;
+import com.mikhail.tarasevich.eventmanager.dto.PageResponse;
+import com.mikhail.tarasevich.eventmanager.dto.PublicEventResponse;
+import com.mikhail.tarasevich.eventmanager.service.EventService;
+import com.mikhail.tarasevich.eventmanager.util.EventCatalogSort;
+import db.migration.V8__add_event_catalog_indexes;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.api.migration.Context;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A million synthetic events browsed with every combination of catalog filters and every order. The catalog
+ * indexes are created by the V8 migration, not by the test schema. Each combination reads its first page and,
+ * when there is one, the page after it. The test logs the average time of both pages and checks the plans of the
+ * statements Hibernate generated: none is a table scan, and the index each one uses serves its filter or order.
+ * Filling the table takes a while and about 2 GB of heap, so it only runs on demand:
+ * mvn test -Dtest=EventCatalogBenchmarkTest -Dcatalog_benchmark=true -DargLine=-Xmx3g
+ */
+@SpringBootTest(classes = SpringTestConfig.class)
+@EnabledIfSystemProperty(named = "catalog_benchmark", matches = "true")
+@Sql(scripts = {"classpath:sql/schema.sql", "classpath:sql/data.sql"},
+        executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class EventCatalogBenchmarkTest {
+
+    private static final int EVENTS = 1_000_000;
+
+    private static final int OWNERS = 1000;
+
+    private static final int MAX_PRICE = 10_000;
+
+    private static final int INSERT_BATCH_SIZE = 10_000;
+
+    private static final int REPETITIONS = 20;
+
+    // ids far above the ones the pooled sequences hand out
+    private static final int FIRST_ID = 500_000;
+
+    private static final int MIN_PRICE = 1000;
+
+    private static final int MAX_FILTER_PRICE = 2999;
+
+    private static final int OWNER_ID = FIRST_ID + 3;
+
+    private static final String NAME_PREFIX = "Qa";
+
+    private static final int FILTERS = 3;
+
+    private static final int PRICE_FILTER = 1;
+
+    private static final int OWNER_FILTER = 2;
+
+    private static final int NAME_FILTER = 4;
+
+    // H2 reads indexes in one direction only, these are the ones V8 adds for each order
+    private static final Map<EventCatalogSort, String> ORDER_INDEXES = Map.of(
+            EventCatalogSort.NEWEST, "IDX_EVENTS_ID_DESC",
+            EventCatalogSort.PRICE_ASC, "IDX_EVENTS_PRICE_ID",
+            EventCatalogSort.PRICE_DESC, "IDX_EVENTS_PRICE_DESC_ID_DESC");
+
+    private static final Pattern OWNER_INDEX_ACCESS = Pattern.compile("/\\* PUBLIC\\.\\w+: USER_ID = " + OWNER_ID + "\\b");
+
+    private static final Logger log = LoggerFactory.getLogger(EventCatalogBenchmarkTest.class);
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void findCatalogEvents_millionEvents_expectedEveryCombinationIndexBacked() {
+
+        addCatalogIndexes();
+        addEvents();
+
+        jdbcTemplate.execute("ANALYZE");
+        jdbcTemplate.execute("SET QUERY_STATISTICS TRUE");
+
+        try {
+            log.info(String.format(Locale.ROOT, "%-30s %-10s %12s %12s", "filters", "sort", "first, ms", "next, ms"));
+
+            Set<String> checked = new HashSet<>();
+
+            for (int filters = 0; filters < 1 << FILTERS; filters++) {
+                for (EventCatalogSort sort : EventCatalogSort.values()) {
+                    measure(filters, sort);
+
+                    List<String> statements = catalogStatements();
+                    statements.removeAll(checked);
+
+                    // the first page and, when there is one, the next page
+                    assertFalse(statements.isEmpty());
+
+                    for (String sql : statements) {
+                        assertPlan(filters, sort, jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class));
+                    }
+
+                    checked.addAll(statements);
+                }
+            }
+        } finally {
+            jdbcTemplate.execute("SET QUERY_STATISTICS FALSE");
+        }
+    }
+
+    private static void assertPlan(int filters, EventCatalogSort sort, String plan) {
+
+        String combination = describe(filters) + " by " + sort;
+
+        assertFalse(plan.contains("tableScan"), () -> combination + " is executed with a table scan: " + plan);
+
+        if ((filters & OWNER_FILTER) != 0) {
+            // the events of one owner are few enough to be sorted
+            assertTrue(OWNER_INDEX_ACCESS.matcher(plan).find(),
+                    () -> combination + " doesn't read the events by an index on the owner: " + plan);
+        } else if ((filters & PRICE_FILTER) == 0 || sort != EventCatalogSort.NEWEST) {
+            String index = ORDER_INDEXES.get(sort);
+
+            assertTrue(plan.contains("/* PUBLIC." + index), () -> combination + " doesn't use " + index + ": " + plan);
+            assertTrue(plan.contains("/* index sorted */"), () -> combination + " sorts the events: " + plan);
+        }
+        // a price range by NEWEST has no index of its own, see V8__add_event_catalog_indexes
+    }
+
+    private List<String> catalogStatements() {
+
+        return jdbcTemplate.queryForList("SELECT SQL_STATEMENT FROM INFORMATION_SCHEMA.QUERY_STATISTICS",
+                        String.class).stream()
+                .filter(sql -> sql.trim().toLowerCase(Locale.ROOT).startsWith("select") && sql.contains("events"))
+                .collect(Collectors.toList());
+    }
+
+    // the tables are created by the test schema, the indexes of the catalog by the migration that adds them
+    private void addCatalogIndexes() {
+
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            new V8__add_event_catalog_indexes().migrate(new Context() {
+                @Override
+                public Configuration getConfiguration() {
+                    return Flyway.configure();
+                }
+
+                @Override
+                public Connection getConnection() {
+                    return connection;
+                }
+            });
+            return null;
+        });
+    }
+
+    private void measure(int filters, EventCatalogSort sort) {
+
+        EventCatalogRequest request = EventCatalogRequest.builder()
+                .withMinPrice((filters & PRICE_FILTER) != 0 ? MIN_PRICE : null)
+                .withMaxPrice((filters & PRICE_FILTER) != 0 ? MAX_FILTER_PRICE : null)
+                .withOwnerId((filters & OWNER_FILTER) != 0 ? OWNER_ID : null)
+                .withNamePrefix((filters & NAME_FILTER) != 0 ? NAME_PREFIX : null)
+                .withSort(sort)
+                .withLimit(50)
+                .build();
+
+        PageResponse<PublicEventResponse> firstPage = eventService.findCatalogEvents(request);
+        Integer nextCursor = firstPage.getNextCursor();
+
+        if (nextCursor != null) {
+            request.setAfterPrice(firstPage.getContent().get(firstPage.getContent().size() - 1).getPrice());
+        }
+
+        long firstNanos = 0;
+        long nextNanos = 0;
+
+        for (int i = 0; i < REPETITIONS; i++) {
+            request.setAfter(null);
+
+            long startedAt = System.nanoTime();
+            eventService.findCatalogEvents(request);
+            firstNanos += System.nanoTime() - startedAt;
+
+            if (nextCursor != null) {
+                request.setAfter(nextCursor);
+
+                startedAt = System.nanoTime();
+                eventService.findCatalogEvents(request);
+                nextNanos += System.nanoTime() - startedAt;
+            }
+        }
+
+        log.info(String.format(Locale.ROOT, "%-30s %-10s %12.2f %12s", describe(filters), sort, millis(firstNanos),
+                nextCursor != null ? String.format(Locale.ROOT, "%.2f", millis(nextNanos)) : "-"));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) REPETITIONS / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private static String describe(int filters) {
+
+        List<String> names = new ArrayList<>();
+
+        if ((filters & PRICE_FILTER) != 0) {
+            names.add("price");
+        }
+
+        if ((filters & OWNER_FILTER) != 0) {
+            names.add("owner");
+        }
+
+        if ((filters & NAME_FILTER) != 0) {
+            names.add("name prefix");
+        }
+
+        return names.isEmpty() ? "none" : String.join(", ", names);
+    }
+
+    private void addEvents() {
+
+        Random random = new Random(42);
+
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, email, password, role_id) VALUES (?, ?, '1111', 2)",
+                IntStream.range(FIRST_ID, FIRST_ID + OWNERS)
+                        .mapToObj(id -> new Object[]{id, "owner" + id + "@example.com"})
+                        .collect(Collectors.toList()));
+
+        for (int from = 0; from < EVENTS; from += INSERT_BATCH_SIZE) {
+            List<Object[]> rows = new ArrayList<>(INSERT_BATCH_SIZE);
+
+            for (int id = FIRST_ID + from; id < FIRST_ID + from + INSERT_BATCH_SIZE; id++) {
+                // two letters give 676 name prefixes of about 1500 events each
+                String name = "" + (char) ('A' + random.nextInt(26)) + (char) ('a' + random.nextInt(26)) + " event " + id;
+
+                rows.add(new Object[]{id, FIRST_ID + random.nextInt(OWNERS), name, "Synthetic event " + id,
+                        1 + random.nextInt(MAX_PRICE)});
+            }
+
+            jdbcTemplate.batchUpdate("INSERT INTO events (id, user_id, name, description, price) VALUES (?, ?, ?, ?, ?)",
+                    rows);
+        }
+    }
+
+}
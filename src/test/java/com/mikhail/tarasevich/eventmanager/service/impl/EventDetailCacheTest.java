@@ -0,0 +1,179 @@
+package com.mikhail.tarasevich.eventmanager.service.impl;
+
+import com.mikhail.tarasevich.eventmanager.dto.PublicEventResponse;
+import com.mikhail.tarasevich.eventmanager.service.exception.EventNotFoundException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EventDetailCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final IntFunction<PublicEventResponse> loader = id -> {
+        loads.incrementAndGet();
+        return event(id, 2);
+    };
+
+    @Test
+    void get_concurrentMisses_expectedOneLoad() throws Exception {
+
+        EventDetailCache cache = new EventDetailCache(100, 30);
+
+        int threads = 32;
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        IntFunction<PublicEventResponse> slowLoader = id -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return loader.apply(id);
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            List<Future<PublicEventResponse>> results = new ArrayList<>();
+
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    ready.countDown();
+                    start.await();
+                    return cache.get(1, slowLoader);
+                }));
+            }
+
+            ready.await();
+            start.countDown();
+            // a thread reaching the cache after the load has finished gets the cached event, still without a load
+            Thread.sleep(100);
+            release.countDown();
+
+            PublicEventResponse first = results.get(0).get(10, TimeUnit.SECONDS);
+
+            for (Future<PublicEventResponse> result : results) {
+                assertSame(first, result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_loadFails_expectedFailureNotCached() {
+
+        EventDetailCache cache = new EventDetailCache(100, 30);
+
+        assertThrows(EventNotFoundException.class, () -> cache.get(1, id -> {
+            throw new EventNotFoundException("There is no event with id = " + id + " in DB");
+        }));
+
+        assertEquals(1, cache.get(1, loader).getId());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void invalidate_eventDeletedDuringLoad_expectedLoadedEventNotCached() {
+
+        EventDetailCache cache = new EventDetailCache(100, 30);
+
+        cache.get(1, id -> {
+            cache.invalidate(List.of(id));
+            return loader.apply(id);
+        });
+        cache.get(1, loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidate_cachedEvent_expectedLoadedAgain() {
+
+        EventDetailCache cache = new EventDetailCache(100, 30);
+
+        cache.get(1, loader);
+        cache.get(2, loader);
+        cache.invalidate(List.of(1));
+        cache.get(1, loader);
+        cache.get(2, loader);
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void invalidateOwnedBy_eventsOfSeveralOwners_expectedOnlyTheirEventsDropped() {
+
+        EventDetailCache cache = new EventDetailCache(100, 30);
+
+        cache.get(1, id -> event(id, 2));
+        cache.get(2, id -> event(id, 3));
+        cache.get(3, id -> event(id, 4));
+
+        cache.invalidateOwnedBy(List.of(2, 4));
+
+        assertEquals(1, cache.size());
+        assertEquals(3, cache.get(2, loader).getOwnerId());
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    void get_moreEventsThanMaxSize_expectedLeastRecentlyUsedDropped() {
+
+        EventDetailCache cache = new EventDetailCache(2, 30);
+
+        cache.get(1, loader);
+        cache.get(2, loader);
+        cache.get(1, loader);
+        cache.get(3, loader);
+
+        assertEquals(2, cache.size());
+
+        cache.get(1, loader);
+        assertEquals(3, loads.get());
+
+        cache.get(2, loader);
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void get_zeroTtl_expectedEveryCallLoads() {
+
+        EventDetailCache cache = new EventDetailCache(100, 0);
+
+        cache.get(1, loader);
+        cache.get(1, loader);
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+    }
+
+    private static PublicEventResponse event(int id, int ownerId) {
+
+        return PublicEventResponse.builder()
+                .withId(id)
+                .withOwnerId(ownerId)
+                .withName("Event " + id)
+                .withDescription("Description")
+                .withPrice(100)
+                .build();
+    }
+
+}
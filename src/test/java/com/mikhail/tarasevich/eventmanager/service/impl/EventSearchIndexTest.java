@@ -0,0 +1,150 @@
+package com.mikhail.tarasevich.eventmanager.service.impl;
+
+import com.mikhail.tarasevich.eventmanager.repository.EventRepository;
+import com.mikhail.tarasevich.eventmanager.repository.projection.EventSearchView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EventSearchIndexTest {
+
+    @Mock
+    private EventRepository eventRepository;
+
+    private EventSearchIndex searchIndex;
+
+    @BeforeEach
+    void setup() {
+
+        searchIndex = new EventSearchIndex(eventRepository);
+
+        searchIndex.add(1, "Jazz concert", "An evening of jazz standards");
+        searchIndex.add(2, "Rock concert", "Guitars, drums and a little jazz");
+        searchIndex.add(3, "Лекция о джазе", "История джаза, концерт после лекции");
+    }
+
+    @Test
+    void terms_textWithPunctuationAndCase_expectedLowerCaseWords() {
+
+        assertEquals(List.of("jazz", "concert", "2023", "концерт"), EventSearchIndex.terms("Jazz-concert (2023): КОНЦЕРТ!"));
+        assertTrue(EventSearchIndex.terms(" , - ").isEmpty());
+    }
+
+    @Test
+    void search_termInNameAndDescription_expectedNameMatchFirst() {
+
+        assertEquals(List.of(1, 2), searchIndex.search(List.of("jazz"), 0, 10));
+    }
+
+    @Test
+    void search_severalTerms_expectedEventsHavingEveryTerm() {
+
+        assertEquals(List.of(1, 2), searchIndex.search(List.of("jazz", "concert"), 0, 10));
+        assertEquals(List.of(2), searchIndex.search(List.of("rock", "jazz"), 0, 10));
+        assertEquals(List.of(3), searchIndex.search(List.of("концерт"), 0, 10));
+        assertTrue(searchIndex.search(List.of("rock", "opera"), 0, 10).isEmpty());
+    }
+
+    @Test
+    void search_offsetAndCount_expectedPartOfRanking() {
+
+        IntStream.rangeClosed(10, 29).forEach(id -> searchIndex.add(id, "Talk " + id, "talk ".repeat(id)));
+
+        List<Integer> ranking = searchIndex.search(List.of("talk"), 0, 100);
+
+        assertEquals(20, ranking.size());
+        assertEquals(29, ranking.get(0));
+        assertEquals(ranking.subList(5, 10), searchIndex.search(List.of("talk"), 5, 5));
+        assertTrue(searchIndex.search(List.of("talk"), 20, 5).isEmpty());
+    }
+
+    @Test
+    void add_eventIndexedAgain_expectedOldTermsReplaced() {
+
+        searchIndex.add(2, "Opera night", "Arias");
+
+        assertEquals(List.of(1), searchIndex.search(List.of("jazz"), 0, 10));
+        assertEquals(List.of(2), searchIndex.search(List.of("opera"), 0, 10));
+    }
+
+    @Test
+    void remove_indexedEvents_expectedNotFound() {
+
+        searchIndex.remove(List.of(1, 3));
+
+        assertEquals(List.of(2), searchIndex.search(List.of("concert"), 0, 10));
+        assertTrue(searchIndex.search(List.of("концерт"), 0, 10).isEmpty());
+    }
+
+    @Test
+    void rebuild_eventsInDb_expectedIndexReadInBatches() {
+
+        List<EventSearchView> firstBatch = IntStream.rangeClosed(1, 1000)
+                .mapToObj(id -> searchView(id, "Event " + id))
+                .collect(Collectors.toList());
+
+        when(eventRepository.findEventSearchViewsByIdGreaterThan(0, PageRequest.of(0, 1000))).thenReturn(firstBatch);
+        when(eventRepository.findEventSearchViewsByIdGreaterThan(1000, PageRequest.of(0, 1000)))
+                .thenReturn(List.of(searchView(1001, "Jazz festival")));
+
+        searchIndex.rebuild();
+
+        assertEquals(List.of(1001), searchIndex.search(List.of("jazz"), 0, 10));
+        assertEquals(1000, searchIndex.search(List.of("event"), 0, 2000).size());
+    }
+
+    @Test
+    void rebuild_searchesAndChangesWhileReading_expectedOldIndexSearchedAndChangesKept() {
+
+        when(eventRepository.findEventSearchViewsByIdGreaterThan(0, PageRequest.of(0, 1000))).thenAnswer(invocation -> {
+            // the index isn't emptied while the events are read
+            assertEquals(List.of(1, 2), searchIndex.search(List.of("jazz"), 0, 10));
+
+            searchIndex.add(4, "Jazz brunch", "Description");
+            searchIndex.remove(List.of(2));
+
+            // the events were read before the changes were committed
+            return List.of(searchView(1, "Jazz concert"), searchView(2, "Rock concert"));
+        });
+
+        searchIndex.rebuild();
+
+        assertEquals(List.of(1, 4), searchIndex.search(List.of("jazz"), 0, 10));
+        assertEquals(List.of(1), searchIndex.search(List.of("concert"), 0, 10));
+        assertTrue(searchIndex.search(List.of("концерт"), 0, 10).isEmpty());
+    }
+
+    @Test
+    void rebuild_readFails_expectedOldIndexKept() {
+
+        when(eventRepository.findEventSearchViewsByIdGreaterThan(0, PageRequest.of(0, 1000)))
+                .thenThrow(new IllegalStateException("DB is down"));
+
+        assertThrows(IllegalStateException.class, () -> searchIndex.rebuild());
+
+        searchIndex.add(4, "Jazz brunch", "Description");
+
+        assertEquals(List.of(1, 4, 2), searchIndex.search(List.of("jazz"), 0, 10));
+    }
+
+    private static EventSearchView searchView(int id, String name) {
+        return new SpelAwareProxyProjectionFactory().createProjection(EventSearchView.class,
+                Map.of("id", id, "name", name, "description", "Description"));
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.mikhail.tarasevich.eventmanager.service.impl;
+
+import com.mikhail.tarasevich.eventmanager.repository.EventSeatsRepository;
+import com.mikhail.tarasevich.eventmanager.repository.UserEventParticipationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EventSeatRegistryTest {
+
+    @InjectMocks
+    private EventSeatRegistry seatRegistry;
+
+    @Mock
+    private EventSeatsRepository eventSeatsRepository;
+
+    @Mock
+    private UserEventParticipationRepository uepRepository;
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void isSoldOut_fullEventFoundInRolledBackTransaction_expectedNotRemembered() {
+
+        when(eventSeatsRepository.findAcceptedByEventId(1)).thenReturn(Optional.of(10));
+
+        TransactionSynchronizationManager.initSynchronization();
+        assertTrue(seatRegistry.isSoldOut(1, 10));
+        // not full to other requests before the transaction commits
+        assertTrue(seatRegistry.isSoldOut(1, 10));
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertTrue(seatRegistry.isSoldOut(1, 10));
+
+        verify(eventSeatsRepository, times(3)).findAcceptedByEventId(1);
+    }
+
+    @Test
+    void isSoldOut_fullEventFoundInCommittedTransaction_expectedRemembered() {
+
+        when(eventSeatsRepository.findAcceptedByEventId(1)).thenReturn(Optional.of(10));
+
+        TransactionSynchronizationManager.initSynchronization();
+        assertTrue(seatRegistry.isSoldOut(1, 10));
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertTrue(seatRegistry.isSoldOut(1, 10));
+        assertTrue(seatRegistry.isSoldOut(1, 10));
+
+        verify(eventSeatsRepository, times(1)).findAcceptedByEventId(1);
+    }
+
+    private static void complete(int status) {
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        for (TransactionSynchronization synchronization : synchronizations) {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                synchronization.afterCommit();
+            }
+            synchronization.afterCompletion(status);
+        }
+    }
+
+}
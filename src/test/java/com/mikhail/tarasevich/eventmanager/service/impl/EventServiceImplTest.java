@@ -1,37 +1,65 @@
 package com.mikhail.tarasevich.eventmanager.service.impl;
 
+import com.mikhail.tarasevich.eventmanager.dto.EventCatalogRequest;
+import com.mikhail.tarasevich.eventmanager.dto.EventImportError;
+import com.mikhail.tarasevich.eventmanager.dto.EventImportResponse;
 import com.mikhail.tarasevich.eventmanager.dto.EventRequest;
 import com.mikhail.tarasevich.eventmanager.dto.EventResponse;
-import com.mikhail.tarasevich.eventmanager.entity.Contract;
+import com.mikhail.tarasevich.eventmanager.dto.PageResponse;
+import com.mikhail.tarasevich.eventmanager.dto.PublicEventResponse;
 import com.mikhail.tarasevich.eventmanager.entity.Event;
+import com.mikhail.tarasevich.eventmanager.entity.EventSeats;
 import com.mikhail.tarasevich.eventmanager.entity.User;
 import com.mikhail.tarasevich.eventmanager.repository.EventRepository;
+import com.mikhail.tarasevich.eventmanager.repository.EventSeatsRepository;
 import com.mikhail.tarasevich.eventmanager.repository.UserEventParticipationRepository;
 import com.mikhail.tarasevich.eventmanager.repository.UserRepository;
+import com.mikhail.tarasevich.eventmanager.repository.projection.EventCatalogView;
+import com.mikhail.tarasevich.eventmanager.repository.projection.EventView;
+import com.mikhail.tarasevich.eventmanager.service.ContractService;
 import com.mikhail.tarasevich.eventmanager.service.exception.AuthorizationException;
 import com.mikhail.tarasevich.eventmanager.service.exception.DataBaseException;
 import com.mikhail.tarasevich.eventmanager.service.exception.EventNotFoundException;
 import com.mikhail.tarasevich.eventmanager.service.exception.IncorrectRequestDataException;
 import com.mikhail.tarasevich.eventmanager.service.exception.UserNotFoundException;
 import com.mikhail.tarasevich.eventmanager.service.mapper.EventMapper;
-import com.mikhail.tarasevich.eventmanager.util.Status;
+import com.mikhail.tarasevich.eventmanager.util.EventCatalogSort;
+import com.mikhail.tarasevich.eventmanager.util.EventImportReader;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -43,28 +71,43 @@ class EventServiceImplTest {
     @Mock
     private EventRepository eventRepository;
 
+    @Mock
+    private EventSeatsRepository eventSeatsRepository;
+
+    @Mock
+    private EventSearchIndex searchIndex;
+
+    @Spy
+    private EventDetailCache eventCache = new EventDetailCache(100, 30);
+
     @Mock
     private UserRepository userRepository;
 
     @Mock
     private UserEventParticipationRepository userEventParticipationRepository;
 
+    @Mock
+    private ContractService contractService;
+
     @Mock
     private EventMapper mapper;
 
-    @Test
-    void findAllManagerEvents_existingUserWithEmail_returnsEventResponseList() {
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
 
-        String email = "test@example.com";
-        User existingUser = User.builder().withId(1).withEmail(email).build();
+    @Test
+    void findAllManagerEvents_existingManagerId_returnsEventResponseList() {
 
-        when(userRepository.findUserByEmail(email)).thenReturn(Optional.of(existingUser));
+        int managerId = 1;
 
-        Event event1 = Event.builder().withId(1).build();
-        Event event2 = Event.builder().withId(2).build();
-        List<Event> events = List.of(event1, event2);
+        EventView event1 = eventView(1);
+        EventView event2 = eventView(2);
+        List<EventView> events = List.of(event1, event2);
 
-        when(eventRepository.findEventsByUserIdOrderById(existingUser.getId())).thenReturn(events);
+        when(eventRepository.findEventViewsByUserIdAndIdGreaterThan(managerId, 0, PageRequest.of(0, 51))).thenReturn(events);
 
         EventResponse eventResponse1 = EventResponse.builder().withId(1).build();
         EventResponse eventResponse2 = EventResponse.builder().withId(2).build();
@@ -73,24 +116,24 @@ class EventServiceImplTest {
         when(mapper.toResponse(event1)).thenReturn(eventResponse1);
         when(mapper.toResponse(event2)).thenReturn(eventResponse2);
 
-        List<EventResponse> result = eventService.findAllMangerEvents(email);
+        List<EventResponse> result = eventService.findAllMangerEvents(managerId, 0, 50).getContent();
 
         assertEquals(expectedEventResponses.size(), result.size());
         assertEquals(expectedEventResponses, result);
-        verify(userRepository, times(1)).findUserByEmail(email);
-        verify(eventRepository, times(1)).findEventsByUserIdOrderById(existingUser.getId());
+        verify(userRepository, never()).findById(any());
+        verify(eventRepository, times(1)).findEventViewsByUserIdAndIdGreaterThan(managerId, 0, PageRequest.of(0, 51));
         verify(mapper, times(1)).toResponse(event1);
         verify(mapper, times(1)).toResponse(event2);
     }
 
     @Test
-    void findAllManagerEvents_nonExistingUser_throwsUserNotFoundException() {
+    void findAllManagerEvents_managerWithoutEvents_returnsEmptyList() {
 
-        String email = "test@example.com";
+        int managerId = 1;
 
-        when(userRepository.findUserByEmail(email)).thenReturn(Optional.empty());
+        when(eventRepository.findEventViewsByUserIdAndIdGreaterThan(managerId, 0, PageRequest.of(0, 51))).thenReturn(Collections.emptyList());
 
-        assertThrows(UserNotFoundException.class, () -> eventService.findAllMangerEvents(email));
+        assertEquals(Collections.emptyList(), eventService.findAllMangerEvents(managerId, 0, 50).getContent());
     }
 
     @Test
@@ -101,14 +144,14 @@ class EventServiceImplTest {
         Event existingEvent = Event.builder().withId(eventId).build();
         when(eventRepository.findById(eventId)).thenReturn(Optional.of(existingEvent));
 
-        EventResponse expectedEventResponse = EventResponse.builder().withId(eventId).build();
-        when(mapper.toResponse(existingEvent)).thenReturn(expectedEventResponse);
+        PublicEventResponse expectedEventResponse = PublicEventResponse.builder().withId(eventId).build();
+        when(mapper.toPublicResponse(existingEvent)).thenReturn(expectedEventResponse);
 
-        EventResponse result = eventService.findEventById(eventId);
+        PublicEventResponse result = eventService.findEventById(eventId);
 
         assertEquals(expectedEventResponse, result);
         verify(eventRepository, times(1)).findById(eventId);
-        verify(mapper, times(1)).toResponse(existingEvent);
+        verify(mapper, times(1)).toPublicResponse(existingEvent);
     }
 
     @Test
@@ -121,10 +164,115 @@ class EventServiceImplTest {
         assertThrows(EventNotFoundException.class, () -> eventService.findEventById(eventId));
     }
 
+    @Test
+    void findEventById_repeatedCall_expectedEventLoadedOnce() {
+
+        Event existingEvent = Event.builder().withId(1).build();
+        when(eventRepository.findById(1)).thenReturn(Optional.of(existingEvent));
+        when(mapper.toPublicResponse(existingEvent)).thenReturn(PublicEventResponse.builder().withId(1).build());
+
+        PublicEventResponse first = eventService.findEventById(1);
+
+        assertSame(first, eventService.findEventById(1));
+        verify(eventRepository, times(1)).findById(1);
+    }
+
+    @Test
+    void findEventById_cachedEventDeleted_expectedEventLoadedAgain() {
+
+        Event existingEvent = Event.builder().withId(1).build();
+        when(eventRepository.findById(1)).thenReturn(Optional.of(existingEvent), Optional.empty());
+        when(mapper.toPublicResponse(existingEvent)).thenReturn(PublicEventResponse.builder().withId(1).build());
+        when(eventRepository.existsByIdAndUserId(1, 2)).thenReturn(true);
+
+        eventService.findEventById(1);
+        eventService.deleteEventById(2, 1);
+
+        assertThrows(EventNotFoundException.class, () -> eventService.findEventById(1));
+        verify(eventCache, times(1)).invalidate(List.of(1));
+    }
+
+    @Test
+    void searchEvents_matchingEvents_returnsEventsInRankingOrder() {
+
+        EventView event1 = eventView(1);
+        EventView event3 = eventView(3);
+
+        when(searchIndex.search(Set.of("jazz", "concert"), 0, 3)).thenReturn(List.of(3, 1, 7));
+        // event 7 has been deleted through another node
+        when(eventRepository.findEventViewsByIdIn(List.of(3, 1, 7))).thenReturn(List.of(event1, event3));
+        when(mapper.toResponse(event1)).thenReturn(EventResponse.builder().withId(1).build());
+        when(mapper.toResponse(event3)).thenReturn(EventResponse.builder().withId(3).build());
+
+        PageResponse<EventResponse> page = eventService.searchEvents("Jazz, concert!", 0, 2);
+
+        assertEquals(List.of(3, 1), page.getContent().stream().map(EventResponse::getId).collect(Collectors.toList()));
+        assertEquals(2, page.getNextCursor());
+    }
+
+    @Test
+    void searchEvents_noWordsInQuery_throwsIncorrectRequestDataException() {
+
+        assertThrows(IncorrectRequestDataException.class, () -> eventService.searchEvents(" - ", 0, 50));
+        verifyNoInteractions(searchIndex, eventRepository);
+    }
+
+    @Test
+    void findCatalogEvents_filtersAndLimit_returnsPageWithCursor() {
+
+        EventCatalogView event1 = eventCatalogView(1);
+        EventCatalogView event2 = eventCatalogView(2);
+
+        when(eventRepository.findEventViews(any(), eq(EventCatalogSort.PRICE_ASC.getSort()), eq(3)))
+                .thenReturn(List.of(event1, event2, eventCatalogView(3)));
+        when(mapper.toPublicResponse(event1)).thenReturn(PublicEventResponse.builder().withId(1).build());
+        when(mapper.toPublicResponse(event2)).thenReturn(PublicEventResponse.builder().withId(2).build());
+
+        PageResponse<PublicEventResponse> page = eventService.findCatalogEvents(EventCatalogRequest.builder()
+                .withMinPrice(100)
+                .withMaxPrice(500)
+                .withOwnerId(2)
+                .withNamePrefix("Event")
+                .withSort(EventCatalogSort.PRICE_ASC)
+                .withAfter(5)
+                .withAfterPrice(90)
+                .withLimit(2)
+                .build());
+
+        assertEquals(List.of(1, 2), page.getContent().stream().map(PublicEventResponse::getId).collect(Collectors.toList()));
+        assertEquals(2, page.getNextCursor());
+    }
+
+    @Test
+    void findCatalogEvents_minPriceAboveMaxPrice_throwsIncorrectRequestDataException() {
+
+        EventCatalogRequest request = EventCatalogRequest.builder()
+                .withMinPrice(500)
+                .withMaxPrice(100)
+                .withLimit(50)
+                .build();
+
+        assertThrows(IncorrectRequestDataException.class, () -> eventService.findCatalogEvents(request));
+        verifyNoInteractions(eventRepository);
+    }
+
+    @Test
+    void findCatalogEvents_priceSortCursorWithoutPrice_throwsIncorrectRequestDataException() {
+
+        EventCatalogRequest request = EventCatalogRequest.builder()
+                .withSort(EventCatalogSort.PRICE_DESC)
+                .withAfter(5)
+                .withLimit(50)
+                .build();
+
+        assertThrows(IncorrectRequestDataException.class, () -> eventService.findCatalogEvents(request));
+        verifyNoInteractions(eventRepository);
+    }
+
     @Test
     void createNewEvent_validInput_returnsEventResponse() {
 
-        String managerEmail = "manager@example.com";
+        int managerId = 1;
         EventRequest eventRequest = EventRequest.builder().withName("Test Event")
                 .withDescription("Test Event")
                 .withPrice(100)
@@ -134,15 +282,14 @@ class EventServiceImplTest {
                 .withPrice(100)
                 .build();
 
-        User existingUser = User.builder().withEmail(managerEmail)
-                .withContracts(List.of(Contract.builder().withStatus(Status.ACCEPTED).build()))
-                .build();
-        when(userRepository.findUserByEmail(managerEmail)).thenReturn(Optional.of(existingUser));
+        User existingUser = User.builder().withId(managerId).build();
+        when(userRepository.findById(managerId)).thenReturn(Optional.of(existingUser));
+        when(contractService.hasUserAcceptedContract(managerId)).thenReturn(true);
 
         when(mapper.toEntity(eventRequest)).thenReturn(event);
 
         event.setUser(existingUser);
-        when(eventRepository.save(event)).thenReturn(event);
+        when(eventRepository.saveAndFlush(event)).thenReturn(event);
 
         EventResponse eventResponse = EventResponse.builder()
                 .withId(1)
@@ -152,46 +299,65 @@ class EventServiceImplTest {
                 .build();
         when(mapper.toResponse(event)).thenReturn(eventResponse);
 
-        EventResponse result = eventService.createNewEvent(managerEmail, eventRequest);
+        EventResponse result = eventService.createNewEvent(managerId, eventRequest);
 
         assertEquals(eventResponse, result);
-        verify(userRepository, times(1)).findUserByEmail(managerEmail);
-        verify(eventRepository, times(1)).save(event);
+        verify(userRepository, times(1)).findById(managerId);
+        verify(eventRepository, times(1)).saveAndFlush(event);
         verify(mapper, times(1)).toEntity(eventRequest);
         verify(mapper, times(1)).toResponse(event);
+        verify(searchIndex, times(1)).add(0, "Test Event", "Test Event");
+    }
+
+    @Test
+    void createNewEvent_inputCapacity_expectedSeatCounterAdded() {
+
+        int managerId = 1;
+        EventRequest eventRequest = EventRequest.builder().withName("Test Event").withCapacity(50).build();
+        Event event = Event.builder().withId(7).withName("Test Event").withCapacity(50).build();
+
+        when(userRepository.findById(managerId)).thenReturn(Optional.of(User.builder().withId(managerId).build()));
+        when(contractService.hasUserAcceptedContract(managerId)).thenReturn(true);
+        when(mapper.toEntity(eventRequest)).thenReturn(event);
+        when(eventRepository.saveAndFlush(event)).thenReturn(event);
+
+        eventService.createNewEvent(managerId, eventRequest);
+
+        verify(eventSeatsRepository, times(1)).saveAll(List.of(EventSeats.builder().withEventId(7).build()));
     }
 
     @Test
     void createNewEvent_noApprovedContract_throwsAuthorizationException() {
 
-        String managerEmail = "manager@example.com";
+        int managerId = 1;
         EventRequest eventRequest = EventRequest.builder().withName("Test Event").build();
 
-        User existingUser = User.builder().withEmail(managerEmail).withContracts(Collections.emptyList()).build();
-        when(userRepository.findUserByEmail(managerEmail)).thenReturn(Optional.of(existingUser));
+        User existingUser = User.builder().withId(managerId).build();
+        when(userRepository.findById(managerId)).thenReturn(Optional.of(existingUser));
+        when(contractService.hasUserAcceptedContract(managerId)).thenReturn(false);
 
-        assertThrows(AuthorizationException.class, () -> eventService.createNewEvent(managerEmail, eventRequest));
+        assertThrows(AuthorizationException.class, () -> eventService.createNewEvent(managerId, eventRequest));
     }
 
     @Test
     void createNewEvent_invalidUser_throwsUserNotFoundException() {
 
-        String managerEmail = "manager@example.com";
+        int managerId = 1;
         EventRequest eventRequest = EventRequest.builder().withName("Test Event").build();
 
-        when(userRepository.findUserByEmail(managerEmail)).thenReturn(Optional.empty());
+        when(userRepository.findById(managerId)).thenReturn(Optional.empty());
 
-        assertThrows(UserNotFoundException.class, () -> eventService.createNewEvent(managerEmail, eventRequest));
-        verify(userRepository, times(1)).findUserByEmail(managerEmail);
-        verify(eventRepository, never()).save(any());
+        assertThrows(UserNotFoundException.class, () -> eventService.createNewEvent(managerId, eventRequest));
+        verify(userRepository, times(1)).findById(managerId);
+        verify(eventRepository, never()).saveAndFlush(any());
         verify(mapper, never()).toEntity(any());
-        verify(mapper, never()).toResponse(any());
+        verify(mapper, never()).toResponse(any(Event.class));
     }
 
     @Test
     void createNewEvent_validInput_expectedDBException() {
 
-        String managerEmail = "manager@example.com";
+        int managerId = 1;
         EventRequest eventRequest = EventRequest.builder().withName("Test Event")
                 .withDescription("Test Event")
                 .withPrice(100)
@@ -201,77 +367,70 @@ class EventServiceImplTest {
                 .withPrice(100)
                 .build();
 
-        User existingUser = User.builder().withEmail(managerEmail)
-                .withContracts(List.of(Contract.builder().withStatus(Status.ACCEPTED).build()))
-                .build();
-        when(userRepository.findUserByEmail(managerEmail)).thenReturn(Optional.of(existingUser));
+        User existingUser = User.builder().withId(managerId).build();
+        when(userRepository.findById(managerId)).thenReturn(Optional.of(existingUser));
+        when(contractService.hasUserAcceptedContract(managerId)).thenReturn(true);
 
         when(mapper.toEntity(eventRequest)).thenReturn(event);
 
         event.setUser(existingUser);
-        doThrow(DataBaseException.class).when(eventRepository).save(event);
+        doThrow(DataBaseException.class).when(eventRepository).saveAndFlush(event);
 
-        assertThrows(DataBaseException.class, () -> eventService.createNewEvent(managerEmail, eventRequest));
+        assertThrows(DataBaseException.class, () -> eventService.createNewEvent(managerId, eventRequest));
 
-        verify(userRepository, times(1)).findUserByEmail(managerEmail);
-        verify(eventRepository, times(1)).save(event);
+        verify(userRepository, times(1)).findById(managerId);
+        verify(eventRepository, times(1)).saveAndFlush(event);
         verify(mapper, times(1)).toEntity(eventRequest);
     }
 
     @Test
     void deleteEventById_managerOwnsEvent_eventDeleted() {
 
-        String managerEmail = "manager@example.com";
+        int managerId = 1;
         int eventId = 1;
 
-        Event event = Event.builder()
-                .withId(eventId)
-                .withName("Test Event")
-                .withUser(User.builder().withEmail(managerEmail).build())
-                .build();
-        when(eventRepository.findById(eventId)).thenReturn(Optional.of(event));
+        when(eventRepository.existsByIdAndUserId(eventId, managerId)).thenReturn(true);
 
-        eventService.deleteEventById(managerEmail, eventId);
+        eventService.deleteEventById(managerId, eventId);
 
-        verify(userEventParticipationRepository, times(1)).deleteUserEventParticipationsByEventId(eventId);
-        verify(eventRepository, times(1)).deleteById(eventId);
+        verify(userEventParticipationRepository, times(1)).deleteUserEventParticipationsByEventIdIn(List.of(eventId));
+        verify(eventRepository, times(1)).deleteEventsByIdIn(List.of(eventId));
+        verify(eventRepository, never()).findById(any());
+        verify(searchIndex, times(1)).remove(List.of(eventId));
     }
 
     @Test
     void deleteEventById_managerDoesNotOwnEvent_incorrectRequestDataExceptionThrown() {
 
-        String managerEmail = "manager@example.com";
+        int managerId = 1;
         int eventId = 1;
 
-        Event event = Event.builder()
-                .withId(eventId)
-                .withName("Test Event")
-                .withUser(User.builder().withEmail("anothermanager@example.com").build())
-                .build();
-        when(eventRepository.findById(eventId)).thenReturn(Optional.of(event));
+        when(eventRepository.existsByIdAndUserId(eventId, managerId)).thenReturn(false);
+        when(eventRepository.existsById(eventId)).thenReturn(true);
 
         assertThrows(IncorrectRequestDataException.class, () -> {
-            eventService.deleteEventById(managerEmail, eventId);
+            eventService.deleteEventById(managerId, eventId);
         });
 
-        verify(userEventParticipationRepository, never()).deleteUserEventParticipationsByEventId(eventId);
-        verify(eventRepository, never()).deleteById(eventId);
+        verify(userEventParticipationRepository, never()).deleteUserEventParticipationsByEventIdIn(any());
+        verify(eventRepository, never()).deleteEventsByIdIn(any());
     }
 
     @Test
     void deleteEventById_eventNotFound_eventNotFoundExceptionThrown() {
 
-        String managerEmail = "manager@example.com";
+        int managerId = 1;
         int eventId = 1;
 
-        when(eventRepository.findById(eventId)).thenReturn(Optional.empty());
+        when(eventRepository.existsByIdAndUserId(eventId, managerId)).thenReturn(false);
+        when(eventRepository.existsById(eventId)).thenReturn(false);
 
         assertThrows(EventNotFoundException.class, () -> {
-            eventService.deleteEventById(managerEmail, eventId);
+            eventService.deleteEventById(managerId, eventId);
         });
 
-        verify(userEventParticipationRepository, never()).deleteUserEventParticipationsByEventId(eventId);
-        verify(eventRepository, never()).deleteById(eventId);
+        verify(userEventParticipationRepository, never()).deleteUserEventParticipationsByEventIdIn(any());
+        verify(eventRepository, never()).deleteEventsByIdIn(any());
     }
 
     @Test
@@ -281,8 +440,183 @@ class EventServiceImplTest {
 
         eventService.deleteEventByIdForAdmin(eventId);
 
-        verify(userEventParticipationRepository, times(1)).deleteUserEventParticipationsByEventId(eventId);
-        verify(eventRepository, times(1)).deleteById(eventId);
+        verify(userEventParticipationRepository, times(1)).deleteUserEventParticipationsByEventIdIn(List.of(eventId));
+        verify(eventRepository, times(1)).deleteEventsByIdIn(List.of(eventId));
+    }
+
+    @Test
+    void deleteEventsByIdsForAdmin_severalIds_eventsDeletedWithOneStatementPerTable() {
+
+        List<Integer> ids = List.of(1, 4, 5);
+
+        eventService.deleteEventsByIdsForAdmin(ids);
+
+        verify(userEventParticipationRepository, times(1)).deleteUserEventParticipationsByEventIdIn(ids);
+        verify(eventRepository, times(1)).deleteEventsByIdIn(ids);
+    }
+
+    @Test
+    void deleteEventsByIdsForAdmin_emptyIds_incorrectRequestDataExceptionThrown() {
+
+        assertThrows(IncorrectRequestDataException.class, () -> eventService.deleteEventsByIdsForAdmin(List.of()));
+
+        verify(eventRepository, never()).deleteEventsByIdIn(any());
+    }
+
+    @Test
+    void importEvents_mixedRows_validRowsInsertedAndOthersReported() {
+
+        int managerId = 2;
+
+        when(userRepository.findById(managerId)).thenReturn(Optional.of(User.builder().withId(managerId).build()));
+        when(contractService.hasUserAcceptedContract(managerId)).thenReturn(true);
+        when(mapper.toEntity(any(EventRequest.class))).thenAnswer(invocation -> toEvent(invocation.getArgument(0)));
+        when(eventRepository.findNamesByNameIn(List.of("Concert", "Event 1", "Talk"))).thenReturn(List.of("Event 1"));
+
+        EventImportResponse response = eventService.importEvents(managerId, List.of(
+                row(2, "Concert"),
+                new EventImportReader.Row(3, null, "price - Event's price should be a number;"),
+                row(4, ""),
+                row(5, "Concert"),
+                row(6, "Event 1"),
+                row(7, "Talk")).iterator());
+
+        assertEquals(2, response.getImported());
+        assertEquals(List.of(
+                new EventImportError(3, "price - Event's price should be a number;"),
+                new EventImportError(4, "name - Event's name should not be empty;"),
+                new EventImportError(5, "name - Event's name is repeated in the upload;"),
+                new EventImportError(6, "name - Event with this name already exists;")), response.getErrors());
+        verify(eventRepository, times(1)).saveAllAndFlush(anyList());
+        verify(eventRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void importEvents_manyRows_insertedInChunksOfBatchSize() {
+
+        int managerId = 2;
+
+        when(userRepository.findById(managerId)).thenReturn(Optional.of(User.builder().withId(managerId).build()));
+        when(contractService.hasUserAcceptedContract(managerId)).thenReturn(true);
+        when(mapper.toEntity(any(EventRequest.class))).thenAnswer(invocation -> toEvent(invocation.getArgument(0)));
+
+        Iterator<EventImportReader.Row> rows = IntStream.rangeClosed(1, 120)
+                .mapToObj(i -> row(i + 1, "Event " + (i + 100)))
+                .collect(Collectors.toList())
+                .iterator();
+
+        EventImportResponse response = eventService.importEvents(managerId, rows);
+
+        assertEquals(120, response.getImported());
+        assertEquals(List.of(), response.getErrors());
+        verify(eventRepository, times(3)).findNamesByNameIn(any());
+        verify(eventRepository, times(3)).saveAllAndFlush(anyList());
+    }
+
+    @Test
+    void importEvents_nameRepeatedInLaterChunk_reportedAsExisting() {
+
+        int managerId = 2;
+
+        when(userRepository.findById(managerId)).thenReturn(Optional.of(User.builder().withId(managerId).build()));
+        when(contractService.hasUserAcceptedContract(managerId)).thenReturn(true);
+        when(mapper.toEntity(any(EventRequest.class))).thenAnswer(invocation -> toEvent(invocation.getArgument(0)));
+        // the first chunk has been committed when the second one is checked
+        when(eventRepository.findNamesByNameIn(anyList())).thenReturn(List.of(), List.of("Event 100"));
+
+        List<EventImportReader.Row> rows = IntStream.rangeClosed(1, 50)
+                .mapToObj(i -> row(i + 1, "Event " + (i + 99)))
+                .collect(Collectors.toCollection(ArrayList::new));
+        rows.add(row(52, "Event 100"));
+
+        EventImportResponse response = eventService.importEvents(managerId, rows.iterator());
+
+        assertEquals(50, response.getImported());
+        assertEquals(List.of(new EventImportError(52, "name - Event with this name already exists;")),
+                response.getErrors());
+        verify(eventRepository).findNamesByNameIn(List.of("Event 100"));
+    }
+
+    @Test
+    void importEvents_moreErrorsThanReported_firstErrorsListedAndOthersCounted() {
+
+        int managerId = 2;
+
+        when(userRepository.findById(managerId)).thenReturn(Optional.of(User.builder().withId(managerId).build()));
+        when(contractService.hasUserAcceptedContract(managerId)).thenReturn(true);
+        when(eventRepository.findNamesByNameIn(List.of("Event 1"))).thenReturn(List.of("Event 1"));
+
+        // the error of line 2 is found in the DB after the errors of all the other lines
+        List<EventImportReader.Row> rows = new ArrayList<>();
+        rows.add(row(2, "Event 1"));
+        IntStream.rangeClosed(3, 121).forEach(line ->
+                rows.add(new EventImportReader.Row(line, null, "price - Event's price should be a number;")));
+
+        EventImportResponse response = eventService.importEvents(managerId, rows.iterator());
+
+        assertEquals(0, response.getImported());
+        assertEquals(IntStream.rangeClosed(2, 101).boxed().collect(Collectors.toList()),
+                response.getErrors().stream().map(EventImportError::getLine).collect(Collectors.toList()));
+        assertEquals("name - Event with this name already exists;", response.getErrors().get(0).getMessage());
+        assertEquals(20, response.getOmittedErrors());
+    }
+
+    @Test
+    void importEvents_constraintViolationInChunk_rowsRetriedOneByOne() {
+
+        int managerId = 2;
+
+        when(userRepository.findById(managerId)).thenReturn(Optional.of(User.builder().withId(managerId).build()));
+        when(contractService.hasUserAcceptedContract(managerId)).thenReturn(true);
+        when(mapper.toEntity(any(EventRequest.class))).thenAnswer(invocation -> toEvent(invocation.getArgument(0)));
+        when(eventRepository.saveAllAndFlush(anyList())).thenThrow(new DataIntegrityViolationException("batch failed"));
+        when(eventRepository.saveAndFlush(any(Event.class))).thenAnswer(invocation -> {
+            Event event = invocation.getArgument(0);
+
+            if (event.getName().equals("Talk")) {
+                throw new DataIntegrityViolationException("insert failed", new SQLException("duplicate key events_name_key"));
+            }
+
+            return event;
+        });
+
+        EventImportResponse response = eventService.importEvents(managerId, List.of(row(2, "Concert"), row(3, "Talk"))
+                .iterator());
+
+        assertEquals(1, response.getImported());
+        assertEquals(List.of(new EventImportError(3, "Constraint in DB in table events. Message: duplicate key events_name_key")),
+                response.getErrors());
+    }
+
+    @Test
+    void importEvents_noApprovedContract_throwsAuthorizationException() {
+
+        int managerId = 2;
+
+        when(userRepository.findById(managerId)).thenReturn(Optional.of(User.builder().withId(managerId).build()));
+        when(contractService.hasUserAcceptedContract(managerId)).thenReturn(false);
+
+        Iterator<EventImportReader.Row> rows = List.of(row(2, "Concert")).iterator();
+
+        assertThrows(AuthorizationException.class, () -> eventService.importEvents(managerId, rows));
+        verifyNoInteractions(eventRepository);
+    }
+
+    private static EventImportReader.Row row(int line, String name) {
+        return new EventImportReader.Row(line, new EventRequest(0, name, "Description", 100, null), null);
+    }
+
+    private static Event toEvent(EventRequest request) {
+        return Event.builder().withName(request.getName()).withDescription(request.getDescription())
+                .withPrice(request.getPrice()).build();
+    }
+
+    private static EventView eventView(int id) {
+        return new SpelAwareProxyProjectionFactory().createProjection(EventView.class, Map.of("id", id));
+    }
+
+    private static EventCatalogView eventCatalogView(int id) {
+        return new SpelAwareProxyProjectionFactory().createProjection(EventCatalogView.class, Map.of("id", id));
     }
 
 }
\ No newline at end of file
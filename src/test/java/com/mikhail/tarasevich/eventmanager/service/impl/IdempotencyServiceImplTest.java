@@ -0,0 +1,300 @@
+package com.mikhail.tarasevich.eventmanager.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mikhail.tarasevich.eventmanager.dto.EventRequest;
+import com.mikhail.tarasevich.eventmanager.dto.EventResponse;
+import com.mikhail.tarasevich.eventmanager.entity.IdempotencyRecord;
+import com.mikhail.tarasevich.eventmanager.repository.IdempotencyRecordRepository;
+import com.mikhail.tarasevich.eventmanager.service.exception.EventNotFoundException;
+import com.mikhail.tarasevich.eventmanager.service.exception.IdempotencyKeyConflictException;
+import com.mikhail.tarasevich.eventmanager.service.exception.IdempotencyKeyLimitException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceImplTest {
+
+    private static final String OPERATION = "POST /api/v1/event/";
+
+    private static final int USER_ID = 2;
+
+    private static final String KEY = "retry-1";
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private IdempotencyServiceImpl idempotencyService;
+
+    private String requestHash;
+
+    private final EventRequest request = EventRequest.builder()
+            .withName("Concert")
+            .withDescription("Music concert")
+            .withPrice(100)
+            .build();
+
+    private final AtomicInteger actionCalls = new AtomicInteger();
+
+    @BeforeEach
+    void setup() {
+        idempotencyService = newService(100);
+        requestHash = hashOfRequest();
+    }
+
+    @Test
+    void execute_noKey_expectedActionRunWithoutRecord() {
+
+        assertEquals(1, execute(idempotencyService, null).getId());
+
+        assertEquals(1, actionCalls.get());
+        verifyNoInteractions(idempotencyRecordRepository);
+    }
+
+    @Test
+    void execute_repeatedKey_expectedStoredResponseFromCache() {
+
+        when(idempotencyRecordRepository.findByUserIdAndIdempotencyKey(USER_ID, KEY)).thenReturn(Optional.empty());
+        when(idempotencyRecordRepository.updateResponse(eq(USER_ID), eq(KEY), any(), anyString())).thenReturn(1);
+
+        EventResponse first = execute(idempotencyService, KEY);
+        EventResponse second = execute(idempotencyService, KEY);
+
+        assertEquals(first, second);
+        assertEquals(1, actionCalls.get());
+        verify(idempotencyRecordRepository, times(1)).findByUserIdAndIdempotencyKey(USER_ID, KEY);
+        verify(idempotencyRecordRepository, times(1)).saveAndFlush(any());
+        verify(idempotencyRecordRepository, times(1)).updateResponse(eq(USER_ID), eq(KEY), any(), anyString());
+    }
+
+    @Test
+    void execute_keyStoredByAnotherNode_expectedStoredResponseFromDb() {
+
+        AtomicReference<IdempotencyRecord> stored = storeRecords();
+
+        EventResponse first = execute(idempotencyService, KEY);
+
+        when(idempotencyRecordRepository.findByUserIdAndIdempotencyKey(USER_ID, KEY)).thenReturn(Optional.of(stored.get()));
+
+        assertEquals(first, execute(newService(100), KEY));
+        assertEquals(1, actionCalls.get());
+    }
+
+    @Test
+    void execute_keyUsedForAnotherRequest_throwsIdempotencyKeyConflictException() {
+
+        when(idempotencyRecordRepository.findByUserIdAndIdempotencyKey(USER_ID, KEY)).thenReturn(Optional.of(
+                IdempotencyRecord.builder()
+                        .withUserId(USER_ID)
+                        .withIdempotencyKey(KEY)
+                        .withRequestHash("another request")
+                        .withResponse("{}")
+                        .withCreatedAt(LocalDateTime.now())
+                        .build()));
+
+        assertThrows(IdempotencyKeyConflictException.class, () -> execute(idempotencyService, KEY));
+        assertEquals(0, actionCalls.get());
+    }
+
+    @Test
+    void execute_keyClaimedByConcurrentRequest_throwsIdempotencyKeyConflictException() {
+
+        AtomicReference<IdempotencyRecord> claimed = new AtomicReference<>();
+
+        when(idempotencyRecordRepository.findByUserIdAndIdempotencyKey(USER_ID, KEY))
+                .thenReturn(Optional.empty())
+                .thenAnswer(invocation -> Optional.of(claimed.get()));
+        when(idempotencyRecordRepository.saveAndFlush(any())).thenAnswer(invocation -> {
+            // the claim is still being processed, so it has no response yet
+            claimed.set(copyOf(invocation.getArgument(0)));
+            return invocation.getArgument(0);
+        });
+
+        Supplier<EventResponse> retryDuringProcessing = () -> idempotencyService.execute(USER_ID, KEY, OPERATION,
+                request, EventResponse.class, () -> EventResponse.builder().withId(2).build());
+
+        assertThrows(IdempotencyKeyConflictException.class, () -> idempotencyService.execute(USER_ID, KEY, OPERATION,
+                request, EventResponse.class, retryDuringProcessing));
+        verify(idempotencyRecordRepository, times(1)).saveAndFlush(any());
+    }
+
+    @Test
+    void execute_claimAbandonedPastLease_expectedClaimTakenOverAndRequestRun() {
+
+        LocalDateTime abandonedAt = LocalDateTime.now().minusMinutes(5);
+        IdempotencyRecord abandoned = claimOf(requestHash, abandonedAt);
+
+        when(idempotencyRecordRepository.findByUserIdAndIdempotencyKey(USER_ID, KEY)).thenReturn(Optional.of(abandoned));
+        when(idempotencyRecordRepository.takeOverClaim(eq(USER_ID), eq(KEY), eq(abandonedAt), any())).thenReturn(1);
+        when(idempotencyRecordRepository.updateResponse(eq(USER_ID), eq(KEY), any(), anyString())).thenReturn(1);
+
+        assertEquals(1, execute(idempotencyService, KEY).getId());
+
+        assertEquals(1, actionCalls.get());
+        verify(idempotencyRecordRepository, never()).saveAndFlush(any());
+        verify(idempotencyRecordRepository, times(1)).updateResponse(eq(USER_ID), eq(KEY), any(), anyString());
+
+        // the response stored by the request that has taken the claim over is replayed
+        assertEquals(1, execute(idempotencyService, KEY).getId());
+        assertEquals(1, actionCalls.get());
+    }
+
+    @Test
+    void execute_claimWithinLease_throwsIdempotencyKeyConflictException() {
+
+        when(idempotencyRecordRepository.findByUserIdAndIdempotencyKey(USER_ID, KEY)).thenReturn(Optional.of(
+                claimOf(requestHash, LocalDateTime.now().minusSeconds(10))));
+
+        assertThrows(IdempotencyKeyConflictException.class, () -> execute(idempotencyService, KEY));
+
+        assertEquals(0, actionCalls.get());
+        verify(idempotencyRecordRepository, never()).takeOverClaim(anyInt(), anyString(), any(), any());
+    }
+
+    @Test
+    void execute_abandonedClaimTakenOverByConcurrentRetry_throwsIdempotencyKeyConflictException() {
+
+        LocalDateTime abandonedAt = LocalDateTime.now().minusMinutes(5);
+
+        when(idempotencyRecordRepository.findByUserIdAndIdempotencyKey(USER_ID, KEY))
+                .thenReturn(Optional.of(claimOf(requestHash, abandonedAt)))
+                .thenReturn(Optional.of(claimOf(requestHash, LocalDateTime.now())));
+        when(idempotencyRecordRepository.takeOverClaim(eq(USER_ID), eq(KEY), eq(abandonedAt), any())).thenReturn(0);
+
+        assertThrows(IdempotencyKeyConflictException.class, () -> execute(idempotencyService, KEY));
+
+        assertEquals(0, actionCalls.get());
+    }
+
+    @Test
+    void execute_claimTakenOverWhileRunning_expectedResponseReturnedButNotCached() {
+
+        when(idempotencyRecordRepository.findByUserIdAndIdempotencyKey(USER_ID, KEY)).thenReturn(Optional.empty());
+        when(idempotencyRecordRepository.updateResponse(eq(USER_ID), eq(KEY), any(), anyString())).thenReturn(0);
+
+        assertEquals(1, execute(idempotencyService, KEY).getId());
+        assertEquals(2, execute(idempotencyService, KEY).getId());
+
+        verify(idempotencyRecordRepository, times(2)).findByUserIdAndIdempotencyKey(USER_ID, KEY);
+    }
+
+    @Test
+    void execute_actionFails_expectedClaimDeleted() {
+
+        when(idempotencyRecordRepository.findByUserIdAndIdempotencyKey(USER_ID, KEY)).thenReturn(Optional.empty());
+
+        assertThrows(EventNotFoundException.class, () -> idempotencyService.execute(USER_ID, KEY, OPERATION, request,
+                EventResponse.class, () -> {
+                    throw new EventNotFoundException("There is no event with id = 1 in DB");
+                }));
+
+        verify(idempotencyRecordRepository, times(1)).deleteClaim(eq(USER_ID), eq(KEY), any());
+        verify(idempotencyRecordRepository, never()).updateResponse(eq(USER_ID), eq(KEY), any(), anyString());
+    }
+
+    @Test
+    void execute_keyLimitReached_throwsIdempotencyKeyLimitException() {
+
+        when(idempotencyRecordRepository.findByUserIdAndIdempotencyKey(USER_ID, KEY)).thenReturn(Optional.empty());
+        when(idempotencyRecordRepository.countByUserId(USER_ID)).thenReturn(2L);
+
+        assertThrows(IdempotencyKeyLimitException.class, () -> execute(newService(2), KEY));
+
+        verify(idempotencyRecordRepository, times(1)).deleteByUserIdAndCreatedAtBefore(eq(USER_ID), any());
+        verify(idempotencyRecordRepository, never()).saveAndFlush(any());
+        assertEquals(0, actionCalls.get());
+    }
+
+    private IdempotencyServiceImpl newService(int keysPerUser) {
+        return new IdempotencyServiceImpl(idempotencyRecordRepository, new ObjectMapper(), 24, keysPerUser, 100, 60);
+    }
+
+    private EventResponse execute(IdempotencyServiceImpl service, String key) {
+
+        return service.execute(USER_ID, key, OPERATION, request, EventResponse.class, () -> EventResponse.builder()
+                .withId(actionCalls.incrementAndGet())
+                .withName(request.getName())
+                .withDescription(request.getDescription())
+                .withPrice(request.getPrice())
+                .build());
+    }
+
+    // keeps what the service writes to the table, as another node would read it
+    private AtomicReference<IdempotencyRecord> storeRecords() {
+
+        AtomicReference<IdempotencyRecord> stored = new AtomicReference<>();
+
+        when(idempotencyRecordRepository.findByUserIdAndIdempotencyKey(USER_ID, KEY)).thenReturn(Optional.empty());
+        when(idempotencyRecordRepository.saveAndFlush(any())).thenAnswer(invocation -> {
+            stored.set(copyOf(invocation.getArgument(0)));
+            return invocation.getArgument(0);
+        });
+        when(idempotencyRecordRepository.updateResponse(eq(USER_ID), eq(KEY), any(), anyString())).thenAnswer(invocation -> {
+            stored.get().setResponse(invocation.getArgument(3));
+            return 1;
+        });
+
+        return stored;
+    }
+
+    // the hash the service computes for the request, found by letting it claim the key once
+    private String hashOfRequest() {
+
+        IdempotencyRecordRepository repository = mock(IdempotencyRecordRepository.class);
+        AtomicReference<String> requestHash = new AtomicReference<>();
+
+        when(repository.saveAndFlush(any())).thenAnswer(invocation -> {
+            requestHash.set(invocation.<IdempotencyRecord>getArgument(0).getRequestHash());
+            return invocation.getArgument(0);
+        });
+        new IdempotencyServiceImpl(repository, new ObjectMapper(), 24, 100, 0, 60).execute(USER_ID, KEY, OPERATION,
+                request, EventResponse.class, () -> EventResponse.builder().build());
+
+        return requestHash.get();
+    }
+
+    private static IdempotencyRecord claimOf(String requestHash, LocalDateTime claimedAt) {
+
+        return IdempotencyRecord.builder()
+                .withUserId(USER_ID)
+                .withIdempotencyKey(KEY)
+                .withRequestHash(requestHash)
+                .withCreatedAt(claimedAt)
+                .withClaimedAt(claimedAt)
+                .build();
+    }
+
+    private static IdempotencyRecord copyOf(IdempotencyRecord record) {
+
+        return IdempotencyRecord.builder()
+                .withUserId(record.getUserId())
+                .withIdempotencyKey(record.getIdempotencyKey())
+                .withRequestHash(record.getRequestHash())
+                .withResponse(record.getResponse())
+                .withCreatedAt(record.getCreatedAt())
+                .withClaimedAt(record.getClaimedAt())
+                .build();
+    }
+
+}
@@ -0,0 +1,126 @@
+package com.mikhail.tarasevich.eventmanager.service.impl;
+
+import com.mikhail.tarasevich.eventmanager.config.SpringTestConfig;
+import com.mikhail.tarasevich.eventmanager.service.ContractService;
+import com.mikhail.tarasevich.eventmanager.service.UserEventParticipationService;
+import com.mikhail.tarasevich.eventmanager.service.exception.StatusConflictException;
+import com.mikhail.tarasevich.eventmanager.util.Status;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Many threads accept or reject the same pending request at once. Exactly one decision wins, threads that
+ * repeat it succeed and threads that try the other one get a conflict, nothing is overwritten silently.
+ */
+@SpringBootTest(classes = SpringTestConfig.class)
+@Sql(scripts = {"classpath:sql/schema.sql", "classpath:sql/data.sql"},
+        executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class StatusTransitionConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private UserEventParticipationService uepService;
+
+    @Autowired
+    private ContractService contractService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void setUserEventParticipationsStatus_concurrentAcceptAndReject_expectedSingleDecision() throws Exception {
+
+        int managerId = 3;
+        int id = 1;
+
+        List<Status> outcomes = hammer(status -> {
+            if (status == Status.ACCEPTED) {
+                uepService.setUserEventParticipationsStatusAccepted(managerId, id);
+            } else {
+                uepService.setUserEventParticipationsStatusRejected(managerId, id);
+            }
+        });
+
+        assertSingleDecision(outcomes, jdbcTemplate.queryForObject(
+                "SELECT status FROM user_event_participations WHERE id = ?", String.class, id));
+    }
+
+    @Test
+    void setContractStatus_concurrentAcceptAndReject_expectedSingleDecision() throws Exception {
+
+        int id = 1;
+
+        List<Status> outcomes = hammer(status -> {
+            if (status == Status.ACCEPTED) {
+                contractService.setContractStatusAccepted(id);
+            } else {
+                contractService.setContractStatusRejected(id);
+            }
+        });
+
+        assertSingleDecision(outcomes, jdbcTemplate.queryForObject(
+                "SELECT status FROM contracts WHERE id = ?", String.class, id));
+        assertEquals(Status.valueOf(jdbcTemplate.queryForObject("SELECT status FROM contracts WHERE id = ?",
+                String.class, id)) == Status.ACCEPTED, contractService.hasUserAcceptedContract(2));
+    }
+
+    // half of the threads accept and half reject, returns the decision of every thread that succeeded
+    private static List<Status> hammer(Consumer<Status> decision) throws Exception {
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Status>> futures = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                Status status = i % 2 == 0 ? Status.ACCEPTED : Status.REJECTED;
+
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        decision.accept(status);
+                        return status;
+                    } catch (StatusConflictException e) {
+                        return null;
+                    }
+                }));
+            }
+
+            start.countDown();
+
+            List<Status> outcomes = new ArrayList<>();
+
+            for (Future<Status> future : futures) {
+                outcomes.add(future.get(30, TimeUnit.SECONDS));
+            }
+
+            return outcomes;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void assertSingleDecision(List<Status> outcomes, String storedStatus) {
+
+        Status winner = Status.valueOf(storedStatus);
+
+        assertEquals(THREADS / 2, outcomes.stream().filter(outcome -> outcome == winner).count());
+        assertEquals(THREADS / 2, outcomes.stream().filter(outcome -> outcome == null).count());
+    }
+
+}
@@ -4,11 +4,13 @@ import com.mikhail.tarasevich.eventmanager.entity.Privilege;
 import com.mikhail.tarasevich.eventmanager.entity.Role;
 import com.mikhail.tarasevich.eventmanager.entity.User;
 import com.mikhail.tarasevich.eventmanager.repository.UserRepository;
+import com.mikhail.tarasevich.eventmanager.security.RolePrivilegeRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.userdetails.UserDetails;
 import com.mikhail.tarasevich.eventmanager.service.exception.UserNotFoundException;
 
@@ -26,6 +28,9 @@ class UserDetailsServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private RolePrivilegeRegistry rolePrivilegeRegistry;
+
     @InjectMocks
     private UserDetailsServiceImpl userDetailsService;
 
@@ -44,6 +49,8 @@ class UserDetailsServiceImplTest {
                 .build();
 
         when(userRepository.findUserByEmail(email)).thenReturn(Optional.of(user));
+        when(rolePrivilegeRegistry.getAuthorities("ROLE_USER"))
+                .thenReturn(AuthorityUtils.createAuthorityList("PRIVILEGE_USER"));
 
         UserDetails userDetails = userDetailsService.loadUserByUsername(email);
 
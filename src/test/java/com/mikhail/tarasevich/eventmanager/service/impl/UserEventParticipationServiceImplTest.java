@@ -2,34 +2,54 @@ package com.mikhail.tarasevich.eventmanager.service.impl;
 
 import com.mikhail.tarasevich.eventmanager.dto.UserEventParticipationRequest;
 import com.mikhail.tarasevich.eventmanager.dto.UserEventParticipationResponse;
+import com.mikhail.tarasevich.eventmanager.dto.UserEventParticipationStatusRequest;
+import com.mikhail.tarasevich.eventmanager.dto.UserEventParticipationStatusResponse;
 import com.mikhail.tarasevich.eventmanager.entity.Event;
 import com.mikhail.tarasevich.eventmanager.entity.User;
 import com.mikhail.tarasevich.eventmanager.entity.UserEventParticipation;
 import com.mikhail.tarasevich.eventmanager.repository.EventRepository;
 import com.mikhail.tarasevich.eventmanager.repository.UserEventParticipationRepository;
 import com.mikhail.tarasevich.eventmanager.repository.UserRepository;
+import com.mikhail.tarasevich.eventmanager.repository.projection.UserEventParticipationStatusView;
+import com.mikhail.tarasevich.eventmanager.repository.projection.UserEventParticipationView;
 import com.mikhail.tarasevich.eventmanager.service.exception.DataBaseException;
 import com.mikhail.tarasevich.eventmanager.service.exception.EventNotFoundException;
+import com.mikhail.tarasevich.eventmanager.service.exception.EventSoldOutException;
 import com.mikhail.tarasevich.eventmanager.service.exception.IncorrectRequestDataException;
+import com.mikhail.tarasevich.eventmanager.service.exception.StatusConflictException;
 import com.mikhail.tarasevich.eventmanager.service.exception.UserEventParticipationNotFoundException;
 import com.mikhail.tarasevich.eventmanager.service.exception.UserNotFoundException;
 import com.mikhail.tarasevich.eventmanager.service.mapper.UserEventParticipationMapper;
 import com.mikhail.tarasevich.eventmanager.util.Status;
+import com.mikhail.tarasevich.eventmanager.util.StatusChangeOutcome;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -47,253 +67,164 @@ class UserEventParticipationServiceImplTest {
     @Mock
     private EventRepository eventRepository;
 
+    @Mock
+    private EventSeatRegistry seatRegistry;
+
     @Mock
     private UserEventParticipationMapper mapper;
 
     @Test
     void findPendingUserEventParticipationsByEventId_validInput_returnsUserEventParticipationResponses() {
 
-        String email = "manager@example.com";
+        int managerId = 2;
         int eventId = 1;
 
-        User user = User.builder().withEmail(email).withEvents(List.of(Event.builder().withId(eventId).build())).build();
-        Event event = Event.builder().withId(eventId).build();
-        UserEventParticipation uep1 = UserEventParticipation.builder()
-                .withId(1)
-                .withUser(user)
-                .withEvent(event)
-                .withStatus(Status.PENDING)
-                .build();
-        UserEventParticipation uep2 = UserEventParticipation.builder()
-                .withId(2)
-                .withUser(user)
-                .withEvent(event)
-                .withStatus(Status.PENDING)
-                .build();
+        UserEventParticipationView uep1 = participationView(1);
+        UserEventParticipationView uep2 = participationView(2);
 
-        List<UserEventParticipation> ueps = List.of(uep1, uep2);
+        List<UserEventParticipationView> ueps = List.of(uep1, uep2);
         List<UserEventParticipationResponse> expectedResponses = List.of(
                 UserEventParticipationResponse.builder().withId(1).build(),
                 UserEventParticipationResponse.builder().withId(2).build()
         );
 
-        when(userRepository.findUserByEmail(email)).thenReturn(Optional.of(user));
-        when(uepRepository.findUserEventParticipationsByEventIdAndStatusOrderById(eventId, Status.PENDING)).thenReturn(ueps);
+        when(eventRepository.existsByIdAndUserId(eventId, managerId)).thenReturn(true);
+        when(uepRepository.findUserEventParticipationViewsByEventIdAndStatusAndIdGreaterThan(eventId, Status.PENDING, 0, PageRequest.of(0, 51))).thenReturn(ueps);
         when(mapper.toResponse(uep1)).thenReturn(expectedResponses.get(0));
         when(mapper.toResponse(uep2)).thenReturn(expectedResponses.get(1));
 
-        List<UserEventParticipationResponse> responses = uepService.findPendingUserEventParticipationsByEventId(email, eventId);
+        List<UserEventParticipationResponse> responses = uepService.findPendingUserEventParticipationsByEventId(managerId, eventId, 0, 50).getContent();
 
         assertEquals(expectedResponses, responses);
     }
 
     @Test
-    void findPendingUserEventParticipationsByEventId_userNotRelatedToEvent_throwsIncorrectRequestDataException() {
+    void findPendingUserEventParticipationsByEventId_eventNotOwnedByManager_throwsIncorrectRequestDataException() {
 
-        String email = "manager@example.com";
+        int managerId = 2;
         int eventId = 1;
 
-        User user = User.builder().withEmail(email).withEvents(List.of(Event.builder().withId(2).build())).build();
-
-        when(userRepository.findUserByEmail(email)).thenReturn(Optional.of(user));
+        when(eventRepository.existsByIdAndUserId(eventId, managerId)).thenReturn(false);
 
         assertThrows(IncorrectRequestDataException.class,
-                () -> uepService.findPendingUserEventParticipationsByEventId(email, eventId));
-    }
-
-    @Test
-    void findPendingUserEventParticipationsByEventId_userNotFound_throwsUserNotFoundException() {
-
-        String email = "nonexisting@example.com";
-        int eventId = 1;
-
-        when(userRepository.findUserByEmail(email)).thenReturn(Optional.empty());
-
-        assertThrows(UserNotFoundException.class,
-                () -> uepService.findPendingUserEventParticipationsByEventId(email, eventId));
+                () -> uepService.findPendingUserEventParticipationsByEventId(managerId, eventId, 0, 50));
     }
 
     @Test
     void findRejectedUserEventParticipationsByEventId_validInput_returnsUserEventParticipationResponses() {
 
-        String email = "manager@example.com";
+        int managerId = 2;
         int eventId = 1;
 
-        Event event = Event.builder().withId(eventId).build();
-        User user = User.builder().withEmail(email).withEvents(List.of(event)).build();
-        UserEventParticipation uep1 = UserEventParticipation.builder()
-                .withId(1)
-                .withUser(user)
-                .withEvent(event)
-                .withStatus(Status.REJECTED)
-                .build();
-        UserEventParticipation uep2 = UserEventParticipation.builder()
-                .withId(2)
-                .withUser(user)
-                .withEvent(event)
-                .withStatus(Status.REJECTED)
-                .build();
+        UserEventParticipationView uep1 = participationView(1);
+        UserEventParticipationView uep2 = participationView(2);
 
-        List<UserEventParticipation> ueps = List.of(uep1, uep2);
+        List<UserEventParticipationView> ueps = List.of(uep1, uep2);
         List<UserEventParticipationResponse> expectedResponses = List.of(
                 UserEventParticipationResponse.builder().withId(1).build(),
                 UserEventParticipationResponse.builder().withId(2).build()
         );
 
-        when(userRepository.findUserByEmail(email)).thenReturn(Optional.of(user));
-        when(uepRepository.findUserEventParticipationsByEventIdAndStatusOrderById(eventId, Status.REJECTED)).thenReturn(ueps);
+        when(eventRepository.existsByIdAndUserId(eventId, managerId)).thenReturn(true);
+        when(uepRepository.findUserEventParticipationViewsByEventIdAndStatusAndIdGreaterThan(eventId, Status.REJECTED, 0, PageRequest.of(0, 51))).thenReturn(ueps);
         when(mapper.toResponse(uep1)).thenReturn(expectedResponses.get(0));
         when(mapper.toResponse(uep2)).thenReturn(expectedResponses.get(1));
 
-        List<UserEventParticipationResponse> responses = uepService.findRejectedUserEventParticipationsByEventId(email, eventId);
+        List<UserEventParticipationResponse> responses = uepService.findRejectedUserEventParticipationsByEventId(managerId, eventId, 0, 50).getContent();
 
         assertEquals(expectedResponses, responses);
     }
 
     @Test
-    void findRejectedUserEventParticipationsByEventId_userNotRelatedToEvent_throwsIncorrectRequestDataException() {
+    void findRejectedUserEventParticipationsByEventId_eventNotOwnedByManager_throwsIncorrectRequestDataException() {
 
-        String email = "manager@example.com";
+        int managerId = 2;
         int eventId = 1;
 
-        Event event = Event.builder().withId(2).build();
-        User user = User.builder().withEmail(email).withEvents(List.of(event)).build();
-
-        when(userRepository.findUserByEmail(email)).thenReturn(Optional.of(user));
+        when(eventRepository.existsByIdAndUserId(eventId, managerId)).thenReturn(false);
 
         assertThrows(IncorrectRequestDataException.class,
-                () -> uepService.findRejectedUserEventParticipationsByEventId(email, eventId));
-    }
-
-    @Test
-    void findRejectedUserEventParticipationsByEventId_userNotFound_throwsUserNotFoundException() {
-
-        String email = "nonexisting@example.com";
-        int eventId = 1;
-
-        when(userRepository.findUserByEmail(email)).thenReturn(Optional.empty());
-
-        assertThrows(UserNotFoundException.class,
-                () -> uepService.findRejectedUserEventParticipationsByEventId(email, eventId));
+                () -> uepService.findRejectedUserEventParticipationsByEventId(managerId, eventId, 0, 50));
     }
 
     @Test
     void findAcceptedUserEventParticipationsByEventId_validInput_returnsUserEventParticipationResponses() {
 
-        String email = "manager@example.com";
+        int managerId = 2;
         int eventId = 1;
 
-        Event event = Event.builder().withId(eventId).build();
-        User user = User.builder().withEmail(email).withEvents(List.of(event)).build();
-        UserEventParticipation uep1 = UserEventParticipation.builder()
-                .withId(1)
-                .withUser(user)
-                .withEvent(event)
-                .withStatus(Status.ACCEPTED)
-                .build();
-        UserEventParticipation uep2 = UserEventParticipation.builder()
-                .withId(2)
-                .withUser(user)
-                .withEvent(event)
-                .withStatus(Status.ACCEPTED)
-                .build();
+        UserEventParticipationView uep1 = participationView(1);
+        UserEventParticipationView uep2 = participationView(2);
 
-        List<UserEventParticipation> ueps = List.of(uep1, uep2);
+        List<UserEventParticipationView> ueps = List.of(uep1, uep2);
         List<UserEventParticipationResponse> expectedResponses = List.of(
                 UserEventParticipationResponse.builder().withId(1).build(),
                 UserEventParticipationResponse.builder().withId(2).build()
         );
 
-        when(userRepository.findUserByEmail(email)).thenReturn(Optional.of(user));
-        when(uepRepository.findUserEventParticipationsByEventIdAndStatusOrderById(eventId, Status.ACCEPTED)).thenReturn(ueps);
+        when(eventRepository.existsByIdAndUserId(eventId, managerId)).thenReturn(true);
+        when(uepRepository.findUserEventParticipationViewsByEventIdAndStatusAndIdGreaterThan(eventId, Status.ACCEPTED, 0, PageRequest.of(0, 51))).thenReturn(ueps);
         when(mapper.toResponse(uep1)).thenReturn(expectedResponses.get(0));
         when(mapper.toResponse(uep2)).thenReturn(expectedResponses.get(1));
 
-        List<UserEventParticipationResponse> responses = uepService.findAcceptedUserEventParticipationsByEventId(email, eventId);
+        List<UserEventParticipationResponse> responses = uepService.findAcceptedUserEventParticipationsByEventId(managerId, eventId, 0, 50).getContent();
 
         assertEquals(expectedResponses, responses);
     }
 
     @Test
-    void findAcceptedUserEventParticipationsByEventId_userNotRelatedToEvent_throwsIncorrectRequestDataException() {
+    void findAcceptedUserEventParticipationsByEventId_eventNotOwnedByManager_throwsIncorrectRequestDataException() {
 
-        String email = "manager@example.com";
+        int managerId = 2;
         int eventId = 1;
 
-        Event event = Event.builder().withId(2).build();
-        User user = User.builder().withEmail(email).withEvents(List.of(event)).build();
-
-        when(userRepository.findUserByEmail(email)).thenReturn(Optional.of(user));
+        when(eventRepository.existsByIdAndUserId(eventId, managerId)).thenReturn(false);
 
         assertThrows(IncorrectRequestDataException.class,
-                () -> uepService.findAcceptedUserEventParticipationsByEventId(email, eventId));
-    }
-
-    @Test
-    void findAcceptedUserEventParticipationsByEventId_userNotFound_throwsUserNotFoundException() {
-
-        String email = "nonexisting@example.com";
-        int eventId = 1;
-
-        when(userRepository.findUserByEmail(email)).thenReturn(Optional.empty());
-
-        assertThrows(UserNotFoundException.class,
-                () -> uepService.findAcceptedUserEventParticipationsByEventId(email, eventId));
+                () -> uepService.findAcceptedUserEventParticipationsByEventId(managerId, eventId, 0, 50));
     }
 
     @Test
     void findAllUserEventParticipationsByUserId_validInput_returnsUserEventParticipationResponses() {
 
-        String email = "user@example.com";
-        int userId = 1;
+        int userId = 5;
 
-        User user = User.builder().withId(userId).withEmail(email).build();
-        UserEventParticipation uep1 = UserEventParticipation.builder()
-                .withId(1)
-                .withUser(user)
-                .withEvent(Event.builder().withId(1).build())
-                .build();
-        UserEventParticipation uep2 = UserEventParticipation.builder()
-                .withId(2)
-                .withUser(user)
-                .withEvent(Event.builder().withId(2).build())
-                .build();
+        UserEventParticipationView uep1 = participationView(1);
+        UserEventParticipationView uep2 = participationView(2);
 
-        List<UserEventParticipation> ueps = List.of(uep1, uep2);
+        List<UserEventParticipationView> ueps = List.of(uep1, uep2);
         List<UserEventParticipationResponse> expectedResponses = List.of(
                 UserEventParticipationResponse.builder().withId(1).build(),
                 UserEventParticipationResponse.builder().withId(2).build()
         );
 
-        when(userRepository.findUserByEmail(email)).thenReturn(Optional.of(user));
-        when(uepRepository.findUserEventParticipationsByUserIdOrderById(userId)).thenReturn(ueps);
+        when(uepRepository.findUserEventParticipationViewsByUserIdAndIdGreaterThan(userId, 0, PageRequest.of(0, 51))).thenReturn(ueps);
         when(mapper.toResponse(uep1)).thenReturn(expectedResponses.get(0));
         when(mapper.toResponse(uep2)).thenReturn(expectedResponses.get(1));
 
-        List<UserEventParticipationResponse> responses = uepService.findAllUserEventParticipationsByUserEmail(email);
+        List<UserEventParticipationResponse> responses = uepService.findAllUserEventParticipationsByUserId(userId, 0, 50).getContent();
 
         assertEquals(expectedResponses, responses);
     }
 
     @Test
-    void findAllUserEventParticipationsByUserId_userNotFound_throwsUserNotFoundException() {
+    void findAllUserEventParticipationsByUserId_userWithoutParticipations_returnsEmptyList() {
 
-        String email = "nonexisting@example.com";
+        int userId = 10;
 
-        when(userRepository.findUserByEmail(email)).thenReturn(Optional.empty());
+        when(uepRepository.findUserEventParticipationViewsByUserIdAndIdGreaterThan(userId, 0, PageRequest.of(0, 51))).thenReturn(Collections.emptyList());
 
-        assertThrows(UserNotFoundException.class,
-                () -> uepService.findAllUserEventParticipationsByUserEmail(email));
+        assertEquals(Collections.emptyList(), uepService.findAllUserEventParticipationsByUserId(userId, 0, 50).getContent());
+        verify(userRepository, never()).findById(any());
     }
 
     @Test
     void createUserEventParticipation_validInput_returnsUserEventParticipationResponse() {
 
-        String email = "user@example.com";
-        int userId = 1;
+        int userId = 5;
         int eventId = 1;
 
-        User user = User.builder().withId(userId).withEmail(email).build();
+        User user = User.builder().withId(userId).build();
         Event event = Event.builder().withId(eventId).build();
         UserEventParticipationRequest request = UserEventParticipationRequest.builder().withEventId(eventId).build();
 
@@ -308,54 +239,73 @@ class UserEventParticipationServiceImplTest {
                 .withId(1)
                 .build();
 
-        when(userRepository.findUserByEmail(email)).thenReturn(Optional.of(user));
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
         when(eventRepository.findById(eventId)).thenReturn(Optional.of(event));
         when(mapper.toEntity(request)).thenReturn(entity);
-        when(uepRepository.save(entity)).thenReturn(entity);
+        when(uepRepository.saveAndFlush(entity)).thenReturn(entity);
         when(mapper.toResponse(entity)).thenReturn(expectedResponse);
 
-        UserEventParticipationResponse response = uepService.createUserEventParticipation(email, request);
+        UserEventParticipationResponse response = uepService.createUserEventParticipation(userId, request);
 
         assertEquals(expectedResponse, response);
     }
 
+    @Test
+    void createUserEventParticipation_soldOutEvent_expectedWaitlisted() {
+
+        int userId = 5;
+        int eventId = 1;
+
+        UserEventParticipationRequest request = UserEventParticipationRequest.builder().withEventId(eventId).build();
+        UserEventParticipation entity = UserEventParticipation.builder().build();
+
+        when(userRepository.findById(userId)).thenReturn(Optional.of(User.builder().withId(userId).build()));
+        when(eventRepository.findById(eventId)).thenReturn(Optional.of(Event.builder().withId(eventId).withCapacity(10).build()));
+        when(mapper.toEntity(request)).thenReturn(entity);
+        when(seatRegistry.lockIfSoldOut(eventId, 10)).thenReturn(true);
+        when(uepRepository.saveAndFlush(entity)).thenReturn(entity);
+
+        uepService.createUserEventParticipation(userId, request);
+
+        assertEquals(Status.WAITLISTED, entity.getStatus());
+        assertNotNull(entity.getWaitlistedAt());
+    }
+
     @Test
     void createUserEventParticipation_userNotFound_throwsUserNotFoundException() {
 
-        String email = "nonexisting@example.com";
+        int userId = 10;
         UserEventParticipationRequest request = UserEventParticipationRequest.builder().withEventId(1).build();
 
-        when(userRepository.findUserByEmail(email)).thenReturn(Optional.empty());
+        when(userRepository.findById(userId)).thenReturn(Optional.empty());
 
         assertThrows(UserNotFoundException.class,
-                () -> uepService.createUserEventParticipation(email, request));
+                () -> uepService.createUserEventParticipation(userId, request));
     }
 
     @Test
     void createUserEventParticipation_eventNotFound_throwsEventNotFoundException() {
 
-        String email = "user@example.com";
-        int userId = 1;
+        int userId = 5;
         int eventId = 1;
 
-        User user = User.builder().withId(userId).withEmail(email).build();
+        User user = User.builder().withId(userId).build();
         UserEventParticipationRequest request = UserEventParticipationRequest.builder().withEventId(eventId).build();
 
-        when(userRepository.findUserByEmail(email)).thenReturn(Optional.of(user));
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
         when(eventRepository.findById(eventId)).thenReturn(Optional.empty());
 
         assertThrows(EventNotFoundException.class,
-                () -> uepService.createUserEventParticipation(email, request));
+                () -> uepService.createUserEventParticipation(userId, request));
     }
 
     @Test
     void createUserEventParticipation_validInput_expectedDBException() {
 
-        String email = "user@example.com";
-        int userId = 1;
+        int userId = 5;
         int eventId = 1;
 
-        User user = User.builder().withId(userId).withEmail(email).build();
+        User user = User.builder().withId(userId).build();
         Event event = Event.builder().withId(eventId).build();
         UserEventParticipationRequest request = UserEventParticipationRequest.builder().withEventId(eventId).build();
 
@@ -366,186 +316,231 @@ class UserEventParticipationServiceImplTest {
                 .withStatus(Status.PENDING)
                 .build();
 
-        when(userRepository.findUserByEmail(email)).thenReturn(Optional.of(user));
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
         when(eventRepository.findById(eventId)).thenReturn(Optional.of(event));
         when(mapper.toEntity(request)).thenReturn(entity);
-        doThrow(DataBaseException.class).when(uepRepository).save(entity);
+        doThrow(DataBaseException.class).when(uepRepository).saveAndFlush(entity);
 
-        assertThrows(DataBaseException.class, () -> uepService.createUserEventParticipation(email, request));
+        assertThrows(DataBaseException.class, () -> uepService.createUserEventParticipation(userId, request));
     }
 
     @Test
     void setUserEventParticipationsStatusRejected_validInput_updatesUserEventParticipationStatus() {
 
-        String email = "manager@example.com";
+        int managerId = 2;
         int id = 1;
 
-        Event event = Event.builder().withId(5).build();
-        User manager = User.builder().withEmail(email).withEvents(List.of(event)).build();
-        UserEventParticipation uep = UserEventParticipation.builder().withId(id).withEvent(event).withStatus(Status.PENDING).build();
-        UserEventParticipation uepRejected = UserEventParticipation.builder().withId(id).withEvent(event).withStatus(Status.REJECTED).build();
-
-        when(uepRepository.findById(id)).thenReturn(Optional.of(uep));
-        when(userRepository.findUserByEmail(email)).thenReturn(Optional.of(manager));
-        when(uepRepository.save(uepRejected)).thenReturn(uepRejected);
+        when(uepRepository.updateStatusByIdAndStatusAndEventUserId(id, Status.PENDING, managerId, Status.REJECTED))
+                .thenReturn(1);
 
-        uepService.setUserEventParticipationsStatusRejected(email, id);
+        uepService.setUserEventParticipationsStatusRejected(managerId, id);
 
-        assertEquals(Status.REJECTED, uep.getStatus());
-        verify(uepRepository, times(1)).save(uepRejected);
+        verify(uepRepository, times(1)).updateStatusByIdAndStatusAndEventUserId(id, Status.PENDING, managerId,
+                Status.REJECTED);
+        verify(uepRepository, never()).findUserEventParticipationStatusViewsByIdIn(any());
     }
 
     @Test
     void setUserEventParticipationsStatusRejected_userNotRelatedToEvent_throwsIncorrectRequestDataException() {
 
-        String email = "manager@example.com";
+        int managerId = 2;
         int id = 1;
 
-        Event event1 = Event.builder().withId(1).build();
-        Event event2 = Event.builder().withId(2).build();
-        User manager = User.builder().withEmail(email).withEvents(List.of(event1)).build();
-        UserEventParticipation uep = UserEventParticipation.builder().withId(id).withEvent(event2).withStatus(Status.PENDING).build();
-
-        when(uepRepository.findById(id)).thenReturn(Optional.of(uep));
-        when(userRepository.findUserByEmail(email)).thenReturn(Optional.of(manager));
+        when(uepRepository.updateStatusByIdAndStatusAndEventUserId(id, Status.PENDING, managerId, Status.REJECTED))
+                .thenReturn(0);
+        when(uepRepository.findUserEventParticipationStatusViewsByIdIn(List.of(id)))
+                .thenReturn(List.of(statusView(id, Status.PENDING, 3)));
 
         assertThrows(IncorrectRequestDataException.class,
-                () -> uepService.setUserEventParticipationsStatusRejected(email, id));
+                () -> uepService.setUserEventParticipationsStatusRejected(managerId, id));
     }
 
     @Test
     void setUserEventParticipationsStatusRejected_userEventParticipationNotFound_throwsUserEventParticipationNotFoundException() {
 
-        String email = "manager@example.com";
+        int managerId = 2;
         int id = 1;
 
-        when(uepRepository.findById(id)).thenReturn(Optional.empty());
+        when(uepRepository.updateStatusByIdAndStatusAndEventUserId(id, Status.PENDING, managerId, Status.REJECTED))
+                .thenReturn(0);
+        when(uepRepository.findUserEventParticipationStatusViewsByIdIn(List.of(id))).thenReturn(List.of());
 
         assertThrows(UserEventParticipationNotFoundException.class,
-                () -> uepService.setUserEventParticipationsStatusRejected(email, id));
+                () -> uepService.setUserEventParticipationsStatusRejected(managerId, id));
+    }
+
+    @Test
+    void setUserEventParticipationsStatusRejected_acceptedRequest_throwsStatusConflictException() {
+
+        int managerId = 2;
+        int id = 3;
+
+        when(uepRepository.updateStatusByIdAndStatusAndEventUserId(id, Status.PENDING, managerId, Status.REJECTED))
+                .thenReturn(0);
+        when(uepRepository.findUserEventParticipationStatusViewsByIdIn(List.of(id)))
+                .thenReturn(List.of(statusView(id, Status.ACCEPTED, managerId)));
+
+        assertThrows(StatusConflictException.class,
+                () -> uepService.setUserEventParticipationsStatusRejected(managerId, id));
     }
 
     @Test
-    void setUserEventParticipationsStatusRejected_userNotFound_throwsUserNotFoundException() {
+    void setUserEventParticipationsStatusAccepted_validInput_updatesUserEventParticipationStatus() {
 
-        String email = "nonexisting@example.com";
+        int managerId = 2;
         int id = 1;
 
-        UserEventParticipation uep = UserEventParticipation.builder().withId(id).withStatus(Status.PENDING).build();
+        when(uepRepository.updateStatusByIdAndStatusAndEventUserId(id, Status.PENDING, managerId, Status.ACCEPTED))
+                .thenReturn(1);
+        when(uepRepository.findUserEventParticipationStatusViewsByIdIn(List.of(id)))
+                .thenReturn(List.of(statusView(id, Status.ACCEPTED, managerId, 2, null)));
 
-        when(uepRepository.findById(id)).thenReturn(Optional.of(uep));
-        when(userRepository.findUserByEmail(email)).thenReturn(Optional.empty());
+        uepService.setUserEventParticipationsStatusAccepted(managerId, id);
 
-        assertThrows(UserNotFoundException.class,
-                () -> uepService.setUserEventParticipationsStatusRejected(email, id));
+        verify(uepRepository, times(1)).updateStatusByIdAndStatusAndEventUserId(id, Status.PENDING, managerId,
+                Status.ACCEPTED);
+        verifyNoInteractions(seatRegistry);
     }
 
     @Test
-    void setUserEventParticipationsStatusAccepted_validInput_updatesUserEventParticipationStatus() {
+    void setUserEventParticipationsStatusAccepted_eventWithCapacity_reservesSeat() {
 
-        String email = "manager@example.com";
+        int managerId = 2;
         int id = 1;
 
-        Event event = Event.builder().withId(5).build();
-        User manager = User.builder().withEmail(email).withEvents(List.of(event)).build();
-        UserEventParticipation uep = UserEventParticipation.builder().withId(id).withEvent(event).withStatus(Status.PENDING).build();
-        UserEventParticipation uepAccepted = UserEventParticipation.builder().withId(id).withEvent(event).withStatus(Status.ACCEPTED).build();
+        when(uepRepository.updateStatusByIdAndStatusAndEventUserId(id, Status.PENDING, managerId, Status.ACCEPTED))
+                .thenReturn(1);
+        when(uepRepository.findUserEventParticipationStatusViewsByIdIn(List.of(id)))
+                .thenReturn(List.of(statusView(id, Status.ACCEPTED, managerId, 2, 10)));
+        when(seatRegistry.reserve(2, 10, 1)).thenReturn(1);
 
-        when(uepRepository.findById(id)).thenReturn(Optional.of(uep));
-        when(userRepository.findUserByEmail(email)).thenReturn(Optional.of(manager));
-        when(uepRepository.save(uepAccepted)).thenReturn(uepAccepted);
+        uepService.setUserEventParticipationsStatusAccepted(managerId, id);
+
+        verify(seatRegistry, times(1)).reserve(2, 10, 1);
+    }
 
-        uepService.setUserEventParticipationsStatusAccepted(email, id);
+    @Test
+    void setUserEventParticipationsStatusAccepted_soldOutEvent_throwsEventSoldOutException() {
 
-        assertEquals(Status.ACCEPTED, uep.getStatus());
-        verify(uepRepository, times(1)).save(uepAccepted);
+        int managerId = 2;
+        int id = 1;
+
+        when(uepRepository.updateStatusByIdAndStatusAndEventUserId(id, Status.PENDING, managerId, Status.ACCEPTED))
+                .thenReturn(1);
+        when(uepRepository.findUserEventParticipationStatusViewsByIdIn(List.of(id)))
+                .thenReturn(List.of(statusView(id, Status.ACCEPTED, managerId, 2, 10)));
+        when(seatRegistry.reserve(2, 10, 1)).thenReturn(0);
+
+        assertThrows(EventSoldOutException.class, () -> uepService.setUserEventParticipationsStatusAccepted(managerId, id));
     }
 
     @Test
     void setUserEventParticipationsStatusAccepted_userNotRelatedToEvent_throwsIncorrectRequestDataException() {
 
-        String email = "manager@example.com";
+        int managerId = 2;
         int id = 1;
 
-        Event event1 = Event.builder().withId(1).build();
-        Event event2 = Event.builder().withId(2).build();
-        User manager = User.builder().withEmail(email).withEvents(List.of(event1)).build();
-        UserEventParticipation uep = UserEventParticipation.builder().withId(id).withEvent(event2).withStatus(Status.PENDING).build();
-
-        when(uepRepository.findById(id)).thenReturn(Optional.of(uep));
-        when(userRepository.findUserByEmail(email)).thenReturn(Optional.of(manager));
+        when(uepRepository.updateStatusByIdAndStatusAndEventUserId(id, Status.PENDING, managerId, Status.ACCEPTED))
+                .thenReturn(0);
+        when(uepRepository.findUserEventParticipationStatusViewsByIdIn(List.of(id)))
+                .thenReturn(List.of(statusView(id, Status.PENDING, 3)));
 
         assertThrows(IncorrectRequestDataException.class,
-                () -> uepService.setUserEventParticipationsStatusAccepted(email, id));
+                () -> uepService.setUserEventParticipationsStatusAccepted(managerId, id));
     }
 
     @Test
     void setUserEventParticipationsStatusAccepted_userEventParticipationNotFound_throwsUserEventParticipationNotFoundException() {
 
-        String email = "manager@example.com";
+        int managerId = 2;
         int id = 1;
 
-        when(uepRepository.findById(id)).thenReturn(Optional.empty());
+        when(uepRepository.updateStatusByIdAndStatusAndEventUserId(id, Status.PENDING, managerId, Status.ACCEPTED))
+                .thenReturn(0);
+        when(uepRepository.findUserEventParticipationStatusViewsByIdIn(List.of(id))).thenReturn(List.of());
 
         assertThrows(UserEventParticipationNotFoundException.class,
-                () -> uepService.setUserEventParticipationsStatusAccepted(email, id));
+                () -> uepService.setUserEventParticipationsStatusAccepted(managerId, id));
     }
 
     @Test
-    void setUserEventParticipationsStatusAccepted_userNotFound_throwsUserNotFoundException() {
+    void setUserEventParticipationsStatusAccepted_acceptedRequest_succeedsWithoutChanges() {
 
-        String email = "nonexisting@example.com";
-        int id = 1;
+        int managerId = 2;
+        int id = 3;
 
-        UserEventParticipation uep = UserEventParticipation.builder().withId(id).withStatus(Status.PENDING).build();
+        when(uepRepository.updateStatusByIdAndStatusAndEventUserId(id, Status.PENDING, managerId, Status.ACCEPTED))
+                .thenReturn(0);
+        when(uepRepository.findUserEventParticipationStatusViewsByIdIn(List.of(id)))
+                .thenReturn(List.of(statusView(id, Status.ACCEPTED, managerId)));
 
-        when(uepRepository.findById(id)).thenReturn(Optional.of(uep));
-        when(userRepository.findUserByEmail(email)).thenReturn(Optional.empty());
+        uepService.setUserEventParticipationsStatusAccepted(managerId, id);
 
-        assertThrows(UserNotFoundException.class,
-                () -> uepService.setUserEventParticipationsStatusAccepted(email, id));
+        verify(uepRepository, times(1)).updateStatusByIdAndStatusAndEventUserId(id, Status.PENDING, managerId,
+                Status.ACCEPTED);
     }
 
     @Test
     void deleteUserEventParticipationsById_validInput_deletesUserEventParticipation() {
 
-        String email = "participant@example.com";
+        int userId = 5;
         int id = 1;
 
-        User participant = User.builder().withEmail(email).build();
+        User participant = User.builder().withId(userId).build();
         UserEventParticipation uep = UserEventParticipation.builder().withId(id).withUser(participant).build();
 
         when(uepRepository.findById(id)).thenReturn(Optional.of(uep));
 
-        uepService.deleteUserEventParticipationsById(email, id);
+        uepService.deleteUserEventParticipationsById(userId, id);
+
+        verify(uepRepository, times(1)).deleteById(id);
+    }
+
+    @Test
+    void deleteUserEventParticipationsById_acceptedInEventWithCapacity_freesSeat() {
+
+        int userId = 5;
+        int id = 3;
+
+        UserEventParticipation uep = UserEventParticipation.builder()
+                .withId(id)
+                .withUser(User.builder().withId(userId).build())
+                .withEvent(Event.builder().withId(4).withCapacity(10).build())
+                .withStatus(Status.ACCEPTED)
+                .build();
+
+        when(uepRepository.findById(id)).thenReturn(Optional.of(uep));
+
+        uepService.deleteUserEventParticipationsById(userId, id);
 
         verify(uepRepository, times(1)).deleteById(id);
+        verify(seatRegistry, times(1)).free(4, 1);
     }
 
     @Test
     void deleteUserEventParticipationsById_userNotOwnerOfEventParticipation_throwsIncorrectRequestDataException() {
 
-        String email = "participant@example.com";
+        int userId = 5;
         int id = 1;
 
-        UserEventParticipation uep = UserEventParticipation.builder().withId(id).withUser(User.builder().withEmail("other@example.com").build()).build();
+        UserEventParticipation uep = UserEventParticipation.builder().withId(id).withUser(User.builder().withId(6).build()).build();
 
         when(uepRepository.findById(id)).thenReturn(Optional.of(uep));
 
         assertThrows(IncorrectRequestDataException.class,
-                () -> uepService.deleteUserEventParticipationsById(email, id));
+                () -> uepService.deleteUserEventParticipationsById(userId, id));
     }
 
     @Test
     void deleteUserEventParticipationsById_userEventParticipationNotFound_throwsUserEventParticipationNotFoundException() {
 
-        String email = "participant@example.com";
+        int userId = 5;
         int id = 1;
 
         when(uepRepository.findById(id)).thenReturn(Optional.empty());
 
         assertThrows(UserEventParticipationNotFoundException.class,
-                () -> uepService.deleteUserEventParticipationsById(email, id));
+                () -> uepService.deleteUserEventParticipationsById(userId, id));
     }
 
     @Test
@@ -560,4 +555,181 @@ class UserEventParticipationServiceImplTest {
         verify(uepRepository, times(1)).deleteById(id);
     }
 
+    @Test
+    void setUserEventParticipationsStatus_inputIds_returnsOutcomePerId() {
+
+        int managerId = 3;
+
+        UserEventParticipationStatusRequest request = UserEventParticipationStatusRequest.builder()
+                .withIds(List.of(1, 2, 3, 99, 1))
+                .withStatus(Status.ACCEPTED)
+                .build();
+
+        when(uepRepository.findUserEventParticipationStatusViewsByIdIn(List.of(1, 2, 3, 99))).thenReturn(List.of(
+                statusView(1, Status.PENDING, managerId),
+                statusView(2, Status.PENDING, 4),
+                statusView(3, Status.REJECTED, managerId)));
+        when(uepRepository.updateStatusByIdInAndStatusAndEventUserId(List.of(1), Status.PENDING, managerId,
+                Status.ACCEPTED)).thenReturn(1);
+
+        UserEventParticipationStatusResponse response = uepService.setUserEventParticipationsStatus(managerId, request);
+
+        Map<Integer, StatusChangeOutcome> expected = new LinkedHashMap<>();
+        expected.put(1, StatusChangeOutcome.UPDATED);
+        expected.put(2, StatusChangeOutcome.NOT_OWNED);
+        expected.put(3, StatusChangeOutcome.NOT_PENDING);
+        expected.put(99, StatusChangeOutcome.NOT_FOUND);
+
+        assertEquals(Status.ACCEPTED, response.getStatus());
+        assertEquals(expected, response.getOutcomes());
+        verify(uepRepository, times(1)).findUserEventParticipationStatusViewsByIdIn(any());
+    }
+
+    @Test
+    void setUserEventParticipationsStatus_inputEventId_updatesAllPendingOfEvent() {
+
+        int managerId = 3;
+        int eventId = 2;
+
+        UserEventParticipationStatusRequest request = UserEventParticipationStatusRequest.builder()
+                .withEventId(eventId)
+                .withStatus(Status.REJECTED)
+                .build();
+
+        when(eventRepository.existsByIdAndUserId(eventId, managerId)).thenReturn(true);
+        when(uepRepository.findIdsByEventIdAndStatus(eventId, Status.PENDING, PageRequest.of(0, 500)))
+                .thenReturn(List.of(1, 6));
+        when(uepRepository.findUserEventParticipationStatusViewsByIdIn(List.of(1, 6))).thenReturn(List.of(
+                statusView(1, Status.PENDING, managerId),
+                statusView(6, Status.PENDING, managerId)));
+        when(uepRepository.updateStatusByIdInAndStatusAndEventUserId(List.of(1, 6), Status.PENDING, managerId,
+                Status.REJECTED)).thenReturn(2);
+
+        UserEventParticipationStatusResponse response = uepService.setUserEventParticipationsStatus(managerId, request);
+
+        assertEquals(Map.of(1, StatusChangeOutcome.UPDATED, 6, StatusChangeOutcome.UPDATED), response.getOutcomes());
+    }
+
+    @Test
+    void setUserEventParticipationsStatus_concurrentlyChanged_reportsNotUpdatedIds() {
+
+        int managerId = 3;
+
+        UserEventParticipationStatusRequest request = UserEventParticipationStatusRequest.builder()
+                .withIds(List.of(1, 6, 7))
+                .withStatus(Status.ACCEPTED)
+                .build();
+
+        when(uepRepository.findUserEventParticipationStatusViewsByIdIn(List.of(1, 6, 7)))
+                .thenReturn(List.of(
+                        statusView(1, Status.PENDING, managerId),
+                        statusView(6, Status.PENDING, managerId),
+                        statusView(7, Status.PENDING, managerId)))
+                .thenReturn(List.of(
+                        statusView(1, Status.ACCEPTED, managerId),
+                        statusView(6, Status.REJECTED, managerId)));
+        when(uepRepository.updateStatusByIdInAndStatusAndEventUserId(List.of(1, 6, 7), Status.PENDING, managerId,
+                Status.ACCEPTED)).thenReturn(1);
+
+        UserEventParticipationStatusResponse response = uepService.setUserEventParticipationsStatus(managerId, request);
+
+        assertEquals(Map.of(1, StatusChangeOutcome.UPDATED, 6, StatusChangeOutcome.NOT_PENDING,
+                7, StatusChangeOutcome.NOT_FOUND), response.getOutcomes());
+    }
+
+    @Test
+    void setUserEventParticipationsStatus_eventFillsUp_oldestAcceptedAndRestBackToPending() {
+
+        int managerId = 3;
+
+        UserEventParticipationStatusRequest request = UserEventParticipationStatusRequest.builder()
+                .withIds(List.of(7, 6, 1))
+                .withStatus(Status.ACCEPTED)
+                .build();
+
+        when(uepRepository.findUserEventParticipationStatusViewsByIdIn(List.of(7, 6, 1))).thenReturn(List.of(
+                statusView(7, Status.PENDING, managerId, 2, 5),
+                statusView(6, Status.PENDING, managerId, 2, 5),
+                statusView(1, Status.PENDING, managerId, 2, 5)));
+        when(uepRepository.updateStatusByIdInAndStatusAndEventUserId(List.of(7, 6, 1), Status.PENDING, managerId,
+                Status.ACCEPTED)).thenReturn(3);
+        when(seatRegistry.reserve(2, 5, 3)).thenReturn(2);
+
+        UserEventParticipationStatusResponse response = uepService.setUserEventParticipationsStatus(managerId, request);
+
+        assertEquals(Map.of(1, StatusChangeOutcome.UPDATED, 6, StatusChangeOutcome.UPDATED,
+                7, StatusChangeOutcome.SOLD_OUT), response.getOutcomes());
+        verify(uepRepository, times(1)).updateStatusByIdInAndStatusAndEventUserId(List.of(7), Status.ACCEPTED,
+                managerId, Status.PENDING);
+    }
+
+    @Test
+    void setUserEventParticipationsStatus_pendingTargetStatus_throwsIncorrectRequestDataException() {
+
+        UserEventParticipationStatusRequest request = UserEventParticipationStatusRequest.builder()
+                .withIds(List.of(1))
+                .withStatus(Status.PENDING)
+                .build();
+
+        assertThrows(IncorrectRequestDataException.class, () -> uepService.setUserEventParticipationsStatus(3, request));
+        verifyNoInteractions(uepRepository);
+    }
+
+    @Test
+    void setUserEventParticipationsStatus_idsAndEventId_throwsIncorrectRequestDataException() {
+
+        UserEventParticipationStatusRequest request = UserEventParticipationStatusRequest.builder()
+                .withIds(List.of(1))
+                .withEventId(2)
+                .withStatus(Status.ACCEPTED)
+                .build();
+
+        assertThrows(IncorrectRequestDataException.class, () -> uepService.setUserEventParticipationsStatus(3, request));
+        verifyNoInteractions(uepRepository);
+    }
+
+    @Test
+    void setUserEventParticipationsStatus_tooManyIds_throwsIncorrectRequestDataException() {
+
+        UserEventParticipationStatusRequest request = UserEventParticipationStatusRequest.builder()
+                .withIds(IntStream.rangeClosed(1, 501).boxed().collect(Collectors.toList()))
+                .withStatus(Status.ACCEPTED)
+                .build();
+
+        assertThrows(IncorrectRequestDataException.class, () -> uepService.setUserEventParticipationsStatus(3, request));
+        verifyNoInteractions(uepRepository);
+    }
+
+    @Test
+    void setUserEventParticipationsStatus_eventNotOwnedByManager_throwsIncorrectRequestDataException() {
+
+        UserEventParticipationStatusRequest request = UserEventParticipationStatusRequest.builder()
+                .withEventId(3)
+                .withStatus(Status.ACCEPTED)
+                .build();
+
+        when(eventRepository.existsByIdAndUserId(3, 3)).thenReturn(false);
+
+        assertThrows(IncorrectRequestDataException.class, () -> uepService.setUserEventParticipationsStatus(3, request));
+        verify(uepRepository, never()).updateStatusByIdInAndStatusAndEventUserId(any(), any(), anyInt(), any());
+    }
+
+    private static UserEventParticipationStatusView statusView(int id, Status status, int eventUserId) {
+        return new SpelAwareProxyProjectionFactory().createProjection(UserEventParticipationStatusView.class,
+                Map.of("id", id, "status", status, "eventUserId", eventUserId));
+    }
+
+    private static UserEventParticipationStatusView statusView(int id, Status status, int eventUserId, int eventId,
+                                                               Integer eventCapacity) {
+        Map<String, Object> values = new HashMap<>(Map.of("id", id, "status", status, "eventUserId", eventUserId,
+                "eventId", eventId));
+        values.put("eventCapacity", eventCapacity);
+
+        return new SpelAwareProxyProjectionFactory().createProjection(UserEventParticipationStatusView.class, values);
+    }
+
+    private static UserEventParticipationView participationView(int id) {
+        return new SpelAwareProxyProjectionFactory().createProjection(UserEventParticipationView.class, Map.of("id", id));
+    }
+
 }
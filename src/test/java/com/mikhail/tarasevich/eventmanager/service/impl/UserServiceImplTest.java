@@ -9,26 +9,45 @@ import com.mikhail.tarasevich.eventmanager.repository.EventRepository;
 import com.mikhail.tarasevich.eventmanager.repository.RoleRepository;
 import com.mikhail.tarasevich.eventmanager.repository.UserEventParticipationRepository;
 import com.mikhail.tarasevich.eventmanager.repository.UserRepository;
+import com.mikhail.tarasevich.eventmanager.repository.projection.EventParticipantsView;
+import com.mikhail.tarasevich.eventmanager.repository.projection.UserView;
+import com.mikhail.tarasevich.eventmanager.security.RolePrivilegeRegistry;
+import com.mikhail.tarasevich.eventmanager.security.TokenRevocationRegistry;
 import com.mikhail.tarasevich.eventmanager.service.exception.CommonException;
+import com.mikhail.tarasevich.eventmanager.service.exception.IncorrectRequestDataException;
 import com.mikhail.tarasevich.eventmanager.service.exception.UserNotFoundException;
 import com.mikhail.tarasevich.eventmanager.service.mapper.UserMapper;
 import com.mikhail.tarasevich.eventmanager.service.validator.UserValidator;
+import com.mikhail.tarasevich.eventmanager.util.Status;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -61,20 +80,34 @@ class UserServiceImplTest {
     @Mock
     private PasswordEncoder encoder;
 
+    @Mock
+    private TokenRevocationRegistry revocationRegistry;
+
+    @Mock
+    private RolePrivilegeRegistry rolePrivilegeRegistry;
+
+    @Mock
+    private EventSeatRegistry seatRegistry;
+
+    @Mock
+    private EventDetailCache eventCache;
+
+    @Mock
+    private EventSearchIndex searchIndex;
+
+    @Mock
+    private EntityManager entityManager;
+
     @Test
     void findAll_validInput_returnsListOfUsers() {
 
-        User user1 = new User();
-        user1.setId(1);
-        user1.setEmail("user1@example.com");
+        UserView user1 = userView(1, "user1@example.com");
 
-        User user2 = new User();
-        user2.setId(2);
-        user2.setEmail("user2@example.com");
+        UserView user2 = userView(2, "user2@example.com");
 
-        List<User> users = List.of(user1, user2);
+        List<UserView> users = List.of(user1, user2);
 
-        when(userRepository.findAll()).thenReturn(users);
+        when(userRepository.findUserViewsByIdGreaterThan(0, PageRequest.of(0, 51))).thenReturn(users);
 
         UserResponse userResponse1 = new UserResponse();
         userResponse1.setId(1);
@@ -88,7 +121,7 @@ class UserServiceImplTest {
         when(mapper.toResponse(user2)).thenReturn(userResponse2);
 
         List<UserResponse> expected = List.of(userResponse1, userResponse2);
-        List<UserResponse> actual = userService.findAll();
+        List<UserResponse> actual = userService.findAll(0, 50).getContent();
 
         assertEquals(expected, actual);
     }
@@ -98,11 +131,9 @@ class UserServiceImplTest {
 
         int userId = 1;
 
-        User user = new User();
-        user.setId(userId);
-        user.setEmail("user1@example.com");
+        UserView user = userView(userId, "user1@example.com");
 
-        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(userRepository.findUserViewById(userId)).thenReturn(Optional.of(user));
 
         UserResponse expected = new UserResponse();
         expected.setId(userId);
@@ -120,7 +151,7 @@ class UserServiceImplTest {
 
         int userId = 1;
 
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        when(userRepository.findUserViewById(userId)).thenReturn(Optional.empty());
 
         assertThrows(UserNotFoundException.class, () -> userService.findUserById(userId));
     }
@@ -248,17 +279,18 @@ class UserServiceImplTest {
     @Test
     void findAdmins_multipleAdminsExist_returnsAdminResponses() {
 
-        User admin1 = User.builder().withEmail("admin1@example.com").withRole(Role.builder().withName("ROLE_ADMIN").build()).build();
-        User admin2 = User.builder().withEmail("admin2@example.com").withRole(Role.builder().withName("ROLE_ADMIN").build()).build();
+        UserView admin1 = userView(1, "admin1@example.com");
+        UserView admin2 = userView(10, "admin2@example.com");
 
-        when(userRepository.findUsersByRoleOrderById("ROLE_ADMIN")).thenReturn(List.of(admin1, admin2));
+        when(rolePrivilegeRegistry.findRoleId("ROLE_ADMIN")).thenReturn(Optional.of(1));
+        when(userRepository.findUserViewsByRoleIdAndIdGreaterThan(1, 0, PageRequest.of(0, 51))).thenReturn(List.of(admin1, admin2));
 
         UserResponse adminResponse1 = UserResponse.builder().withEmail("admin1@example.com").build();
         UserResponse adminResponse2 = UserResponse.builder().withEmail("admin2@example.com").build();
         when(mapper.toResponse(admin1)).thenReturn(adminResponse1);
         when(mapper.toResponse(admin2)).thenReturn(adminResponse2);
 
-        List<UserResponse> result = userService.findAdmins();
+        List<UserResponse> result = userService.findAdmins(0, 50).getContent();
 
         assertEquals(2, result.size());
         assertEquals("admin1@example.com", result.get(0).getEmail());
@@ -268,9 +300,10 @@ class UserServiceImplTest {
     @Test
     void findAdmins_noAdminsExist_returnsEmptyList() {
 
-        when(userRepository.findUsersByRoleOrderById("ROLE_ADMIN")).thenReturn(Collections.emptyList());
+        when(rolePrivilegeRegistry.findRoleId("ROLE_ADMIN")).thenReturn(Optional.of(1));
+        when(userRepository.findUserViewsByRoleIdAndIdGreaterThan(1, 0, PageRequest.of(0, 51))).thenReturn(Collections.emptyList());
 
-        List<UserResponse> result = userService.findAdmins();
+        List<UserResponse> result = userService.findAdmins(0, 50).getContent();
 
         assertTrue(result.isEmpty());
     }
@@ -278,17 +311,18 @@ class UserServiceImplTest {
     @Test
     void findManagers_multipleManagersExist_returnsManagerResponses() {
 
-        User manager1 = User.builder().withEmail("manager1@example.com").withRole(Role.builder().withName("ROLE_MANAGER").build()).build();
-        User manager2 = User.builder().withEmail("manager2@example.com").withRole(Role.builder().withName("ROLE_MANAGER").build()).build();
+        UserView manager1 = userView(2, "manager1@example.com");
+        UserView manager2 = userView(3, "manager2@example.com");
 
-        when(userRepository.findUsersByRoleOrderById("ROLE_MANAGER")).thenReturn(List.of(manager1, manager2));
+        when(rolePrivilegeRegistry.findRoleId("ROLE_MANAGER")).thenReturn(Optional.of(2));
+        when(userRepository.findUserViewsByRoleIdAndIdGreaterThan(2, 0, PageRequest.of(0, 51))).thenReturn(List.of(manager1, manager2));
 
         UserResponse managerResponse1 = UserResponse.builder().withEmail("manager1@example.com").build();
         UserResponse managerResponse2 = UserResponse.builder().withEmail("manager2@example.com").build();
         when(mapper.toResponse(manager1)).thenReturn(managerResponse1);
         when(mapper.toResponse(manager2)).thenReturn(managerResponse2);
 
-        List<UserResponse> result = userService.findManagers();
+        List<UserResponse> result = userService.findManagers(0, 50).getContent();
 
         assertEquals(2, result.size());
         assertEquals("manager1@example.com", result.get(0).getEmail());
@@ -298,9 +332,10 @@ class UserServiceImplTest {
     @Test
     void findManagers_noManagersExist_returnsEmptyList() {
 
-        when(userRepository.findUsersByRoleOrderById("ROLE_MANAGER")).thenReturn(Collections.emptyList());
+        when(rolePrivilegeRegistry.findRoleId("ROLE_MANAGER")).thenReturn(Optional.of(2));
+        when(userRepository.findUserViewsByRoleIdAndIdGreaterThan(2, 0, PageRequest.of(0, 51))).thenReturn(Collections.emptyList());
 
-        List<UserResponse> result = userService.findManagers();
+        List<UserResponse> result = userService.findManagers(0, 50).getContent();
 
         assertTrue(result.isEmpty());
     }
@@ -308,16 +343,11 @@ class UserServiceImplTest {
     @Test
     void findParticipants_multipleParticipantsExist_returnsParticipantResponses() {
 
-        User participant1 = User.builder()
-                .withEmail("participant1@example.com")
-                .withRole(Role.builder().withName("ROLE_PARTICIPANT").build())
-                .build();
-        User participant2 = User.builder()
-                .withEmail("participant2@example.com")
-                .withRole(Role.builder().withName("ROLE_PARTICIPANT").build())
-                .build();
+        UserView participant1 = userView(5, "participant1@example.com");
+        UserView participant2 = userView(6, "participant2@example.com");
 
-        when(userRepository.findUsersByRoleOrderById("ROLE_PARTICIPANT"))
+        when(rolePrivilegeRegistry.findRoleId("ROLE_PARTICIPANT")).thenReturn(Optional.of(3));
+        when(userRepository.findUserViewsByRoleIdAndIdGreaterThan(3, 0, PageRequest.of(0, 51)))
                 .thenReturn(List.of(participant1, participant2));
 
         UserResponse participantResponse1 = UserResponse.builder()
@@ -330,7 +360,7 @@ class UserServiceImplTest {
         when(mapper.toResponse(participant1)).thenReturn(participantResponse1);
         when(mapper.toResponse(participant2)).thenReturn(participantResponse2);
 
-        List<UserResponse> result = userService.findParticipants();
+        List<UserResponse> result = userService.findParticipants(0, 50).getContent();
 
         assertEquals(2, result.size());
         assertEquals("participant1@example.com", result.get(0).getEmail());
@@ -340,11 +370,23 @@ class UserServiceImplTest {
     @Test
     void findParticipants_noParticipantsExist_returnsEmptyList() {
 
-        when(userRepository.findUsersByRoleOrderById("ROLE_PARTICIPANT")).thenReturn(Collections.emptyList());
+        when(rolePrivilegeRegistry.findRoleId("ROLE_PARTICIPANT")).thenReturn(Optional.of(3));
+        when(userRepository.findUserViewsByRoleIdAndIdGreaterThan(3, 0, PageRequest.of(0, 51))).thenReturn(Collections.emptyList());
+
+        List<UserResponse> result = userService.findParticipants(0, 50).getContent();
+
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    void findParticipants_roleIsAbsent_returnsEmptyList() {
+
+        when(rolePrivilegeRegistry.findRoleId("ROLE_PARTICIPANT")).thenReturn(Optional.empty());
 
-        List<UserResponse> result = userService.findParticipants();
+        List<UserResponse> result = userService.findParticipants(0, 50).getContent();
 
         assertTrue(result.isEmpty());
+        verifyNoInteractions(userRepository);
     }
 
     @Test
@@ -352,19 +394,131 @@ class UserServiceImplTest {
 
         int userId = 1;
 
-        doNothing().when(userEventParticipationRepository).deleteUserEventParticipationsByUserId(userId);
-        doNothing().when(userEventParticipationRepository).deleteUserEventParticipationsByEventUserId(userId);
-        doNothing().when(contractRepository).deleteContractsByUserId(userId);
-        doNothing().when(eventRepository).deleteEventsByUserId(userId);
-        doNothing().when(userRepository).deleteById(userId);
-
         userService.deleteUserById(userId);
 
-        verify(userEventParticipationRepository).deleteUserEventParticipationsByUserId(userId);
-        verify(userEventParticipationRepository).deleteUserEventParticipationsByEventUserId(userId);
-        verify(contractRepository).deleteContractsByUserId(userId);
-        verify(eventRepository).deleteEventsByUserId(userId);
-        verify(userRepository).deleteById(userId);
+        verify(userEventParticipationRepository).deleteUserEventParticipationsByUserIdInOrEventUserIdIn(List.of(userId));
+        verify(contractRepository).deleteContractsByUserIdIn(List.of(userId));
+        verify(eventRepository).deleteEventsByUserIdIn(List.of(userId));
+        verify(userRepository).deleteUsersByIdIn(List.of(userId));
+        verify(revocationRegistry).revokeUserTokens(userId);
+    }
+
+    @Test
+    void deleteUsersByIds_severalUsers_deletesWithOneStatementPerTableAndRevokesTokens() {
+
+        List<Integer> ids = List.of(7, 8, 9);
+
+        userService.deleteUsersByIds(ids);
+
+        verify(userEventParticipationRepository).deleteUserEventParticipationsByUserIdInOrEventUserIdIn(ids);
+        verify(contractRepository).deleteContractsByUserIdIn(ids);
+        verify(eventRepository).deleteEventsByUserIdIn(ids);
+        verify(userRepository).deleteUsersByIdIn(ids);
+        verify(revocationRegistry).revokeUserTokens(7);
+        verify(revocationRegistry).revokeUserTokens(8);
+        verify(revocationRegistry).revokeUserTokens(9);
+        verify(eventCache).invalidateOwnedBy(ids);
+    }
+
+    @Test
+    void deleteUsersByIds_acceptedInEventsWithCapacity_freesSeats() {
+
+        List<Integer> ids = List.of(5, 6);
+
+        when(userEventParticipationRepository.countParticipantsOfLimitedEventsByUserIdInAndStatus(ids, Status.ACCEPTED))
+                .thenReturn(List.of(
+                        new SpelAwareProxyProjectionFactory().createProjection(EventParticipantsView.class,
+                                Map.of("eventId", 3, "participants", 2L)),
+                        new SpelAwareProxyProjectionFactory().createProjection(EventParticipantsView.class,
+                                Map.of("eventId", 4, "participants", 1L))));
+
+        userService.deleteUsersByIds(ids);
+
+        verify(seatRegistry).free(3, 2);
+        verify(seatRegistry).free(4, 1);
+    }
+
+    @Test
+    void deleteUsersByIds_usersOwnEvents_removesEventsFromSearchIndex() {
+
+        List<Integer> ids = List.of(5, 6);
+
+        when(eventRepository.findIdsByUserIdIn(ids)).thenReturn(List.of(11, 12, 13));
+
+        userService.deleteUsersByIds(ids);
+
+        InOrder inOrder = inOrder(eventRepository, searchIndex);
+        inOrder.verify(eventRepository).findIdsByUserIdIn(ids);
+        inOrder.verify(eventRepository).deleteEventsByUserIdIn(ids);
+        inOrder.verify(searchIndex).remove(List.of(11, 12, 13));
+    }
+
+    @Test
+    void deleteUsersByIds_rolledBack_expectedEventsLeftInSearchIndex() {
+
+        List<Integer> ids = List.of(5, 6);
+
+        when(eventRepository.findIdsByUserIdIn(ids)).thenReturn(List.of(11, 12, 13));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            userService.deleteUsersByIds(ids);
+
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            synchronizations.forEach(synchronization ->
+                    synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verifyNoInteractions(searchIndex);
+    }
+
+    @Test
+    void deleteUsersByIds_tooManyIds_throwsIncorrectRequestDataException() {
+
+        List<Integer> ids = IntStream.rangeClosed(1, 501).boxed().collect(Collectors.toList());
+
+        assertThrows(IncorrectRequestDataException.class, () -> userService.deleteUsersByIds(ids));
+
+        verifyNoInteractions(userRepository, revocationRegistry);
+    }
+
+    @Test
+    void exportParticipants_participantsExist_expectedResponsesPassedToConsumerInOrder() {
+
+        User participant1 = User.builder().withId(5).withEmail("participant1@example.com").build();
+        User participant2 = User.builder().withId(6).withEmail("participant2@example.com").build();
+
+        when(rolePrivilegeRegistry.findRoleId("ROLE_PARTICIPANT")).thenReturn(Optional.of(3));
+        when(userRepository.streamUsersByRoleIdOrderById(3)).thenReturn(Stream.of(participant1, participant2));
+        when(mapper.toResponse(participant1)).thenReturn(UserResponse.builder().withId(5).withEmail("participant1@example.com").build());
+        when(mapper.toResponse(participant2)).thenReturn(UserResponse.builder().withId(6).withEmail("participant2@example.com").build());
+
+        List<UserResponse> exported = new ArrayList<>();
+
+        userService.exportParticipants(exported::add);
+
+        assertEquals(2, exported.size());
+        assertEquals("participant1@example.com", exported.get(0).getEmail());
+        assertEquals("participant2@example.com", exported.get(1).getEmail());
+    }
+
+    @Test
+    void exportParticipants_noParticipantRole_expectedNothingExported() {
+
+        when(rolePrivilegeRegistry.findRoleId("ROLE_PARTICIPANT")).thenReturn(Optional.empty());
+
+        List<UserResponse> exported = new ArrayList<>();
+
+        userService.exportParticipants(exported::add);
+
+        assertTrue(exported.isEmpty());
+        verifyNoInteractions(userRepository);
+    }
+
+    private static UserView userView(int id, String email) {
+        return new SpelAwareProxyProjectionFactory().createProjection(UserView.class, Map.of("id", id, "email", email));
     }
 
 }
@@ -0,0 +1,100 @@
+package com.mikhail.tarasevich.eventmanager.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mikhail.tarasevich.eventmanager.dto.EventRequest;
+import com.mikhail.tarasevich.eventmanager.service.exception.IncorrectRequestDataException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EventImportReaderTest {
+
+    private static final MediaType CSV = MediaType.valueOf(EventImportReader.CSV_VALUE);
+
+    private static final MediaType NDJSON = MediaType.valueOf(EventImportReader.NDJSON_VALUE);
+
+    @Test
+    void next_csvWithQuotedFields_expectedRowsWithLines() {
+
+        String csv = "Price,Name,Description\r\n" +
+                "100,Concert,Music concert\r\n" +
+                "\r\n" +
+                "200,\"Talk, \"\"live\"\"\",\"First line\nsecond line\"\n" +
+                "free,Party,Dance party\n" +
+                "300,Lecture\n" +
+                "400,Quiz,Pub quiz";
+
+        List<EventImportReader.Row> rows = readAll(csv, CSV);
+
+        assertEquals(5, rows.size());
+        assertEquals(new EventImportReader.Row(2, new EventRequest(0, "Concert", "Music concert", 100, null), null), rows.get(0));
+        assertEquals(new EventImportReader.Row(4, new EventRequest(0, "Talk, \"live\"", "First line\nsecond line", 200, null), null),
+                rows.get(1));
+        assertEquals(6, rows.get(2).getLine());
+        assertEquals("price - Event's price should be a number;", rows.get(2).getError());
+        assertEquals(7, rows.get(3).getLine());
+        assertEquals("Expected 3 columns but found 2", rows.get(3).getError());
+        assertEquals(new EventImportReader.Row(8, new EventRequest(0, "Quiz", "Pub quiz", 400, null), null), rows.get(4));
+    }
+
+    @Test
+    void next_csvWithCapacityColumn_expectedCapacityOrUnlimited() {
+
+        String csv = "name,description,price,capacity\n" +
+                "Concert,Music concert,100,50\n" +
+                "Quiz,Pub quiz,400,\n" +
+                "Party,Dance party,300,many";
+
+        List<EventImportReader.Row> rows = readAll(csv, CSV);
+
+        assertEquals(new EventImportReader.Row(2, new EventRequest(0, "Concert", "Music concert", 100, 50), null), rows.get(0));
+        assertEquals(new EventImportReader.Row(3, new EventRequest(0, "Quiz", "Pub quiz", 400, null), null), rows.get(1));
+        assertEquals("capacity - Event's capacity should be a number;", rows.get(2).getError());
+    }
+
+    @Test
+    void next_csvWithoutRequiredColumn_throwsIncorrectRequestDataException() {
+
+        assertThrows(IncorrectRequestDataException.class, () -> readAll("name,price\nConcert,100\n", CSV));
+    }
+
+    @Test
+    void next_ndjson_expectedRowsAndMalformedLineReported() {
+
+        String ndjson = "{\"name\": \"Concert\", \"description\": \"Music concert\", \"price\": 100}\n" +
+                "\n" +
+                "{\"name\": \"Talk\", \n" +
+                "{\"name\": \"Quiz\", \"description\": \"Pub quiz\", \"price\": 400}";
+
+        List<EventImportReader.Row> rows = readAll(ndjson, NDJSON);
+
+        assertEquals(3, rows.size());
+        assertEquals(new EventImportReader.Row(1, new EventRequest(0, "Concert", "Music concert", 100, null), null), rows.get(0));
+        assertEquals(3, rows.get(1).getLine());
+        assertNull(rows.get(1).getRequest());
+        assertEquals(new EventImportReader.Row(4, new EventRequest(0, "Quiz", "Pub quiz", 400, null), null), rows.get(2));
+    }
+
+    @Test
+    void new_unsupportedFormat_throwsIncorrectRequestDataException() {
+
+        assertThrows(IncorrectRequestDataException.class,
+                () -> new EventImportReader(new StringReader(""), MediaType.APPLICATION_JSON, new ObjectMapper()));
+    }
+
+    private static List<EventImportReader.Row> readAll(String body, MediaType format) {
+
+        List<EventImportReader.Row> rows = new ArrayList<>();
+        new EventImportReader(new StringReader(body), format, new ObjectMapper()).forEachRemaining(rows::add);
+
+        return rows;
+    }
+
+}
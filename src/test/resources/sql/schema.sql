@@ -50,7 +50,29 @@ CREATE TABLE events
     user_id     INT REFERENCES users (id),
     name        VARCHAR(255)          UNIQUE NOT NULL,
     description TEXT                  NOT NULL,
-    price       INT CHECK (price > 0) NOT NULL
+    price       INT CHECK (price > 0) NOT NULL,
+    capacity    INT CHECK (capacity > 0)
+);
+
+DROP TABLE IF EXISTS event_seats;
+
+CREATE TABLE event_seats
+(
+    event_id INT PRIMARY KEY REFERENCES events (id) ON DELETE CASCADE,
+    accepted INT NOT NULL DEFAULT 0 CHECK (accepted >= 0)
+);
+
+DROP TABLE IF EXISTS idempotency_keys;
+
+CREATE TABLE idempotency_keys
+(
+    user_id         INT          NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    idempotency_key VARCHAR(255) NOT NULL,
+    request_hash    VARCHAR(64)  NOT NULL,
+    response        TEXT,
+    created_at      TIMESTAMP    NOT NULL,
+    claimed_at      TIMESTAMP    NOT NULL,
+    PRIMARY KEY (user_id, idempotency_key)
 );
 
 DROP TABLE IF EXISTS user_event_participations;
@@ -64,5 +86,33 @@ CREATE TABLE user_event_participations
     fio                   VARCHAR(255) NOT NULL,
     age                   INT          NOT NULL CHECK (age > 0) CHECK (age < 150),
     covid_passport_number INT          NOT NULL,
+    waitlisted_at         TIMESTAMP,
     UNIQUE (user_id, event_id)
-);
\ No newline at end of file
+);
+
+-- ids of the application tables come from pooled sequences, the increment has to match the allocationSize
+-- of the entities; seed rows keep their identity ids, so the sequences start above them. The sequences survive
+-- the reset after a test, ids Hibernate has already allocated from them would be handed out twice otherwise
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1000 INCREMENT BY 50;
+
+CREATE SEQUENCE IF NOT EXISTS contracts_seq START WITH 1000 INCREMENT BY 50;
+
+CREATE SEQUENCE IF NOT EXISTS events_seq START WITH 1000 INCREMENT BY 50;
+
+CREATE SEQUENCE IF NOT EXISTS user_event_participations_seq START WITH 1000 INCREMENT BY 50;
+
+CREATE INDEX idx_users_role_id_id ON users (role_id, id);
+
+CREATE INDEX idx_contracts_status_id ON contracts (status, id);
+
+CREATE INDEX idx_contracts_user_id_status_id ON contracts (user_id, status, id);
+
+CREATE INDEX idx_events_user_id_id ON events (user_id, id);
+
+-- the event catalog indexes of V8 are left out, EventCatalogBenchmarkTest creates them with the migration itself
+
+CREATE INDEX idx_uep_event_id_status_id ON user_event_participations (event_id, status, id);
+
+CREATE INDEX idx_uep_user_id_id ON user_event_participations (user_id, id);
+
+CREATE INDEX idx_uep_event_id_status_waitlisted_at_id ON user_event_participations (event_id, status, waitlisted_at, id);